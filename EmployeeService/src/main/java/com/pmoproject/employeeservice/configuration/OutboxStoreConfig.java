@@ -0,0 +1,52 @@
+package com.pmoproject.employeeservice.configuration;
+
+import com.pmoproject.employeeservice.repositories.DatabaseOutboxStore;
+import com.pmoproject.employeeservice.repositories.EmployeeMessageOutboxRepository;
+import com.pmoproject.employeeservice.repositories.OutboxStore;
+import com.pmoproject.employeeservice.repositories.SegmentLogOutboxStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * Class representing the outbox store config for the employee service, which chooses where outbox items are kept
+ */
+@Configuration
+public class OutboxStoreConfig {
+
+    /**
+     * Creates the outbox store named by <code>employeeservice.outbox.store</code>
+     *
+     * @param employeeMessageOutboxRepository JPA repository used by the database store
+     * @param store                           the store to use: database or segmentlog
+     * @param directory                       the directory the segment log is kept in
+     * @param segmentSize                     the size of each segment file of the segment log in bytes
+     * @param ttl                             how long (in milliseconds) the segment log keeps an outbox item, 0 for ever
+     * @param compactionThreshold             the largest fraction of live bytes with which a segment is compacted
+     * @param forceOnWrite                    whether every write to the segment log is written through to the disk
+     * @return the outbox store
+     * @throws IOException              if the segment log cannot be opened
+     * @throws IllegalArgumentException if the store is not one of those supported
+     */
+    @Bean
+    public OutboxStore outboxStore(EmployeeMessageOutboxRepository employeeMessageOutboxRepository,
+                                   @Value("${employeeservice.outbox.store}") String store,
+                                   @Value("${employeeservice.outbox.store.segmentlog.directory}") String directory,
+                                   @Value("${employeeservice.outbox.store.segmentlog.segmentsize}") int segmentSize,
+                                   @Value("${employeeservice.outbox.store.segmentlog.ttl}") long ttl,
+                                   @Value("${employeeservice.outbox.store.segmentlog.compactionthreshold}") double compactionThreshold,
+                                   @Value("${employeeservice.outbox.store.segmentlog.forceonwrite}") boolean forceOnWrite) throws IOException {
+        switch (store.toLowerCase(Locale.ROOT)) {
+            case "database":
+                return new DatabaseOutboxStore(employeeMessageOutboxRepository);
+            case "segmentlog":
+                return new SegmentLogOutboxStore(Paths.get(directory), segmentSize, ttl, compactionThreshold, forceOnWrite);
+            default:
+                throw new IllegalArgumentException(String.format("Unsupported outbox store [%s]", store));
+        }
+    }
+}
@@ -17,17 +17,36 @@ public class CustomRetryPolicy extends SimpleRetryPolicy {
     @Override
     public boolean canRetry(RetryContext context) {
         Throwable t = context.getLastThrowable();
-        return (t == null || retryForException(t.getCause())) && context.getRetryCount() < maxAttempts;
+        return (t == null || isRetryable(t)) && context.getRetryCount() < maxAttempts;
+    }
+
+    /**
+     * method used to check whether the failure of a listener is non-fatal, by the cause the listener's exception wraps
+     * @param t the exception thrown by the listener container
+     * @return a boolean indicating whether the failed message may be retried
+     */
+    public boolean isRetryable(Throwable t) {
+        return retryForException(t.getCause());
+    }
+
+    /**
+     * @return the maximum number of attempts the consumer makes to process a message before sending it to the DLQ
+     */
+    @Override
+    public int getMaxAttempts() {
+        return maxAttempts;
     }
 
     /**
      * Used to instantiate an object of this class
      * @param maxAttempts the maximum number of attempts the consumer attempt to the process the message before sending it to the DLQ
-     * @param retryableExceptions a map used to indicate what exceptions are considered non-fatal (consumer will retry)
+     * @param retryableExceptions a map used to indicate what exceptions are considered non-fatal (consumer will retry),
+     *                            any other exception is fatal. The causes of an exception are classified too, if the
+     *                            exception itself is not classified as non-fatal
      */
     public CustomRetryPolicy(int maxAttempts, Map<Class<? extends Throwable>, Boolean> retryableExceptions) {
         this.maxAttempts = maxAttempts;
-        this.retryableClassifier = new BinaryExceptionClassifier(retryableExceptions, false);
+        this.retryableClassifier = new BinaryExceptionClassifier(retryableExceptions, false, true);
     }
 
     /**
@@ -36,7 +55,7 @@ public class CustomRetryPolicy extends SimpleRetryPolicy {
      * @return a boolean indicating whether an exception is considered non-fatal
      */
     private boolean retryForException(Throwable ex) {
-        return this.retryableClassifier.classify(ex);
+        return ex != null && this.retryableClassifier.classify(ex);
     }
 }
 
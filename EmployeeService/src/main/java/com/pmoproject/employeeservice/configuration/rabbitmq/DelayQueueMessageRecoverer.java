@@ -0,0 +1,217 @@
+package com.pmoproject.employeeservice.configuration.rabbitmq;
+
+import com.pmoproject.employeeservice.metrics.EmployeeServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.retry.MessageBatchRecoverer;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Recovers failed messages by sending them to a tier of TTL delay queues rather than retrying them on the consumer thread.
+ * <p>
+ * Each delay queue holds its messages for its TTL and then dead-letters them back into the queue they were consumed from,
+ * where they are attempted again. The number of failed attempts travels with the message in the
+ * <code>x-retry-attempts</code> header, and the n-th failure is delayed by the n-th tier (or the last tier, once there
+ * are more failures than tiers). The failed message is acknowledged once the broker has confirmed its publish to the
+ * delay queue, so the consumer moves on to the next message without waiting out the delay. A publish that is nacked, or
+ * not confirmed within the confirm timeout, rejects the failed message instead, so that it is dead-lettered rather than
+ * acknowledged and lost.
+ * <p>
+ * Whether a failure may be retried, and how many attempts are made, is decided by the {@link CustomRetryPolicy} as it is
+ * for in-thread retries. Once a message cannot be retried it is rejected, and so dead-lettered by its queue as before
+ */
+@Slf4j
+public class DelayQueueMessageRecoverer implements MessageBatchRecoverer {
+    public static final String RETRY_ATTEMPTS_HEADER = "x-retry-attempts";
+
+    private final RabbitTemplate rabbitTemplate;
+    private final CustomRetryPolicy retryPolicy;
+    private final String queueName;
+    private final long[] delays;
+    private final String deadLetterRoutingKey;
+    private final EmployeeServiceMetrics employeeServiceMetrics;
+    private final long confirmTimeout;
+
+    /**
+     * Used to instantiate an object of this class
+     *
+     * @param rabbitTemplate         template used to send failed messages to their delay queue, whose connection factory
+     *                               has correlated publisher confirms enabled
+     * @param retryPolicy            decides whether a failure may be retried, and the maximum number of attempts
+     * @param queueName              the queue the failed messages were consumed from, and which the delay queues dead-letter into
+     * @param delays                 the TTL (in milliseconds) of each tier of delay queue, in the order they are used
+     * @param deadLetterRoutingKey   routing key on the dead letter exchange of messages of a batch that cannot be retried
+     * @param employeeServiceMetrics used to record retried and dead-lettered messages
+     * @param confirmTimeout         how long (in milliseconds) to wait for the broker to confirm each publish
+     */
+    public DelayQueueMessageRecoverer(RabbitTemplate rabbitTemplate, CustomRetryPolicy retryPolicy, String queueName,
+                                      long[] delays, String deadLetterRoutingKey, EmployeeServiceMetrics employeeServiceMetrics,
+                                      long confirmTimeout) {
+        if (delays.length == 0) {
+            throw new IllegalArgumentException("At least one delay queue is required");
+        }
+        this.rabbitTemplate = rabbitTemplate;
+        this.retryPolicy = retryPolicy;
+        this.queueName = queueName;
+        this.delays = delays.clone();
+        this.deadLetterRoutingKey = deadLetterRoutingKey;
+        this.employeeServiceMetrics = employeeServiceMetrics;
+        this.confirmTimeout = confirmTimeout;
+    }
+
+    /**
+     * Gets the name of the delay queue of a tier
+     *
+     * @param queueName the queue the delay queue dead-letters into
+     * @param delay     the TTL (in milliseconds) of the delay queue
+     * @return the name of the delay queue
+     */
+    public static String getDelayQueueName(String queueName, long delay) {
+        return queueName + ".delay." + delay;
+    }
+
+    /**
+     * Sends a failed message to the delay queue of its attempt, or rejects it if it cannot be retried
+     *
+     * @param message the failed message
+     * @param cause   the exception thrown by the listener
+     * @throws AmqpRejectAndDontRequeueException if the message cannot be retried, or its publish to the delay queue is
+     *                                           not confirmed, so that it is dead-lettered
+     */
+    @Override
+    public void recover(Message message, Throwable cause) {
+        int attempts = getAttempts(message) + 1;
+        if (!retryPolicy.isRetryable(cause) || attempts >= retryPolicy.getMaxAttempts()) {
+            employeeServiceMetrics.recordDeadLetter(cause);
+            throw new AmqpRejectAndDontRequeueException("Retry policy exhausted", cause);
+        }
+        try {
+            delay(message, attempts, cause);
+        } catch (AmqpRejectAndDontRequeueException exception) {
+            employeeServiceMetrics.recordDeadLetter(cause);
+            throw exception;
+        }
+    }
+
+    /**
+     * Sends each message of a failed batch to the delay queue of its attempt. Messages of the batch that have used up
+     * their attempts are sent to the dead letter exchange themselves, as the batch is acknowledged as a whole. If the
+     * failure cannot be retried the whole batch is rejected, and so dead-lettered
+     *
+     * @param messages the messages of the failed batch
+     * @param cause    the exception thrown by the listener
+     * @throws AmqpRejectAndDontRequeueException if the failure cannot be retried, or a publish of the batch is not
+     *                                           confirmed, so that the batch is dead-lettered
+     */
+    @Override
+    public void recover(List<Message> messages, Throwable cause) {
+        if (!retryPolicy.isRetryable(cause)) {
+            messages.forEach(message -> employeeServiceMetrics.recordDeadLetter(cause));
+            throw new AmqpRejectAndDontRequeueException("Retry policy exhausted", cause);
+        }
+        try {
+            for (Message message : messages) {
+                int attempts = getAttempts(message) + 1;
+                if (attempts >= retryPolicy.getMaxAttempts()) {
+                    sendConfirmed(RabbitMqConfig.DEAD_LETTER_EXCHANGE_NAME, deadLetterRoutingKey, message, cause);
+                    employeeServiceMetrics.recordDeadLetter(cause);
+                } else {
+                    delay(message, attempts, cause);
+                }
+            }
+        } catch (AmqpRejectAndDontRequeueException exception) {
+            messages.forEach(message -> employeeServiceMetrics.recordDeadLetter(cause));
+            throw exception;
+        }
+    }
+
+    /**
+     * Sends a message to the delay queue of its attempt, recording the attempt in its headers
+     *
+     * @param message  the failed message
+     * @param attempts the number of attempts made to process the message so far
+     * @param cause    the exception thrown by the listener
+     */
+    private void delay(Message message, int attempts, Throwable cause) {
+        long delay = delays[Math.min(attempts, delays.length) - 1];
+        message.getMessageProperties().setHeader(RETRY_ATTEMPTS_HEADER, attempts);
+        sendConfirmed("", getDelayQueueName(queueName, delay), message, cause);
+        employeeServiceMetrics.recordRetry();
+        log.debug("Delaying attempt {} of message {} by {}ms", attempts + 1,
+                message.getMessageProperties().getCorrelationId(), delay);
+    }
+
+    /**
+     * Sends a message and waits for the broker to confirm it, so that the failed message it was sent in place of is only
+     * acknowledged once it is safely stored
+     *
+     * @param exchange   the exchange to send the message to
+     * @param routingKey the routing key to send the message with
+     * @param message    the message
+     * @param cause      the exception thrown by the listener
+     * @throws AmqpRejectAndDontRequeueException if the message could not be sent, or was nacked or not confirmed within
+     *                                           the confirm timeout
+     */
+    private void sendConfirmed(String exchange, String routingKey, Message message, Throwable cause) {
+        String correlationId = message.getMessageProperties().getCorrelationId();
+        CorrelationData correlationData = new CorrelationData();
+        CorrelationData.Confirm confirm;
+        try {
+            rabbitTemplate.send(exchange, routingKey, message, correlationData);
+            confirm = correlationData.getFuture().get(confirmTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw notConfirmed(correlationId, routingKey, "interrupted", cause);
+        } catch (AmqpException | ExecutionException | TimeoutException exception) {
+            log.warn("Could not confirm the publish of message {} to {}", correlationId, routingKey, exception);
+            throw notConfirmed(correlationId, routingKey, exception.getClass().getSimpleName(), cause);
+        }
+        if (!confirm.isAck()) {
+            throw notConfirmed(correlationId, routingKey, "nacked: " + confirm.getReason(), cause);
+        }
+    }
+
+    /**
+     * Creates the exception that rejects a failed message whose replacement publish was not confirmed
+     *
+     * @param correlationId the correlation id of the failed message
+     * @param routingKey    the routing key the message was sent with
+     * @param reason        why the publish was not confirmed
+     * @param cause         the exception thrown by the listener
+     * @return the exception to throw
+     */
+    private static AmqpRejectAndDontRequeueException notConfirmed(String correlationId, String routingKey, String reason,
+                                                                 Throwable cause) {
+        return new AmqpRejectAndDontRequeueException("Publish of message " + correlationId + " to " + routingKey
+                + " was not confirmed (" + reason + ")", cause);
+    }
+
+    /**
+     * Gets the number of failed attempts to process a message, from its <code>x-retry-attempts</code> header
+     *
+     * @param message the message
+     * @return the number of failed attempts, 0 if the message has not failed before
+     */
+    private static int getAttempts(Message message) {
+        Object attempts = message.getMessageProperties().getHeader(RETRY_ATTEMPTS_HEADER);
+        if (attempts instanceof Number) {
+            return ((Number) attempts).intValue();
+        }
+        if (attempts != null) {
+            try {
+                return Integer.parseInt(attempts.toString());
+            } catch (NumberFormatException exception) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+}
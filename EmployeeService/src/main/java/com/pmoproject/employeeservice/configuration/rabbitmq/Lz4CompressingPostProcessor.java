@@ -0,0 +1,26 @@
+package com.pmoproject.employeeservice.configuration.rabbitmq;
+
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import org.springframework.amqp.support.postprocessor.AbstractCompressingPostProcessor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Compresses message bodies into the LZ4 frame format and marks them with the <code>lz4</code> content encoding, in the
+ * same way as Spring's <code>GZipPostProcessor</code> does for gzip. LZ4 compresses less than gzip but is many times
+ * faster, in both directions
+ */
+public class Lz4CompressingPostProcessor extends AbstractCompressingPostProcessor {
+    public static final String LZ4_ENCODING = "lz4";
+
+    @Override
+    protected OutputStream getCompressorStream(OutputStream stream) throws IOException {
+        return new LZ4FrameOutputStream(stream);
+    }
+
+    @Override
+    protected String getEncoding() {
+        return LZ4_ENCODING;
+    }
+}
@@ -0,0 +1,32 @@
+package com.pmoproject.employeeservice.configuration.rabbitmq;
+
+import net.jpountz.lz4.LZ4FrameInputStream;
+import org.springframework.amqp.support.postprocessor.AbstractDecompressingPostProcessor;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decompresses message bodies compressed by {@link Lz4CompressingPostProcessor}, or by any other producer of the LZ4
+ * frame format that marks them with the <code>lz4</code> content encoding
+ */
+public class Lz4DecompressingPostProcessor extends AbstractDecompressingPostProcessor {
+
+    /**
+     * Used to instantiate a post-processor that decompresses every message it is given, as those registered with a
+     * <code>DelegatingDecompressingPostProcessor</code> must, since it only hands them messages with their encoding
+     */
+    public Lz4DecompressingPostProcessor() {
+        super(true);
+    }
+
+    @Override
+    protected InputStream getDecompressorStream(InputStream stream) throws IOException {
+        return new LZ4FrameInputStream(stream);
+    }
+
+    @Override
+    protected String getEncoding() {
+        return Lz4CompressingPostProcessor.LZ4_ENCODING;
+    }
+}
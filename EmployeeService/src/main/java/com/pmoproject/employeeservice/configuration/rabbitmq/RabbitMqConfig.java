@@ -1,8 +1,13 @@
 package com.pmoproject.employeeservice.configuration.rabbitmq;
 
 
+import com.pmoproject.employeeservice.metrics.EmployeeServiceMetrics;
+import com.pmoproject.employeeservice.models.rabbitmq.RequestType;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.AmqpIOException;
 import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.AmqpTimeoutException;
 import org.springframework.amqp.core.*;
 import org.springframework.amqp.rabbit.annotation.EnableRabbit;
 import org.springframework.amqp.rabbit.config.RetryInterceptorBuilder;
@@ -16,25 +21,50 @@ import org.springframework.amqp.rabbit.listener.ConditionalRejectingErrorHandler
 import org.springframework.amqp.rabbit.listener.FatalExceptionStrategy;
 import org.springframework.amqp.rabbit.retry.MessageRecoverer;
 import org.springframework.amqp.rabbit.retry.RejectAndDontRequeueRecoverer;
-import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.amqp.support.postprocessor.DelegatingDecompressingPostProcessor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
 import org.springframework.retry.backoff.BackOffPolicy;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryPolicy;
 import org.springframework.retry.backoff.ExponentialBackOffPolicy;
+import org.springframework.retry.listener.RetryListenerSupport;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.util.ErrorHandler;
 
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 /**
- * Class representing RabbitMQ config for the employee service
+ * Class representing RabbitMQ config for the employee service, with a read and a write queue alongside
+ * <code>employeeServiceQueue</code>, see {@link #getRoutingKey}
  */
 @Configuration
 @Slf4j
 public class RabbitMqConfig {
 
+    public static final String DEAD_LETTER_EXCHANGE_NAME = "deadLetterExchange";
+    public static final String EMPLOYEE_SERVICE_DEAD_LETTER_ROUTING_KEY = "employeeServiceDeadLetter";
+    public static final String EMPLOYEE_SERVICE_EXCHANGE_NAME = "employeeServiceExchange";
+    public static final String EMPLOYEE_SERVICE_ROUTING_KEY = "employeeService";
+    public static final String EMPLOYEE_SERVICE_READ_ROUTING_KEY = "employeeService.read";
+    public static final String EMPLOYEE_SERVICE_WRITE_ROUTING_KEY = "employeeService.write";
+    public static final String EMPLOYEE_SERVICE_READ_DEAD_LETTER_ROUTING_KEY = "employeeServiceReadDeadLetter";
+    public static final String EMPLOYEE_SERVICE_WRITE_DEAD_LETTER_ROUTING_KEY = "employeeServiceWriteDeadLetter";
+
     @Value("${spring.rabbitmq.host}")
     private String host;
 
@@ -50,6 +80,60 @@ public class RabbitMqConfig {
     @Value("${employeeservice.queuename}")
     private String employeeServiceQueueName;
 
+    @Value("${employeeservice.queues.read.name}")
+    private String employeeServiceReadQueueName;
+
+    @Value("${employeeservice.queues.write.name}")
+    private String employeeServiceWriteQueueName;
+
+    @Value("${employeeservice.listener.batch.size}")
+    private int listenerBatchSize;
+
+    @Value("${employeeservice.listener.batch.receivetimeout}")
+    private long listenerBatchReceiveTimeout;
+
+    @Value("${employeeservice.publisher.separateconnection}")
+    private boolean usePublisherConnection;
+
+    @Value("${employeeservice.listener.adaptive.enabled}")
+    private boolean adaptiveConcurrencyEnabled;
+
+    @Value("${employeeservice.listener.adaptive.minconsumers}")
+    private int adaptiveMinConsumers;
+
+    @Value("${employeeservice.listener.adaptive.minprefetch}")
+    private int adaptiveMinPrefetch;
+
+    @Value("${employeeservice.retry.mode}")
+    private String retryMode;
+
+    @Value("${employeeservice.retry.delayqueues.delays}")
+    private long[] retryDelays;
+
+    @Value("${employeeservice.retry.delayqueues.confirmtimeout}")
+    private long retryConfirmTimeout;
+
+    private final EmployeeServiceMetrics employeeServiceMetrics;
+
+    /**
+     * Gets the routing key that requests of a type are meant to be published with, choosing between the read and the
+     * write queue. Requests of any type published with <code>employeeService</code> are still consumed from
+     * <code>employeeServiceQueue</code>
+     * @param requestType the type of the requests
+     * @return the write routing key for requests that write employees, the read routing key otherwise
+     */
+    public static String getRoutingKey(RequestType requestType) {
+        return requestType.isWrite() ? EMPLOYEE_SERVICE_WRITE_ROUTING_KEY : EMPLOYEE_SERVICE_READ_ROUTING_KEY;
+    }
+
+    /**
+     * Used to instantiate an object of this class
+     * @param employeeServiceMetrics used to record message conversion times, retries and dead-lettered messages
+     */
+    public RabbitMqConfig(EmployeeServiceMetrics employeeServiceMetrics) {
+        this.employeeServiceMetrics = employeeServiceMetrics;
+    }
+
     @Bean
     public ConnectionFactory connectionFactory() {
         CachingConnectionFactory connectionFactory = new CachingConnectionFactory(host, port);
@@ -67,36 +151,53 @@ public class RabbitMqConfig {
         return new RabbitAdmin(connectionFactory());
     }
 
+    /**
+     * Template every message is published with. Unless <code>employeeservice.publisher.separateconnection</code> is
+     * disabled, it publishes on a connection of its own, so that the broker blocking publishers under flow control does
+     * not also stall the consumers' connection
+     */
     @Bean
     public RabbitTemplate rabbitTemplate(final ConnectionFactory connectionFactory) {
         RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
-        rabbitTemplate.setMessageConverter(producerJackson2MessageConverter());
+        rabbitTemplate.setMessageConverter(wireFormatMessageConverter());
         rabbitTemplate.setMandatory(true);
+        rabbitTemplate.setUsePublisherConnection(usePublisherConnection);
         return rabbitTemplate;
     }
 
 
     @Bean
-    public Jackson2JsonMessageConverter producerJackson2MessageConverter() {
-        return new Jackson2JsonMessageConverter();
+    public MessageConverter wireFormatMessageConverter() {
+        return new TimedWireFormatMessageConverter(employeeServiceMetrics);
+    }
+
+    /**
+     * Decompresses request messages whose content encoding names a compression codec (gzip, zip, deflate or lz4) as
+     * soon as they are received, so that listeners only ever see uncompressed bodies. Other messages are left as they are
+     */
+    @Bean
+    public DelegatingDecompressingPostProcessor decompressingPostProcessor() {
+        DelegatingDecompressingPostProcessor decompressingPostProcessor = new DelegatingDecompressingPostProcessor();
+        decompressingPostProcessor.addDecompressor(Lz4CompressingPostProcessor.LZ4_ENCODING, new Lz4DecompressingPostProcessor());
+        return decompressingPostProcessor;
     }
 
     @Bean
     public DirectExchange employeeServiceExchange() {
-        return new DirectExchange("employeeServiceExchange", true, false);
+        return new DirectExchange(EMPLOYEE_SERVICE_EXCHANGE_NAME, true, false);
     }
 
     @Bean
     public DirectExchange deadLetterExchange() {
         //I don't really care about whether the DQL persists messages during server restarts as this isn't a real-life system
-        return new DirectExchange("deadLetterExchange", false, false);
+        return new DirectExchange(DEAD_LETTER_EXCHANGE_NAME, false, false);
     }
 
     @Bean
     public Queue employeeServiceQueue() {
         return QueueBuilder.durable(employeeServiceQueueName)
-                .deadLetterExchange("deadLetterExchange")
-                .deadLetterRoutingKey("employeeServiceDeadLetter")
+                .deadLetterExchange(DEAD_LETTER_EXCHANGE_NAME)
+                .deadLetterRoutingKey(EMPLOYEE_SERVICE_DEAD_LETTER_ROUTING_KEY)
                 .build();
     }
 
@@ -105,16 +206,86 @@ public class RabbitMqConfig {
         return QueueBuilder.nonDurable("employeeServiceDeadLetterQueue").build();
     }
 
+    /**
+     * The tier of TTL delay queues failed messages of <code>employeeServiceQueue</code> wait in before their next attempt,
+     * when <code>employeeservice.retry.mode</code> is <code>delayqueues</code>. Each has no consumer, and dead-letters its
+     * messages back into <code>employeeServiceQueue</code> through the default exchange once their TTL has passed
+     */
+    @Bean
+    public Declarables employeeServiceDelayQueues() {
+        List<Declarable> delayQueues = new ArrayList<>();
+        if (isDelayQueueRetryMode()) {
+            for (long delay : retryDelays) {
+                delayQueues.add(QueueBuilder.durable(DelayQueueMessageRecoverer.getDelayQueueName(employeeServiceQueueName, delay))
+                        .ttl(Math.toIntExact(delay))
+                        .deadLetterExchange("")
+                        .deadLetterRoutingKey(employeeServiceQueueName)
+                        .build());
+            }
+        }
+        return new Declarables(delayQueues);
+    }
+
+    @Bean
+    public Queue employeeServiceReadQueue() {
+        return QueueBuilder.durable(employeeServiceReadQueueName)
+                .deadLetterExchange(DEAD_LETTER_EXCHANGE_NAME)
+                .deadLetterRoutingKey(EMPLOYEE_SERVICE_READ_DEAD_LETTER_ROUTING_KEY)
+                .build();
+    }
+
+    @Bean
+    public Queue employeeServiceWriteQueue() {
+        return QueueBuilder.durable(employeeServiceWriteQueueName)
+                .deadLetterExchange(DEAD_LETTER_EXCHANGE_NAME)
+                .deadLetterRoutingKey(EMPLOYEE_SERVICE_WRITE_DEAD_LETTER_ROUTING_KEY)
+                .build();
+    }
+
+    @Bean
+    public Queue employeeServiceReadDeadLetterQueue() {
+        return QueueBuilder.nonDurable("employeeServiceReadDeadLetterQueue").build();
+    }
+
+    @Bean
+    public Queue employeeServiceWriteDeadLetterQueue() {
+        return QueueBuilder.nonDurable("employeeServiceWriteDeadLetterQueue").build();
+    }
+
     @Bean
     public Binding employeeServiceExchangeBinding() {
         return BindingBuilder.bind(employeeServiceQueue())
-                .to(employeeServiceExchange()).with("employeeService");
+                .to(employeeServiceExchange()).with(EMPLOYEE_SERVICE_ROUTING_KEY);
+    }
+
+    @Bean
+    public Binding employeeServiceReadExchangeBinding() {
+        return BindingBuilder.bind(employeeServiceReadQueue())
+                .to(employeeServiceExchange()).with(EMPLOYEE_SERVICE_READ_ROUTING_KEY);
+    }
+
+    @Bean
+    public Binding employeeServiceWriteExchangeBinding() {
+        return BindingBuilder.bind(employeeServiceWriteQueue())
+                .to(employeeServiceExchange()).with(EMPLOYEE_SERVICE_WRITE_ROUTING_KEY);
     }
 
     @Bean
     public Binding employeeServiceDeadLetterBinding() {
         return BindingBuilder.bind(employeeServiceDeadLetterQueue())
-                .to(deadLetterExchange()).with("employeeServiceDeadLetter");
+                .to(deadLetterExchange()).with(EMPLOYEE_SERVICE_DEAD_LETTER_ROUTING_KEY);
+    }
+
+    @Bean
+    public Binding employeeServiceReadDeadLetterBinding() {
+        return BindingBuilder.bind(employeeServiceReadDeadLetterQueue())
+                .to(deadLetterExchange()).with(EMPLOYEE_SERVICE_READ_DEAD_LETTER_ROUTING_KEY);
+    }
+
+    @Bean
+    public Binding employeeServiceWriteDeadLetterBinding() {
+        return BindingBuilder.bind(employeeServiceWriteDeadLetterQueue())
+                .to(deadLetterExchange()).with(EMPLOYEE_SERVICE_WRITE_DEAD_LETTER_ROUTING_KEY);
     }
 
     @Bean
@@ -125,10 +296,105 @@ public class RabbitMqConfig {
     @Bean
     public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(ConnectionFactory connectionFactory,
                                                                                SimpleRabbitListenerContainerFactoryConfigurer configurer) {
+        return createListenerContainerFactory(connectionFactory, configurer);
+    }
+
+    /**
+     * Container factory for the batch consumption mode, configured as per <code>rabbitListenerContainerFactory</code> but
+     * handing the listener up to <code>employeeservice.listener.batch.size</code> messages at a time. A batch is handed over
+     * early if no further message arrives within <code>employeeservice.listener.batch.receivetimeout</code> milliseconds
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory batchRabbitListenerContainerFactory(ConnectionFactory connectionFactory,
+                                                                                    SimpleRabbitListenerContainerFactoryConfigurer configurer) {
+        SimpleRabbitListenerContainerFactory factory = createListenerContainerFactory(connectionFactory, configurer);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(listenerBatchSize);
+        factory.setReceiveTimeout(listenerBatchReceiveTimeout);
+        return factory;
+    }
+
+    /**
+     * Container factory for the read queue, configured by the <code>employeeservice.queues.read</code> properties
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory readRabbitListenerContainerFactory(
+            ConnectionFactory connectionFactory, SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            @Value("${employeeservice.queues.read.concurrency}") int concurrency,
+            @Value("${employeeservice.queues.read.maxconcurrency}") int maxConcurrency,
+            @Value("${employeeservice.queues.read.prefetch}") int prefetch,
+            @Value("${employeeservice.queues.read.retry.maxattempts}") int maxAttempts,
+            @Value("${employeeservice.queues.read.retry.initialinterval}") long initialInterval,
+            @Value("${employeeservice.queues.read.retry.maxinterval}") long maxInterval) {
+        return createQueueListenerContainerFactory(connectionFactory, configurer, concurrency, maxConcurrency, prefetch,
+                createRetryInterceptor(maxAttempts, createBackOffPolicy(initialInterval, maxInterval)));
+    }
+
+    /**
+     * Container factory for the write queue, configured by the <code>employeeservice.queues.write</code> properties
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory writeRabbitListenerContainerFactory(
+            ConnectionFactory connectionFactory, SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            @Value("${employeeservice.queues.write.concurrency}") int concurrency,
+            @Value("${employeeservice.queues.write.maxconcurrency}") int maxConcurrency,
+            @Value("${employeeservice.queues.write.prefetch}") int prefetch,
+            @Value("${employeeservice.queues.write.retry.maxattempts}") int maxAttempts,
+            @Value("${employeeservice.queues.write.retry.initialinterval}") long initialInterval,
+            @Value("${employeeservice.queues.write.retry.maxinterval}") long maxInterval) {
+        return createQueueListenerContainerFactory(connectionFactory, configurer, concurrency, maxConcurrency, prefetch,
+                createRetryInterceptor(maxAttempts, createBackOffPolicy(initialInterval, maxInterval)));
+    }
+
+    /**
+     * Creates a listener container factory with the error handling and retry behaviour shared by every listener container.
+     * When <code>employeeservice.listener.adaptive.enabled</code> is set its containers start at the adaptive concurrency
+     * controller's minimum consumers and prefetch, from which the controller adjusts them, otherwise they keep the
+     * consumers and prefetch of the spring.rabbitmq.listener properties
+     * @param connectionFactory connection factory the containers will consume from
+     * @param configurer used to apply the spring.rabbitmq.listener properties
+     * @return a configured listener container factory
+     */
+    private SimpleRabbitListenerContainerFactory createListenerContainerFactory(ConnectionFactory connectionFactory,
+                                                                                SimpleRabbitListenerContainerFactoryConfigurer configurer) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setErrorHandler(errorHandler());
+        factory.setAfterReceivePostProcessors(decompressingPostProcessor());
+        if (adaptiveConcurrencyEnabled) {
+            factory.setConcurrentConsumers(Math.max(1, adaptiveMinConsumers));
+            factory.setMaxConcurrentConsumers(Math.max(1, adaptiveMinConsumers));
+            factory.setPrefetchCount(Math.max(1, adaptiveMinPrefetch));
+        }
+        factory.setAdviceChain(isDelayQueueRetryMode()
+                ? delayQueueRetryInterceptor().build()
+                : retryOperationsInterceptor().build());
+        return factory;
+    }
+
+    /**
+     * Creates a listener container factory for a queue with its own consumer and retry settings, overriding the
+     * spring.rabbitmq.listener properties
+     * @param connectionFactory connection factory the containers will consume from
+     * @param configurer used to apply the spring.rabbitmq.listener properties
+     * @param concurrency the number of consumers each container starts with
+     * @param maxConcurrency the number of consumers each container may scale up to under load
+     * @param prefetch the number of unacknowledged messages each consumer may hold
+     * @param retryInterceptor the retry behaviour of the containers
+     * @return a configured listener container factory
+     */
+    private SimpleRabbitListenerContainerFactory createQueueListenerContainerFactory(
+            ConnectionFactory connectionFactory, SimpleRabbitListenerContainerFactoryConfigurer configurer, int concurrency,
+            int maxConcurrency, int prefetch, RetryInterceptorBuilder.StatelessRetryInterceptorBuilder retryInterceptor) {
         SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
         configurer.configure(factory, connectionFactory);
         factory.setErrorHandler(errorHandler());
-        factory.setAdviceChain(retryOperationsInterceptor().build());
+        factory.setAfterReceivePostProcessors(decompressingPostProcessor());
+        factory.setConcurrentConsumers(concurrency);
+        factory.setMaxConcurrentConsumers(Math.max(concurrency, maxConcurrency));
+        factory.setPrefetchCount(prefetch);
+        factory.setAdviceChain(retryInterceptor.build());
         return factory;
     }
 
@@ -137,29 +403,111 @@ public class RabbitMqConfig {
         return new ConditionalRejectingErrorHandler(customExceptionStrategy());
     }
 
+    /**
+     * Retry interceptor shared by every listener container. Each failed delivery that is going to be retried, and each
+     * message that is rejected once it cannot be retried (and so dead-lettered by the queue), is recorded in
+     * {@link EmployeeServiceMetrics}
+     */
     @Bean
     public RetryInterceptorBuilder.StatelessRetryInterceptorBuilder retryOperationsInterceptor() {
+        return createRetryInterceptor(3, backoffPolicy());
+    }
+
+    /**
+     * Retry interceptor of <code>employeeServiceQueue</code> when <code>employeeservice.retry.mode</code> is
+     * <code>delayqueues</code>. Rather than backing off on the consumer thread, a failed message is handed straight to a
+     * {@link DelayQueueMessageRecoverer}, which sends it to one of the {@link #employeeServiceDelayQueues} to be attempted
+     * again later, or rejects it once the {@link CustomRetryPolicy} does not allow a further attempt
+     */
+    @Bean
+    public RetryInterceptorBuilder.StatelessRetryInterceptorBuilder delayQueueRetryInterceptor() {
         RetryInterceptorBuilder.StatelessRetryInterceptorBuilder builder = RetryInterceptorBuilder.stateless();
-        builder.retryPolicy(new CustomRetryPolicy(3, retryableClassifier()));
-        builder.backOffPolicy(backoffPolicy());
+        builder.maxAttempts(1);
+        builder.recoverer(new DelayQueueMessageRecoverer(rabbitTemplate(connectionFactory()),
+                new CustomRetryPolicy(3, retryableClassifier()), employeeServiceQueueName, retryDelays,
+                EMPLOYEE_SERVICE_DEAD_LETTER_ROUTING_KEY, employeeServiceMetrics, retryConfirmTimeout));
+        return builder;
+    }
+
+    /**
+     * Checks which retry mode <code>employeeServiceQueue</code> is configured with
+     * @return whether failed messages are retried through delay queues, rather than by backing off on the consumer thread
+     * @throws IllegalArgumentException if the retry mode is not one of those supported
+     */
+    private boolean isDelayQueueRetryMode() {
+        switch (retryMode.toLowerCase(Locale.ROOT)) {
+            case "backoff":
+                return false;
+            case "delayqueues":
+                return true;
+            default:
+                throw new IllegalArgumentException(String.format("Unsupported retry mode [%s]", retryMode));
+        }
+    }
+
+    /**
+     * Creates a retry interceptor, as described on {@link #retryOperationsInterceptor}
+     * @param maxAttempts the maximum number of attempts to process a message before it is dead-lettered
+     * @param backOffPolicy the back off between attempts
+     * @return a retry interceptor builder
+     */
+    private RetryInterceptorBuilder.StatelessRetryInterceptorBuilder createRetryInterceptor(int maxAttempts,
+                                                                                             BackOffPolicy backOffPolicy) {
+        RetryPolicy retryPolicy = new CustomRetryPolicy(maxAttempts, retryableClassifier());
+        RetryTemplate retryTemplate = new RetryTemplate();
+        retryTemplate.setRetryPolicy(retryPolicy);
+        retryTemplate.setBackOffPolicy(backOffPolicy);
+        retryTemplate.registerListener(new RetryListenerSupport() {
+            @Override
+            public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback, Throwable throwable) {
+                if (retryPolicy.canRetry(context)) {
+                    employeeServiceMetrics.recordRetry();
+                }
+            }
+        });
+        RetryInterceptorBuilder.StatelessRetryInterceptorBuilder builder = RetryInterceptorBuilder.stateless();
+        builder.retryOperations(retryTemplate);
         MessageRecoverer recoverer = new RejectAndDontRequeueRecoverer();
-        builder.recoverer(recoverer);
+        builder.recoverer((message, cause) -> {
+            employeeServiceMetrics.recordDeadLetter(cause);
+            recoverer.recover(message, cause);
+        });
         return builder;
     }
 
     @Bean
     public BackOffPolicy backoffPolicy() {
+        return createBackOffPolicy(3000, 10000);
+    }
+
+    private static BackOffPolicy createBackOffPolicy(long initialInterval, long maxInterval) {
         ExponentialBackOffPolicy backoffPolicy = new ExponentialBackOffPolicy();
-        backoffPolicy.setInitialInterval(3000);
-        backoffPolicy.setMaxInterval(10000);
+        backoffPolicy.setInitialInterval(initialInterval);
+        backoffPolicy.setMaxInterval(maxInterval);
         return backoffPolicy;
     }
 
+    /**
+     * The exceptions a failed message is retried for, used by every {@link CustomRetryPolicy}. Only transient failures of
+     * the infrastructure are retried: the database timing out, losing a lock or deadlocking, losing its connection or being
+     * unable to start a transaction, and the broker connection failing. Anything else, business errors not answered by the
+     * <code>EmployeeServiceController</code>, malformed requests and bugs alike, would fail again on every attempt, so it
+     * is dead-lettered straight away. The cause chain is searched, so a transient failure wrapped by another exception is
+     * still retried
+     */
     @Bean
     public Map<Class<? extends Throwable>, Boolean> retryableClassifier() {
         Map<Class<? extends Throwable>, Boolean> retryableClassifier = new HashMap<>();
         retryableClassifier.put(AmqpRejectAndDontRequeueException.class, false);
-        retryableClassifier.put(Exception.class, true);
+        retryableClassifier.put(TransientDataAccessException.class, true);
+        retryableClassifier.put(RecoverableDataAccessException.class, true);
+        retryableClassifier.put(DataAccessResourceFailureException.class, true);
+        retryableClassifier.put(CannotCreateTransactionException.class, true);
+        retryableClassifier.put(SQLTransientException.class, true);
+        retryableClassifier.put(SQLRecoverableException.class, true);
+        retryableClassifier.put(AmqpConnectException.class, true);
+        retryableClassifier.put(AmqpIOException.class, true);
+        retryableClassifier.put(AmqpTimeoutException.class, true);
         return retryableClassifier;
     }
 
@@ -0,0 +1,70 @@
+package com.pmoproject.employeeservice.configuration.rabbitmq;
+
+import com.pmoproject.employeeservice.metrics.EmployeeServiceMetrics;
+import com.pmoproject.employeeservice.metrics.EmployeeServiceMetrics.Stage;
+import com.pmoproject.employeeservice.models.rabbitmq.RequestType;
+import com.pmoproject.employeeservice.util.WireFormat;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.AbstractMessageConverter;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * A message converter that reads and writes messages in the {@link WireFormat} named by their content type, so that
+ * requests may be sent as JSON, CBOR or Smile. Spring's Jackson converters always decode through a String, which
+ * corrupts the binary formats, hence this converter. Requests are converted into the type of the listener method's
+ * payload parameter.
+ * <p>
+ * How long each conversion of a request message took is recorded as the deserialize stage of the message's request
+ * type, since the listener container converts requests before the listener is called
+ */
+public class TimedWireFormatMessageConverter extends AbstractMessageConverter {
+    private final EmployeeServiceMetrics employeeServiceMetrics;
+
+    /**
+     * Used to instantiate an object of this class
+     * @param employeeServiceMetrics used to record the time taken by each conversion
+     */
+    public TimedWireFormatMessageConverter(EmployeeServiceMetrics employeeServiceMetrics) {
+        this.employeeServiceMetrics = employeeServiceMetrics;
+    }
+
+    @Override
+    public Object fromMessage(Message message) throws MessageConversionException {
+        long start = System.nanoTime();
+        MessageProperties messageProperties = message.getMessageProperties();
+        Type inferredType = messageProperties.getInferredArgumentType();
+        Class<?> targetClass = inferredType instanceof Class ? (Class<?>) inferredType : Object.class;
+        Object converted;
+        try {
+            converted = WireFormat.fromContentType(messageProperties.getContentType())
+                    .readValue(message.getBody(), targetClass);
+        } catch (IOException | IllegalArgumentException exception) {
+            throw new MessageConversionException("Failed to convert message content", exception);
+        }
+        employeeServiceMetrics.recordStage(Stage.DESERIALIZE,
+                RequestType.fromHeaderValue(messageProperties.getHeader("requestType")), System.nanoTime() - start);
+        return converted;
+    }
+
+    /**
+     * Encodes an object in the format named by the content type already set on the message properties, or as JSON if
+     * none is set
+     */
+    @Override
+    protected Message createMessage(Object object, MessageProperties messageProperties) throws MessageConversionException {
+        try {
+            WireFormat format = WireFormat.fromContentType(messageProperties.getContentType());
+            byte[] body = format.writeValueAsBytes(object);
+            messageProperties.setContentType(format.getContentType());
+            messageProperties.setContentEncoding(format.getContentEncoding());
+            messageProperties.setContentLength(body.length);
+            return new Message(body, messageProperties);
+        } catch (IOException | IllegalArgumentException exception) {
+            throw new MessageConversionException("Failed to convert message content", exception);
+        }
+    }
+}
@@ -1,18 +1,45 @@
 package com.pmoproject.employeeservice.controllers;
 
+import com.pmoproject.employeeservice.metrics.EmployeeServiceMetrics;
 import com.pmoproject.employeeservice.models.domain.Employee;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeBatchLookupResult;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeBulkCreateResult;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeExportChunk;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeSearchCriteria;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeSearchPage;
 import com.pmoproject.employeeservice.models.rabbitmq.EmployeeServiceResponse;
+import com.pmoproject.employeeservice.models.rabbitmq.RequestType;
+import com.pmoproject.employeeservice.models.rabbitmq.ResponseMessage;
 import com.pmoproject.employeeservice.services.EmployeeService;
 import lombok.Data;
+import org.springframework.amqp.AmqpException;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Controller;
 
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
 /**
- * Class for the handling requests from the queue and providing an appropriate response to be sent back to the reply queue
+ * Class for the handling requests from the queue and providing an appropriate response to be sent back to the reply queue.
+ * The outcome of every request is counted in {@link EmployeeServiceMetrics}.
+ * <p>
+ * Business errors are answered here with an unsuccessful response, as retrying the request could never change its
+ * outcome: an <code>IllegalArgumentException</code> from the {@link EmployeeService} for a request that fails validation,
+ * and a <code>NoSuchElementException</code> for an employee that does not exist. Any other exception is left to the
+ * listener container, which retries only those classified as transient by <code>RabbitMqConfig.retryableClassifier</code>
  */
 @Controller
 @Data
 public class EmployeeServiceController {
     private final EmployeeService employeeService;
+    private final EmployeeServiceMetrics employeeServiceMetrics;
 
     /**
      * Creates a new employee in the database
@@ -22,24 +49,113 @@ public class EmployeeServiceController {
     public EmployeeServiceResponse createEmployee(Employee employee) {
         try {
             Employee newEmployee = employeeService.createEmployee(employee);
-            return new EmployeeServiceResponse(true, null, newEmployee);
+            return record(RequestType.CREATE_EMPLOYEE, new EmployeeServiceResponse(true, null, newEmployee));
         } catch (IllegalArgumentException exception) {
-            return new EmployeeServiceResponse(false, exception.getMessage(), null);
+            return record(RequestType.CREATE_EMPLOYEE, new EmployeeServiceResponse(false, exception.getMessage(), null));
         }
 
     }
 
+    /**
+     * Creates many new employees in the database at once, see {@link EmployeeService#createEmployees}
+     * @param employees employees to create
+     * @return a <code>EmployeeServiceResponse</code> object containing the outcome of each employee. The response is only
+     * unsuccessful if the request as a whole was invalid, individual employees that could not be created are reported
+     * in its body
+     */
+    public EmployeeServiceResponse createEmployees(List<Employee> employees) {
+        try {
+            EmployeeBulkCreateResult result = employeeService.createEmployees(employees);
+            return record(RequestType.BULK_CREATE_EMPLOYEES, new EmployeeServiceResponse(true, null, result));
+        } catch (IllegalArgumentException exception) {
+            return record(RequestType.BULK_CREATE_EMPLOYEES, new EmployeeServiceResponse(false, exception.getMessage(), null));
+        }
+    }
+
     /**
      * Attempts to retrieve and employee by Id
      * @param id id of the employee to retrieve
-     * @return a <code>EmployeeServiceResponse</code> object containing details of the outcome of the request
+     * @return a <code>EmployeeServiceResponse</code> object containing details of the outcome of the request, which is
+     * unsuccessful if no employee has the id
      */
     public EmployeeServiceResponse getEmployeeById(int id) {
-        Employee employee = employeeService.getEmployeeById(id);
-        if (employee == null) {
-            //TODO: add enum for response messages
-            return new EmployeeServiceResponse(false, String.format("No employee with id [%d] found",id), null);
+        try {
+            Employee employee = employeeService.getEmployeeById(id);
+            return record(RequestType.GET_EMPLOYEE_BY_ID, new EmployeeServiceResponse(true, null, employee));
+        } catch (NoSuchElementException exception) {
+            return record(RequestType.GET_EMPLOYEE_BY_ID,
+                    new EmployeeServiceResponse(false, ResponseMessage.EMPLOYEE_NOT_FOUND.format(id), null));
+        }
+    }
+
+    /**
+     * Attempts to retrieve a number of employees by Id in a single lookup
+     * @param ids ids of the employees to retrieve
+     * @return a <code>EmployeeServiceResponse</code> object containing the employees found and the ids that were not
+     */
+    public EmployeeServiceResponse getEmployeesByIds(List<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return record(RequestType.GET_EMPLOYEES_BY_IDS,
+                    new EmployeeServiceResponse(false, ResponseMessage.NO_EMPLOYEE_IDS.format(), null));
+        }
+        Set<Integer> requestedIds = ids.stream().filter(Objects::nonNull).collect(Collectors.toCollection(LinkedHashSet::new));
+        List<Employee> employees = employeeService.getEmployeesByIds(requestedIds);
+        Set<Integer> foundIds = employees.stream().map(Employee::getId).collect(Collectors.toSet());
+        List<Integer> missingIds = requestedIds.stream().filter(id -> !foundIds.contains(id)).collect(Collectors.toList());
+        return record(RequestType.GET_EMPLOYEES_BY_IDS,
+                new EmployeeServiceResponse(true, null, new EmployeeBatchLookupResult(employees, missingIds)));
+    }
+
+    /**
+     * Searches for employees matching the criteria given, a page at a time, see {@link EmployeeService#searchEmployees}
+     * @param criteria the filters, page size and position of the page to retrieve
+     * @return a <code>EmployeeServiceResponse</code> object containing the page of matching employees
+     */
+    public EmployeeServiceResponse searchEmployees(EmployeeSearchCriteria criteria) {
+        try {
+            EmployeeSearchPage page = employeeService.searchEmployees(criteria);
+            return record(RequestType.SEARCH_EMPLOYEES, new EmployeeServiceResponse(true, null, page));
+        } catch (IllegalArgumentException exception) {
+            return record(RequestType.SEARCH_EMPLOYEES, new EmployeeServiceResponse(false, exception.getMessage(), null));
+        }
+    }
+
+    /**
+     * Exports every employee as a series of numbered chunk responses, so that neither the heap nor a single message has
+     * to hold the whole table. Each chunk is handed to the sender as soon as it has been read, and is only counted as
+     * exported once the sender returns
+     * @param chunkSize the maximum number of employees in each chunk
+     * @param chunkSender called with the <code>EmployeeServiceResponse</code> of each chunk, in order
+     * @return the end-of-stream <code>EmployeeServiceResponse</code> to send after the chunks, reporting a failure if the
+     * export was cut short by the database or by the broker failing to take a chunk
+     */
+    public EmployeeServiceResponse exportEmployees(int chunkSize, Consumer<EmployeeServiceResponse> chunkSender) {
+        AtomicInteger chunkNumber = new AtomicInteger();
+        AtomicLong exportedCount = new AtomicLong();
+        try {
+            employeeService.exportEmployees(chunkSize, employees -> {
+                chunkSender.accept(new EmployeeServiceResponse(true, null, new EmployeeExportChunk(chunkNumber.get(),
+                        false, employees, exportedCount.get() + employees.size())));
+                chunkNumber.incrementAndGet();
+                exportedCount.addAndGet(employees.size());
+            });
+        } catch (DataAccessException | AmqpException exception) {
+            return record(RequestType.EXPORT_EMPLOYEES, new EmployeeServiceResponse(false,
+                    ResponseMessage.EXPORT_FAILED.format(exportedCount.get()),
+                    new EmployeeExportChunk(chunkNumber.get(), true, List.of(), exportedCount.get())));
         }
-        return new EmployeeServiceResponse(true, null, employee);
+        return record(RequestType.EXPORT_EMPLOYEES, new EmployeeServiceResponse(true, null,
+                new EmployeeExportChunk(chunkNumber.get(), true, List.of(), exportedCount.get())));
+    }
+
+    /**
+     * Counts the outcome of a request
+     * @param requestType the type of the request
+     * @param response the response to the request
+     * @return the response, unchanged
+     */
+    private EmployeeServiceResponse record(RequestType requestType, EmployeeServiceResponse response) {
+        employeeServiceMetrics.recordRequest(requestType, response.isSuccess());
+        return response;
     }
 }
@@ -0,0 +1,251 @@
+package com.pmoproject.employeeservice.listener;
+
+import com.pmoproject.employeeservice.metrics.EmployeeServiceMetrics;
+import com.pmoproject.employeeservice.metrics.EmployeeServiceMetrics.Stage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Used to adjust the consumers and prefetch of the employeeServiceQueue containers to database load, AIMD-style. The
+ * read and write containers are never adapted, and the maximum consumers are best kept at or below the Hikari pool size
+ */
+@Component
+@Slf4j
+public class AdaptiveConcurrencyController {
+    static final String[] LISTENER_IDS = {"employeeServiceListener", "employeeServiceBatchListener"};
+    static final String POOL_ACQUIRE_TIMER = "hikaricp.connections.acquire";
+
+    private final RabbitListenerEndpointRegistry listenerEndpointRegistry;
+    private final AmqpAdmin amqpAdmin;
+    private final MeterRegistry meterRegistry;
+    private final EmployeeServiceMetrics employeeServiceMetrics;
+    private final boolean enabled;
+    private final String queueName;
+    private final int minConsumers;
+    private final int maxConsumers;
+    private final int minPrefetch;
+    private final int maxPrefetch;
+    private final double targetLatency;
+    private final double maxPoolWait;
+    private final double decreaseFactor;
+    private final TimerWindow databaseLatency = new TimerWindow();
+    private final TimerWindow poolWait = new TimerWindow();
+
+    private volatile int consumers;
+    private volatile int prefetch;
+    private volatile long queueDepth;
+
+    /**
+     * Used to instantiate an object of this class
+     *
+     * @param listenerEndpointRegistry holds the listener containers to adjust
+     * @param amqpAdmin                used to read the depth of the queue
+     * @param meterRegistry            holds the Hikari pool's connection acquire timer
+     * @param employeeServiceMetrics   holds the route stage timers, and records each adjustment
+     * @param enabled                  whether the consumers and prefetch are adjusted at all
+     * @param queueName                the name of the queue the containers consume
+     * @param minConsumers             the consumers each container starts with, and never goes below
+     * @param maxConsumers             the consumers each container never goes above
+     * @param minPrefetch              the prefetch each container starts with and never goes below, and the step it is
+     *                                 raised by
+     * @param maxPrefetch              the prefetch each container never goes above
+     * @param targetLatency            the mean route stage time (in milliseconds) above which the containers back off
+     * @param maxPoolWait              the mean connection wait (in milliseconds) above which the containers back off
+     * @param decreaseFactor           the factor the consumers and prefetch are multiplied by when backing off
+     */
+    public AdaptiveConcurrencyController(RabbitListenerEndpointRegistry listenerEndpointRegistry, AmqpAdmin amqpAdmin,
+                                         MeterRegistry meterRegistry, EmployeeServiceMetrics employeeServiceMetrics,
+                                         @Value("${employeeservice.listener.adaptive.enabled}") boolean enabled,
+                                         @Value("${employeeservice.queuename}") String queueName,
+                                         @Value("${employeeservice.listener.adaptive.minconsumers}") int minConsumers,
+                                         @Value("${employeeservice.listener.adaptive.maxconsumers}") int maxConsumers,
+                                         @Value("${employeeservice.listener.adaptive.minprefetch}") int minPrefetch,
+                                         @Value("${employeeservice.listener.adaptive.maxprefetch}") int maxPrefetch,
+                                         @Value("${employeeservice.listener.adaptive.targetlatency}") double targetLatency,
+                                         @Value("${employeeservice.listener.adaptive.maxpoolwait}") double maxPoolWait,
+                                         @Value("${employeeservice.listener.adaptive.decreasefactor}") double decreaseFactor) {
+        this.listenerEndpointRegistry = listenerEndpointRegistry;
+        this.amqpAdmin = amqpAdmin;
+        this.meterRegistry = meterRegistry;
+        this.employeeServiceMetrics = employeeServiceMetrics;
+        this.enabled = enabled;
+        this.queueName = queueName;
+        this.minConsumers = Math.max(1, minConsumers);
+        this.maxConsumers = Math.max(this.minConsumers, maxConsumers);
+        this.minPrefetch = Math.max(1, minPrefetch);
+        this.maxPrefetch = Math.max(this.minPrefetch, maxPrefetch);
+        this.targetLatency = targetLatency;
+        this.maxPoolWait = maxPoolWait;
+        this.decreaseFactor = decreaseFactor;
+        this.consumers = this.minConsumers;
+        this.prefetch = this.minPrefetch;
+    }
+
+    /**
+     * Scheduled adjustment of the consumers and prefetch
+     */
+    @Scheduled(initialDelayString = "${employeeservice.listener.adaptive.interval}",
+            fixedDelayString = "${employeeservice.listener.adaptive.interval}")
+    public void adjustScheduled() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            adjust(sample());
+        } catch (RuntimeException exception) {
+            log.warn("Could not sample the listener's load, keeping [{}] consumers with a prefetch of [{}]",
+                    consumers, prefetch, exception);
+        }
+    }
+
+    /**
+     * Samples the load on the listener since the previous sample
+     *
+     * @return the sample
+     */
+    Sample sample() {
+        databaseLatency.advance(employeeServiceMetrics.getStageTimers(Stage.ROUTE));
+        poolWait.advance(meterRegistry.find(POOL_ACQUIRE_TIMER).timers());
+        QueueInformation queueInformation = amqpAdmin.getQueueInfo(queueName);
+        return new Sample(databaseLatency.meanMillis, poolWait.meanMillis,
+                queueInformation == null ? 0 : queueInformation.getMessageCount());
+    }
+
+    /**
+     * Decreases the consumers and prefetch multiplicatively if the database is struggling, or increases them additively
+     * if it is not and messages are waiting in the queue, applying any change to the listener containers
+     *
+     * @param sample the load on the listener since the previous sample
+     */
+    void adjust(Sample sample) {
+        queueDepth = sample.queueDepth;
+        boolean congested = sample.databaseLatencyMillis > targetLatency || sample.poolWaitMillis > maxPoolWait;
+        int newConsumers;
+        int newPrefetch;
+        if (congested) {
+            newConsumers = Math.max(minConsumers, (int) (consumers * decreaseFactor));
+            newPrefetch = Math.max(minPrefetch, (int) (prefetch * decreaseFactor));
+        } else if (sample.queueDepth > 0) {
+            newConsumers = Math.min(maxConsumers, consumers + 1);
+            newPrefetch = Math.min(maxPrefetch, prefetch + minPrefetch);
+        } else {
+            return;
+        }
+        if (newConsumers == consumers && newPrefetch == prefetch) {
+            return;
+        }
+        log.info("Adjusting listener from [{}] consumers with a prefetch of [{}] to [{}] with a prefetch of [{}], "
+                        + "mean route time [{}] ms, mean connection wait [{}] ms, [{}] messages ready", consumers, prefetch,
+                newConsumers, newPrefetch, sample.databaseLatencyMillis, sample.poolWaitMillis, sample.queueDepth);
+        for (String listenerId : LISTENER_IDS) {
+            MessageListenerContainer container = listenerEndpointRegistry.getListenerContainer(listenerId);
+            if (container instanceof SimpleMessageListenerContainer) {
+                applyTo((SimpleMessageListenerContainer) container, newConsumers, newPrefetch);
+            }
+        }
+        consumers = newConsumers;
+        prefetch = newPrefetch;
+        employeeServiceMetrics.recordConcurrencyAdjustment(!congested);
+    }
+
+    /**
+     * Applies new consumers and prefetch to a container, raising or lowering its maximum consumers along with its
+     * consumers so that it never scales them on its own
+     *
+     * @param container    the container
+     * @param newConsumers the new number of consumers
+     * @param newPrefetch  the new prefetch
+     */
+    private void applyTo(SimpleMessageListenerContainer container, int newConsumers, int newPrefetch) {
+        container.setPrefetchCount(newPrefetch);
+        if (newConsumers > consumers) {
+            container.setMaxConcurrentConsumers(newConsumers);
+            container.setConcurrentConsumers(newConsumers);
+        } else if (newConsumers < consumers) {
+            container.setConcurrentConsumers(newConsumers);
+            container.setMaxConcurrentConsumers(newConsumers);
+        }
+    }
+
+    /**
+     * @return the number of consumers of each container
+     */
+    public int getConsumers() {
+        return consumers;
+    }
+
+    /**
+     * @return the prefetch of each container
+     */
+    public int getPrefetch() {
+        return prefetch;
+    }
+
+    /**
+     * @return the number of messages ready in the queue when it was last sampled
+     */
+    public long getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * The load on the listener since the previous sample
+     */
+    static final class Sample {
+        final double databaseLatencyMillis;
+        final double poolWaitMillis;
+        final long queueDepth;
+
+        /**
+         * Used to instantiate an object of this class
+         *
+         * @param databaseLatencyMillis the mean route stage time in milliseconds, 0 if no request was routed
+         * @param poolWaitMillis        the mean connection wait in milliseconds, 0 if no connection was acquired
+         * @param queueDepth            the number of messages ready in the queue
+         */
+        Sample(double databaseLatencyMillis, double poolWaitMillis, long queueDepth) {
+            this.databaseLatencyMillis = databaseLatencyMillis;
+            this.poolWaitMillis = poolWaitMillis;
+            this.queueDepth = queueDepth;
+        }
+    }
+
+    /**
+     * The mean time recorded by a set of timers between one sample and the next
+     */
+    private static final class TimerWindow {
+        private long count;
+        private double totalMillis;
+        private double meanMillis;
+
+        /**
+         * Moves the window on to the current totals of the timers
+         *
+         * @param timers the timers, whose totals only ever grow
+         */
+        private void advance(Collection<Timer> timers) {
+            long newCount = 0;
+            double newTotalMillis = 0;
+            for (Timer timer : timers) {
+                newCount += timer.count();
+                newTotalMillis += timer.totalTime(TimeUnit.MILLISECONDS);
+            }
+            long windowCount = newCount - count;
+            meanMillis = windowCount > 0 ? (newTotalMillis - totalMillis) / windowCount : 0;
+            count = newCount;
+            totalMillis = newTotalMillis;
+        }
+    }
+}
@@ -2,149 +2,582 @@ package com.pmoproject.employeeservice.listener;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.pmoproject.employeeservice.controllers.EmployeeServiceController;
+import com.pmoproject.employeeservice.metrics.EmployeeServiceMetrics;
+import com.pmoproject.employeeservice.metrics.EmployeeServiceMetrics.Stage;
+import com.pmoproject.employeeservice.metrics.TimedCorrelationData;
 import com.pmoproject.employeeservice.models.domain.Employee;
 import com.pmoproject.employeeservice.models.domain.EmployeeMessageOutboxItem;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeExportChunk;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeSearchCriteria;
 import com.pmoproject.employeeservice.models.rabbitmq.EmployeeServiceRequest;
 import com.pmoproject.employeeservice.models.rabbitmq.EmployeeServiceResponse;
+import com.pmoproject.employeeservice.models.rabbitmq.ReplyPayload;
 import com.pmoproject.employeeservice.models.rabbitmq.RequestType;
-import com.pmoproject.employeeservice.repositories.EmployeeMessageOutboxRepository;
+import com.pmoproject.employeeservice.models.rabbitmq.ResponseMessage;
+import com.pmoproject.employeeservice.services.EmployeeMessageOutboxService;
+import com.pmoproject.employeeservice.services.OutboxConfirmProcessor;
 import com.pmoproject.employeeservice.util.JacksonUtils;
+import com.pmoproject.employeeservice.util.ReplyMessageUtils;
+import com.pmoproject.employeeservice.util.WireFormat;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
 import org.springframework.amqp.AmqpRejectAndDontRequeueException;
 import org.springframework.amqp.core.Message;
-import org.springframework.amqp.core.MessagePostProcessor;
 import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.amqp.rabbit.connection.CorrelationData;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static com.pmoproject.employeeservice.configuration.rabbitmq.RabbitMqConfig.DEAD_LETTER_EXCHANGE_NAME;
+import static com.pmoproject.employeeservice.configuration.rabbitmq.RabbitMqConfig.EMPLOYEE_SERVICE_DEAD_LETTER_ROUTING_KEY;
 
 /**
- * Class representing the queue consumer for the employee service
+ * Class representing the queue consumer for the employee service. The time taken by each stage of handling a request is
+ * recorded in {@link EmployeeServiceMetrics}; deserialization of requests consumed by {@link #listen} happens before it
+ * is called and is timed by the message converter.
+ * <p>
+ * Requests the caller compressed are decompressed by the listener containers before they reach this class, and large
+ * replies are compressed by the {@link ReplyEncoder}
  */
 @Component
 @Data
 @Slf4j
 public class EmployeeQueueListener {
-    private final EmployeeMessageOutboxRepository employeeMessageOutboxRepository;
+    public static final String CHUNK_NUMBER_HEADER = "chunkNumber";
+    public static final String END_OF_STREAM_HEADER = "endOfStream";
+
+    private final EmployeeMessageOutboxService employeeMessageOutboxService;
     private final RabbitTemplate rabbitTemplate;
     private final EmployeeServiceController employeeServiceController;
+    private final OutboxConfirmProcessor outboxConfirmProcessor;
+    private final EmployeeServiceMetrics employeeServiceMetrics;
+    private final RequestAdmission requestAdmission;
+    private final ReplyEncoder replyEncoder;
+    private final PlatformTransactionManager transactionManager;
+    private final ReplyPublisher replyPublisher;
+    private final int exportChunkSize;
 
     /**
      * Used to instantiate an object of this class
      *
-     * @param employeeMessageOutboxRepository used to interact with the EmployeeMessageOutboxItem table
-     * @param rabbitTemplate                  a pre-configured rabbit template
-     * @param employeeServiceController       controller for the API used to interact with various services and package responses
+     * @param employeeMessageOutboxService used to interact with the EmployeeMessageOutboxItem table
+     * @param rabbitTemplate               a pre-configured rabbit template
+     * @param employeeServiceController    controller for the API used to interact with various services and package responses
+     * @param outboxConfirmProcessor       handles publisher confirms for the replies recorded in the outbox
+     * @param employeeServiceMetrics       records the time taken by each stage of handling a request
+     * @param requestAdmission             decides whether a request is still worth handling
+     * @param replyEncoder                 serializes responses, compressing the large ones
+     * @param transactionManager           commits the employees written by a request together with its outbox item
+     * @param replyPublisher               publishes replies within a window of unconfirmed replies
+     * @param exportChunkSize              the maximum number of employees in each reply message of an export
      */
-    public EmployeeQueueListener(EmployeeMessageOutboxRepository employeeMessageOutboxRepository,
-                                 RabbitTemplate rabbitTemplate, EmployeeServiceController employeeServiceController) {
-        this.employeeMessageOutboxRepository = employeeMessageOutboxRepository;
+    public EmployeeQueueListener(EmployeeMessageOutboxService employeeMessageOutboxService,
+                                 RabbitTemplate rabbitTemplate, EmployeeServiceController employeeServiceController,
+                                 OutboxConfirmProcessor outboxConfirmProcessor, EmployeeServiceMetrics employeeServiceMetrics,
+                                 RequestAdmission requestAdmission, ReplyEncoder replyEncoder,
+                                 PlatformTransactionManager transactionManager, ReplyPublisher replyPublisher,
+                                 @Value("${employeeservice.export.chunksize}") int exportChunkSize) {
+        this.employeeMessageOutboxService = employeeMessageOutboxService;
         this.rabbitTemplate = rabbitTemplate;
         this.employeeServiceController = employeeServiceController;
+        this.outboxConfirmProcessor = outboxConfirmProcessor;
+        this.employeeServiceMetrics = employeeServiceMetrics;
+        this.requestAdmission = requestAdmission;
+        this.replyEncoder = replyEncoder;
+        this.transactionManager = transactionManager;
+        this.replyPublisher = replyPublisher;
+        this.exportChunkSize = exportChunkSize;
         setupConfirmCallback();
     }
 
     /**
-     * Method used to consume the employee service queue
+     * Method used to consume the employee service queue, and the read and write queues, each of which has its own
+     * listener container. The read and write queues are always consumed one message at a time, even when the employee
+     * service queue is consumed in batches.
+     * <p>
+     * Requests whose deadline has passed are dropped without a reply, and requests beyond the admission limit are
+     * answered straight away with a failed response saying the service is busy, see {@link RequestAdmission}. Neither
+     * touches the outbox, so a redelivered request is handled afresh
      *
-     * @param request the request to the employee service, supports JSON format
+     * @param request the request to the employee service, in any {@link WireFormat}. The reply is sent in the same format
      * @param requestType used to route the request to different API functionality see {@link RequestType}
      * @param message the message object used to retrieve information on where to send the response to
      * @throws JsonProcessingException if an error occurs during serialization/deserialization of the request/outbox item
      */
-    @RabbitListener(queues = "#{@employeeServiceQueue}")
+    @RabbitListener(id = "employeeServiceListener", queues = "#{@employeeServiceQueue}",
+            autoStartup = "#{!${employeeservice.listener.batch.enabled}}")
+    @RabbitListener(id = "employeeServiceReadListener", queues = "#{@employeeServiceReadQueue}",
+            containerFactory = "readRabbitListenerContainerFactory")
+    @RabbitListener(id = "employeeServiceWriteListener", queues = "#{@employeeServiceWriteQueue}",
+            containerFactory = "writeRabbitListenerContainerFactory")
     public void listen(EmployeeServiceRequest request, @Header("requestType") RequestType requestType, Message message) throws JsonProcessingException {
         log.info("Received message [{}]", request);
-        if (message.getMessageProperties().getCorrelationId() == null || message.getMessageProperties().getReplyTo() == null) {
+        if (!hasReplyDetails(message)) {
             throw new AmqpRejectAndDontRequeueException("No CorrelationId or ReplyTo header set in message");
         }
         String correlationId = message.getMessageProperties().getCorrelationId();
-        Optional<EmployeeMessageOutboxItem> employeeServiceMessage = findExistingMessageInOutbox(correlationId);
-        EmployeeServiceResponse response;
+        if (requestAdmission.isExpired(message.getMessageProperties())) {
+            log.info("Dropping request with correlation id [{}], its deadline has passed", correlationId);
+            employeeServiceMetrics.recordExpired(requestType);
+            return;
+        }
+        if (!requestAdmission.tryAdmit()) {
+            log.warn("Turning away request with correlation id [{}], the admission limit has been reached", correlationId);
+            employeeServiceMetrics.recordBusy(requestType);
+            sendBusyResponse(message);
+            return;
+        }
+        try {
+            handleRequest(request, requestType, message);
+        } finally {
+            requestAdmission.release();
+        }
+    }
+
+    /**
+     * Handles an admitted request, re-sending its stored response if the outbox has one and routing it otherwise.
+     * Exports are streamed instead, see {@link #exportEmployees}
+     *
+     * @param request the request to the employee service
+     * @param requestType used to route the request
+     * @param message the request message
+     * @throws JsonProcessingException if an error occurs during serialization/deserialization of the request/outbox item
+     */
+    private void handleRequest(EmployeeServiceRequest request, RequestType requestType, Message message) throws JsonProcessingException {
+        if (requestType == RequestType.EXPORT_EMPLOYEES) {
+            exportEmployees(message);
+            return;
+        }
+        String correlationId = message.getMessageProperties().getCorrelationId();
+        long stageStart = System.nanoTime();
+        Optional<EmployeeMessageOutboxItem> employeeServiceMessage = employeeMessageOutboxService.findExistingMessage(correlationId,
+                requestType, Boolean.TRUE.equals(message.getMessageProperties().isRedelivered()));
+        employeeServiceMetrics.recordStage(Stage.OUTBOX_LOOKUP, requestType, System.nanoTime() - stageStart);
+        employeeServiceMetrics.recordOutboxLookup(employeeServiceMessage.isPresent());
+        ReplyPayload responseBody;
         if (employeeServiceMessage.isPresent()) {
-            response = JacksonUtils.convertJsonToObject(employeeServiceMessage.get().getPayload(), EmployeeServiceResponse.class);
+            responseBody = employeeMessageOutboxService.getMessagePayload(employeeServiceMessage.get());
+            log.info("Re-sending stored response for correlation id [{}]", correlationId);
         } else {
+            responseBody = routeAndRecord(request, requestType, message);
+        }
+        sendResponseMessageToReplyToQueue(responseBody, message, requestType);
+    }
+
+    /**
+     * Routes a request that has no outbox item and records its response in the outbox. Requests that write employees are
+     * routed within a transaction, which the outbox item joins when the outbox is kept in the database, so the employees
+     * and the outbox item are written with a single commit:
+     * <ul>
+     *     <li>a failure or crash before the commit leaves neither, so the redelivered request is handled afresh</li>
+     *     <li>a failure or crash after it leaves both, so the redelivered request is answered from the outbox</li>
+     * </ul>
+     * The reply is only sent once this returns, after the commit. An outbox store that cannot join the transaction is
+     * written straight after the commit instead, so that it never holds the response to a write that was rolled back.
+     * If a concurrent delivery of the same request saved its outbox item first, this delivery is rolled back and answered
+     * with that item, see {@link #findConcurrentResponse}
+     *
+     * @param request the request to the employee service
+     * @param requestType used to route the request
+     * @param message the request message
+     * @return the encoded response, as recorded in the outbox
+     * @throws JsonProcessingException if an error occurs during serialization of the response
+     */
+    private ReplyPayload routeAndRecord(EmployeeServiceRequest request, RequestType requestType, Message message) throws JsonProcessingException {
+        String correlationId = message.getMessageProperties().getCorrelationId();
+        String replyTo = message.getMessageProperties().getReplyTo();
+        TransactionStatus transaction = requestType.isWrite() ? transactionManager.getTransaction(TransactionDefinition.withDefaults()) : null;
+        boolean saveBeforeCommit = transaction == null || employeeMessageOutboxService.isTransactional();
+        EmployeeServiceResponse response;
+        ReplyPayload responseBody;
+        long stageStart = System.nanoTime();
+        try {
             response = routeRequest(request.getRequestBody(), requestType);
-            saveMessageToOutbox(correlationId, response);
+            responseBody = replyEncoder.encode(response, getFormat(message));
+            employeeServiceMetrics.recordStage(Stage.ROUTE, requestType, System.nanoTime() - stageStart);
+            stageStart = System.nanoTime();
+            if (saveBeforeCommit) {
+                employeeMessageOutboxService.saveMessage(correlationId, replyTo, responseBody);
+            }
+            if (transaction != null) {
+                transactionManager.commit(transaction);
+            }
+        } catch (DataIntegrityViolationException exception) {
+            rollbackIfActive(transaction);
+            return findConcurrentResponse(correlationId, requestType, exception);
+        } catch (RuntimeException | JsonProcessingException exception) {
+            rollbackIfActive(transaction);
+            throw exception;
         }
+        if (!saveBeforeCommit) {
+            employeeMessageOutboxService.saveMessage(correlationId, replyTo, responseBody);
+        }
+        employeeServiceMetrics.recordStage(Stage.OUTBOX_SAVE, requestType, System.nanoTime() - stageStart);
         log.info("Sending response [{}]", response);
-        sendResponseMessageToReplyToQueue(response, message);
+        return responseBody;
+    }
+
+    /**
+     * Gets the response recorded by a concurrent delivery of the same request, such as a redelivery after the consumer's
+     * connection dropped, whose outbox item took the correlation id first
+     *
+     * @param correlationId correlation id of the request
+     * @param requestType   the type of the request
+     * @param exception     the violation of the unique correlation id raised while saving this delivery's outbox item
+     * @return the encoded response recorded by the other delivery
+     * @throws ConcurrencyFailureException if the outbox has no item for the request after all, so that it is retried
+     */
+    private ReplyPayload findConcurrentResponse(String correlationId, RequestType requestType,
+                                                DataIntegrityViolationException exception) {
+        EmployeeMessageOutboxItem outboxItem = employeeMessageOutboxService.findExistingMessage(correlationId, requestType, true)
+                .orElseThrow(() -> new ConcurrencyFailureException("The outbox item of request with correlation id ["
+                        + correlationId + "] could not be saved", exception));
+        log.info("Request with correlation id [{}] was answered by a concurrent delivery, re-sending its response", correlationId);
+        return employeeMessageOutboxService.getMessagePayload(outboxItem);
+    }
+
+    /**
+     * Rolls back a transaction unless there is none or it has already been committed or rolled back
+     * @param transaction the transaction, may be null
+     */
+    private void rollbackIfActive(TransactionStatus transaction) {
+        if (transaction != null && !transaction.isCompleted()) {
+            transactionManager.rollback(transaction);
+        }
     }
 
     /**
-     * Routes the request to the correct method depending on the specified request type
+     * Method used to consume the employee service queue in batches, used instead of {@link #listen} when
+     * <code>employeeservice.listener.batch.enabled</code> is set. The outbox is checked for the whole batch with a single
+     * query and the outbox items of the whole batch are saved with a single commit, before any of the replies are sent.
+     * <p>
+     * Messages that can never be answered are dead-lettered individually rather than failing the batch, and messages
+     * whose deadline has passed are dropped. Exports are streamed only once the rest of the batch has been committed and
+     * replied to, so that a failure of the batch's database work, which has the whole batch retried, never streams an
+     * export to its caller a second time. The admission limit does not apply to batches.
+     * <p>
+     * A batch holding requests that write employees is routed within a single transaction, which its outbox items join as
+     * for {@link #listen}, so the whole batch is written with one commit and no reply is sent before it. If the database
+     * fails while routing, the transaction is rolled back and the failure rethrown without sending any reply, so that the
+     * retried batch is handled afresh. An outbox item already saved by a concurrent delivery fails the batch as a
+     * transient failure, so that the retried batch is answered from the outbox
+     *
+     * @param messages the batch of request messages, each must have a <code>requestType</code> header
+     * @throws JsonProcessingException if an error occurs during serialization of a response
+     */
+    @RabbitListener(id = "employeeServiceBatchListener", queues = "#{@employeeServiceQueue}",
+            containerFactory = "batchRabbitListenerContainerFactory",
+            autoStartup = "${employeeservice.listener.batch.enabled}")
+    public void listenBatch(List<Message> messages) throws JsonProcessingException {
+        log.info("Received batch of [{}] messages", messages.size());
+        List<Message> answerableMessages = new ArrayList<>(messages.size());
+        List<Message> exportMessages = new ArrayList<>();
+        for (Message message : messages) {
+            if (hasReplyDetails(message) && requestAdmission.isExpired(message.getMessageProperties())) {
+                log.info("Dropping request with correlation id [{}], its deadline has passed",
+                        message.getMessageProperties().getCorrelationId());
+                employeeServiceMetrics.recordExpired(
+                        RequestType.fromHeaderValue(message.getMessageProperties().getHeader("requestType")));
+            } else if (hasReplyDetails(message) && RequestType.EXPORT_EMPLOYEES == RequestType.fromHeaderValue(
+                    message.getMessageProperties().getHeader("requestType"))) {
+                exportMessages.add(message);
+            } else if (hasReplyDetails(message)) {
+                answerableMessages.add(message);
+            } else {
+                log.warn("No CorrelationId or ReplyTo header set in message, dead-lettering it");
+                employeeServiceMetrics.recordDeadLetter(
+                        new AmqpRejectAndDontRequeueException("No CorrelationId or ReplyTo header set in message"));
+                sendMessageToDeadLetterExchange(message);
+            }
+        }
+        long stageStart = System.nanoTime();
+        Map<String, RequestType> requestTypes = new LinkedHashMap<>();
+        answerableMessages.forEach(message -> requestTypes.put(message.getMessageProperties().getCorrelationId(),
+                RequestType.fromHeaderValue(message.getMessageProperties().getHeader("requestType"))));
+        Map<String, EmployeeMessageOutboxItem> existingMessages = employeeMessageOutboxService.findExistingMessages(
+                requestTypes,
+                answerableMessages.stream().filter(message -> Boolean.TRUE.equals(message.getMessageProperties().isRedelivered()))
+                        .map(message -> message.getMessageProperties().getCorrelationId())
+                        .collect(Collectors.toSet()));
+        employeeServiceMetrics.recordBatchStage(Stage.OUTBOX_LOOKUP, System.nanoTime() - stageStart);
+
+        Map<String, EmployeeMessageOutboxItem> responses = new LinkedHashMap<>();
+        List<EmployeeMessageOutboxItem> outgoingMessages = new ArrayList<>();
+        List<Message> repliedMessages = new ArrayList<>(answerableMessages.size());
+        TransactionStatus transaction = answerableMessages.stream().map(message -> RequestType.fromHeaderValue(
+                message.getMessageProperties().getHeader("requestType"))).anyMatch(requestType -> requestType != null && requestType.isWrite())
+                ? transactionManager.getTransaction(TransactionDefinition.withDefaults()) : null;
+        boolean saveBeforeCommit = transaction == null || employeeMessageOutboxService.isTransactional();
+        try {
+            routeBatch(answerableMessages, existingMessages, responses, outgoingMessages, repliedMessages);
+            stageStart = System.nanoTime();
+            if (saveBeforeCommit) {
+                employeeMessageOutboxService.saveMessages(outgoingMessages);
+            }
+            if (transaction != null) {
+                transactionManager.commit(transaction);
+            }
+        } catch (DataIntegrityViolationException exception) {
+            rollbackIfActive(transaction);
+            throw new ConcurrencyFailureException("An outbox item of the batch was saved by a concurrent delivery, "
+                    + "the batch will be answered from the outbox", exception);
+        } catch (RuntimeException exception) {
+            rollbackIfActive(transaction);
+            throw exception;
+        }
+        if (!saveBeforeCommit) {
+            employeeMessageOutboxService.saveMessages(outgoingMessages);
+        }
+        employeeServiceMetrics.recordBatchStage(Stage.OUTBOX_SAVE, System.nanoTime() - stageStart);
+        for (Message message : repliedMessages) {
+            EmployeeMessageOutboxItem response = responses.get(message.getMessageProperties().getCorrelationId());
+            sendResponseMessageToReplyToQueue(employeeMessageOutboxService.getMessagePayload(response), message,
+                    RequestType.fromHeaderValue(message.getMessageProperties().getHeader("requestType")));
+        }
+        for (Message message : exportMessages) {
+            exportEmployees(message);
+        }
+    }
+
+    /**
+     * Routes the messages of a batch that have no outbox item, creating an outbox item for each response. Messages that
+     * cannot be handled are dead-lettered, except on a database failure, which is rethrown for the whole batch
+     *
+     * @param answerableMessages the messages of the batch that can be answered
+     * @param existingMessages   the outbox items already recorded, keyed by correlation id
+     * @param responses          receives the outbox item answering each correlation id, in the order first seen
+     * @param outgoingMessages   receives the new outbox items, which are still to be saved
+     * @param repliedMessages    receives the messages to be replied to
+     * @throws DataAccessException if the database fails while routing a message
+     */
+    private void routeBatch(List<Message> answerableMessages, Map<String, EmployeeMessageOutboxItem> existingMessages,
+                            Map<String, EmployeeMessageOutboxItem> responses, List<EmployeeMessageOutboxItem> outgoingMessages,
+                            List<Message> repliedMessages) {
+        for (Message message : answerableMessages) {
+            String correlationId = message.getMessageProperties().getCorrelationId();
+            if (!responses.containsKey(correlationId)) {
+                EmployeeMessageOutboxItem existingMessage = existingMessages.get(correlationId);
+                employeeServiceMetrics.recordOutboxLookup(existingMessage != null);
+                if (existingMessage != null) {
+                    responses.put(correlationId, existingMessage);
+                } else {
+                    try {
+                        EmployeeServiceResponse response = routeRequest(message);
+                        log.info("Sending response [{}]", response);
+                        EmployeeMessageOutboxItem outgoingMessage = employeeMessageOutboxService.createMessage(correlationId,
+                                message.getMessageProperties().getReplyTo(), replyEncoder.encode(response, getFormat(message)));
+                        outgoingMessages.add(outgoingMessage);
+                        responses.put(correlationId, outgoingMessage);
+                    } catch (DataAccessException exception) {
+                        throw exception;
+                    } catch (IOException | RuntimeException exception) {
+                        log.error("Failed to handle message with correlation id [{}], dead-lettering it", correlationId, exception);
+                        employeeServiceMetrics.recordDeadLetter(exception);
+                        sendMessageToDeadLetterExchange(message);
+                        continue;
+                    }
+                }
+            }
+            repliedMessages.add(message);
+        }
+    }
+
+    /**
+     * Finds the format of a request message from its content type. The reply to a request is sent in the same format
+     * @param message the request message
+     * @return the format of the message
+     * @throws IllegalArgumentException if the content type of the message is not supported
+     */
+    private WireFormat getFormat(Message message) {
+        return WireFormat.fromContentType(message.getMessageProperties().getContentType());
+    }
+
+    /**
+     * Checks whether a request message contains the details required to send a response to it
+     * @param message the request message
+     * @return whether both the CorrelationId and ReplyTo headers are set
+     */
+    private boolean hasReplyDetails(Message message) {
+        return message.getMessageProperties().getCorrelationId() != null && message.getMessageProperties().getReplyTo() != null;
+    }
+
+    /**
+     * Converts a request message of a batch and routes it, as the container does for messages consumed by {@link #listen}
+     * @param message the request message, must have a <code>requestType</code> header
+     * @return a <code>EmployeeServiceResponse</code> object to be sent as the response to the request
+     * @throws IOException if the request body cannot be deserialized
+     */
+    private EmployeeServiceResponse routeRequest(Message message) throws IOException {
+        Object requestTypeHeader = message.getMessageProperties().getHeader("requestType");
+        if (requestTypeHeader == null) {
+            throw new IllegalArgumentException("No requestType header set in message");
+        }
+        RequestType requestType = RequestType.valueOf(requestTypeHeader.toString());
+        long stageStart = System.nanoTime();
+        EmployeeServiceRequest request = getFormat(message).readValue(message.getBody(), EmployeeServiceRequest.class);
+        employeeServiceMetrics.recordStage(Stage.DESERIALIZE, requestType, System.nanoTime() - stageStart);
+        stageStart = System.nanoTime();
+        EmployeeServiceResponse response = routeRequest(request.getRequestBody(), requestType);
+        employeeServiceMetrics.recordStage(Stage.ROUTE, requestType, System.nanoTime() - stageStart);
+        return response;
+    }
+
+    /**
+     * Routes the request to the correct method depending on the specified request type. Package-private so that it can
+     * be benchmarked on its own
      * @param requestPayload body of the request, will be serialized to object specific to the request type
      * @param requestType used to route the request
      * @return a <code>EmployeeServiceResponse</code> object to be sent as the response to the request
      */
-    private EmployeeServiceResponse routeRequest(Object requestPayload, RequestType requestType) {
+    EmployeeServiceResponse routeRequest(Object requestPayload, RequestType requestType) {
         switch (requestType) {
             case CREATE_EMPLOYEE:
                 return employeeServiceController.createEmployee(JacksonUtils.convertJsonToObject(requestPayload, Employee.class));
             case GET_EMPLOYEE_BY_ID:
                 return employeeServiceController.getEmployeeById(JacksonUtils.convertJsonToObject(requestPayload, Integer.class));
+            case GET_EMPLOYEES_BY_IDS:
+                Integer[] employeeIds = JacksonUtils.convertJsonToObject(requestPayload, Integer[].class);
+                return employeeServiceController.getEmployeesByIds(employeeIds == null ? null : Arrays.asList(employeeIds));
+            case BULK_CREATE_EMPLOYEES:
+                Employee[] employees = JacksonUtils.convertJsonToObject(requestPayload, Employee[].class);
+                return employeeServiceController.createEmployees(employees == null ? null : Arrays.asList(employees));
+            case SEARCH_EMPLOYEES:
+                return employeeServiceController.searchEmployees(
+                        JacksonUtils.convertJsonToObject(requestPayload, EmployeeSearchCriteria.class));
+            case EXPORT_EMPLOYEES:
+                throw new IllegalArgumentException("EXPORT_EMPLOYEES requests are streamed and have no single response");
             default:
                 throw new IllegalArgumentException(
                         String.format("Error trying to route request: Unrecognized request type [%s].", requestType));
         }
     }
 
-    //TODO move this to a service class
     /**
-     * Saves a outgoing message to the EmployeeMessageOutboxItem table to prevent duplicate actions being taken for failed messages
-     * @param correlationId correlationId of the request message
-     * @param payload the response body
-     * @throws JsonProcessingException if error occurs during serialization of the response body
+     * Sends a request message that cannot be handled to the dead letter exchange, as rejecting it would reject its whole
+     * batch. It takes a slot in the {@link ReplyPublisher}'s window like any reply
+     * @param message the request message
+     */
+    private void sendMessageToDeadLetterExchange(Message message) {
+        replyPublisher.publish(DEAD_LETTER_EXCHANGE_NAME, EMPLOYEE_SERVICE_DEAD_LETTER_ROUTING_KEY, message,
+                new CorrelationData());
+    }
+
+    /**
+     * Sends a response message to reply-to queue specified in the message. The response is sent exactly as it was
+     * serialized, see {@link ReplyMessageUtils#createReplyMessage}, once the {@link ReplyPublisher}'s window has room for it
+     * @param responseBody the encoded response, as also stored in the outbox
+     * @param message details of the request message
+     * @param requestType the type of the request, for tagging the publish metrics
+     */
+    private void sendResponseMessageToReplyToQueue(ReplyPayload responseBody, Message message, RequestType requestType) {
+        String replyToRoutingKey = message.getMessageProperties().getReplyTo();
+        String correlationId = message.getMessageProperties().getCorrelationId();
+        long stageStart = System.nanoTime();
+        TimedCorrelationData correlationData = new TimedCorrelationData(correlationId);
+        replyPublisher.publish(replyToRoutingKey, ReplyMessageUtils.createReplyMessage(responseBody, correlationId),
+                correlationData);
+        employeeServiceMetrics.recordStage(Stage.PUBLISH, requestType, System.nanoTime() - stageStart);
+    }
+
+    /**
+     * Streams every employee to the reply-to queue of an export request, as numbered chunk messages under the request's
+     * correlation id followed by an end-of-stream marker. Each message carries the <code>chunkNumber</code> and
+     * <code>endOfStream</code> headers, so callers can tell whether they have received the whole export. An export is
+     * too large for the outbox, so it is not recorded there. Nor is it retried: a database or broker failure part way
+     * through ends it with a failed end-of-stream marker, and if even that cannot be published the caller is left to
+     * request the export again, rather than a redelivery streaming it again from the first chunk
+     * @param message the export request message
+     * @throws JsonProcessingException if an error occurs during serialization of the end-of-stream marker
      */
-    private void saveMessageToOutbox(String correlationId, Object payload) throws JsonProcessingException {
-        EmployeeMessageOutboxItem outgoingMessage =
-                new EmployeeMessageOutboxItem(correlationId, JacksonUtils.convertObjectToJson(payload));
-        employeeMessageOutboxRepository.save(outgoingMessage);
+    private void exportEmployees(Message message) throws JsonProcessingException {
+        EmployeeServiceResponse endOfStream = employeeServiceController.exportEmployees(exportChunkSize, chunk -> {
+            try {
+                sendExportMessage(chunk, message);
+            } catch (JsonProcessingException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        });
+        try {
+            sendExportMessage(endOfStream, message);
+        } catch (AmqpException exception) {
+            log.warn("Could not publish the end-of-stream marker of the export for correlation id [{}]",
+                    message.getMessageProperties().getCorrelationId(), exception);
+            return;
+        }
+        log.info("Exported [{}] employees for correlation id [{}]",
+                ((EmployeeExportChunk) endOfStream.getResponseBody()).getExportedCount(),
+                message.getMessageProperties().getCorrelationId());
     }
-    //TODO move this to a service class
+
     /**
-     * Attempts to find an item in the EmployeeMessageOutboxItem table by its correlation id
-     * @param correlationId correlation id to match against
-     * @return an optional containing an <code>EmployeeMessageOutboxItem</code> object if a matching id is found, or empty if none is found
+     * Sends one message of an export to the reply-to queue of the export request, within the {@link ReplyPublisher}'s
+     * window so that a slow broker slows the export down. Export messages are not recorded in the outbox, so their
+     * confirms are not handed to the {@link OutboxConfirmProcessor}
+     * @param response a response whose body is an <code>EmployeeExportChunk</code>
+     * @param message the export request message
+     * @throws JsonProcessingException if an error occurs during serialization of the response
      */
-    private Optional<EmployeeMessageOutboxItem> findExistingMessageInOutbox(String correlationId) {
-        return employeeMessageOutboxRepository.findEmployeeMessageOutboxItemByCorrelationId(correlationId);
+    private void sendExportMessage(EmployeeServiceResponse response, Message message) throws JsonProcessingException {
+        EmployeeExportChunk chunk = (EmployeeExportChunk) response.getResponseBody();
+        Message reply = ReplyMessageUtils.createReplyMessage(replyEncoder.encode(response, getFormat(message)),
+                message.getMessageProperties().getCorrelationId());
+        MessageProperties replyProperties = reply.getMessageProperties();
+        replyProperties.setHeader(CHUNK_NUMBER_HEADER, chunk.getChunkNumber());
+        replyProperties.setHeader(END_OF_STREAM_HEADER, chunk.isEndOfStream());
+        replyPublisher.publish(message.getMessageProperties().getReplyTo(), reply, new CorrelationData());
     }
 
     /**
-     * Sends a response message to reply-to queue specified in the message
-     * @param response response to be sent to the reply-to queue
+     * Answers a request turned away by the admission limit with a failed response saying the service is busy, within the
+     * {@link ReplyPublisher}'s window. The response is not recorded in the outbox, so its confirm is not handed to the
+     * {@link OutboxConfirmProcessor}
      * @param message details of the request message
-     * @throws JsonProcessingException if error occurs when serializing the request body to JSON
+     * @throws JsonProcessingException if an error occurs during serialization of the response
      */
-    private void sendResponseMessageToReplyToQueue(EmployeeServiceResponse response, Message message) throws JsonProcessingException {
-        String replyToRoutingKey = message.getMessageProperties().getReplyTo();
-        String correlationId = message.getMessageProperties().getCorrelationId();
-        CorrelationData correlationData = new CorrelationData(correlationId);
-        String responseJson = JacksonUtils.convertObjectToJson(response);
-        MessagePostProcessor messagePostProcessor = responseMessage -> {
-            MessageProperties messageProperties
-                    = responseMessage.getMessageProperties();
-            messageProperties.setCorrelationId(correlationId);
-            return responseMessage;
-        };
-        rabbitTemplate.convertAndSend("", replyToRoutingKey, responseJson, messagePostProcessor, correlationData);
+    private void sendBusyResponse(Message message) throws JsonProcessingException {
+        ReplyPayload responseBody = replyEncoder.encode(
+                new EmployeeServiceResponse(false, ResponseMessage.SERVICE_BUSY.format(), null), getFormat(message));
+        replyPublisher.publish(message.getMessageProperties().getReplyTo(),
+                ReplyMessageUtils.createReplyMessage(responseBody, message.getMessageProperties().getCorrelationId()),
+                new CorrelationData());
     }
 
     /**
-     * Setup for the publisher confirm callback, to remove the corresponding entry in the EmployeeMessageOutboxItem table
+     * Setup for the publisher confirm callback. Confirms of replies recorded in the outbox, which are correlated by
+     * {@link TimedCorrelationData}, are handed straight to the {@link OutboxConfirmProcessor}, which
+     * removes the corresponding entries in the EmployeeMessageOutboxItem table in bulk on its own thread, so the
+     * connection's callback thread never waits on the database
      */
     private void setupConfirmCallback() {
         this.rabbitTemplate.setConfirmCallback((correlation, ack, reason) -> {
-            if (correlation != null) {
-                log.info("Received " + (ack ? " ack " : " nack ") + "for correlation: " + correlation);
-                log.info("Removing outbox item with correlation id [{}]", correlation.getId());
-                employeeMessageOutboxRepository.deleteEmployeeMessageOutboxItemByCorrelationId(correlation.getId());
+            if (correlation instanceof TimedCorrelationData) {
+                employeeServiceMetrics.recordConfirm(ack, ((TimedCorrelationData) correlation).getElapsedNanos());
+                log.debug("Received " + (ack ? " ack " : " nack ") + "for correlation: " + correlation);
+                if (ack) {
+                    outboxConfirmProcessor.acknowledged(correlation.getId());
+                } else {
+                    outboxConfirmProcessor.rejected(correlation.getId(), reason);
+                }
             }
         });
     }
@@ -0,0 +1,76 @@
+package com.pmoproject.employeeservice.listener;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.pmoproject.employeeservice.configuration.rabbitmq.Lz4CompressingPostProcessor;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeServiceResponse;
+import com.pmoproject.employeeservice.models.rabbitmq.ReplyPayload;
+import com.pmoproject.employeeservice.util.WireFormat;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.postprocessor.AbstractCompressingPostProcessor;
+import org.springframework.amqp.support.postprocessor.GZipPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Serializes responses into the body of their reply message, compressing those of at least
+ * <code>employeeservice.compression.threshold</code> bytes with the codec named by
+ * <code>employeeservice.compression.codec</code> (<code>lz4</code>, <code>gzip</code> or <code>none</code>). Small
+ * replies, such as single employee lookups, are sent as they are, since compressing them would cost more CPU than it
+ * saves on the wire.
+ * <p>
+ * Compressed replies are marked with the content encoding Spring AMQP's compressing post-processors use, so callers
+ * can decompress them with a <code>DelegatingDecompressingPostProcessor</code>
+ */
+@Component
+public class ReplyEncoder {
+    private final int compressionThreshold;
+    private final AbstractCompressingPostProcessor compressor;
+
+    /**
+     * Used to instantiate an object of this class
+     *
+     * @param compressionThreshold the size in bytes from which a serialized reply is compressed
+     * @param compressionCodec     the codec compressed replies are compressed with: lz4, gzip or none
+     * @throws IllegalArgumentException if the codec is not one of those supported
+     */
+    public ReplyEncoder(@Value("${employeeservice.compression.threshold}") int compressionThreshold,
+                        @Value("${employeeservice.compression.codec}") String compressionCodec) {
+        this.compressionThreshold = compressionThreshold;
+        switch (compressionCodec.toLowerCase(Locale.ROOT)) {
+            case "lz4":
+                this.compressor = new Lz4CompressingPostProcessor();
+                break;
+            case "gzip":
+                this.compressor = new GZipPostProcessor();
+                break;
+            case "none":
+                this.compressor = null;
+                break;
+            default:
+                throw new IllegalArgumentException(String.format("Unsupported compression codec [%s]", compressionCodec));
+        }
+    }
+
+    /**
+     * Serializes a response in the given format, compressing it if it reaches the threshold
+     *
+     * @param response the response to serialize
+     * @param format   the format to serialize the response in, that of the request being answered
+     * @return the body of the reply message, with its content type and content encoding
+     * @throws JsonProcessingException if the response cannot be serialized for whatever reason
+     */
+    public ReplyPayload encode(EmployeeServiceResponse response, WireFormat format) throws JsonProcessingException {
+        byte[] body = format.writeValueAsBytes(response);
+        if (compressor == null || body.length < compressionThreshold) {
+            return new ReplyPayload(body, format.getContentType(), format.getContentEncoding());
+        }
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setContentEncoding(format.getContentEncoding());
+        Message compressed = compressor.postProcessMessage(new Message(body, messageProperties));
+        return new ReplyPayload(compressed.getBody(), format.getContentType(),
+                compressed.getMessageProperties().getContentEncoding());
+    }
+}
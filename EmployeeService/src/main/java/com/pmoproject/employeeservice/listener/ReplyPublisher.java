@@ -0,0 +1,130 @@
+package com.pmoproject.employeeservice.listener;
+
+import com.pmoproject.employeeservice.metrics.EmployeeServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.AmqpTimeoutException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Used to publish replies within a window of at most <code>employeeservice.publisher.maxinflight</code> awaiting a
+ * publisher confirm, so that a broker slow to confirm slows consumption down rather than replies piling up in memory
+ */
+@Component
+@Slf4j
+public class ReplyPublisher {
+    private final RabbitTemplate rabbitTemplate;
+    private final EmployeeServiceMetrics employeeServiceMetrics;
+    private final Semaphore inFlightPermits;
+    private final long windowTimeout;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * Used to instantiate an object of this class
+     *
+     * @param rabbitTemplate         a pre-configured rabbit template, with publisher confirms enabled
+     * @param employeeServiceMetrics records the time spent waiting for a slot in the window
+     * @param maxInFlight            the maximum number of replies awaiting a confirm at once, 0 for no limit
+     * @param windowTimeout          how long (in milliseconds) to wait for a slot before failing the publish
+     */
+    public ReplyPublisher(RabbitTemplate rabbitTemplate, EmployeeServiceMetrics employeeServiceMetrics,
+                          @Value("${employeeservice.publisher.maxinflight}") int maxInFlight,
+                          @Value("${employeeservice.publisher.windowtimeout}") long windowTimeout) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.employeeServiceMetrics = employeeServiceMetrics;
+        this.inFlightPermits = maxInFlight > 0 ? new Semaphore(maxInFlight) : null;
+        this.windowTimeout = windowTimeout;
+    }
+
+    /**
+     * Publishes a reply through the default exchange once there is a slot for it in the window
+     *
+     * @param replyTo         the reply-to queue of the request
+     * @param reply           the reply message
+     * @param correlationData correlates the reply's confirm, its future must not have been completed yet
+     * @throws AmqpTimeoutException if no slot frees up within the window timeout, or the thread is interrupted waiting
+     * @throws AmqpException        if the publish fails
+     */
+    public void publish(String replyTo, Message reply, CorrelationData correlationData) {
+        publish("", replyTo, reply, correlationData);
+    }
+
+    /**
+     * Publishes a message to an exchange once there is a slot for it in the window
+     *
+     * @param exchange        the exchange to publish to
+     * @param routingKey      the routing key of the message
+     * @param message         the message
+     * @param correlationData correlates the message's confirm, its future must not have been completed yet
+     * @throws AmqpTimeoutException if no slot frees up within the window timeout, or the thread is interrupted waiting
+     * @throws AmqpException        if the publish fails
+     */
+    public void publish(String exchange, String routingKey, Message message, CorrelationData correlationData) {
+        acquireSlot(correlationData.getId());
+        AtomicBoolean released = new AtomicBoolean();
+        correlationData.getFuture().addCallback(confirm -> releaseSlot(released), failure -> releaseSlot(released));
+        try {
+            rabbitTemplate.send(exchange, routingKey, message, correlationData);
+        } catch (AmqpException exception) {
+            releaseSlot(released);
+            throw exception;
+        }
+    }
+
+    /**
+     * Waits for a slot in the window, recording how long the wait took if the window was full
+     *
+     * @param correlationId correlation id of the reply, for logging
+     * @throws AmqpTimeoutException if no slot frees up within the window timeout, or the thread is interrupted waiting
+     */
+    private void acquireSlot(String correlationId) {
+        if (inFlightPermits != null && !inFlightPermits.tryAcquire()) {
+            long waitStart = System.nanoTime();
+            boolean acquired;
+            try {
+                acquired = inFlightPermits.tryAcquire(windowTimeout, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new AmqpTimeoutException("Interrupted waiting to publish reply for correlation id " + correlationId);
+            } finally {
+                employeeServiceMetrics.recordPublishWindowWait(System.nanoTime() - waitStart);
+            }
+            if (!acquired) {
+                log.warn("No confirms received for [{}] milliseconds, failing reply for correlation id [{}]",
+                        windowTimeout, correlationId);
+                throw new AmqpTimeoutException("Timed out waiting to publish reply for correlation id " + correlationId);
+            }
+        }
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * Frees the slot of a reply, at most once per publish
+     *
+     * @param released whether the slot has already been freed
+     */
+    private void releaseSlot(AtomicBoolean released) {
+        if (released.compareAndSet(false, true)) {
+            inFlight.decrementAndGet();
+            if (inFlightPermits != null) {
+                inFlightPermits.release();
+            }
+        }
+    }
+
+    /**
+     * @return the number of replies awaiting a confirm
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,102 @@
+package com.pmoproject.employeeservice.listener;
+
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Decides whether a request is still worth handling, before any outbox or database work is done for it.
+ * <p>
+ * A request is expired once its deadline has passed, as its caller will have given up on the reply. The deadline is read
+ * from the <code>deadline</code> header (epoch milliseconds) if set. Otherwise it is the AMQP <code>timestamp</code> plus
+ * the <code>expiration</code>, or plus <code>employeeservice.listener.deadline.defaultmaxage</code> milliseconds if no
+ * expiration is set. Requests with neither a deadline header nor a timestamp never expire.
+ * <p>
+ * When <code>employeeservice.listener.admission.maxconcurrent</code> is positive, at most that many requests are handled
+ * at once across every listener container, and requests arriving beyond that are turned away rather than adding to the
+ * load on the database
+ */
+@Component
+public class RequestAdmission {
+    public static final String DEADLINE_HEADER = "deadline";
+
+    private final long defaultMaxAge;
+    private final Semaphore permits;
+
+    /**
+     * Used to instantiate an object of this class
+     *
+     * @param defaultMaxAge how long (in milliseconds) after its timestamp a request without an expiration expires, 0 for never
+     * @param maxConcurrent the maximum number of requests handled at once, 0 for no limit
+     */
+    public RequestAdmission(@Value("${employeeservice.listener.deadline.defaultmaxage}") long defaultMaxAge,
+                            @Value("${employeeservice.listener.admission.maxconcurrent}") int maxConcurrent) {
+        this.defaultMaxAge = defaultMaxAge;
+        this.permits = maxConcurrent > 0 ? new Semaphore(maxConcurrent) : null;
+    }
+
+    /**
+     * Checks whether the deadline of a request has passed
+     *
+     * @param messageProperties properties of the request message
+     * @return whether the request has expired
+     */
+    public boolean isExpired(MessageProperties messageProperties) {
+        long deadline = getDeadline(messageProperties);
+        return deadline > 0 && System.currentTimeMillis() > deadline;
+    }
+
+    /**
+     * Gets the deadline of a request, as described on {@link RequestAdmission}
+     *
+     * @param messageProperties properties of the request message
+     * @return the deadline in epoch milliseconds, or 0 if the request has none
+     */
+    long getDeadline(MessageProperties messageProperties) {
+        Object deadlineHeader = messageProperties.getHeader(DEADLINE_HEADER);
+        if (deadlineHeader instanceof Number) {
+            return ((Number) deadlineHeader).longValue();
+        }
+        if (deadlineHeader != null) {
+            try {
+                return Long.parseLong(deadlineHeader.toString());
+            } catch (NumberFormatException exception) {
+                return 0;
+            }
+        }
+        Date timestamp = messageProperties.getTimestamp();
+        if (timestamp == null) {
+            return 0;
+        }
+        String expiration = messageProperties.getExpiration();
+        if (expiration != null) {
+            try {
+                return timestamp.getTime() + Long.parseLong(expiration);
+            } catch (NumberFormatException exception) {
+                return 0;
+            }
+        }
+        return defaultMaxAge > 0 ? timestamp.getTime() + defaultMaxAge : 0;
+    }
+
+    /**
+     * Admits a request to be handled if the admission limit allows it. Every admitted request must be {@link #release}d
+     *
+     * @return whether the request was admitted
+     */
+    public boolean tryAdmit() {
+        return permits == null || permits.tryAcquire();
+    }
+
+    /**
+     * Releases the slot of an admitted request once it has been handled
+     */
+    public void release() {
+        if (permits != null) {
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.pmoproject.employeeservice.metrics;
+
+import com.pmoproject.employeeservice.listener.AdaptiveConcurrencyController;
+import com.pmoproject.employeeservice.listener.ReplyPublisher;
+import com.pmoproject.employeeservice.services.EmployeeCache;
+import com.pmoproject.employeeservice.services.EmployeeService;
+import com.pmoproject.employeeservice.services.OutboxConfirmProcessor;
+import com.pmoproject.employeeservice.services.OutboxIdempotencyGuard;
+import com.pmoproject.employeeservice.services.OutboxRelay;
+import com.pmoproject.employeeservice.util.SingleFlight;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Exposes the statistics the outbox components, the employee cache, the reply publisher, the employee lookups and the
+ * adaptive concurrency controller already keep as meters, read from them whenever the meters are scraped rather than
+ * recorded a second time
+ */
+@Component
+public class EmployeeServiceMeterBinder implements MeterBinder {
+    private final OutboxIdempotencyGuard outboxIdempotencyGuard;
+    private final OutboxConfirmProcessor outboxConfirmProcessor;
+    private final OutboxRelay outboxRelay;
+    private final EmployeeCache employeeCache;
+    private final ReplyPublisher replyPublisher;
+    private final EmployeeService employeeService;
+    private final AdaptiveConcurrencyController adaptiveConcurrencyController;
+
+    /**
+     * Used to instantiate an object of this class
+     *
+     * @param outboxIdempotencyGuard        guards the outbox lookup
+     * @param outboxConfirmProcessor        handles publisher confirms for the replies recorded in the outbox
+     * @param outboxRelay                   re-publishes unconfirmed replies from the outbox
+     * @param employeeCache                 the employee read-through cache
+     * @param replyPublisher                publishes replies within a window of unconfirmed replies
+     * @param employeeService               coalesces concurrent lookups of the same employees
+     * @param adaptiveConcurrencyController adjusts the listener's consumers and prefetch
+     */
+    public EmployeeServiceMeterBinder(OutboxIdempotencyGuard outboxIdempotencyGuard,
+                                      OutboxConfirmProcessor outboxConfirmProcessor, OutboxRelay outboxRelay,
+                                      EmployeeCache employeeCache, ReplyPublisher replyPublisher,
+                                      EmployeeService employeeService,
+                                      AdaptiveConcurrencyController adaptiveConcurrencyController) {
+        this.outboxIdempotencyGuard = outboxIdempotencyGuard;
+        this.outboxConfirmProcessor = outboxConfirmProcessor;
+        this.outboxRelay = outboxRelay;
+        this.employeeCache = employeeCache;
+        this.replyPublisher = replyPublisher;
+        this.employeeService = employeeService;
+        this.adaptiveConcurrencyController = adaptiveConcurrencyController;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindCounter(registry, "employeeservice.outbox.guard.checks", "decision", "skipped",
+                outboxIdempotencyGuard, OutboxIdempotencyGuard::getSkippedLookups);
+        bindCounter(registry, "employeeservice.outbox.guard.checks", "decision", "fallback",
+                outboxIdempotencyGuard, OutboxIdempotencyGuard::getFallbackLookups);
+        bindCounter(registry, "employeeservice.outbox.guard.checks", "decision", "filtered",
+                outboxIdempotencyGuard, OutboxIdempotencyGuard::getFilteredLookups);
+        bindCounter(registry, "employeeservice.outbox.guard.falsepositives", null, null,
+                outboxIdempotencyGuard, OutboxIdempotencyGuard::getFalsePositives);
+
+        bindCounter(registry, "employeeservice.outbox.confirms", "result", "ack",
+                outboxConfirmProcessor, OutboxConfirmProcessor::getAcknowledged);
+        bindCounter(registry, "employeeservice.outbox.confirms", "result", "nack",
+                outboxConfirmProcessor, OutboxConfirmProcessor::getRejected);
+        bindCounter(registry, "employeeservice.outbox.deleted", null, null,
+                outboxConfirmProcessor, OutboxConfirmProcessor::getDeleted);
+        bindCounter(registry, "employeeservice.outbox.deletion.dropped", null, null,
+                outboxConfirmProcessor, OutboxConfirmProcessor::getDropped);
+        Gauge.builder("employeeservice.outbox.deletion.pending", outboxConfirmProcessor, OutboxConfirmProcessor::getPending)
+                .register(registry);
+
+        bindCounter(registry, "employeeservice.outbox.relayed", null, null, outboxRelay, OutboxRelay::getRelayed);
+        Gauge.builder("employeeservice.outbox.relay.inflight", outboxRelay, OutboxRelay::getInFlight).register(registry);
+
+        bindCounter(registry, "employeeservice.cache.employee.requests", "result", "hit",
+                employeeCache, cache -> cache.getStats().hitCount());
+        bindCounter(registry, "employeeservice.cache.employee.requests", "result", "miss",
+                employeeCache, cache -> cache.getStats().missCount());
+        bindCounter(registry, "employeeservice.cache.employee.requests", "result", "knownmissing",
+                employeeCache, cache -> cache.getMissingStats().hitCount());
+        bindCounter(registry, "employeeservice.cache.employee.evictions", null, null,
+                employeeCache, cache -> cache.getStats().evictionCount());
+        Gauge.builder("employeeservice.cache.employee.size", employeeCache, EmployeeCache::getSize).register(registry);
+
+        Gauge.builder("employeeservice.publish.inflight", replyPublisher, ReplyPublisher::getInFlight).register(registry);
+
+        bindLookups(registry, "employee", employeeService.getEmployeeLookups());
+        bindLookups(registry, "employees", employeeService.getEmployeesLookups());
+
+        Gauge.builder("employeeservice.listener.adaptive.consumers", adaptiveConcurrencyController,
+                AdaptiveConcurrencyController::getConsumers).register(registry);
+        Gauge.builder("employeeservice.listener.adaptive.prefetch", adaptiveConcurrencyController,
+                AdaptiveConcurrencyController::getPrefetch).register(registry);
+        Gauge.builder("employeeservice.listener.adaptive.queuedepth", adaptiveConcurrencyController,
+                AdaptiveConcurrencyController::getQueueDepth).register(registry);
+    }
+
+    private static void bindLookups(MeterRegistry registry, String lookup, SingleFlight<?, ?> lookups) {
+        FunctionCounter.builder("employeeservice.lookups", lookups, SingleFlight::getExecuted)
+                .tags("lookup", lookup, "result", "executed")
+                .register(registry);
+        FunctionCounter.builder("employeeservice.lookups", lookups, SingleFlight::getCoalesced)
+                .tags("lookup", lookup, "result", "coalesced")
+                .register(registry);
+        Gauge.builder("employeeservice.lookups.coalesce.ratio", lookups, SingleFlight::getCoalesceRate)
+                .tags("lookup", lookup)
+                .description("Ratio of lookups handed the result of a concurrent lookup of the same ids since start-up")
+                .register(registry);
+    }
+
+    private static <T> void bindCounter(MeterRegistry registry, String name, String tagKey, String tagValue, T source,
+                                        ToDoubleFunction<T> count) {
+        FunctionCounter.Builder<T> builder = FunctionCounter.builder(name, source, count);
+        if (tagKey != null) {
+            builder.tag(tagKey, tagValue);
+        }
+        builder.register(registry);
+    }
+}
@@ -0,0 +1,270 @@
+package com.pmoproject.employeeservice.metrics;
+
+import com.pmoproject.employeeservice.models.rabbitmq.RequestType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Micrometer meters recorded along the listener pipeline, exposed through the actuator's <code>prometheus</code>
+ * endpoint:
+ * <ul>
+ *     <li><code>employeeservice.listener.stage</code> - a timer per stage and request type. Stages run once per batch in
+ *     the batch consumption mode are tagged with the request type <code>BATCH</code>, and requests whose type cannot be
+ *     read with <code>UNKNOWN</code></li>
+ *     <li><code>employeeservice.outbox.lookups</code> - outbox lookups by result (<code>hit</code> when a stored reply
+ *     was found), with <code>employeeservice.outbox.hit.ratio</code> giving the ratio of hits since start-up</li>
+ *     <li><code>employeeservice.publish.confirm</code> - the time from publishing a reply to its confirm, by result
+ *     (<code>ack</code> or <code>nack</code>)</li>
+ *     <li><code>employeeservice.listener.retries</code> and <code>employeeservice.listener.deadletters</code> - retried
+ *     deliveries and dead-lettered messages, the latter by the exception that caused them</li>
+ *     <li><code>employeeservice.requests</code> - handled requests by request type and outcome</li>
+ *     <li><code>employeeservice.requests.expired</code> and <code>employeeservice.requests.busy</code> - requests
+ *     dropped because their deadline had passed, and requests turned away by the admission limit</li>
+ *     <li><code>employeeservice.listener.adaptive.adjustments</code> - adjustments of the listener's consumers and
+ *     prefetch by the adaptive concurrency controller, by direction (<code>increase</code> or <code>decrease</code>)</li>
+ * </ul>
+ * Meters with fixed tags are registered up front, so that recording never has to look them up in the registry
+ */
+@Component
+public class EmployeeServiceMetrics {
+    static final String BATCH_REQUEST_TYPE = "BATCH";
+    static final String UNKNOWN_REQUEST_TYPE = "UNKNOWN";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Stage, Map<RequestType, Timer>> stageTimers = new EnumMap<>(Stage.class);
+    private final Map<Stage, Timer> batchStageTimers = new EnumMap<>(Stage.class);
+    private final Map<Stage, Timer> unknownStageTimers = new EnumMap<>(Stage.class);
+    private final Map<RequestType, Counter> successfulRequests = new EnumMap<>(RequestType.class);
+    private final Map<RequestType, Counter> failedRequests = new EnumMap<>(RequestType.class);
+    private final Counter outboxHits;
+    private final Counter outboxMisses;
+    private final Timer acknowledgedConfirms;
+    private final Timer rejectedConfirms;
+    private final Counter retries;
+    private final Timer publishWindowWaits;
+    private final Counter concurrencyIncreases;
+    private final Counter concurrencyDecreases;
+
+    /**
+     * A stage of handling a request message
+     */
+    public enum Stage {
+        DESERIALIZE, OUTBOX_LOOKUP, ROUTE, OUTBOX_SAVE, PUBLISH;
+
+        private String tagValue() {
+            return name().toLowerCase();
+        }
+    }
+
+    /**
+     * Used to instantiate an object of this class
+     *
+     * @param meterRegistry the registry the meters are registered with
+     */
+    public EmployeeServiceMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (Stage stage : Stage.values()) {
+            Map<RequestType, Timer> timers = new EnumMap<>(RequestType.class);
+            for (RequestType requestType : RequestType.values()) {
+                timers.put(requestType, createStageTimer(stage, requestType.name()));
+            }
+            stageTimers.put(stage, timers);
+            batchStageTimers.put(stage, createStageTimer(stage, BATCH_REQUEST_TYPE));
+            unknownStageTimers.put(stage, createStageTimer(stage, UNKNOWN_REQUEST_TYPE));
+        }
+        for (RequestType requestType : RequestType.values()) {
+            successfulRequests.put(requestType, createRequestCounter(requestType, "success"));
+            failedRequests.put(requestType, createRequestCounter(requestType, "failure"));
+        }
+        this.outboxHits = createOutboxLookupCounter("hit");
+        this.outboxMisses = createOutboxLookupCounter("miss");
+        Gauge.builder("employeeservice.outbox.hit.ratio", this, EmployeeServiceMetrics::getOutboxHitRatio)
+                .description("Ratio of outbox lookups that found a stored reply since start-up")
+                .register(meterRegistry);
+        this.acknowledgedConfirms = createConfirmTimer("ack");
+        this.rejectedConfirms = createConfirmTimer("nack");
+        this.retries = Counter.builder("employeeservice.listener.retries")
+                .description("Deliveries retried by the listener's retry interceptor")
+                .register(meterRegistry);
+        this.publishWindowWaits = Timer.builder("employeeservice.publish.window.wait")
+                .description("Time spent waiting for a free slot in the reply publisher's confirm window, while it was full")
+                .register(meterRegistry);
+        this.concurrencyIncreases = createConcurrencyAdjustmentCounter("increase");
+        this.concurrencyDecreases = createConcurrencyAdjustmentCounter("decrease");
+    }
+
+    /**
+     * Records how long a stage took for a single request
+     *
+     * @param stage        the stage
+     * @param requestType  the type of the request, null if it could not be read
+     * @param elapsedNanos how long the stage took, in nanoseconds
+     */
+    public void recordStage(Stage stage, RequestType requestType, long elapsedNanos) {
+        Timer timer = requestType == null ? unknownStageTimers.get(stage) : stageTimers.get(stage).get(requestType);
+        timer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records how long a stage took for a whole batch of requests
+     *
+     * @param stage        the stage
+     * @param elapsedNanos how long the stage took, in nanoseconds
+     */
+    public void recordBatchStage(Stage stage, long elapsedNanos) {
+        batchStageTimers.get(stage).record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the result of looking up a request's stored reply in the outbox
+     *
+     * @param found whether a stored reply was found
+     */
+    public void recordOutboxLookup(boolean found) {
+        (found ? outboxHits : outboxMisses).increment();
+    }
+
+    /**
+     * Records a publisher confirm
+     *
+     * @param ack          whether the publish was acked
+     * @param elapsedNanos the time from publishing to the confirm, in nanoseconds
+     */
+    public void recordConfirm(boolean ack, long elapsedNanos) {
+        (ack ? acknowledgedConfirms : rejectedConfirms).record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records a wait for a slot in the reply publisher's confirm window
+     *
+     * @param elapsedNanos how long the window was full for, in nanoseconds
+     */
+    public void recordPublishWindowWait(long elapsedNanos) {
+        publishWindowWaits.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records an adjustment of the listener's consumers and prefetch
+     *
+     * @param increase whether they were increased rather than decreased
+     */
+    public void recordConcurrencyAdjustment(boolean increase) {
+        (increase ? concurrencyIncreases : concurrencyDecreases).increment();
+    }
+
+    /**
+     * Records a delivery that failed and is going to be retried
+     */
+    public void recordRetry() {
+        retries.increment();
+    }
+
+    /**
+     * Records a message that was dead-lettered
+     *
+     * @param cause the exception that caused it to be dead-lettered
+     */
+    public void recordDeadLetter(Throwable cause) {
+        Throwable rootCause = cause.getCause() == null ? cause : cause.getCause();
+        meterRegistry.counter("employeeservice.listener.deadletters", "exception", rootCause.getClass().getSimpleName())
+                .increment();
+    }
+
+    /**
+     * Records a request dropped because its deadline had passed
+     *
+     * @param requestType the type of the request, null if it could not be read
+     */
+    public void recordExpired(RequestType requestType) {
+        meterRegistry.counter("employeeservice.requests.expired", "requestType", tagValue(requestType)).increment();
+    }
+
+    /**
+     * Records a request turned away because the admission limit had been reached
+     *
+     * @param requestType the type of the request
+     */
+    public void recordBusy(RequestType requestType) {
+        meterRegistry.counter("employeeservice.requests.busy", "requestType", tagValue(requestType)).increment();
+    }
+
+    /**
+     * Records the outcome of a handled request
+     *
+     * @param requestType the type of the request
+     * @param success     whether the response reports success
+     */
+    public void recordRequest(RequestType requestType, boolean success) {
+        (success ? successfulRequests : failedRequests).get(requestType).increment();
+    }
+
+    /**
+     * @param stage the stage
+     * @return the timers of a stage for single requests, of every request type, excluding the timer for whole batches
+     */
+    public List<Timer> getStageTimers(Stage stage) {
+        List<Timer> timers = new ArrayList<>(stageTimers.get(stage).values());
+        timers.add(unknownStageTimers.get(stage));
+        return timers;
+    }
+
+    /**
+     * @return the ratio of outbox lookups that found a stored reply, 0 if there have been none
+     */
+    public double getOutboxHitRatio() {
+        double hits = outboxHits.count();
+        double lookups = hits + outboxMisses.count();
+        return lookups == 0 ? 0 : hits / lookups;
+    }
+
+    private static String tagValue(RequestType requestType) {
+        return requestType == null ? UNKNOWN_REQUEST_TYPE : requestType.name();
+    }
+
+    private Timer createStageTimer(Stage stage, String requestType) {
+        return Timer.builder("employeeservice.listener.stage")
+                .description("Time taken by each stage of handling a request message")
+                .tag("stage", stage.tagValue())
+                .tag("requestType", requestType)
+                .register(meterRegistry);
+    }
+
+    private Counter createRequestCounter(RequestType requestType, String outcome) {
+        return Counter.builder("employeeservice.requests")
+                .description("Requests handled, by outcome")
+                .tag("requestType", requestType.name())
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private Counter createOutboxLookupCounter(String result) {
+        return Counter.builder("employeeservice.outbox.lookups")
+                .description("Outbox lookups for a stored reply, by result")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private Counter createConcurrencyAdjustmentCounter(String direction) {
+        return Counter.builder("employeeservice.listener.adaptive.adjustments")
+                .description("Adjustments of the listener's consumers and prefetch, by direction")
+                .tag("direction", direction)
+                .register(meterRegistry);
+    }
+
+    private Timer createConfirmTimer(String result) {
+        return Timer.builder("employeeservice.publish.confirm")
+                .description("Time from publishing a reply to receiving its publisher confirm")
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
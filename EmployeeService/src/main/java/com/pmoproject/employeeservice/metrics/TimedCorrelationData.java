@@ -0,0 +1,28 @@
+package com.pmoproject.employeeservice.metrics;
+
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+
+/**
+ * Correlation data for a published reply that remembers when it was published, so that the time to its publisher
+ * confirm can be recorded when the confirm arrives
+ */
+public class TimedCorrelationData extends CorrelationData {
+    private final long publishedAtNanos;
+
+    /**
+     * Used to instantiate an object of this class, just before publishing
+     *
+     * @param correlationId correlation id of the reply
+     */
+    public TimedCorrelationData(String correlationId) {
+        super(correlationId);
+        this.publishedAtNanos = System.nanoTime();
+    }
+
+    /**
+     * @return the time elapsed since the reply was published, in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return System.nanoTime() - publishedAtNanos;
+    }
+}
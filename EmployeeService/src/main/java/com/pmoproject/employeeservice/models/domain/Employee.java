@@ -10,10 +10,15 @@ import javax.persistence.*;
 import java.time.LocalDateTime;
 
 /**
- * Class representing an item in the employee
+ * Class representing an item in the employee. The composite indexes mirror those in <code>SQL/setup.sql</code>, which
+ * serve employee searches filtering on more than one column
  */
 @Data
 @Entity
+@Table(indexes = {
+        @Index(name = "Employee_AreaId_RoleId_idx", columnList = "AreaId, RoleId"),
+        @Index(name = "Employee_LocationId_Contract_InPlace_idx", columnList = "LocationId, Contract, InPlace")
+})
 public class Employee {
     @Id
     @Column(name = "EmployeeId")
@@ -1,7 +1,6 @@
 package com.pmoproject.employeeservice.models.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
-import com.fasterxml.jackson.annotation.JsonRawValue;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
@@ -11,11 +10,15 @@ import lombok.NoArgsConstructor;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Lob;
 import java.time.LocalDateTime;
 
 /**
- * Class representing an item in the employee service outbox, to be sent to a reply queue
+ * Class representing an item in the employee service outbox, to be sent to a reply queue. The payload is held exactly as
+ * it was encoded for the reply, in the format named by the content type and compressed if the content encoding says so
  */
 @Entity
 @JsonIgnoreProperties(ignoreUnknown = true)
@@ -23,19 +26,45 @@ import java.time.LocalDateTime;
 @Data
 public class EmployeeMessageOutboxItem {
     @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "EmployeeMessageOutboxItemId")
     private int id;
     @Column(name = "CorrelationId")
     private String correlationId;
+    @Column(name = "ReplyTo")
+    private String replyTo;
+    @Column(name = "MessageCreated")
     @JsonSerialize(using = LocalDateTimeSerializer.class)
     @JsonDeserialize(using = LocalDateTimeDeserializer.class)
-    private LocalDateTime MessageCreated;
-    @Column(name = "Payload", columnDefinition = "json")
-    @JsonRawValue
-    private String payload;
+    private LocalDateTime messageCreated;
+    @Lob
+    @Column(name = "Payload")
+    private byte[] payload;
+    @Column(name = "ContentType")
+    private String contentType;
+    @Column(name = "ContentEncoding")
+    private String contentEncoding;
+    @Column(name = "RelayClaimedBy")
+    private String relayClaimedBy;
+    @Column(name = "RelayClaimedAt")
+    @JsonSerialize(using = LocalDateTimeSerializer.class)
+    @JsonDeserialize(using = LocalDateTimeDeserializer.class)
+    private LocalDateTime relayClaimedAt;
+
+    public EmployeeMessageOutboxItem(String correlationId, byte[] payload, String contentType, String contentEncoding) {
+        this.correlationId = correlationId;
+        this.payload = payload;
+        this.contentType = contentType;
+        this.contentEncoding = contentEncoding;
+    }
 
-    public EmployeeMessageOutboxItem(String correlationId, String payload) {
+    public EmployeeMessageOutboxItem(String correlationId, String replyTo, LocalDateTime messageCreated, byte[] payload,
+                                     String contentType, String contentEncoding) {
         this.correlationId = correlationId;
+        this.replyTo = replyTo;
+        this.messageCreated = messageCreated;
         this.payload = payload;
+        this.contentType = contentType;
+        this.contentEncoding = contentEncoding;
     }
 }
@@ -0,0 +1,80 @@
+package com.pmoproject.employeeservice.models.domain;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Class representing an immutable copy of an employee and its area, role and location, as held by the employee cache.
+ * Every call to {@link #toEmployee()} returns a new <code>Employee</code>, so changes made to it by a caller are never
+ * seen by later readers of the cache
+ */
+@Value
+public class EmployeeSnapshot {
+    int id;
+    String name;
+    Integer areaId;
+    String area;
+    Integer roleId;
+    String role;
+    Integer locationId;
+    String location;
+    boolean inPlace;
+    boolean contract;
+    LocalDateTime startDate;
+    LocalDateTime endDate;
+    boolean archived;
+
+    /**
+     * Creates a snapshot of an employee
+     *
+     * @param employee the employee to copy
+     * @return a snapshot holding the employee's current values
+     */
+    public static EmployeeSnapshot of(Employee employee) {
+        Area area = employee.getArea();
+        Role role = employee.getRole();
+        Location location = employee.getLocation();
+        return new EmployeeSnapshot(employee.getId(), employee.getName(),
+                area == null ? null : area.getId(), area == null ? null : area.getArea(),
+                role == null ? null : role.getId(), role == null ? null : role.getRole(),
+                location == null ? null : location.getId(), location == null ? null : location.getLocation(),
+                employee.isInPlace(), employee.isContract(), employee.getStartDate(), employee.getEndDate(),
+                employee.isArchived());
+    }
+
+    /**
+     * Creates a new <code>Employee</code> holding the values of this snapshot
+     *
+     * @return a new, detached <code>Employee</code> object
+     */
+    public Employee toEmployee() {
+        Employee employee = new Employee();
+        employee.setId(id);
+        employee.setName(name);
+        if (areaId != null) {
+            Area employeeArea = new Area();
+            employeeArea.setId(areaId);
+            employeeArea.setArea(area);
+            employee.setArea(employeeArea);
+        }
+        if (roleId != null) {
+            Role employeeRole = new Role();
+            employeeRole.setId(roleId);
+            employeeRole.setRole(role);
+            employee.setRole(employeeRole);
+        }
+        if (locationId != null) {
+            Location employeeLocation = new Location();
+            employeeLocation.setId(locationId);
+            employeeLocation.setLocation(location);
+            employee.setLocation(employeeLocation);
+        }
+        employee.setInPlace(inPlace);
+        employee.setContract(contract);
+        employee.setStartDate(startDate);
+        employee.setEndDate(endDate);
+        employee.setArchived(archived);
+        return employee;
+    }
+}
@@ -0,0 +1,12 @@
+package com.pmoproject.employeeservice.models.domain;
+
+import lombok.Value;
+
+/**
+ * Class representing the id and correlation id of an outbox item, read without its payload
+ */
+@Value
+public class OutboxCorrelationId {
+    int id;
+    String correlationId;
+}
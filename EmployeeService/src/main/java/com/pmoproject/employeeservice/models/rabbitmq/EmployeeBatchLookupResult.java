@@ -0,0 +1,28 @@
+package com.pmoproject.employeeservice.models.rabbitmq;
+
+import com.pmoproject.employeeservice.models.domain.Employee;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Represents the response body of a batch employee lookup, containing the employees found and the ids that were not
+ */
+@Data
+@NoArgsConstructor
+public class EmployeeBatchLookupResult {
+    private List<Employee> employees;
+    private List<Integer> missingIds;
+
+    /**
+     * Used to instantiate an object of this class
+     *
+     * @param employees  the employees that matched one of the requested ids
+     * @param missingIds the requested ids that did not match any employee
+     */
+    public EmployeeBatchLookupResult(List<Employee> employees, List<Integer> missingIds) {
+        this.employees = employees;
+        this.missingIds = missingIds;
+    }
+}
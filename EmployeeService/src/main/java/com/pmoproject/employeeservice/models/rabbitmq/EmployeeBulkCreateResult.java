@@ -0,0 +1,55 @@
+package com.pmoproject.employeeservice.models.rabbitmq;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Represents the response body of a bulk employee creation, with the outcome of every employee in the request
+ */
+@Data
+@NoArgsConstructor
+public class EmployeeBulkCreateResult {
+    private int createdCount;
+    private int failedCount;
+    private List<RowResult> rows;
+
+    /**
+     * Used to instantiate an object of this class
+     *
+     * @param rows the outcome of each employee, in the order of the request
+     */
+    public EmployeeBulkCreateResult(List<RowResult> rows) {
+        this.rows = rows;
+        this.createdCount = (int) rows.stream().filter(RowResult::isSuccess).count();
+        this.failedCount = rows.size() - createdCount;
+    }
+
+    /**
+     * Represents the outcome of creating a single employee of the request
+     */
+    @Data
+    @NoArgsConstructor
+    public static class RowResult {
+        private int index;
+        private Integer employeeId;
+        private boolean success;
+        private String errorMessage;
+
+        /**
+         * Used to instantiate an object of this class
+         *
+         * @param index        position of the employee in the request, starting from 0
+         * @param employeeId   id of the employee, null if the employee was null
+         * @param success      whether the employee was created
+         * @param errorMessage why the employee was not created, null if it was
+         */
+        public RowResult(int index, Integer employeeId, boolean success, String errorMessage) {
+            this.index = index;
+            this.employeeId = employeeId;
+            this.success = success;
+            this.errorMessage = errorMessage;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.pmoproject.employeeservice.models.rabbitmq;
+
+import com.pmoproject.employeeservice.models.domain.Employee;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Represents the response body of one reply message of an employee export. An export is sent as numbered chunks under
+ * the correlation id of the request, followed by an end-of-stream marker carrying no employees and the total exported
+ */
+@Data
+@NoArgsConstructor
+public class EmployeeExportChunk {
+    private int chunkNumber;
+    private boolean endOfStream;
+    private List<Employee> employees;
+    private long exportedCount;
+
+    /**
+     * Used to instantiate an object of this class
+     *
+     * @param chunkNumber   the position of this message in the export, starting from 0
+     * @param endOfStream   whether this is the end-of-stream marker, sent after every chunk
+     * @param employees     the employees in this chunk, empty for the end-of-stream marker
+     * @param exportedCount the number of employees exported up to and including this chunk
+     */
+    public EmployeeExportChunk(int chunkNumber, boolean endOfStream, List<Employee> employees, long exportedCount) {
+        this.chunkNumber = chunkNumber;
+        this.endOfStream = endOfStream;
+        this.employees = employees;
+        this.exportedCount = exportedCount;
+    }
+}
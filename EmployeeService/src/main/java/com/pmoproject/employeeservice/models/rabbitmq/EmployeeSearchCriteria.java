@@ -0,0 +1,34 @@
+package com.pmoproject.employeeservice.models.rabbitmq;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Represents the request body of an employee search. Every filter is optional, those left null match any employee, and
+ * date ranges are inclusive. Results are returned a page at a time in EmployeeId order, each page continuing after the
+ * last id of the one before
+ */
+@Data
+@NoArgsConstructor
+public class EmployeeSearchCriteria {
+    private Integer areaId;
+    private Integer roleId;
+    private Integer locationId;
+    private Boolean contract;
+    private Boolean inPlace;
+    private Boolean archived;
+    private LocalDateTime startDateFrom;
+    private LocalDateTime startDateTo;
+    private LocalDateTime endDateFrom;
+    private LocalDateTime endDateTo;
+    /**
+     * The <code>nextAfterId</code> of the previous page, null for the first page
+     */
+    private Integer afterId;
+    /**
+     * The maximum number of employees in the page, null for the default
+     */
+    private Integer pageSize;
+}
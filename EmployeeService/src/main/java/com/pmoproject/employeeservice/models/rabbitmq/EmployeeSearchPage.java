@@ -0,0 +1,28 @@
+package com.pmoproject.employeeservice.models.rabbitmq;
+
+import com.pmoproject.employeeservice.models.domain.Employee;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Represents the response body of an employee search, containing one page of the matching employees
+ */
+@Data
+@NoArgsConstructor
+public class EmployeeSearchPage {
+    private List<Employee> employees;
+    private Integer nextAfterId;
+
+    /**
+     * Used to instantiate an object of this class
+     *
+     * @param employees   the matching employees of this page, in EmployeeId order
+     * @param nextAfterId the <code>afterId</code> to request the next page with, null if this is the last page
+     */
+    public EmployeeSearchPage(List<Employee> employees, Integer nextAfterId) {
+        this.employees = employees;
+        this.nextAfterId = nextAfterId;
+    }
+}
@@ -1,8 +1,10 @@
 package com.pmoproject.employeeservice.models.rabbitmq;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@NoArgsConstructor
 /**
  * Represents the structure of a response message this micro-service returns
  */
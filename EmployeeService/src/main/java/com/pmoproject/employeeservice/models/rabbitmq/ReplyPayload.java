@@ -0,0 +1,18 @@
+package com.pmoproject.employeeservice.models.rabbitmq;
+
+import lombok.Value;
+
+/**
+ * Represents the body of a reply message exactly as it is sent, and as it is held in the outbox, together with the
+ * content type and content encoding that describe how it was serialized and whether it was compressed
+ */
+@Value
+public class ReplyPayload {
+    byte[] body;
+    String contentType;
+    /**
+     * The character set of the body, preceded by the compression applied to it if any (such as <code>gzip, UTF-8</code>
+     * or <code>lz4</code>), or null for an uncompressed binary body
+     */
+    String contentEncoding;
+}
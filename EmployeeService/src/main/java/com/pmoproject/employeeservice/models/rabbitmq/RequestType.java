@@ -5,5 +5,32 @@ package com.pmoproject.employeeservice.models.rabbitmq;
  */
 public enum RequestType {
     CREATE_EMPLOYEE,
-    GET_EMPLOYEE_BY_ID
+    GET_EMPLOYEE_BY_ID,
+    GET_EMPLOYEES_BY_IDS,
+    EXPORT_EMPLOYEES,
+    BULK_CREATE_EMPLOYEES,
+    SEARCH_EMPLOYEES;
+
+    /**
+     * @return whether requests of this type write employees, and so commit them together with their outbox item
+     */
+    public boolean isWrite() {
+        return this == CREATE_EMPLOYEE || this == BULK_CREATE_EMPLOYEES;
+    }
+
+    /**
+     * Reads the request type from the <code>requestType</code> header of a request, without failing on bad values
+     * @param headerValue value of the header, may be null
+     * @return the request type, or null if the header is missing or not recognised
+     */
+    public static RequestType fromHeaderValue(Object headerValue) {
+        if (headerValue == null) {
+            return null;
+        }
+        try {
+            return valueOf(headerValue.toString());
+        } catch (IllegalArgumentException exception) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,27 @@
+package com.pmoproject.employeeservice.models.rabbitmq;
+
+/**
+ * Represents the messages this micro-service gives in unsuccessful responses, other than those of business errors raised
+ * by the services, whose own messages are passed on.
+ */
+public enum ResponseMessage {
+    EMPLOYEE_NOT_FOUND("No employee with id [%d] found"),
+    NO_EMPLOYEE_IDS("At least one employee id must be provided"),
+    EXPORT_FAILED("Export failed after [%d] employees, it should be requested again"),
+    SERVICE_BUSY("The employee service is busy, please retry later");
+
+    private final String format;
+
+    ResponseMessage(String format) {
+        this.format = format;
+    }
+
+    /**
+     * Formats the message for a response
+     * @param args the values of the message's placeholders, if it has any
+     * @return the message to send in the response
+     */
+    public String format(Object... args) {
+        return String.format(format, args);
+    }
+}
@@ -0,0 +1,87 @@
+package com.pmoproject.employeeservice.repositories;
+
+import com.pmoproject.employeeservice.models.domain.EmployeeMessageOutboxItem;
+import com.pmoproject.employeeservice.models.domain.OutboxCorrelationId;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Stores outbox items in the EmployeeMessageOutboxItem table, through the {@link EmployeeMessageOutboxRepository}
+ */
+public class DatabaseOutboxStore implements OutboxStore {
+    private final EmployeeMessageOutboxRepository employeeMessageOutboxRepository;
+
+    /**
+     * Used to instantiate an object of this class
+     *
+     * @param employeeMessageOutboxRepository JPA repository used to alter the EmployeeMessageOutboxItem table
+     */
+    public DatabaseOutboxStore(EmployeeMessageOutboxRepository employeeMessageOutboxRepository) {
+        this.employeeMessageOutboxRepository = employeeMessageOutboxRepository;
+    }
+
+    @Override
+    public Optional<EmployeeMessageOutboxItem> findByCorrelationId(String correlationId) {
+        return employeeMessageOutboxRepository.findEmployeeMessageOutboxItemByCorrelationId(correlationId);
+    }
+
+    @Override
+    public List<EmployeeMessageOutboxItem> findAllByCorrelationIdIn(Collection<String> correlationIds) {
+        return employeeMessageOutboxRepository.findAllByCorrelationIdIn(correlationIds);
+    }
+
+    @Override
+    public List<OutboxCorrelationId> findCorrelationIdChunk(int afterId, int chunkSize) {
+        return employeeMessageOutboxRepository.findCorrelationIdChunk(afterId, PageRequest.of(0, chunkSize));
+    }
+
+    @Override
+    public List<EmployeeMessageOutboxItem> findRelayChunk(int afterId, LocalDateTime createdBefore, int chunkSize) {
+        return employeeMessageOutboxRepository.findRelayChunk(afterId, createdBefore, PageRequest.of(0, chunkSize));
+    }
+
+    /**
+     * Claims the outbox items with a single conditional update, which only one of any number of relays racing for the
+     * same item can win. Only when some of the items were not claimed are the ones that were read back
+     */
+    @Override
+    public List<EmployeeMessageOutboxItem> claimForRelay(List<EmployeeMessageOutboxItem> outboxItems, String claimedBy,
+                                                         LocalDateTime claimedAt, LocalDateTime claimExpiredBefore) {
+        if (outboxItems.isEmpty()) {
+            return outboxItems;
+        }
+        List<Integer> ids = outboxItems.stream().map(EmployeeMessageOutboxItem::getId).collect(Collectors.toList());
+        if (employeeMessageOutboxRepository.claimForRelay(ids, claimedBy, claimedAt, claimExpiredBefore) == ids.size()) {
+            return outboxItems;
+        }
+        Set<Integer> claimedIds = new HashSet<>(employeeMessageOutboxRepository.findIdsClaimedBy(ids, claimedBy));
+        return outboxItems.stream().filter(outboxItem -> claimedIds.contains(outboxItem.getId()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void saveAll(List<EmployeeMessageOutboxItem> outboxItems) {
+        if (outboxItems.size() == 1) {
+            employeeMessageOutboxRepository.save(outboxItems.get(0));
+        } else {
+            employeeMessageOutboxRepository.saveAll(outboxItems);
+        }
+    }
+
+    @Override
+    public int deleteAllByCorrelationIdIn(Collection<String> correlationIds) {
+        return employeeMessageOutboxRepository.deleteAllByCorrelationIdIn(correlationIds);
+    }
+
+    @Override
+    public boolean isTransactional() {
+        return true;
+    }
+}
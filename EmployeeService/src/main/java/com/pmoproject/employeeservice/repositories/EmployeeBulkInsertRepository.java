@@ -0,0 +1,18 @@
+package com.pmoproject.employeeservice.repositories;
+
+import com.pmoproject.employeeservice.models.domain.Employee;
+
+import java.util.List;
+
+/**
+ * Repository fragment of {@link EmployeeRepository} for inserting many new employees at once
+ */
+public interface EmployeeBulkInsertRepository {
+    /**
+     * Inserts new employees in JDBC batches of <code>hibernate.jdbc.batch_size</code> rows. Unlike
+     * {@link EmployeeRepository#save}, which merges an employee with an assigned id and so reads it first, each employee
+     * is persisted straight away, so none of the ids may exist already
+     * @param employees the employees to insert, their area, role and location only need an id
+     */
+    void insertAll(List<Employee> employees);
+}
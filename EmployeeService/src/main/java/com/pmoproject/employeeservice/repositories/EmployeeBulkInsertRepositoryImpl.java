@@ -0,0 +1,48 @@
+package com.pmoproject.employeeservice.repositories;
+
+import com.pmoproject.employeeservice.models.domain.Area;
+import com.pmoproject.employeeservice.models.domain.Employee;
+import com.pmoproject.employeeservice.models.domain.Location;
+import com.pmoproject.employeeservice.models.domain.Role;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+/**
+ * Implementation of {@link EmployeeBulkInsertRepository}. The persistence context is flushed and cleared after every
+ * JDBC batch, so that it never holds more than a batch of employees however many are inserted
+ */
+public class EmployeeBulkInsertRepositoryImpl implements EmployeeBulkInsertRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size}")
+    private int batchSize;
+
+    @Override
+    @Transactional
+    public void insertAll(List<Employee> employees) {
+        for (int i = 0; i < employees.size(); i++) {
+            Employee employee = employees.get(i);
+            if (employee.getArea() != null) {
+                employee.setArea(entityManager.getReference(Area.class, employee.getArea().getId()));
+            }
+            if (employee.getRole() != null) {
+                employee.setRole(entityManager.getReference(Role.class, employee.getRole().getId()));
+            }
+            if (employee.getLocation() != null) {
+                employee.setLocation(entityManager.getReference(Location.class, employee.getLocation().getId()));
+            }
+            entityManager.persist(employee);
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
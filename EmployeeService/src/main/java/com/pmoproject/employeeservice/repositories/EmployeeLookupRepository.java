@@ -0,0 +1,28 @@
+package com.pmoproject.employeeservice.repositories;
+
+import com.pmoproject.employeeservice.models.domain.Employee;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository fragment of {@link EmployeeRepository} for looking up many employees by id at once
+ */
+public interface EmployeeLookupRepository {
+    /**
+     * Returns all employees with an EmployeeId matching one of the values passed. The area, role and location of each
+     * employee are fetched in the same query, so the lookup is a single statement per chunk of
+     * <code>employeeservice.repository.inclause.chunksize</code> ids
+     * @param employeeIds the values with which to search the employee table for matching ids
+     * @return a list of the matching <code>Employee</code> objects in id order, ids with no match are simply not present
+     */
+    List<Employee> findAllWithReferencesByIdIn(Collection<Integer> employeeIds);
+
+    /**
+     * Returns which of the EmployeeIds passed already belong to an employee, using a single query per chunk of
+     * <code>employeeservice.repository.inclause.chunksize</code> ids
+     * @param employeeIds the values with which to search the employee table for matching ids
+     * @return the ids that matched an employee, in order
+     */
+    List<Integer> findExistingIds(Collection<Integer> employeeIds);
+}
@@ -0,0 +1,59 @@
+package com.pmoproject.employeeservice.repositories;
+
+import com.pmoproject.employeeservice.models.domain.Employee;
+import org.springframework.beans.factory.annotation.Value;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of {@link EmployeeLookupRepository}. The ids are sorted and split into chunks, each looked up with its
+ * own <code>IN</code> list, so that a request for many ids neither sends one statement with an unbounded number of
+ * parameters nor prepares a different statement for every number of ids. Along with
+ * <code>hibernate.query.in_clause_parameter_padding</code>, which pads each list to the next power of two, the lookups
+ * share a handful of statements whatever the number of ids
+ */
+public class EmployeeLookupRepositoryImpl implements EmployeeLookupRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${employeeservice.repository.inclause.chunksize}")
+    private int chunkSize;
+
+    @Override
+    public List<Employee> findAllWithReferencesByIdIn(Collection<Integer> employeeIds) {
+        return findInChunks(employeeIds, chunk -> entityManager.createQuery("SELECT e FROM Employee e " +
+                        "LEFT JOIN FETCH e.area LEFT JOIN FETCH e.role LEFT JOIN FETCH e.location " +
+                        "WHERE e.id IN :employeeIds ORDER BY e.id", Employee.class)
+                .setParameter("employeeIds", chunk)
+                .getResultList());
+    }
+
+    @Override
+    public List<Integer> findExistingIds(Collection<Integer> employeeIds) {
+        return findInChunks(employeeIds, chunk -> entityManager.createQuery(
+                        "SELECT e.id FROM Employee e WHERE e.id IN :employeeIds ORDER BY e.id", Integer.class)
+                .setParameter("employeeIds", chunk)
+                .getResultList());
+    }
+
+    /**
+     * Runs a lookup for each chunk of the ids passed, in id order
+     * @param employeeIds the ids to look up
+     * @param lookup runs the lookup of a chunk of ids
+     * @return the results of every chunk, in id order
+     */
+    private <T> List<T> findInChunks(Collection<Integer> employeeIds, Function<List<Integer>, List<T>> lookup) {
+        List<Integer> sortedIds = employeeIds.stream().distinct().sorted().collect(Collectors.toList());
+        List<T> results = new ArrayList<>(sortedIds.size());
+        for (int start = 0; start < sortedIds.size(); start += chunkSize) {
+            results.addAll(lookup.apply(sortedIds.subList(start, Math.min(start + chunkSize, sortedIds.size()))));
+        }
+        return results;
+    }
+}
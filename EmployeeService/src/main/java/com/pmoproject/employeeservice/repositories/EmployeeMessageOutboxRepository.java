@@ -1,10 +1,18 @@
 package com.pmoproject.employeeservice.repositories;
 
 import com.pmoproject.employeeservice.models.domain.EmployeeMessageOutboxItem;
+import com.pmoproject.employeeservice.models.domain.OutboxCorrelationId;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 /**
  * Represents a JPA repository for the EmployeeMessageOutboxItem table, contains methods for interacting with it
@@ -19,9 +27,71 @@ public interface EmployeeMessageOutboxRepository extends JpaRepository<EmployeeM
      Optional<EmployeeMessageOutboxItem> findEmployeeMessageOutboxItemByCorrelationId(String correlationId);
 
      /**
-      * Deletes outbox item with the matching correlation id. to indicate a message has been sent and received
-      * @param correlationId the value with which to search the table for a matching id and delete
+      * Returns all outbox items with a UUID matching one of the values passed, using a single query
+      * @param correlationIds the values with which to search the table for matching ids
+      * @return a list of the matching <code>EmployeeMessageOutboxItem</code> objects, ids with no match are simply not present
+      */
+     List<EmployeeMessageOutboxItem> findAllByCorrelationIdIn(Collection<String> correlationIds);
+
+     /**
+      * Returns a chunk of the ids and correlation ids of the items in the outbox table, in id order and without their
+      * payloads. As with {@link #findRelayChunk}, chunks are paginated by the last id of the previous chunk
+      * @param afterId the id of the last outbox item of the previous chunk, or 0 for the first chunk
+      * @param pageable used to limit the size of the chunk, must be unsorted
+      * @return a list of up to a page of <code>OutboxCorrelationId</code> objects
+      */
+     @Query("SELECT new com.pmoproject.employeeservice.models.domain.OutboxCorrelationId(o.id, o.correlationId) " +
+             "FROM EmployeeMessageOutboxItem o WHERE o.id > :afterId ORDER BY o.id")
+     List<OutboxCorrelationId> findCorrelationIdChunk(@Param("afterId") int afterId, Pageable pageable);
+
+     /**
+      * Returns a chunk of the outbox items created before the time passed that have a reply-to queue, and that no relay
+      * has claimed since that time either, in id order. Chunks are paginated by the last id of the previous chunk rather
+      * than by offset, so each chunk is a single range scan of the primary key however far into the table it is
+      * @param afterId the id of the last outbox item of the previous chunk, or 0 for the first chunk
+      * @param createdBefore only outbox items created, and claimed if at all, before this time are returned
+      * @param pageable used to limit the size of the chunk, must be unsorted
+      * @return a list of up to a page of <code>EmployeeMessageOutboxItem</code> objects
+      */
+     @Query("SELECT o FROM EmployeeMessageOutboxItem o WHERE o.id > :afterId AND o.messageCreated < :createdBefore " +
+             "AND o.replyTo IS NOT NULL AND (o.relayClaimedAt IS NULL OR o.relayClaimedAt < :createdBefore) ORDER BY o.id")
+     List<EmployeeMessageOutboxItem> findRelayChunk(@Param("afterId") int afterId,
+                                                    @Param("createdBefore") LocalDateTime createdBefore, Pageable pageable);
+
+     /**
+      * Claims the outbox items with the ids passed for a relay, using a single statement. Items claimed by another relay
+      * since the claim expiry time are left alone, so when relays race for an item exactly one of them claims it
+      * @param ids the ids of the outbox items to claim
+      * @param claimedBy identifies the claim
+      * @param claimedAt the time of the claim
+      * @param claimExpiredBefore claims made before this time have expired, and may be taken over
+      * @return the number of outbox items claimed
+      */
+     @Transactional
+     @Modifying
+     @Query("UPDATE EmployeeMessageOutboxItem o SET o.relayClaimedBy = :claimedBy, o.relayClaimedAt = :claimedAt " +
+             "WHERE o.id IN :ids AND (o.relayClaimedAt IS NULL OR o.relayClaimedAt < :claimExpiredBefore)")
+     int claimForRelay(@Param("ids") Collection<Integer> ids, @Param("claimedBy") String claimedBy,
+                       @Param("claimedAt") LocalDateTime claimedAt,
+                       @Param("claimExpiredBefore") LocalDateTime claimExpiredBefore);
+
+     /**
+      * Returns which of the outbox items with the ids passed are held by a claim
+      * @param ids the ids of the outbox items
+      * @param claimedBy identifies the claim
+      * @return the ids of the outbox items held by the claim
+      */
+     @Query("SELECT o.id FROM EmployeeMessageOutboxItem o WHERE o.id IN :ids AND o.relayClaimedBy = :claimedBy")
+     List<Integer> findIdsClaimedBy(@Param("ids") Collection<Integer> ids, @Param("claimedBy") String claimedBy);
+
+     /**
+      * Deletes every outbox item with a correlation id matching one of the values passed, using a single statement, to
+      * indicate their messages have been sent and received
+      * @param correlationIds the values with which to search the table for matching ids and delete
+      * @return the number of outbox items deleted
       */
      @Transactional
-     void deleteEmployeeMessageOutboxItemByCorrelationId(String correlationId);
+     @Modifying
+     @Query("DELETE FROM EmployeeMessageOutboxItem o WHERE o.correlationId IN :correlationIds")
+     int deleteAllByCorrelationIdIn(@Param("correlationIds") Collection<String> correlationIds);
 }
@@ -1,20 +1,37 @@
 package com.pmoproject.employeeservice.repositories;
 
 import com.pmoproject.employeeservice.models.domain.Employee;
+import com.pmoproject.employeeservice.models.domain.EmployeeSnapshot;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
  * Represents a JPA repository for the Employee table, contains methods for interacting with it
  */
 @Repository
-public interface EmployeeRepository extends JpaRepository<Employee, Integer> {
+public interface EmployeeRepository extends JpaRepository<Employee, Integer>, EmployeeBulkInsertRepository,
+        EmployeeSearchRepository, EmployeeLookupRepository {
     /**
      * Returns an optional with the first employee with an EmployeeId matching the value passed. These ids are unique.
      * @param employeeId the value with which to search the employee table for a matching id
      * @return an optional containing an  <code>Employee</code> object if a matching id is found, or empty if none is found
      */
     Optional<Employee> findById(Integer employeeId);
+
+    /**
+     * Returns an optional with a snapshot of the employee with an EmployeeId matching the value passed. The employee and
+     * the names of its area, role and location are read with a single statement and projected straight into an
+     * <code>EmployeeSnapshot</code>, so no managed entities are loaded into the persistence context
+     * @param employeeId the value with which to search the employee table for a matching id
+     * @return an optional containing an <code>EmployeeSnapshot</code> object if a matching id is found, or empty if none is found
+     */
+    @Query("SELECT new com.pmoproject.employeeservice.models.domain.EmployeeSnapshot(e.id, e.name, a.id, a.area, " +
+            "r.id, r.role, l.id, l.location, e.inPlace, e.contract, e.startDate, e.endDate, e.archived) " +
+            "FROM Employee e LEFT JOIN e.area a LEFT JOIN e.role r LEFT JOIN e.location l WHERE e.id = :employeeId")
+    Optional<EmployeeSnapshot> findSnapshotById(@Param("employeeId") int employeeId);
 }
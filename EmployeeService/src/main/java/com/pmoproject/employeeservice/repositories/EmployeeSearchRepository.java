@@ -0,0 +1,22 @@
+package com.pmoproject.employeeservice.repositories;
+
+import com.pmoproject.employeeservice.models.domain.EmployeeSnapshot;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeSearchCriteria;
+
+import java.util.List;
+
+/**
+ * Repository fragment of {@link EmployeeRepository} for searching employees by their attributes
+ */
+public interface EmployeeSearchRepository {
+    /**
+     * Returns snapshots of the employees matching the criteria, in EmployeeId order and starting after the criteria's
+     * <code>afterId</code>. Rather than skipping the earlier pages with an offset, the query seeks straight to the first
+     * id after <code>afterId</code>, so a deep page costs the same as the first. As with
+     * {@link EmployeeRepository#findSnapshotById}, no managed entities are loaded
+     * @param criteria the filters to apply, only those that are set are added to the query
+     * @param limit    the maximum number of snapshots to return
+     * @return the matching <code>EmployeeSnapshot</code> objects
+     */
+    List<EmployeeSnapshot> search(EmployeeSearchCriteria criteria, int limit);
+}
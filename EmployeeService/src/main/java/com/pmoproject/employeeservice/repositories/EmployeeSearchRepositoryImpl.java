@@ -0,0 +1,78 @@
+package com.pmoproject.employeeservice.repositories;
+
+import com.pmoproject.employeeservice.models.domain.Employee;
+import com.pmoproject.employeeservice.models.domain.EmployeeSnapshot;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeSearchCriteria;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementation of {@link EmployeeSearchRepository}. The query only has a predicate for each filter that is set, rather
+ * than a fixed query with <code>(:filter IS NULL OR ...)</code> predicates, so that the database can pick the index
+ * matching the filters actually used. Area, role and location are filtered on the employee's own foreign key columns,
+ * which together with the seek on EmployeeId can be served by the Employee table's indexes alone
+ */
+public class EmployeeSearchRepositoryImpl implements EmployeeSearchRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<EmployeeSnapshot> search(EmployeeSearchCriteria criteria, int limit) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<EmployeeSnapshot> query = builder.createQuery(EmployeeSnapshot.class);
+        Root<Employee> employee = query.from(Employee.class);
+        Join<?, ?> area = employee.join("area", JoinType.LEFT);
+        Join<?, ?> role = employee.join("role", JoinType.LEFT);
+        Join<?, ?> location = employee.join("location", JoinType.LEFT);
+        query.select(builder.construct(EmployeeSnapshot.class, employee.get("id"), employee.get("name"),
+                area.get("id"), area.get("area"), role.get("id"), role.get("role"),
+                location.get("id"), location.get("location"), employee.get("inPlace"), employee.get("contract"),
+                employee.get("startDate"), employee.get("endDate"), employee.get("archived")));
+
+        List<Predicate> predicates = new ArrayList<>();
+        addEqual(predicates, builder, employee.get("area").get("id"), criteria.getAreaId());
+        addEqual(predicates, builder, employee.get("role").get("id"), criteria.getRoleId());
+        addEqual(predicates, builder, employee.get("location").get("id"), criteria.getLocationId());
+        addEqual(predicates, builder, employee.get("contract"), criteria.getContract());
+        addEqual(predicates, builder, employee.get("inPlace"), criteria.getInPlace());
+        addEqual(predicates, builder, employee.get("archived"), criteria.getArchived());
+        addRange(predicates, builder, employee.get("startDate"), criteria.getStartDateFrom(), criteria.getStartDateTo());
+        addRange(predicates, builder, employee.get("endDate"), criteria.getEndDateFrom(), criteria.getEndDateTo());
+        if (criteria.getAfterId() != null) {
+            predicates.add(builder.greaterThan(employee.get("id"), criteria.getAfterId()));
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+        query.orderBy(builder.asc(employee.get("id")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private static void addEqual(List<Predicate> predicates, CriteriaBuilder builder, Path<?> path, Object value) {
+        if (value != null) {
+            predicates.add(builder.equal(path, value));
+        }
+    }
+
+    private static void addRange(List<Predicate> predicates, CriteriaBuilder builder, Path<LocalDateTime> path,
+                                 LocalDateTime from, LocalDateTime to) {
+        if (from != null) {
+            predicates.add(builder.greaterThanOrEqualTo(path, from));
+        }
+        if (to != null) {
+            predicates.add(builder.lessThanOrEqualTo(path, to));
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.pmoproject.employeeservice.repositories;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * A single file of the {@link SegmentLogOutboxStore}, mapped into memory in full. Records are appended one after another,
+ * each preceded by its length and the CRC32 of its bytes. The file is allocated at its full size up front, so the zeroed
+ * length after the last record marks where the next one goes. A record whose length or checksum does not add up, such as
+ * one torn by a crash part way through being written, also ends the segment and is overwritten by the next append.
+ * <p>
+ * Not thread safe for writes, which the store serializes. Records that have been appended may be read concurrently
+ */
+final class OutboxSegment {
+    static final int RECORD_HEADER_SIZE = Integer.BYTES * 2;
+
+    private final long number;
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private int writePosition;
+    private int liveBytes;
+
+    private OutboxSegment(long number, Path path, MappedByteBuffer buffer) {
+        this.number = number;
+        this.path = path;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Creates a new, empty segment file
+     *
+     * @param path     the path of the segment file, which must not exist
+     * @param number   the position of the segment in the log
+     * @param capacity the size of the segment file in bytes
+     * @return the segment
+     * @throws IOException if the file cannot be created or mapped
+     */
+    static OutboxSegment create(Path path, long number, int capacity) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return new OutboxSegment(number, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity));
+        }
+    }
+
+    /**
+     * Opens an existing segment file, which must then be replayed before anything is appended to it
+     *
+     * @param path   the path of the segment file
+     * @param number the position of the segment in the log
+     * @return the segment
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    static OutboxSegment open(Path path, long number) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new OutboxSegment(number, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Reads every intact record in the segment, after which records are appended after the last intact one
+     *
+     * @param visitor called with the offset and the bytes of each intact record, in the order they were appended
+     */
+    void replay(BiConsumer<Integer, ByteBuffer> visitor) {
+        int position = 0;
+        ByteBuffer record;
+        while ((record = readIntact(position)) != null) {
+            int recordSize = record.remaining();
+            visitor.accept(position, record);
+            position += RECORD_HEADER_SIZE + recordSize;
+        }
+        writePosition = position;
+    }
+
+    /**
+     * @param recordSize the size of a record in bytes
+     * @return whether the record fits in the space left in the segment
+     */
+    boolean hasRoomFor(int recordSize) {
+        return buffer.capacity() - writePosition >= RECORD_HEADER_SIZE + recordSize;
+    }
+
+    /**
+     * Appends a record after the last one in the segment. The caller must first check there is room for it
+     *
+     * @param record the bytes of the record
+     * @return the offset of the record, by which it is read
+     */
+    int append(byte[] record) {
+        CRC32 checksum = new CRC32();
+        checksum.update(record);
+        int offset = writePosition;
+        ByteBuffer target = buffer.duplicate();
+        target.position(offset + Integer.BYTES);
+        target.putInt((int) checksum.getValue());
+        target.put(record);
+        // The length is written last, so a record torn by a crash never looks complete
+        target.putInt(offset, record.length);
+        writePosition = target.position();
+        return offset;
+    }
+
+    /**
+     * Returns the bytes of a record appended to the segment
+     *
+     * @param offset the offset of the record
+     * @return a read-only view of the bytes of the record
+     */
+    ByteBuffer read(int offset) {
+        ByteBuffer source = buffer.asReadOnlyBuffer();
+        int length = source.getInt(offset);
+        source.position(offset + RECORD_HEADER_SIZE).limit(offset + RECORD_HEADER_SIZE + length);
+        return source.slice();
+    }
+
+    private ByteBuffer readIntact(int offset) {
+        if (buffer.capacity() - offset < RECORD_HEADER_SIZE) {
+            return null;
+        }
+        int length = buffer.getInt(offset);
+        if (length <= 0 || length > buffer.capacity() - offset - RECORD_HEADER_SIZE) {
+            return null;
+        }
+        ByteBuffer record = read(offset);
+        CRC32 checksum = new CRC32();
+        checksum.update(record.duplicate());
+        return (int) checksum.getValue() == buffer.getInt(offset + Integer.BYTES) ? record : null;
+    }
+
+    /**
+     * Writes the appended records through to the disk, so they survive the machine crashing as well as the process
+     */
+    void force() {
+        buffer.force();
+    }
+
+    /**
+     * Deletes the segment file. Records already read from the segment stay readable until they are no longer referenced
+     *
+     * @throws IOException if the file cannot be deleted
+     */
+    void delete() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    long getNumber() {
+        return number;
+    }
+
+    int getWritePosition() {
+        return writePosition;
+    }
+
+    /**
+     * @return the number of bytes taken up by the live records, headers included, so that it can be compared with the
+     * write position
+     */
+    int getLiveBytes() {
+        return liveBytes;
+    }
+
+    void addLiveRecord(int recordSize) {
+        liveBytes += RECORD_HEADER_SIZE + recordSize;
+    }
+
+    void removeLiveRecord(int recordSize) {
+        liveBytes -= RECORD_HEADER_SIZE + recordSize;
+    }
+}
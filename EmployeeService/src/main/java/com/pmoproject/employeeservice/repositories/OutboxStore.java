@@ -0,0 +1,95 @@
+package com.pmoproject.employeeservice.repositories;
+
+import com.pmoproject.employeeservice.models.domain.EmployeeMessageOutboxItem;
+import com.pmoproject.employeeservice.models.domain.OutboxCorrelationId;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Represents where outbox items are stored, which is chosen by <code>employeeservice.outbox.store</code>:
+ * <ul>
+ *     <li><code>database</code>, the EmployeeMessageOutboxItem table, through {@link DatabaseOutboxStore}. The outbox is
+ *     shared by every node, at the cost of database round trips for each message</li>
+ *     <li><code>segmentlog</code>, a memory-mapped append-only log on the node's own disk, through
+ *     {@link SegmentLogOutboxStore}. Lookups are served from memory and writes never leave the node, but only requests
+ *     redelivered to the node that first handled them are recognised</li>
+ * </ul>
+ */
+public interface OutboxStore {
+    /**
+     * Returns the outbox item with the correlation id passed
+     *
+     * @param correlationId the correlation id to match against
+     * @return an optional containing an <code>EmployeeMessageOutboxItem</code> object if a matching id is found, or empty if none is found
+     */
+    Optional<EmployeeMessageOutboxItem> findByCorrelationId(String correlationId);
+
+    /**
+     * Returns the outbox items with a correlation id matching one of those passed
+     *
+     * @param correlationIds the correlation ids to match against
+     * @return a list of the matching <code>EmployeeMessageOutboxItem</code> objects, ids with no match are simply not present
+     */
+    List<EmployeeMessageOutboxItem> findAllByCorrelationIdIn(Collection<String> correlationIds);
+
+    /**
+     * Returns a chunk of the ids and correlation ids of the items in the outbox, in id order
+     *
+     * @param afterId   the id of the last outbox item of the previous chunk, or 0 for the first chunk
+     * @param chunkSize the maximum number of correlation ids returned
+     * @return a list of up to a chunk of <code>OutboxCorrelationId</code> objects
+     */
+    List<OutboxCorrelationId> findCorrelationIdChunk(int afterId, int chunkSize);
+
+    /**
+     * Returns a chunk of the outbox items created before the time passed that have a reply-to queue, and that are not
+     * claimed by a relay or were last claimed before that time too, in id order
+     *
+     * @param afterId       the id of the last outbox item of the previous chunk, or 0 for the first chunk
+     * @param createdBefore only outbox items created, and claimed if at all, before this time are returned
+     * @param chunkSize     the maximum number of outbox items returned
+     * @return a list of up to a chunk of <code>EmployeeMessageOutboxItem</code> objects
+     */
+    List<EmployeeMessageOutboxItem> findRelayChunk(int afterId, LocalDateTime createdBefore, int chunkSize);
+
+    /**
+     * Claims outbox items for the relay that is about to re-publish them, so that the relays of other nodes sharing the
+     * store skip them until the claim expires. An item can only be claimed if it is not claimed yet or its previous claim
+     * has expired
+     *
+     * @param outboxItems        the outbox items to claim
+     * @param claimedBy          identifies the claim, unique to each call
+     * @param claimedAt          the time of the claim
+     * @param claimExpiredBefore claims made before this time have expired, and may be taken over
+     * @return the outbox items claimed, in the order given; those claimed by another relay in the meantime are not present
+     */
+    List<EmployeeMessageOutboxItem> claimForRelay(List<EmployeeMessageOutboxItem> outboxItems, String claimedBy,
+                                                  LocalDateTime claimedAt, LocalDateTime claimExpiredBefore);
+
+    /**
+     * Saves a number of outbox items together, assigning each its id
+     *
+     * @param outboxItems the outbox items to save
+     */
+    void saveAll(List<EmployeeMessageOutboxItem> outboxItems);
+
+    /**
+     * Removes every outbox item with a correlation id matching one of those passed, to indicate their messages have been
+     * sent and received
+     *
+     * @param correlationIds the correlation ids of the outbox items to remove
+     * @return the number of outbox items removed
+     */
+    int deleteAllByCorrelationIdIn(Collection<String> correlationIds);
+
+    /**
+     * Returns whether writes to the store join the current database transaction, and so are committed or rolled back
+     * together with the employees written by the same request
+     *
+     * @return whether the store joins database transactions
+     */
+    boolean isTransactional();
+}
@@ -0,0 +1,441 @@
+package com.pmoproject.employeeservice.repositories;
+
+import com.pmoproject.employeeservice.models.domain.EmployeeMessageOutboxItem;
+import com.pmoproject.employeeservice.models.domain.OutboxCorrelationId;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Used to store outbox items in an append-only log of memory-mapped {@link OutboxSegment} files on the node's own disk,
+ * indexed in memory, so that outbox reads and writes cost no database round trip
+ */
+@Slf4j
+public class SegmentLogOutboxStore implements OutboxStore, Closeable {
+    private static final String SEGMENT_FILE_SUFFIX = ".log";
+    private static final byte ITEM_RECORD = 1;
+    private static final byte TOMBSTONE_RECORD = 2;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long ttl;
+    private final double compactionThreshold;
+    private final boolean forceOnWrite;
+
+    private final Map<String, IndexEntry> entriesByCorrelationId = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Integer, IndexEntry> entriesById = new ConcurrentSkipListMap<>();
+    private final Deque<OutboxSegment> segments = new ArrayDeque<>();
+    private int nextId = 1;
+
+    /**
+     * Used to instantiate an object of this class, replaying any segments already in the directory
+     *
+     * @param directory           the directory the segment files are kept in, created if it does not exist
+     * @param segmentSize         the size of each segment file in bytes
+     * @param ttl                 how long (in milliseconds) after being written an outbox item is expired, 0 for never
+     * @param compactionThreshold the largest fraction of live bytes with which the oldest segment is compacted
+     * @param forceOnWrite        whether every save is written through to the disk before it returns
+     * @throws IOException if the directory or its segment files cannot be read
+     */
+    public SegmentLogOutboxStore(Path directory, int segmentSize, long ttl, double compactionThreshold,
+                                 boolean forceOnWrite) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.ttl = ttl;
+        this.compactionThreshold = compactionThreshold;
+        this.forceOnWrite = forceOnWrite;
+        Files.createDirectories(directory);
+        replaySegments();
+        log.info("Opened outbox segment log in [{}] with [{}] segments and [{}] outbox items", directory,
+                segments.size(), entriesByCorrelationId.size());
+    }
+
+    @Override
+    public Optional<EmployeeMessageOutboxItem> findByCorrelationId(String correlationId) {
+        return Optional.ofNullable(entriesByCorrelationId.get(correlationId)).map(this::readItem);
+    }
+
+    @Override
+    public List<EmployeeMessageOutboxItem> findAllByCorrelationIdIn(Collection<String> correlationIds) {
+        return correlationIds.stream()
+                .map(entriesByCorrelationId::get)
+                .filter(entry -> entry != null)
+                .map(this::readItem)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<OutboxCorrelationId> findCorrelationIdChunk(int afterId, int chunkSize) {
+        return entriesById.tailMap(afterId, false).values().stream()
+                .limit(chunkSize)
+                .map(entry -> new OutboxCorrelationId(entry.id, entry.correlationId))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<EmployeeMessageOutboxItem> findRelayChunk(int afterId, LocalDateTime createdBefore, int chunkSize) {
+        return entriesById.tailMap(afterId, false).values().stream()
+                .filter(entry -> entry.hasReplyTo && entry.created.isBefore(createdBefore))
+                .limit(chunkSize)
+                .map(this::readItem)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * The log is only ever relayed by the node it belongs to, whose relay never re-publishes an item twice at once, so
+     * every item is claimed straight away
+     */
+    @Override
+    public List<EmployeeMessageOutboxItem> claimForRelay(List<EmployeeMessageOutboxItem> outboxItems, String claimedBy,
+                                                         LocalDateTime claimedAt, LocalDateTime claimExpiredBefore) {
+        return outboxItems;
+    }
+
+    /**
+     * Every outbox item is encoded before any is appended, so an item that cannot be encoded fails the whole batch
+     * rather than leaving part of it in the log
+     *
+     * @throws IllegalArgumentException if a string of an outbox item is longer than {@link Short#MAX_VALUE} bytes
+     */
+    @Override
+    public synchronized void saveAll(List<EmployeeMessageOutboxItem> outboxItems) {
+        List<byte[]> records = new ArrayList<>(outboxItems.size());
+        int id = nextId;
+        for (EmployeeMessageOutboxItem outboxItem : outboxItems) {
+            outboxItem.setId(id++);
+            if (outboxItem.getMessageCreated() == null) {
+                outboxItem.setMessageCreated(LocalDateTime.now());
+            }
+            records.add(encodeItem(outboxItem));
+        }
+        nextId = id;
+        for (int i = 0; i < outboxItems.size(); i++) {
+            EmployeeMessageOutboxItem outboxItem = outboxItems.get(i);
+            byte[] record = records.get(i);
+            OutboxSegment segment = segmentWithRoomFor(record.length);
+            index(new IndexEntry(outboxItem.getId(), outboxItem.getCorrelationId(), outboxItem.getMessageCreated(),
+                    outboxItem.getReplyTo() != null, segment, segment.append(record), record.length));
+        }
+        if (forceOnWrite) {
+            segments.getLast().force();
+        }
+    }
+
+    @Override
+    public synchronized int deleteAllByCorrelationIdIn(Collection<String> correlationIds) {
+        int deletedCount = 0;
+        for (String correlationId : correlationIds) {
+            IndexEntry entry = entriesByCorrelationId.get(correlationId);
+            if (entry != null) {
+                byte[] record = encodeTombstone(correlationId);
+                segmentWithRoomFor(record.length).append(record);
+                unindex(entry);
+                deletedCount++;
+            }
+        }
+        if (forceOnWrite && deletedCount > 0) {
+            segments.getLast().force();
+        }
+        return deletedCount;
+    }
+
+    @Override
+    public boolean isTransactional() {
+        return false;
+    }
+
+    /**
+     * Scheduled expiry and compaction of the log
+     */
+    @Scheduled(initialDelayString = "${employeeservice.outbox.store.segmentlog.compactioninterval}",
+            fixedDelayString = "${employeeservice.outbox.store.segmentlog.compactioninterval}")
+    public void compactScheduled() {
+        try {
+            int expiredCount = expireItems();
+            int deletedSegmentCount = compactSegments();
+            if (expiredCount > 0 || deletedSegmentCount > 0) {
+                log.info("Expired [{}] outbox items and compacted [{}] outbox segments", expiredCount, deletedSegmentCount);
+            }
+        } catch (IOException | UncheckedIOException exception) {
+            log.error("Outbox segment log compaction failed, it will be retried on the next run", exception);
+        }
+    }
+
+    /**
+     * Removes every outbox item written longer than the ttl ago from the index. No tombstones are written for them,
+     * since replaying the log leaves out expired records in any case
+     *
+     * @return the number of outbox items expired
+     */
+    public synchronized int expireItems() {
+        if (ttl <= 0) {
+            return 0;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(ttl, ChronoUnit.MILLIS);
+        List<IndexEntry> expiredEntries = entriesById.values().stream()
+                .filter(entry -> entry.created.isBefore(cutoff))
+                .collect(Collectors.toList());
+        expiredEntries.forEach(this::unindex);
+        return expiredEntries.size();
+    }
+
+    /**
+     * Compacts the oldest segment for as long as few enough of its bytes are live, never compacting the segment being
+     * appended to. The copied records are written through to the disk before the segment file is deleted, so a crash part
+     * way through leaves a copy of every record, at worst two
+     *
+     * @return the number of segment files deleted
+     * @throws IOException if a segment file cannot be created or deleted
+     */
+    public synchronized int compactSegments() throws IOException {
+        int deletedSegmentCount = 0;
+        while (segments.size() > 1 && segments.getFirst().getLiveBytes() <= compactionThreshold * segments.getFirst().getWritePosition()) {
+            OutboxSegment oldestSegment = segments.getFirst();
+            List<IndexEntry> liveEntries = entriesById.values().stream()
+                    .filter(entry -> entry.segment == oldestSegment)
+                    .collect(Collectors.toList());
+            for (IndexEntry entry : liveEntries) {
+                byte[] record = new byte[entry.size];
+                oldestSegment.read(entry.offset).get(record);
+                OutboxSegment segment = segmentWithRoomFor(record.length);
+                index(new IndexEntry(entry.id, entry.correlationId, entry.created, entry.hasReplyTo, segment,
+                        segment.append(record), record.length));
+            }
+            segments.getLast().force();
+            segments.removeFirst();
+            oldestSegment.delete();
+            deletedSegmentCount++;
+        }
+        return deletedSegmentCount;
+    }
+
+    /**
+     * Writes the segment being appended to through to the disk
+     */
+    @Override
+    public synchronized void close() {
+        if (!segments.isEmpty()) {
+            segments.getLast().force();
+        }
+    }
+
+    /**
+     * @return the number of segment files in the log
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    private void replaySegments() throws IOException {
+        List<Path> segmentFiles;
+        try (Stream<Path> files = Files.list(directory)) {
+            segmentFiles = files.filter(file -> file.getFileName().toString().endsWith(SEGMENT_FILE_SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        LocalDateTime cutoff = ttl > 0 ? LocalDateTime.now().minus(ttl, ChronoUnit.MILLIS) : LocalDateTime.MIN;
+        for (Path segmentFile : segmentFiles) {
+            String fileName = segmentFile.getFileName().toString();
+            long number = Long.parseLong(fileName.substring(0, fileName.length() - SEGMENT_FILE_SUFFIX.length()));
+            OutboxSegment segment = OutboxSegment.open(segmentFile, number);
+            segment.replay((offset, record) -> replayRecord(segment, offset, record, cutoff));
+            segments.addLast(segment);
+        }
+        if (segments.isEmpty()) {
+            segments.addLast(createSegment(0, segmentSize));
+        }
+    }
+
+    private void replayRecord(OutboxSegment segment, int offset, ByteBuffer record, LocalDateTime cutoff) {
+        byte type = record.get();
+        int id = record.getInt();
+        LocalDateTime created = LocalDateTime.ofEpochSecond(record.getLong(), record.getInt(), ZoneOffset.UTC);
+        String correlationId = readString(record);
+        nextId = Math.max(nextId, id + 1);
+        IndexEntry existingEntry = entriesByCorrelationId.get(correlationId);
+        if (type == TOMBSTONE_RECORD) {
+            if (existingEntry != null) {
+                unindex(existingEntry);
+            }
+        } else if (!created.isBefore(cutoff)) {
+            boolean hasReplyTo = readString(record) != null;
+            index(new IndexEntry(id, correlationId, created, hasReplyTo, segment, offset,
+                    record.limit()));
+        }
+    }
+
+    private OutboxSegment segmentWithRoomFor(int recordSize) {
+        OutboxSegment segment = segments.getLast();
+        if (segment.hasRoomFor(recordSize)) {
+            return segment;
+        }
+        segment.force();
+        OutboxSegment nextSegment = createSegment(segment.getNumber() + 1,
+                Math.max(segmentSize, OutboxSegment.RECORD_HEADER_SIZE + recordSize));
+        segments.addLast(nextSegment);
+        return nextSegment;
+    }
+
+    private OutboxSegment createSegment(long number, int capacity) {
+        try {
+            return OutboxSegment.create(directory.resolve(String.format("%020d%s", number, SEGMENT_FILE_SUFFIX)),
+                    number, capacity);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private void index(IndexEntry entry) {
+        IndexEntry replacedEntry = entriesByCorrelationId.put(entry.correlationId, entry);
+        if (replacedEntry != null) {
+            entriesById.remove(replacedEntry.id, replacedEntry);
+            replacedEntry.segment.removeLiveRecord(replacedEntry.size);
+        }
+        entriesById.put(entry.id, entry);
+        entry.segment.addLiveRecord(entry.size);
+    }
+
+    private void unindex(IndexEntry entry) {
+        if (entriesByCorrelationId.remove(entry.correlationId, entry)) {
+            entriesById.remove(entry.id, entry);
+            entry.segment.removeLiveRecord(entry.size);
+        }
+    }
+
+    private EmployeeMessageOutboxItem readItem(IndexEntry entry) {
+        ByteBuffer record = entry.segment.read(entry.offset);
+        record.get();
+        int id = record.getInt();
+        LocalDateTime created = LocalDateTime.ofEpochSecond(record.getLong(), record.getInt(), ZoneOffset.UTC);
+        String correlationId = readString(record);
+        String replyTo = readString(record);
+        String contentType = readString(record);
+        String contentEncoding = readString(record);
+        byte[] payload = new byte[record.getInt()];
+        record.get(payload);
+        EmployeeMessageOutboxItem outboxItem = new EmployeeMessageOutboxItem(correlationId, replyTo, created, payload,
+                contentType, contentEncoding);
+        outboxItem.setId(id);
+        return outboxItem;
+    }
+
+    /**
+     * Where the record of a live outbox item is, with what is needed to look it up and relay it without reading it
+     */
+    private static final class IndexEntry {
+        private final int id;
+        private final String correlationId;
+        private final LocalDateTime created;
+        private final boolean hasReplyTo;
+        private final OutboxSegment segment;
+        private final int offset;
+        private final int size;
+
+        private IndexEntry(int id, String correlationId, LocalDateTime created, boolean hasReplyTo, OutboxSegment segment,
+                           int offset, int size) {
+            this.id = id;
+            this.correlationId = correlationId;
+            this.created = created;
+            this.hasReplyTo = hasReplyTo;
+            this.segment = segment;
+            this.offset = offset;
+            this.size = size;
+        }
+    }
+
+    private static byte[] encodeItem(EmployeeMessageOutboxItem outboxItem) {
+        byte[] correlationId = toBytes(outboxItem.getCorrelationId());
+        byte[] replyTo = toBytes(outboxItem.getReplyTo());
+        byte[] contentType = toBytes(outboxItem.getContentType());
+        byte[] contentEncoding = toBytes(outboxItem.getContentEncoding());
+        byte[] payload = outboxItem.getPayload();
+        ByteBuffer record = ByteBuffer.allocate(Byte.BYTES + Integer.BYTES + Long.BYTES + Integer.BYTES
+                + stringSize(correlationId) + stringSize(replyTo) + stringSize(contentType) + stringSize(contentEncoding)
+                + Integer.BYTES + payload.length);
+        record.put(ITEM_RECORD);
+        record.putInt(outboxItem.getId());
+        putCreated(record, outboxItem.getMessageCreated());
+        putString(record, correlationId);
+        putString(record, replyTo);
+        putString(record, contentType);
+        putString(record, contentEncoding);
+        record.putInt(payload.length);
+        record.put(payload);
+        return record.array();
+    }
+
+    private static byte[] encodeTombstone(String correlationId) {
+        byte[] correlationIdBytes = toBytes(correlationId);
+        ByteBuffer record = ByteBuffer.allocate(Byte.BYTES + Integer.BYTES + Long.BYTES + Integer.BYTES
+                + stringSize(correlationIdBytes));
+        record.put(TOMBSTONE_RECORD);
+        record.putInt(0);
+        putCreated(record, LocalDateTime.now());
+        putString(record, correlationIdBytes);
+        return record.array();
+    }
+
+    private static void putCreated(ByteBuffer record, LocalDateTime created) {
+        record.putLong(created.toEpochSecond(ZoneOffset.UTC));
+        record.putInt(created.getNano());
+    }
+
+    private static byte[] toBytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets the size of a string in a record, which is prefixed with its length as a short
+     *
+     * @param value the UTF-8 bytes of the string, null for a null string
+     * @return the number of bytes the string takes up
+     * @throws IllegalArgumentException if the string is longer than its length prefix can hold
+     */
+    private static int stringSize(byte[] value) {
+        if (value != null && value.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Outbox item strings are limited to " + Short.MAX_VALUE
+                    + " bytes, got " + value.length);
+        }
+        return Short.BYTES + (value == null ? 0 : value.length);
+    }
+
+    private static void putString(ByteBuffer record, byte[] value) {
+        if (value == null) {
+            record.putShort((short) -1);
+        } else {
+            record.putShort((short) value.length);
+            record.put(value);
+        }
+    }
+
+    private static String readString(ByteBuffer record) {
+        short length = record.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        record.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,160 @@
+package com.pmoproject.employeeservice.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.pmoproject.employeeservice.models.domain.Employee;
+import com.pmoproject.employeeservice.models.domain.EmployeeSnapshot;
+import com.pmoproject.employeeservice.repositories.EmployeeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Used to cache employees read by {@link EmployeeRepository#findSnapshotById}, and ids that were not found, as immutable
+ * {@link EmployeeSnapshot}s. Entries of an id are invalidated whenever it is written
+ */
+@Component
+@Slf4j
+public class EmployeeCache {
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final EmployeeRepository employeeRepository;
+    private final Cache<Integer, EmployeeSnapshot> employees;
+    private final Cache<Integer, Boolean> missingIds;
+    private final boolean enabled;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    /**
+     * Used to instantiate an object of this class
+     *
+     * @param employeeRepository used to load employees that are not cached
+     * @param enabled            whether employees are cached at all
+     * @param maximumSize        the maximum number of employees cached
+     * @param expireAfterWrite   how long (in milliseconds) an employee is cached for after being loaded
+     * @param missingExpireAfterWrite how long (in milliseconds) an id is remembered as missing after not being found,
+     *                                0 to always query the database for ids that were not found
+     */
+    public EmployeeCache(EmployeeRepository employeeRepository,
+                         @Value("${employeeservice.cache.employee.enabled}") boolean enabled,
+                         @Value("${employeeservice.cache.employee.maximumsize}") long maximumSize,
+                         @Value("${employeeservice.cache.employee.expireafterwrite}") long expireAfterWrite,
+                         @Value("${employeeservice.cache.employee.missing.expireafterwrite}") long missingExpireAfterWrite) {
+        this.employeeRepository = employeeRepository;
+        this.enabled = enabled;
+        this.employees = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        this.missingIds = Caffeine.newBuilder()
+                .maximumSize(missingExpireAfterWrite > 0 ? maximumSize : 0)
+                .expireAfterWrite(missingExpireAfterWrite, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Gets an employee by its id, from the cache if present or from the database otherwise. Concurrent misses for the
+     * same id are loaded from the database once, and ids recently found to be missing are not looked up again
+     *
+     * @param employeeId the id to match against
+     * @return an optional containing a new <code>Employee</code> object if a matching id is found, or empty if none is found
+     */
+    public Optional<Employee> findById(int employeeId) {
+        return findSnapshotById(employeeId).map(EmployeeSnapshot::toEmployee);
+    }
+
+    /**
+     * Gets the immutable snapshot of an employee by its id, as described on {@link #findById}. The snapshot may be shared
+     * by any number of callers
+     *
+     * @param employeeId the id to match against
+     * @return an optional containing the <code>EmployeeSnapshot</code> if a matching id is found, or empty if none is found
+     */
+    public Optional<EmployeeSnapshot> findSnapshotById(int employeeId) {
+        if (!enabled) {
+            return employeeRepository.findSnapshotById(employeeId);
+        }
+        if (missingIds.getIfPresent(employeeId) != null) {
+            return Optional.empty();
+        }
+        int stripe = getStripe(employeeId);
+        long generation = generations.get(stripe);
+        EmployeeSnapshot employee = employees.get(employeeId, id -> employeeRepository.findSnapshotById(id).orElse(null));
+        if (employee == null) {
+            missingIds.put(employeeId, Boolean.TRUE);
+            if (generations.get(stripe) != generation) {
+                missingIds.invalidate(employeeId);
+            }
+        }
+        return Optional.ofNullable(employee);
+    }
+
+    /**
+     * Removes an employee from the cache, and forgets it was missing, so that the next read loads it from the database
+     * again. If called within a transaction, the employee is removed once more after the transaction completes
+     *
+     * @param employeeId the id of the employee that was written
+     */
+    public void invalidate(int employeeId) {
+        evict(employeeId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(employeeId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Bumps the generation of an employee's stripe before removing both of its entries, so that a read of the employee
+     * already loading does not go on to remember it as missing
+     *
+     * @param employeeId the id of the employee that was written
+     */
+    private void evict(int employeeId) {
+        generations.incrementAndGet(getStripe(employeeId));
+        missingIds.invalidate(employeeId);
+        employees.invalidate(employeeId);
+    }
+
+    /**
+     * Gets the stripe of generation counters an employee belongs to
+     *
+     * @param employeeId the id of the employee
+     * @return the index of its generation counter
+     */
+    private static int getStripe(int employeeId) {
+        return Math.floorMod(employeeId, GENERATION_STRIPES);
+    }
+
+    /**
+     * @return the hit, miss, load and eviction statistics of the cache
+     */
+    public CacheStats getStats() {
+        return employees.stats();
+    }
+
+    /**
+     * @return the statistics of the ids remembered as missing, a hit being a lookup answered without the database
+     */
+    public CacheStats getMissingStats() {
+        return missingIds.stats();
+    }
+
+    /**
+     * @return the approximate number of employees cached
+     */
+    public long getSize() {
+        return employees.estimatedSize();
+    }
+}
@@ -0,0 +1,186 @@
+package com.pmoproject.employeeservice.services;
+
+import com.pmoproject.employeeservice.models.domain.EmployeeMessageOutboxItem;
+import com.pmoproject.employeeservice.models.rabbitmq.ReplyPayload;
+import com.pmoproject.employeeservice.models.rabbitmq.RequestType;
+import com.pmoproject.employeeservice.repositories.OutboxStore;
+import lombok.Data;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service for the <code>EmployeeMessageOutboxItem</code> class. Contains methods to record outgoing responses in the
+ * outbox, so that redelivered requests are answered without repeating the action they requested. Where the outbox is kept
+ * is up to the {@link OutboxStore}
+ */
+@Service
+@Data
+public class EmployeeMessageOutboxService {
+    /**
+     * Store used to alter the outbox
+     */
+    private final OutboxStore outboxStore;
+    /**
+     * Used to skip the lookup for correlation ids that cannot have an outbox item
+     */
+    private final OutboxIdempotencyGuard outboxIdempotencyGuard;
+
+    /**
+     * Attempts to find an item in the outbox by its correlation id. The outbox is only queried if
+     * the {@link OutboxIdempotencyGuard} says an item might exist
+     *
+     * @param correlationId correlation id to match against
+     * @param requestType   the type of the request, null if it could not be read
+     * @param redelivered   whether the broker flagged the message as redelivered
+     * @return an optional containing an <code>EmployeeMessageOutboxItem</code> object if a matching id is found, or empty if none is found
+     */
+    public Optional<EmployeeMessageOutboxItem> findExistingMessage(String correlationId, RequestType requestType,
+                                                                   boolean redelivered) {
+        if (!outboxIdempotencyGuard.requiresLookup(correlationId, requestType, redelivered)) {
+            return Optional.empty();
+        }
+        Optional<EmployeeMessageOutboxItem> existingMessage =
+                outboxStore.findByCorrelationId(correlationId);
+        outboxIdempotencyGuard.recordLookupResult(correlationId, requestType, redelivered, existingMessage.isPresent());
+        return existingMessage;
+    }
+
+    /**
+     * Attempts to find the items in the outbox for a number of correlation ids using a single query.
+     * Only the correlation ids the {@link OutboxIdempotencyGuard} says might have an item are queried
+     *
+     * @param requestTypes              the correlation ids to match against, mapped to the type of their request (null
+     *                                  if it could not be read)
+     * @param redeliveredCorrelationIds the correlation ids of the messages the broker flagged as redelivered
+     * @return a map of correlation id to the matching <code>EmployeeMessageOutboxItem</code>, ids with no match are not present
+     */
+    public Map<String, EmployeeMessageOutboxItem> findExistingMessages(Map<String, RequestType> requestTypes,
+                                                                      Collection<String> redeliveredCorrelationIds) {
+        List<String> lookupCorrelationIds = requestTypes.keySet().stream()
+                .filter(correlationId -> outboxIdempotencyGuard.requiresLookup(correlationId,
+                        requestTypes.get(correlationId), redeliveredCorrelationIds.contains(correlationId)))
+                .collect(Collectors.toList());
+        if (lookupCorrelationIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, EmployeeMessageOutboxItem> existingMessages =
+                outboxStore.findAllByCorrelationIdIn(lookupCorrelationIds).stream()
+                        .collect(Collectors.toMap(EmployeeMessageOutboxItem::getCorrelationId, Function.identity(), (first, second) -> first));
+        lookupCorrelationIds.forEach(correlationId -> outboxIdempotencyGuard.recordLookupResult(correlationId,
+                requestTypes.get(correlationId), redeliveredCorrelationIds.contains(correlationId),
+                existingMessages.containsKey(correlationId)));
+        return existingMessages;
+    }
+
+    /**
+     * Saves a outgoing message to the outbox to prevent duplicate actions being taken for failed messages
+     *
+     * @param correlationId correlationId of the request message
+     * @param replyTo       the reply-to queue of the request message, used if the response has to be re-published
+     * @param payload       the encoded response body, exactly as it is sent to the reply-to queue
+     */
+    public void saveMessage(String correlationId, String replyTo, ReplyPayload payload) {
+        outboxStore.saveAll(List.of(createMessage(correlationId, replyTo, payload)));
+        outboxIdempotencyGuard.recordWritten(correlationId);
+    }
+
+    /**
+     * Creates an outbox item for an outgoing message without saving it
+     *
+     * @param correlationId correlationId of the request message
+     * @param replyTo       the reply-to queue of the request message, used if the response has to be re-published
+     * @param payload       the encoded response body, exactly as it is sent to the reply-to queue
+     * @return an unsaved <code>EmployeeMessageOutboxItem</code>
+     */
+    public EmployeeMessageOutboxItem createMessage(String correlationId, String replyTo, ReplyPayload payload) {
+        return new EmployeeMessageOutboxItem(correlationId, replyTo, LocalDateTime.now(), payload.getBody(),
+                payload.getContentType(), payload.getContentEncoding());
+    }
+
+    /**
+     * Returns the encoded response body held by an outbox item, so it can be sent again with the same content type and
+     * content encoding without being re-serialized
+     *
+     * @param outgoingMessage the outbox item
+     * @return the encoded response body
+     */
+    public ReplyPayload getMessagePayload(EmployeeMessageOutboxItem outgoingMessage) {
+        return new ReplyPayload(outgoingMessage.getPayload(), outgoingMessage.getContentType(),
+                outgoingMessage.getContentEncoding());
+    }
+
+    /**
+     * Saves a number of outgoing messages to the outbox within a single transaction, so the whole
+     * batch costs one commit rather than one per message
+     *
+     * @param outgoingMessages the outbox items to save
+     */
+    @Transactional
+    public void saveMessages(List<EmployeeMessageOutboxItem> outgoingMessages) {
+        if (!outgoingMessages.isEmpty()) {
+            outboxStore.saveAll(outgoingMessages);
+            outgoingMessages.forEach(outgoingMessage -> outboxIdempotencyGuard.recordWritten(outgoingMessage.getCorrelationId()));
+        }
+    }
+
+    /**
+     * Returns whether outbox items are saved within the current database transaction, if there is one, rather than
+     * straight away whatever the outcome of the transaction
+     *
+     * @return whether the outbox store joins database transactions
+     */
+    public boolean isTransactional() {
+        return outboxStore.isTransactional();
+    }
+
+    /**
+     * Finds a chunk of the outbox items that are still waiting for a confirm long after being written, which the
+     * {@link OutboxRelay} re-publishes
+     *
+     * @param afterId       the id of the last outbox item of the previous chunk, or 0 for the first chunk
+     * @param createdBefore only outbox items created before this time are returned
+     * @param chunkSize     the maximum number of outbox items returned
+     * @return a list of outbox items in id order
+     */
+    public List<EmployeeMessageOutboxItem> findRelayCandidates(int afterId, LocalDateTime createdBefore, int chunkSize) {
+        return outboxStore.findRelayChunk(afterId, createdBefore, chunkSize);
+    }
+
+    /**
+     * Claims outbox items found by {@link #findRelayCandidates} for the {@link OutboxRelay} about to re-publish them, so
+     * that the relays of other nodes do not re-publish them as well
+     *
+     * @param outboxItems        the outbox items to claim
+     * @param claimedBy          identifies the claim, unique to each call
+     * @param claimedAt          the time of the claim
+     * @param claimExpiredBefore claims made before this time have expired, and may be taken over
+     * @return the outbox items claimed, in the order given
+     */
+    public List<EmployeeMessageOutboxItem> claimForRelay(List<EmployeeMessageOutboxItem> outboxItems, String claimedBy,
+                                                         LocalDateTime claimedAt, LocalDateTime claimExpiredBefore) {
+        return outboxStore.claimForRelay(outboxItems, claimedBy, claimedAt, claimExpiredBefore);
+    }
+
+    /**
+     * Removes the outbox items with the matching correlation ids using a single statement, to indicate their messages
+     * have been sent and received
+     *
+     * @param correlationIds correlation ids of the items to remove
+     * @return the number of outbox items removed
+     */
+    public int removeMessages(Collection<String> correlationIds) {
+        if (correlationIds.isEmpty()) {
+            return 0;
+        }
+        return outboxStore.deleteAllByCorrelationIdIn(correlationIds);
+    }
+}
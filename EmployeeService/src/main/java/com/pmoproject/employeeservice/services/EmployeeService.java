@@ -1,12 +1,33 @@
 package com.pmoproject.employeeservice.services;
 
 import com.pmoproject.employeeservice.models.domain.Employee;
+import com.pmoproject.employeeservice.models.domain.EmployeeSnapshot;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeBulkCreateResult;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeBulkCreateResult.RowResult;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeSearchCriteria;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeSearchPage;
 import com.pmoproject.employeeservice.repositories.EmployeeRepository;
+import com.pmoproject.employeeservice.util.SingleFlight;
 import lombok.Data;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * Service for the <code>Employee</code> class. Contains methods to perform CRUD operations on the Employee table
@@ -15,10 +36,31 @@ import java.util.Optional;
 @Service
 @Data
 public class EmployeeService {
+    /**
+     * Number of employees in a search page when the request does not give a page size
+     */
+    public static final int DEFAULT_SEARCH_PAGE_SIZE = 100;
+    /**
+     * Largest page size a search request may ask for
+     */
+    public static final int MAX_SEARCH_PAGE_SIZE = 1000;
+
     /**
      * JPA repository used to alter the Employee table
      */
     private final EmployeeRepository employeeRepository;
+    /**
+     * Read-through cache used for lookups by id
+     */
+    private final EmployeeCache employeeCache;
+    /**
+     * Coalesces concurrent lookups of the same employee id
+     */
+    private final SingleFlight<Integer, Optional<EmployeeSnapshot>> employeeLookups = new SingleFlight<>();
+    /**
+     * Coalesces concurrent lookups of the same set of employee ids
+     */
+    private final SingleFlight<Set<Integer>, List<Employee>> employeesLookups = new SingleFlight<>();
 
     /**
      * Creates a new employee in the database
@@ -31,7 +73,82 @@ public class EmployeeService {
      * @throws IllegalArgumentException if the employee's start date is null
      */
     public Employee createEmployee(Employee employee) {
+        validateNewEmployee(employee);
+        Employee savedEmployee = employeeRepository.save(employee);
+        employeeCache.invalidate(savedEmployee.getId());
+        return savedEmployee;
+    }
 
+    /**
+     * Creates many new employees in the database at once. Each employee is validated as by {@link #createEmployee}, and
+     * must also have an id that is not already taken, neither in the database nor by another employee of the request.
+     * The employees that pass are inserted in JDBC batches within a single transaction, and the outcome of every
+     * employee is reported rather than the first failure failing the whole request. Having no employees to create does
+     * not roll back a transaction the request is routed within, since nothing has been written by then.
+     * <p>
+     * The ids are checked without a lock, so an employee created concurrently with one of the same id can still fail the
+     * insert. Since its transaction can then only be rolled back, the failure is raised as a transient one, so that the
+     * request is retried and the retry's check reports the concurrently created ids as already existing
+     *
+     * @param employees the employees to create
+     * @return the outcome of each employee, in the order given
+     * @throws IllegalArgumentException     if no employees are given
+     * @throws ConcurrencyFailureException if the insert violates a constraint, as an id was taken after being checked
+     */
+    @Transactional(noRollbackFor = IllegalArgumentException.class)
+    public EmployeeBulkCreateResult createEmployees(List<Employee> employees) {
+        if (employees == null || employees.isEmpty()) {
+            throw new IllegalArgumentException("At least one employee must be provided");
+        }
+        String[] errorMessages = new String[employees.size()];
+        Set<Integer> requestedIds = new HashSet<>();
+        for (int i = 0; i < employees.size(); i++) {
+            Employee employee = employees.get(i);
+            try {
+                validateNewEmployee(employee);
+                if (!requestedIds.add(employee.getId())) {
+                    errorMessages[i] = String.format("Employee id [%d] appears more than once in the request", employee.getId());
+                }
+            } catch (IllegalArgumentException exception) {
+                errorMessages[i] = exception.getMessage();
+            }
+        }
+        Set<Integer> existingIds = requestedIds.isEmpty() ? Collections.emptySet()
+                : new HashSet<>(employeeRepository.findExistingIds(requestedIds));
+        List<Employee> newEmployees = new ArrayList<>(employees.size());
+        for (int i = 0; i < employees.size(); i++) {
+            if (errorMessages[i] == null && existingIds.contains(employees.get(i).getId())) {
+                errorMessages[i] = String.format("An employee with id [%d] already exists", employees.get(i).getId());
+            } else if (errorMessages[i] == null) {
+                newEmployees.add(employees.get(i));
+            }
+        }
+        try {
+            employeeRepository.insertAll(newEmployees);
+        } catch (DataIntegrityViolationException exception) {
+            throw new ConcurrencyFailureException("An employee of the request was created concurrently, "
+                    + "its ids will be checked again", exception);
+        }
+        newEmployees.forEach(employee -> employeeCache.invalidate(employee.getId()));
+
+        List<RowResult> rows = new ArrayList<>(employees.size());
+        for (int i = 0; i < employees.size(); i++) {
+            Integer employeeId = employees.get(i) == null ? null : employees.get(i).getId();
+            rows.add(new RowResult(i, employeeId, errorMessages[i] == null, errorMessages[i]));
+        }
+        return new EmployeeBulkCreateResult(rows);
+    }
+
+    /**
+     * Checks that an employee can be created
+     *
+     * @param employee the employee to check
+     * @throws IllegalArgumentException if the <code>employee</code> parameter is null
+     * @throws IllegalArgumentException if an employee is on contract but has no end-date
+     * @throws IllegalArgumentException if an employee is archived
+     * @throws IllegalArgumentException if the employee's start date is null
+     */
+    private void validateNewEmployee(Employee employee) {
         if (employee == null) {
             throw new IllegalArgumentException("Employee object cannot be null during creation");
         }
@@ -44,19 +161,127 @@ public class EmployeeService {
         if (employee.getStartDate() == null) {
             throw new IllegalArgumentException("An employee's start date cannot be null");
         }
-        return employeeRepository.save(employee);
     }
 
     /**
-     * Gets and employee from the database with a matching employee id
+     * Gets and employee from the database with a matching employee id, through the {@link EmployeeCache}. Concurrent
+     * lookups of the same id share a single lookup, see {@link #coalesce}, and each is handed its own copy of the employee
      *
      * @param employeeId the id to match against
      * @return an <code>Employee</code> object with a matching id
      * @throws NoSuchElementException if no employee matched the id given
      */
     public Employee getEmployeeById(int employeeId) {
-        Optional<Employee> employee = employeeRepository.findById(employeeId);
-        return employee.orElseThrow(() ->
+        Optional<EmployeeSnapshot> employee = coalesce(employeeLookups, employeeId, () -> employeeCache.findSnapshotById(employeeId));
+        return employee.map(EmployeeSnapshot::toEmployee).orElseThrow(() ->
                 new NoSuchElementException(String.format("No employee with id [%s] was found", employeeId)));
     }
+
+    /**
+     * Gets all employees from the database with an employee id matching one of the ids given, using a query per chunk of ids.
+     * Concurrent lookups of the same ids share that query, see {@link #coalesce}, and are handed the same employees
+     *
+     * @param employeeIds the ids to match against
+     * @return an unmodifiable list of <code>Employee</code> objects with a matching id, ids that matched no employee are
+     * not present. The employees must not be modified
+     */
+    public List<Employee> getEmployeesByIds(Collection<Integer> employeeIds) {
+        if (employeeIds == null || employeeIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Set<Integer> ids = employeeIds.stream().filter(Objects::nonNull).collect(Collectors.toUnmodifiableSet());
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return coalesce(employeesLookups, ids,
+                () -> Collections.unmodifiableList(employeeRepository.findAllWithReferencesByIdIn(ids)));
+    }
+
+    /**
+     * Runs a lookup, sharing it with any concurrent lookup of the same key so that a burst of requests for a popular
+     * employee costs one query rather than one per request. Lookups made within a transaction are never shared, as they
+     * must see the transaction's own uncommitted writes
+     *
+     * @param lookups the lookups in flight
+     * @param key     the key of the lookup
+     * @param loader  runs the lookup
+     * @return the result of the lookup
+     */
+    private static <K, V> V coalesce(SingleFlight<K, V> lookups, K key, Supplier<V> loader) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return loader.get();
+        }
+        return lookups.execute(key, loader);
+    }
+
+    /**
+     * Searches for employees matching the criteria given, returning a page of them in EmployeeId order. The next page is
+     * requested with the <code>nextAfterId</code> of the page, and is found by seeking past that id rather than by
+     * skipping an offset, so every page costs the same however deep it is
+     *
+     * @param criteria the filters, page size and position of the page to retrieve
+     * @return a page of matching employees, with the id to continue from if there are more
+     * @throws IllegalArgumentException if the criteria are null
+     * @throws IllegalArgumentException if the page size is not between 1 and {@value #MAX_SEARCH_PAGE_SIZE}
+     * @throws IllegalArgumentException if the start of a date range is after its end
+     */
+    public EmployeeSearchPage searchEmployees(EmployeeSearchCriteria criteria) {
+        if (criteria == null) {
+            throw new IllegalArgumentException("Search criteria cannot be null");
+        }
+        int pageSize = criteria.getPageSize() == null ? DEFAULT_SEARCH_PAGE_SIZE : criteria.getPageSize();
+        if (pageSize < 1 || pageSize > MAX_SEARCH_PAGE_SIZE) {
+            throw new IllegalArgumentException(
+                    String.format("The page size must be between 1 and %d", MAX_SEARCH_PAGE_SIZE));
+        }
+        validateDateRange(criteria.getStartDateFrom(), criteria.getStartDateTo(), "start date");
+        validateDateRange(criteria.getEndDateFrom(), criteria.getEndDateTo(), "end date");
+
+        // One extra employee is read to learn whether there is a next page without a separate count query
+        List<EmployeeSnapshot> snapshots = employeeRepository.search(criteria, pageSize + 1);
+        boolean hasNextPage = snapshots.size() > pageSize;
+        List<Employee> employees = snapshots.stream()
+                .limit(pageSize)
+                .map(EmployeeSnapshot::toEmployee)
+                .collect(Collectors.toList());
+        return new EmployeeSearchPage(employees, hasNextPage ? employees.get(employees.size() - 1).getId() : null);
+    }
+
+    /**
+     * Checks that a search date range is not the wrong way round
+     *
+     * @param from        the start of the range, may be null
+     * @param to          the end of the range, may be null
+     * @param description what the range is of, for the error message
+     * @throws IllegalArgumentException if both ends are given and the start is after the end
+     */
+    private void validateDateRange(LocalDateTime from, LocalDateTime to, String description) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException(String.format("The %s range must not start after it ends", description));
+        }
+    }
+
+    /**
+     * Reads every employee from the database in EmployeeId order and hands them over in chunks, so that no more than a
+     * chunk of employees is held at once however many there are. Each chunk is read by its own query, seeking past the
+     * last id of the chunk before as a search does, so no transaction or connection is held while a chunk is handed over
+     *
+     * @param chunkSize      the maximum number of employees in each chunk
+     * @param chunkConsumer  called with each chunk in turn, the chunk is not used again once the call returns
+     * @return the number of employees exported
+     */
+    public long exportEmployees(int chunkSize, Consumer<List<Employee>> chunkConsumer) {
+        long exported = 0;
+        EmployeeSearchCriteria criteria = new EmployeeSearchCriteria();
+        List<EmployeeSnapshot> snapshots;
+        do {
+            snapshots = employeeRepository.search(criteria, chunkSize);
+            if (!snapshots.isEmpty()) {
+                chunkConsumer.accept(snapshots.stream().map(EmployeeSnapshot::toEmployee).collect(Collectors.toList()));
+                exported += snapshots.size();
+                criteria.setAfterId(snapshots.get(snapshots.size() - 1).getId());
+            }
+        } while (snapshots.size() == chunkSize);
+        return exported;
+    }
 }
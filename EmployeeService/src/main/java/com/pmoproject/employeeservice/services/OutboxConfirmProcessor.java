@@ -0,0 +1,211 @@
+package com.pmoproject.employeeservice.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Handles publisher confirms for replies recorded in the outbox, away from the AMQP connection's callback thread.
+ * <p>
+ * Acked correlation ids are queued and deleted from the outbox in bulk by a dedicated thread, with one statement per
+ * flush. A flush happens once <code>employeeservice.outbox.deletion.batchsize</code> ids have been queued, or once
+ * <code>employeeservice.outbox.deletion.flushinterval</code> milliseconds have passed since the first of them was queued,
+ * whichever comes first. Nacked replies are not deleted: their outbox items are kept so they can be published again
+ */
+@Component
+@Slf4j
+public class OutboxConfirmProcessor implements SmartLifecycle {
+    private final EmployeeMessageOutboxService employeeMessageOutboxService;
+    private final int batchSize;
+    private final long flushInterval;
+    private final BlockingQueue<String> acknowledgedCorrelationIds;
+
+    private final AtomicLong acknowledged = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong deleted = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread deletionThread;
+
+    /**
+     * Used to instantiate an object of this class
+     *
+     * @param employeeMessageOutboxService used to delete the outbox items of confirmed replies
+     * @param batchSize                    the maximum number of outbox items deleted per flush
+     * @param flushInterval                the maximum time (in milliseconds) an acked outbox item waits to be deleted
+     * @param queueCapacity                the maximum number of acked outbox items waiting to be deleted
+     */
+    public OutboxConfirmProcessor(EmployeeMessageOutboxService employeeMessageOutboxService,
+                                  @Value("${employeeservice.outbox.deletion.batchsize}") int batchSize,
+                                  @Value("${employeeservice.outbox.deletion.flushinterval}") long flushInterval,
+                                  @Value("${employeeservice.outbox.deletion.queuecapacity}") int queueCapacity) {
+        this.employeeMessageOutboxService = employeeMessageOutboxService;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.acknowledgedCorrelationIds = new LinkedBlockingQueue<>(queueCapacity);
+    }
+
+    /**
+     * Queues the outbox item of an acked reply for deletion, without blocking the caller
+     *
+     * @param correlationId correlation id of the reply
+     */
+    public void acknowledged(String correlationId) {
+        acknowledged.incrementAndGet();
+        if (!acknowledgedCorrelationIds.offer(correlationId)) {
+            dropped.incrementAndGet();
+            log.warn("Outbox deletion queue is full, outbox item with correlation id [{}] will be kept", correlationId);
+        }
+    }
+
+    /**
+     * Records a nacked reply. Its outbox item is kept, so that the reply can be published again
+     *
+     * @param correlationId correlation id of the reply
+     * @param reason        the reason given by the broker, if any
+     */
+    public void rejected(String correlationId, String reason) {
+        rejected.incrementAndGet();
+        log.warn("Received nack for correlation id [{}], keeping its outbox item. Reason [{}]", correlationId, reason);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        deletionThread = new Thread(this::processAcknowledgements, "outbox-confirm-processor");
+        deletionThread.setDaemon(true);
+        deletionThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        deletionThread.interrupt();
+        try {
+            deletionThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Started before, and stopped after, the listener containers (which use the default phase), so that confirms
+     * arriving while the containers shut down are still flushed
+     */
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 100;
+    }
+
+    /**
+     * Loop run by the deletion thread, flushing the queued correlation ids until stopped and the queue is empty
+     */
+    private void processAcknowledgements() {
+        while (running || !acknowledgedCorrelationIds.isEmpty()) {
+            List<String> batch = new ArrayList<>(batchSize);
+            try {
+                String first = acknowledgedCorrelationIds.poll(flushInterval, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long flushDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushInterval);
+                while (batch.size() < batchSize) {
+                    long remaining = flushDeadline - System.nanoTime();
+                    String next = remaining > 0 ? acknowledgedCorrelationIds.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException exception) {
+                acknowledgedCorrelationIds.drainTo(batch, batchSize - batch.size());
+            }
+            flush(batch);
+        }
+    }
+
+    /**
+     * Deletes the outbox items of a batch of acked replies. If the deletion fails while running, the batch is queued
+     * again after waiting a flush interval, so a failing database is not retried in a tight loop. If it fails while
+     * stopping, the outbox items are kept
+     *
+     * @param batch correlation ids to delete
+     */
+    private void flush(List<String> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            int deletedCount = employeeMessageOutboxService.removeMessages(batch);
+            deleted.addAndGet(deletedCount);
+            log.debug("Removed [{}] outbox items for [{}] acked replies", deletedCount, batch.size());
+        } catch (RuntimeException exception) {
+            if (running) {
+                log.error("Failed to remove [{}] outbox items, they will be retried", batch.size(), exception);
+                batch.forEach(correlationId -> {
+                    if (!acknowledgedCorrelationIds.offer(correlationId)) {
+                        dropped.incrementAndGet();
+                    }
+                });
+                try {
+                    Thread.sleep(flushInterval);
+                } catch (InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+            } else {
+                log.error("Failed to remove [{}] outbox items while stopping, they will be kept", batch.size(), exception);
+                dropped.addAndGet(batch.size());
+            }
+        }
+    }
+
+    /**
+     * @return the number of acked replies
+     */
+    public long getAcknowledged() {
+        return acknowledged.get();
+    }
+
+    /**
+     * @return the number of nacked replies
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * @return the number of outbox items deleted
+     */
+    public long getDeleted() {
+        return deleted.get();
+    }
+
+    /**
+     * @return the number of acked replies whose outbox item was kept because the deletion queue was full
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * @return the number of acked replies waiting for their outbox item to be deleted
+     */
+    public int getPending() {
+        return acknowledgedCorrelationIds.size();
+    }
+}
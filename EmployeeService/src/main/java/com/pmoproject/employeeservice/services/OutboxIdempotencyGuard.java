@@ -0,0 +1,207 @@
+package com.pmoproject.employeeservice.services;
+
+import com.pmoproject.employeeservice.models.domain.OutboxCorrelationId;
+import com.pmoproject.employeeservice.models.rabbitmq.RequestType;
+import com.pmoproject.employeeservice.repositories.OutboxStore;
+import com.pmoproject.employeeservice.util.RotatingBloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Guards the outbox idempotency lookup, so that the EmployeeMessageOutboxItem table is only queried for correlation ids
+ * that might actually have an outbox item.
+ * <p>
+ * The correlation ids of outbox items written by this node are remembered in a {@link RotatingBloomFilter}. A lookup is
+ * skipped only when the filter says the id was definitely not written recently. The filter cannot know about outbox items
+ * written by other nodes sharing the database, nor about requests republished by their client (which the broker does not
+ * flag as redelivered), and forgets old ids as it rotates. Skipping the lookup is therefore only allowed for requests that
+ * are safe to handle twice, and the guard falls back to the database:
+ * <ul>
+ *     <li>for every request that writes employees, or whose type is unknown, as handling it twice would write twice</li>
+ *     <li>for every message until the filter has been seeded with the correlation ids already in the outbox table, which
+ *     covers items written before a restart</li>
+ *     <li>for redelivered messages, which may have been processed by another node before being redelivered here</li>
+ *     <li>for every message when the guard is disabled</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class OutboxIdempotencyGuard {
+    private final OutboxStore outboxStore;
+    private final RotatingBloomFilter writtenCorrelationIds;
+    private final boolean enabled;
+    private final int seedChunkSize;
+    private final long reportInterval;
+    private volatile boolean seeded;
+
+    private final AtomicLong skippedLookups = new AtomicLong();
+    private final AtomicLong fallbackLookups = new AtomicLong();
+    private final AtomicLong filteredLookups = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+
+    /**
+     * Used to instantiate an object of this class
+     *
+     * @param outboxStore              used to seed the filter with the correlation ids already in the outbox
+     * @param enabled                  whether lookups may be skipped at all
+     * @param expectedInsertions       the number of correlation ids each generation of the filter holds
+     * @param falsePositiveProbability the desired false-positive probability of a full generation of the filter
+     * @param seedChunkSize            the number of correlation ids read from the outbox per query while seeding
+     * @param reportInterval           the number of checks between each statistics log line
+     */
+    public OutboxIdempotencyGuard(OutboxStore outboxStore,
+                                  @Value("${employeeservice.outbox.idempotency.enabled}") boolean enabled,
+                                  @Value("${employeeservice.outbox.idempotency.expectedinsertions}") int expectedInsertions,
+                                  @Value("${employeeservice.outbox.idempotency.falsepositiveprobability}") double falsePositiveProbability,
+                                  @Value("${employeeservice.outbox.idempotency.seedchunksize}") int seedChunkSize,
+                                  @Value("${employeeservice.outbox.idempotency.reportinterval}") long reportInterval) {
+        this.outboxStore = outboxStore;
+        this.enabled = enabled;
+        this.seedChunkSize = seedChunkSize;
+        this.reportInterval = reportInterval;
+        this.writtenCorrelationIds = new RotatingBloomFilter(expectedInsertions, falsePositiveProbability);
+    }
+
+    /**
+     * Seeds the filter with the correlation ids already in the outbox table, after which lookups may be skipped.
+     * Until this completes every message is looked up in the database. The ids are read a chunk at a time in id order,
+     * so only a chunk is held at once, and if there are more than the filter remembers it is the newest that it keeps
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedFromOutbox() {
+        if (!enabled) {
+            return;
+        }
+        long seededCount = 0;
+        int afterId = 0;
+        List<OutboxCorrelationId> chunk;
+        do {
+            chunk = outboxStore.findCorrelationIdChunk(afterId, seedChunkSize);
+            chunk.forEach(existing -> writtenCorrelationIds.put(existing.getCorrelationId()));
+            seededCount += chunk.size();
+            if (!chunk.isEmpty()) {
+                afterId = chunk.get(chunk.size() - 1).getId();
+            }
+        } while (chunk.size() == seedChunkSize);
+        seeded = true;
+        log.info("Seeded outbox idempotency guard with [{}] correlation ids", seededCount);
+    }
+
+    /**
+     * Checks whether the outbox must be queried for a message
+     *
+     * @param correlationId correlation id of the message
+     * @param requestType   the type of the request, null if it could not be read
+     * @param redelivered   whether the broker flagged the message as redelivered
+     * @return true if the message might have an outbox item and must be looked up, false if the lookup can be skipped
+     */
+    public boolean requiresLookup(String correlationId, RequestType requestType, boolean redelivered) {
+        boolean requiresLookup;
+        if (isFallback(requestType, redelivered)) {
+            fallbackLookups.incrementAndGet();
+            requiresLookup = true;
+        } else if (writtenCorrelationIds.mightContain(correlationId)) {
+            filteredLookups.incrementAndGet();
+            requiresLookup = true;
+        } else {
+            skippedLookups.incrementAndGet();
+            requiresLookup = false;
+        }
+        if (reportInterval > 0 && getCheckCount() % reportInterval == 0) {
+            log.info("Outbox idempotency guard: skip rate [{}], false positive rate [{}]", getSkipRate(), getFalsePositiveRate());
+        }
+        return requiresLookup;
+    }
+
+    /**
+     * Records the result of a lookup made because the filter said the correlation id might have been written, so that
+     * misses can be counted as false positives
+     *
+     * @param correlationId correlation id that was looked up
+     * @param requestType   the type of the request, null if it could not be read
+     * @param redelivered   whether the broker flagged the message as redelivered
+     * @param found         whether an outbox item was found
+     */
+    public void recordLookupResult(String correlationId, RequestType requestType, boolean redelivered, boolean found) {
+        if (!isFallback(requestType, redelivered) && !found) {
+            falsePositives.incrementAndGet();
+        }
+    }
+
+    /**
+     * Checks whether a message must be looked up in the database without consulting the filter
+     *
+     * @param requestType the type of the request, null if it could not be read
+     * @param redelivered whether the broker flagged the message as redelivered
+     * @return true if the filter must not be relied on for the message
+     */
+    private boolean isFallback(RequestType requestType, boolean redelivered) {
+        return !enabled || !seeded || redelivered || requestType == null || requestType.isWrite();
+    }
+
+    /**
+     * Remembers that an outbox item was written for a correlation id
+     *
+     * @param correlationId correlation id of the outbox item
+     */
+    public void recordWritten(String correlationId) {
+        writtenCorrelationIds.put(correlationId);
+    }
+
+    /**
+     * @return the number of checks made by the guard
+     */
+    public long getCheckCount() {
+        return skippedLookups.get() + fallbackLookups.get() + filteredLookups.get();
+    }
+
+    /**
+     * @return the number of lookups that were skipped
+     */
+    public long getSkippedLookups() {
+        return skippedLookups.get();
+    }
+
+    /**
+     * @return the number of lookups that fell back to the database without consulting the filter
+     */
+    public long getFallbackLookups() {
+        return fallbackLookups.get();
+    }
+
+    /**
+     * @return the number of lookups made because the filter said the correlation id might have been written
+     */
+    public long getFilteredLookups() {
+        return filteredLookups.get();
+    }
+
+    /**
+     * @return the number of lookups made because of the filter that found nothing
+     */
+    public long getFalsePositives() {
+        return falsePositives.get();
+    }
+
+    /**
+     * @return the fraction of all checks where the lookup was skipped
+     */
+    public double getSkipRate() {
+        long checks = getCheckCount();
+        return checks == 0 ? 0 : (double) skippedLookups.get() / checks;
+    }
+
+    /**
+     * @return the fraction of lookups made because of the filter that found nothing
+     */
+    public double getFalsePositiveRate() {
+        long filtered = filteredLookups.get();
+        return filtered == 0 ? 0 : (double) falsePositives.get() / filtered;
+    }
+}
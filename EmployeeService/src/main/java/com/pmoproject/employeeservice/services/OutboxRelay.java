@@ -0,0 +1,228 @@
+package com.pmoproject.employeeservice.services;
+
+import com.pmoproject.employeeservice.listener.ReplyPublisher;
+import com.pmoproject.employeeservice.metrics.TimedCorrelationData;
+import com.pmoproject.employeeservice.models.domain.EmployeeMessageOutboxItem;
+import com.pmoproject.employeeservice.util.ReplyMessageUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Used to re-publish replies whose outbox items are still in the outbox long after being written, meaning their publish
+ * was nacked or their confirm was lost. Each chunk is claimed first, so nodes sharing the outbox re-publish a reply once
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+    private final EmployeeMessageOutboxService employeeMessageOutboxService;
+    private final ReplyPublisher replyPublisher;
+    private final boolean enabled;
+    private final long threshold;
+    private final int chunkSize;
+    private final long confirmTimeout;
+    private final long publishIntervalNanos;
+    private final Semaphore inFlightPermits;
+    private final Set<String> inFlightCorrelationIds = ConcurrentHashMap.newKeySet();
+    private final String relayId = UUID.randomUUID().toString();
+    private final AtomicLong claims = new AtomicLong();
+    private long nextPublishNanos;
+
+    private final AtomicLong relayed = new AtomicLong();
+
+    /**
+     * Used to instantiate an object of this class
+     *
+     * @param employeeMessageOutboxService used to find the outbox items to re-publish
+     * @param replyPublisher               publishes the replies within the window shared with the listener
+     * @param enabled                      whether the relay runs at all
+     * @param threshold                    how long (in milliseconds) after being written an outbox item is re-published
+     * @param chunkSize                    the number of outbox items read per query
+     * @param maxInFlight                  the maximum number of re-published replies awaiting a confirm at once
+     * @param ratePerSecond                the maximum number of replies re-published per second, 0 for no limit
+     * @param confirmTimeout               how long (in milliseconds) to wait for a confirm to free a slot before ending the run
+     */
+    public OutboxRelay(EmployeeMessageOutboxService employeeMessageOutboxService, ReplyPublisher replyPublisher,
+                       @Value("${employeeservice.outbox.relay.enabled}") boolean enabled,
+                       @Value("${employeeservice.outbox.relay.threshold}") long threshold,
+                       @Value("${employeeservice.outbox.relay.chunksize}") int chunkSize,
+                       @Value("${employeeservice.outbox.relay.maxinflight}") int maxInFlight,
+                       @Value("${employeeservice.outbox.relay.ratepersecond}") int ratePerSecond,
+                       @Value("${employeeservice.outbox.relay.confirmtimeout}") long confirmTimeout) {
+        this.employeeMessageOutboxService = employeeMessageOutboxService;
+        this.replyPublisher = replyPublisher;
+        this.enabled = enabled;
+        this.threshold = threshold;
+        this.chunkSize = chunkSize;
+        this.confirmTimeout = confirmTimeout;
+        this.publishIntervalNanos = ratePerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / ratePerSecond : 0;
+        this.inFlightPermits = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Scheduled run of the relay
+     */
+    @Scheduled(initialDelayString = "${employeeservice.outbox.relay.interval}",
+            fixedDelayString = "${employeeservice.outbox.relay.interval}")
+    public void relayScheduled() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int relayedCount = relayUnconfirmedReplies();
+            if (relayedCount > 0) {
+                log.info("Re-published [{}] unconfirmed replies from the outbox", relayedCount);
+            }
+        } catch (RuntimeException exception) {
+            log.error("Outbox relay run failed, it will be retried on the next run", exception);
+        }
+    }
+
+    /**
+     * Re-publishes every outbox item older than the threshold and not claimed by another relay, one chunk at a time. The
+     * run ends early if no slot frees up within the confirm timeout, if a publish fails or if the thread is interrupted;
+     * the remaining outbox items are picked up by a later run once their claim has expired
+     *
+     * @return the number of replies re-published
+     */
+    public int relayUnconfirmedReplies() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime createdBefore = now.minus(threshold, ChronoUnit.MILLIS);
+        int afterId = 0;
+        int relayedCount = 0;
+        List<EmployeeMessageOutboxItem> chunk;
+        do {
+            chunk = employeeMessageOutboxService.findRelayCandidates(afterId, createdBefore, chunkSize);
+            if (chunk.isEmpty()) {
+                break;
+            }
+            afterId = chunk.get(chunk.size() - 1).getId();
+            List<EmployeeMessageOutboxItem> claimed = claim(chunk, now, createdBefore);
+            for (EmployeeMessageOutboxItem outboxItem : claimed) {
+                if (!acquirePublishSlot()) {
+                    log.warn("No confirms received for [{}] milliseconds, ending outbox relay run early", confirmTimeout);
+                    return relayedCount;
+                }
+                if (!publish(outboxItem)) {
+                    return relayedCount;
+                }
+                relayedCount++;
+            }
+        } while (chunk.size() == chunkSize);
+        return relayedCount;
+    }
+
+    /**
+     * Claims the outbox items of a chunk that are not already awaiting a confirm from this relay
+     *
+     * @param chunk              the chunk of outbox items
+     * @param claimedAt          the time of the claim
+     * @param claimExpiredBefore claims made before this time have expired, and may be taken over
+     * @return the outbox items claimed, which this relay alone re-publishes
+     */
+    private List<EmployeeMessageOutboxItem> claim(List<EmployeeMessageOutboxItem> chunk, LocalDateTime claimedAt,
+                                                  LocalDateTime claimExpiredBefore) {
+        List<EmployeeMessageOutboxItem> candidates = chunk.stream()
+                .filter(outboxItem -> !inFlightCorrelationIds.contains(outboxItem.getCorrelationId()))
+                .collect(Collectors.toList());
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+        return employeeMessageOutboxService.claimForRelay(candidates, relayId + ":" + claims.incrementAndGet(),
+                claimedAt, claimExpiredBefore);
+    }
+
+    /**
+     * Waits for one of the in-flight slots to be free, then for the rate limit to allow another publish
+     *
+     * @return true if a publish may go ahead, false if the run should end
+     */
+    private boolean acquirePublishSlot() {
+        try {
+            if (!inFlightPermits.tryAcquire(confirmTimeout, TimeUnit.MILLISECONDS)) {
+                return false;
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        if (publishIntervalNanos > 0) {
+            long now = System.nanoTime();
+            if (nextPublishNanos - now > 0) {
+                LockSupport.parkNanos(nextPublishNanos - now);
+                now = System.nanoTime();
+            }
+            nextPublishNanos = Math.max(now, nextPublishNanos) + publishIntervalNanos;
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            inFlightPermits.release();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Re-publishes a single outbox item to its reply-to queue. Its slot is freed once its confirm arrives, whether it
+     * is an ack or a nack
+     *
+     * @param outboxItem the outbox item to re-publish, a slot must already have been acquired for it
+     * @return true if the reply was published, false if the publish failed and the run should end
+     */
+    private boolean publish(EmployeeMessageOutboxItem outboxItem) {
+        String correlationId = outboxItem.getCorrelationId();
+        inFlightCorrelationIds.add(correlationId);
+        TimedCorrelationData correlationData = new TimedCorrelationData(correlationId);
+        correlationData.getFuture().addCallback(confirm -> releasePublishSlot(correlationId),
+                failure -> releasePublishSlot(correlationId));
+        try {
+            replyPublisher.publish(outboxItem.getReplyTo(),
+                    ReplyMessageUtils.createReplyMessage(employeeMessageOutboxService.getMessagePayload(outboxItem), correlationId),
+                    correlationData);
+        } catch (AmqpException exception) {
+            log.warn("Failed to re-publish reply for correlation id [{}], ending outbox relay run early", correlationId, exception);
+            releasePublishSlot(correlationId);
+            return false;
+        }
+        relayed.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Frees the slot of a re-published reply, at most once per publish
+     *
+     * @param correlationId correlation id of the reply
+     */
+    private void releasePublishSlot(String correlationId) {
+        if (inFlightCorrelationIds.remove(correlationId)) {
+            inFlightPermits.release();
+        }
+    }
+
+    /**
+     * @return the number of replies re-published
+     */
+    public long getRelayed() {
+        return relayed.get();
+    }
+
+    /**
+     * @return the number of re-published replies awaiting a confirm
+     */
+    public int getInFlight() {
+        return inFlightCorrelationIds.size();
+    }
+}
@@ -2,11 +2,61 @@ package com.pmoproject.employeeservice.util;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Represents a utility class containing methods that use Jackson to convert POJO's to JSON and vice-versa
+ * Represents a utility class containing methods that use Jackson to convert POJO's to JSON and vice-versa.
+ * <p>
+ * A single configured <code>ObjectMapper</code> is shared by the whole service, and the readers and writers built from it
+ * are cached per type. Both are immutable and thread-safe, so nothing is rebuilt on a per-message basis
  */
 public class JacksonUtils {
+    private static final ObjectMapper OBJECT_MAPPER = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .build();
+    private static final Map<Class<?>, ObjectReader> READERS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, ObjectWriter> WRITERS = new ConcurrentHashMap<>();
+
+    private JacksonUtils() {
+    }
+
+    /**
+     * Returns the <code>ObjectMapper</code> shared by the service, so other components (such as message converters) are
+     * configured identically. It must not be reconfigured after start-up
+     *
+     * @return the shared <code>ObjectMapper</code>
+     */
+    public static ObjectMapper getObjectMapper() {
+        return OBJECT_MAPPER;
+    }
+
+    /**
+     * Returns the cached <code>ObjectReader</code> for a type, creating it on first use
+     *
+     * @param deserializingClass the type of class the reader deserializes into
+     * @return a reader for the type
+     */
+    public static ObjectReader readerFor(Class<?> deserializingClass) {
+        return READERS.computeIfAbsent(deserializingClass, OBJECT_MAPPER::readerFor);
+    }
+
+    /**
+     * Returns the cached <code>ObjectWriter</code> for a type, creating it on first use
+     *
+     * @param serializingClass the type of class the writer serializes
+     * @return a writer for the type
+     */
+    public static ObjectWriter writerFor(Class<?> serializingClass) {
+        return WRITERS.computeIfAbsent(serializingClass, OBJECT_MAPPER::writerFor);
+    }
+
     /**
      * Deserializes a JSON object into a POJO
      *
@@ -16,8 +66,19 @@ public class JacksonUtils {
      * @throws IllegalArgumentException if the JSON object cannot be deserialized into the type of class specified for whatever reason
      */
     public static <T> T convertJsonToObject(Object json, Class<T> deserializingClass) throws IllegalArgumentException {
-        ObjectMapper objectMapper = new ObjectMapper();
-        return objectMapper.convertValue(json, deserializingClass);
+        return OBJECT_MAPPER.convertValue(json, deserializingClass);
+    }
+
+    /**
+     * Deserializes an encoded JSON object into a POJO
+     *
+     * @param json UTF-8 encoded JSON object to convert
+     * @param deserializingClass the type of class to deserialize the object into
+     * @return an instance of the class specified with data from the deserialized JSON object
+     * @throws IOException if the JSON object cannot be deserialized into the type of class specified for whatever reason
+     */
+    public static <T> T convertJsonToObject(byte[] json, Class<T> deserializingClass) throws IOException {
+        return readerFor(deserializingClass).readValue(json);
     }
 
     /**
@@ -27,7 +88,25 @@ public class JacksonUtils {
      * @throws JsonProcessingException if the POJO cannot be serialized into a JSON string for whatever reason
      */
     public static String convertObjectToJson(Object object) throws JsonProcessingException {
-        ObjectMapper objectMapper = new ObjectMapper();
-        return objectMapper.writeValueAsString(object);
+        return writerForValue(object).writeValueAsString(object);
+    }
+
+    /**
+     * Serializes a POJO into a UTF-8 encoded JSON object, without an intermediate String
+     * @param object the POJO to serialize into a JSON object
+     * @return a serialized JSON object as UTF-8 encoded bytes
+     * @throws JsonProcessingException if the POJO cannot be serialized into JSON for whatever reason
+     */
+    public static byte[] convertObjectToJsonBytes(Object object) throws JsonProcessingException {
+        return writerForValue(object).writeValueAsBytes(object);
+    }
+
+    /**
+     * Returns the cached <code>ObjectWriter</code> for the runtime type of a value
+     * @param object the value to be serialized, may be null
+     * @return a writer for the value
+     */
+    private static ObjectWriter writerForValue(Object object) {
+        return writerFor(object == null ? Object.class : object.getClass());
     }
 }
@@ -0,0 +1,31 @@
+package com.pmoproject.employeeservice.util;
+
+import com.pmoproject.employeeservice.models.rabbitmq.ReplyPayload;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+/**
+ * Utility class for building the reply messages sent to the reply-to queues of requests
+ */
+public class ReplyMessageUtils {
+
+    private ReplyMessageUtils() {
+    }
+
+    /**
+     * Builds a reply message around an already serialized (and possibly compressed) response, so that it is sent exactly
+     * as it was encoded rather than being passed through a message converter and encoded a second time
+     *
+     * @param replyPayload  the encoded response, as also stored in the outbox
+     * @param correlationId correlation id of the request message
+     * @return the reply message
+     */
+    public static Message createReplyMessage(ReplyPayload replyPayload, String correlationId) {
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setContentType(replyPayload.getContentType());
+        messageProperties.setContentEncoding(replyPayload.getContentEncoding());
+        messageProperties.setContentLength(replyPayload.getBody().length);
+        messageProperties.setCorrelationId(correlationId);
+        return new Message(replyPayload.getBody(), messageProperties);
+    }
+}
@@ -0,0 +1,141 @@
+package com.pmoproject.employeeservice.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Represents a thread-safe Bloom filter of Strings that only remembers recent insertions.
+ * <p>
+ * Insertions go into the current generation of the filter. Once it holds the number of insertions it was sized for, it
+ * becomes the previous generation and a new empty generation is started, so the filter always remembers at least the
+ * last <code>expectedInsertions</code> values while its false-positive probability stays bounded. Like any Bloom filter it
+ * never reports a remembered value as absent, but may report a value that was never inserted as present
+ */
+public class RotatingBloomFilter {
+    private final int expectedInsertions;
+    private final int bitCount;
+    private final int hashCount;
+    private final AtomicReference<Generation[]> generations;
+
+    /**
+     * Used to instantiate an object of this class
+     *
+     * @param expectedInsertions        the number of insertions each generation holds before the filter rotates
+     * @param falsePositiveProbability  the desired false-positive probability of a full generation, between 0 and 1
+     * @throws IllegalArgumentException if either argument is out of range
+     */
+    public RotatingBloomFilter(int expectedInsertions, double falsePositiveProbability) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("Expected insertions must be positive");
+        }
+        if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("False positive probability must be between 0 and 1");
+        }
+        this.expectedInsertions = expectedInsertions;
+        long optimalBitCount = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        this.bitCount = (int) Math.min(Integer.MAX_VALUE - Long.SIZE, Math.max(Long.SIZE, optimalBitCount));
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+        this.generations = new AtomicReference<>(new Generation[]{new Generation(bitCount), new Generation(bitCount)});
+    }
+
+    /**
+     * Remembers a value, rotating the filter first if the current generation is full
+     *
+     * @param value the value to remember
+     */
+    public void put(String value) {
+        long[] hashes = hash(value);
+        Generation[] current = generations.get();
+        if (current[0].insertions.get() >= expectedInsertions) {
+            Generation[] rotated = new Generation[]{new Generation(bitCount), current[0]};
+            current = generations.compareAndSet(current, rotated) ? rotated : generations.get();
+        }
+        current[0].put(hashes, hashCount);
+    }
+
+    /**
+     * Checks whether a value might have been remembered
+     *
+     * @param value the value to check
+     * @return false if the value was definitely not remembered recently, true if it might have been
+     */
+    public boolean mightContain(String value) {
+        long[] hashes = hash(value);
+        Generation[] current = generations.get();
+        return current[0].mightContain(hashes, hashCount) || current[1].mightContain(hashes, hashCount);
+    }
+
+    /**
+     * Computes the two base hashes of a value, combined by {@link Generation} to derive each of its bit indexes
+     *
+     * @param value the value to hash
+     * @return two independent 64-bit hashes of the value
+     */
+    private static long[] hash(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        long first = 0xcbf29ce484222325L;
+        long second = 0x84222325cbf29ce4L;
+        for (byte b : bytes) {
+            first = (first ^ (b & 0xff)) * 0x100000001b3L;
+            second = (second ^ (b & 0xff)) * 0x9e3779b97f4a7c15L;
+        }
+        return new long[]{mix(first), mix(second) | 1};
+    }
+
+    /**
+     * Final avalanche step so that similar values (such as sequential UUIDs) spread across the whole bit array
+     *
+     * @param hash the hash to mix
+     * @return the mixed hash
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    /**
+     * A single generation of the filter, a plain Bloom filter over an atomically updated bit array
+     */
+    private static class Generation {
+        private final AtomicLongArray bits;
+        private final int bitCount;
+        private final AtomicInteger insertions = new AtomicInteger();
+
+        private Generation(int bitCount) {
+            this.bitCount = bitCount;
+            this.bits = new AtomicLongArray((bitCount + Long.SIZE - 1) / Long.SIZE);
+        }
+
+        private void put(long[] hashes, int hashCount) {
+            for (int i = 0; i < hashCount; i++) {
+                int index = index(hashes, i);
+                long mask = 1L << (index % Long.SIZE);
+                int word = index / Long.SIZE;
+                long current;
+                do {
+                    current = bits.get(word);
+                } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+            }
+            insertions.incrementAndGet();
+        }
+
+        private boolean mightContain(long[] hashes, int hashCount) {
+            for (int i = 0; i < hashCount; i++) {
+                int index = index(hashes, i);
+                if ((bits.get(index / Long.SIZE) & (1L << (index % Long.SIZE))) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int index(long[] hashes, int i) {
+            return (int) Math.floorMod(hashes[0] + i * hashes[1], (long) bitCount);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.pmoproject.employeeservice.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key into one. The first caller for a key runs the load, and callers arriving
+ * for the key while it is in flight wait for it and are handed its result, or have its exception rethrown. Once the load
+ * has finished the key is forgotten, so results are never cached: the next caller runs a new load.
+ * <p>
+ * Every caller of a load is handed the same result object, so results must not be modified by their callers
+ *
+ * @param <K> the type of the keys, which must have value-based <code>equals</code> and <code>hashCode</code>
+ * @param <V> the type of the results
+ */
+public class SingleFlight<K, V> {
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Runs the load for a key, or waits for the load already in flight for it
+     *
+     * @param key    the key to load
+     * @param loader loads the key, run on the calling thread unless a load of the key is already in flight
+     * @return the result of the load
+     * @throws RuntimeException the exception thrown by the load, whichever caller ran it
+     */
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existingFlight = inFlight.putIfAbsent(key, flight);
+        if (existingFlight != null) {
+            coalesced.incrementAndGet();
+            return await(existingFlight);
+        }
+        executed.incrementAndGet();
+        try {
+            V result = loader.get();
+            inFlight.remove(key, flight);
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error exception) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(exception);
+            throw exception;
+        }
+    }
+
+    /**
+     * Waits for a load run by another caller
+     *
+     * @param flight the load in flight
+     * @return the result of the load
+     * @throws RuntimeException the exception thrown by the load
+     */
+    private static <V> V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) exception.getCause();
+            }
+            if (exception.getCause() instanceof Error) {
+                throw (Error) exception.getCause();
+            }
+            throw exception;
+        }
+    }
+
+    /**
+     * @return the number of loads run
+     */
+    public long getExecuted() {
+        return executed.get();
+    }
+
+    /**
+     * @return the number of callers handed the result of a load run by another caller
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * @return the fraction of callers that were handed the result of a load run by another caller, 0 if there were none
+     */
+    public double getCoalesceRate() {
+        long coalescedCount = coalesced.get();
+        long total = executed.get() + coalescedCount;
+        return total == 0 ? 0 : (double) coalescedCount / total;
+    }
+}
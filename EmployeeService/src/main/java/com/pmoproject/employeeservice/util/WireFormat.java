@@ -0,0 +1,116 @@
+package com.pmoproject.employeeservice.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Represents the encodings requests and replies may be sent in, each identified by the AMQP <code>content_type</code> of
+ * the message. JSON is the default; CBOR and Smile are binary encodings of the same data model, which are smaller on the
+ * wire and cheaper to parse and generate since field names and numbers are not written out as text.
+ * <p>
+ * As with {@link JacksonUtils}, each format has a single configured <code>ObjectMapper</code> and caches its readers and
+ * writers per type. JSON uses the mapper of {@link JacksonUtils}
+ */
+public enum WireFormat {
+    JSON("application/json", JacksonUtils.getObjectMapper()),
+    CBOR("application/cbor", CBORMapper.builder().addModule(new JavaTimeModule()).build()),
+    SMILE("application/x-jackson-smile", SmileMapper.builder().addModule(new JavaTimeModule()).build());
+
+    private final String contentType;
+    private final ObjectMapper objectMapper;
+    private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    WireFormat(String contentType, ObjectMapper objectMapper) {
+        this.contentType = contentType;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Finds the format of a message from its content type. Messages without a content type, or with the AMQP default of
+     * <code>application/octet-stream</code>, are treated as JSON, as every message was before other formats were supported
+     *
+     * @param contentType the content type of the message, parameters such as a charset are ignored, may be null
+     * @return the matching format
+     * @throws IllegalArgumentException if the content type is not one of the supported formats
+     */
+    public static WireFormat fromContentType(String contentType) {
+        if (contentType == null) {
+            return JSON;
+        }
+        String mimeType = contentType.split(";", 2)[0].trim().toLowerCase(Locale.ROOT);
+        if (mimeType.isEmpty() || mimeType.equals("application/octet-stream") || mimeType.endsWith("json")) {
+            return JSON;
+        }
+        for (WireFormat format : values()) {
+            if (format.contentType.equals(mimeType)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unsupported content type [%s]", contentType));
+    }
+
+    /**
+     * @return the content type messages in this format are sent with
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * @return the character encoding messages in this format are sent with, or null for the binary formats
+     */
+    public String getContentEncoding() {
+        return this == JSON ? StandardCharsets.UTF_8.name() : null;
+    }
+
+    /**
+     * Returns the <code>ObjectMapper</code> of this format. It must not be reconfigured after start-up
+     *
+     * @return the format's <code>ObjectMapper</code>
+     */
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    /**
+     * Deserializes an encoded object in this format into a POJO
+     *
+     * @param body               the encoded object
+     * @param deserializingClass the type of class to deserialize the object into
+     * @return an instance of the class specified with data from the deserialized object
+     * @throws IOException if the object cannot be deserialized into the type of class specified for whatever reason
+     */
+    public <T> T readValue(byte[] body, Class<T> deserializingClass) throws IOException {
+        if (this == JSON) {
+            return JacksonUtils.convertJsonToObject(body, deserializingClass);
+        }
+        return readers.computeIfAbsent(deserializingClass, objectMapper::readerFor).readValue(body);
+    }
+
+    /**
+     * Serializes a POJO in this format
+     *
+     * @param object the POJO to serialize
+     * @return the encoded object
+     * @throws JsonProcessingException if the POJO cannot be serialized for whatever reason
+     */
+    public byte[] writeValueAsBytes(Object object) throws JsonProcessingException {
+        if (this == JSON) {
+            return JacksonUtils.convertObjectToJsonBytes(object);
+        }
+        Class<?> serializingClass = object == null ? Object.class : object.getClass();
+        return writers.computeIfAbsent(serializingClass, objectMapper::writerFor).writeValueAsBytes(object);
+    }
+}
@@ -0,0 +1,88 @@
+package com.pmoproject.employeeservice.configuration.rabbitmq;
+
+import com.pmoproject.employeeservice.metrics.EmployeeServiceMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.rabbit.support.ListenerExecutionFailedException;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.orm.jpa.JpaSystemException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.net.ConnectException;
+import java.sql.SQLTransientConnectionException;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(MockitoExtension.class)
+class CustomRetryPolicyTest {
+
+    @Mock
+    EmployeeServiceMetrics employeeServiceMetrics;
+
+    CustomRetryPolicy retryPolicy;
+
+    @BeforeEach
+    void setUp() {
+        retryPolicy = new CustomRetryPolicy(3, new RabbitMqConfig(employeeServiceMetrics).retryableClassifier());
+    }
+
+    private boolean isRetryable(Throwable cause) {
+        return retryPolicy.isRetryable(new ListenerExecutionFailedException("Listener threw exception", cause));
+    }
+
+    @Test
+    @DisplayName("If the database fails transiently then the message will be retried")
+    void ifTheDatabaseFailsTransientlyThenTheMessageWillBeRetried() {
+        assertTrue(isRetryable(new QueryTimeoutException("Query timed out")));
+        assertTrue(isRetryable(new CannotAcquireLockException("Deadlock found")));
+        assertTrue(isRetryable(new CannotCreateTransactionException("Could not open JPA EntityManager")));
+        assertTrue(isRetryable(new ConcurrencyFailureException("An employee of the request was created concurrently",
+                new DataIntegrityViolationException("Duplicate entry '1' for key 'PRIMARY'"))));
+    }
+
+    @Test
+    @DisplayName("If a transient failure is wrapped by another exception then the message will still be retried")
+    void ifATransientFailureIsWrappedByAnotherExceptionThenTheMessageWillStillBeRetried() {
+        assertTrue(isRetryable(new JpaSystemException(new RuntimeException(
+                new SQLTransientConnectionException("Connection is not available")))));
+    }
+
+    @Test
+    @DisplayName("If the broker connection fails then the message will be retried")
+    void ifTheBrokerConnectionFailsThenTheMessageWillBeRetried() {
+        assertTrue(isRetryable(new AmqpConnectException(new ConnectException("Connection refused"))));
+    }
+
+    @Test
+    @DisplayName("If an employee is not found or a request is invalid then the message will not be retried")
+    void ifAnEmployeeIsNotFoundOrARequestIsInvalidThenTheMessageWillNotBeRetried() {
+        assertFalse(isRetryable(new NoSuchElementException("No employee with id [1] was found")));
+        assertFalse(isRetryable(new IllegalArgumentException("A contracted employee must have an end-date")));
+        assertFalse(isRetryable(new MessageConversionException("Failed to convert message")));
+    }
+
+    @Test
+    @DisplayName("If a message is rejected then it will not be retried, whatever caused its rejection")
+    void ifAMessageIsRejectedThenItWillNotBeRetriedWhateverCausedItsRejection() {
+        assertFalse(isRetryable(new AmqpRejectAndDontRequeueException("No CorrelationId or ReplyTo header set in message",
+                new QueryTimeoutException("Query timed out"))));
+    }
+
+    @Test
+    @DisplayName("If an unexpected exception is thrown then the message will not be retried")
+    void ifAnUnexpectedExceptionIsThrownThenTheMessageWillNotBeRetried() {
+        assertFalse(isRetryable(new NullPointerException()));
+    }
+}
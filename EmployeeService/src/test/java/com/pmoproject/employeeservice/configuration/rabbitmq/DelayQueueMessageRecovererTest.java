@@ -0,0 +1,189 @@
+package com.pmoproject.employeeservice.configuration.rabbitmq;
+
+import com.pmoproject.employeeservice.metrics.EmployeeServiceMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.support.ListenerExecutionFailedException;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class DelayQueueMessageRecovererTest {
+    private static final String QUEUE_NAME = "employeeServiceQueue";
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+    @Mock
+    private EmployeeServiceMetrics employeeServiceMetrics;
+
+    private DelayQueueMessageRecoverer recoverer;
+
+    @BeforeEach
+    void setUp() {
+        Map<Class<? extends Throwable>, Boolean> retryableClassifier = new HashMap<>();
+        retryableClassifier.put(AmqpRejectAndDontRequeueException.class, false);
+        retryableClassifier.put(Exception.class, true);
+        recoverer = new DelayQueueMessageRecoverer(rabbitTemplate, new CustomRetryPolicy(3, retryableClassifier),
+                QUEUE_NAME, new long[]{1000, 5000}, RabbitMqConfig.EMPLOYEE_SERVICE_DEAD_LETTER_ROUTING_KEY,
+                employeeServiceMetrics, 100);
+    }
+
+    private void givenPublishesAreConfirmed(boolean ack) {
+        doAnswer(invocation -> {
+            invocation.getArgument(3, CorrelationData.class).getFuture()
+                    .set(new CorrelationData.Confirm(ack, ack ? null : "nacked"));
+            return null;
+        }).when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+    }
+
+    private Message createMessage(Integer attempts) {
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setCorrelationId("correlation");
+        if (attempts != null) {
+            messageProperties.setHeader(DelayQueueMessageRecoverer.RETRY_ATTEMPTS_HEADER, attempts);
+        }
+        return new Message(new byte[0], messageProperties);
+    }
+
+    private Throwable createFailure(Throwable cause) {
+        return new ListenerExecutionFailedException("Listener threw exception", cause);
+    }
+
+    @Nested
+    @DisplayName("Single Message Tests")
+    class SingleMessageTests {
+
+        @Test
+        @DisplayName("If a message fails for the first time then it will be sent to the first delay queue with an attempt count of 1")
+        void ifAMessageFailsForTheFirstTimeThenItWillBeSentToTheFirstDelayQueueWithAnAttemptCountOf1() {
+            givenPublishesAreConfirmed(true);
+            Message message = createMessage(null);
+            Throwable failure = createFailure(new QueryTimeoutException("timeout"));
+
+            recoverer.recover(message, failure);
+
+            verify(rabbitTemplate).send(eq(""), eq("employeeServiceQueue.delay.1000"), eq(message), any(CorrelationData.class));
+            verify(employeeServiceMetrics).recordRetry();
+            assertEquals(1, (Integer) message.getMessageProperties().getHeader(DelayQueueMessageRecoverer.RETRY_ATTEMPTS_HEADER));
+        }
+
+        @Test
+        @DisplayName("If a message fails a second time then it will be sent to the second delay queue")
+        void ifAMessageFailsASecondTimeThenItWillBeSentToTheSecondDelayQueue() {
+            givenPublishesAreConfirmed(true);
+            Message message = createMessage(1);
+
+            recoverer.recover(message, createFailure(new QueryTimeoutException("timeout")));
+
+            verify(rabbitTemplate).send(eq(""), eq("employeeServiceQueue.delay.5000"), eq(message), any(CorrelationData.class));
+            assertEquals(2, (Integer) message.getMessageProperties().getHeader(DelayQueueMessageRecoverer.RETRY_ATTEMPTS_HEADER));
+        }
+
+        @Test
+        @DisplayName("If a message has used up its attempts then it will be rejected so that it is dead-lettered")
+        void ifAMessageHasUsedUpItsAttemptsThenItWillBeRejectedSoThatItIsDeadLettered() {
+            Message message = createMessage(2);
+            Throwable failure = createFailure(new QueryTimeoutException("timeout"));
+
+            assertThrows(AmqpRejectAndDontRequeueException.class, () -> recoverer.recover(message, failure));
+            verify(rabbitTemplate, never()).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+            verify(employeeServiceMetrics).recordDeadLetter(failure);
+        }
+
+        @Test
+        @DisplayName("If a message fails with a non-retryable exception then it will be rejected on its first attempt")
+        void ifAMessageFailsWithANonRetryableExceptionThenItWillBeRejectedOnItsFirstAttempt() {
+            Message message = createMessage(null);
+            Throwable failure = createFailure(new AmqpRejectAndDontRequeueException("malformed"));
+
+            assertThrows(AmqpRejectAndDontRequeueException.class, () -> recoverer.recover(message, failure));
+            verify(rabbitTemplate, never()).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+        }
+
+        @Test
+        @DisplayName("If the publish to the delay queue is nacked then the message will be rejected so that it is dead-lettered")
+        void ifThePublishToTheDelayQueueIsNackedThenTheMessageWillBeRejectedSoThatItIsDeadLettered() {
+            givenPublishesAreConfirmed(false);
+            Message message = createMessage(null);
+            Throwable failure = createFailure(new QueryTimeoutException("timeout"));
+
+            assertThrows(AmqpRejectAndDontRequeueException.class, () -> recoverer.recover(message, failure));
+            verify(employeeServiceMetrics).recordDeadLetter(failure);
+            verify(employeeServiceMetrics, never()).recordRetry();
+        }
+
+        @Test
+        @DisplayName("If the publish to the delay queue is not confirmed in time then the message will be rejected so that it is dead-lettered")
+        void ifThePublishToTheDelayQueueIsNotConfirmedInTimeThenTheMessageWillBeRejectedSoThatItIsDeadLettered() {
+            Message message = createMessage(null);
+            Throwable failure = createFailure(new QueryTimeoutException("timeout"));
+
+            assertThrows(AmqpRejectAndDontRequeueException.class, () -> recoverer.recover(message, failure));
+            verify(rabbitTemplate).send(eq(""), eq("employeeServiceQueue.delay.1000"), eq(message), any(CorrelationData.class));
+            verify(employeeServiceMetrics).recordDeadLetter(failure);
+        }
+    }
+
+    @Nested
+    @DisplayName("Batch Tests")
+    class BatchTests {
+
+        @Test
+        @DisplayName("If a batch fails then messages with attempts left will be delayed and the rest sent to the dead letter exchange")
+        void ifABatchFailsThenMessagesWithAttemptsLeftWillBeDelayedAndTheRestSentToTheDeadLetterExchange() {
+            givenPublishesAreConfirmed(true);
+            Message firstAttempt = createMessage(null);
+            Message lastAttempt = createMessage(2);
+
+            recoverer.recover(List.of(firstAttempt, lastAttempt), createFailure(new QueryTimeoutException("timeout")));
+
+            verify(rabbitTemplate).send(eq(""), eq("employeeServiceQueue.delay.1000"), eq(firstAttempt), any(CorrelationData.class));
+            verify(rabbitTemplate).send(eq(RabbitMqConfig.DEAD_LETTER_EXCHANGE_NAME),
+                    eq(RabbitMqConfig.EMPLOYEE_SERVICE_DEAD_LETTER_ROUTING_KEY), eq(lastAttempt), any(CorrelationData.class));
+        }
+
+        @Test
+        @DisplayName("If a batch fails with a non-retryable exception then the whole batch will be rejected")
+        void ifABatchFailsWithANonRetryableExceptionThenTheWholeBatchWillBeRejected() {
+            List<Message> batch = List.of(createMessage(null), createMessage(1));
+            Throwable failure = createFailure(new AmqpRejectAndDontRequeueException("malformed"));
+
+            assertThrows(AmqpRejectAndDontRequeueException.class, () -> recoverer.recover(batch, failure));
+            verify(rabbitTemplate, never()).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+        }
+
+        @Test
+        @DisplayName("If a publish of a failed batch is nacked then the whole batch will be rejected")
+        void ifAPublishOfAFailedBatchIsNackedThenTheWholeBatchWillBeRejected() {
+            givenPublishesAreConfirmed(false);
+            List<Message> batch = List.of(createMessage(null), createMessage(1));
+            Throwable failure = createFailure(new QueryTimeoutException("timeout"));
+
+            assertThrows(AmqpRejectAndDontRequeueException.class, () -> recoverer.recover(batch, failure));
+            verify(employeeServiceMetrics, times(2)).recordDeadLetter(failure);
+        }
+    }
+}
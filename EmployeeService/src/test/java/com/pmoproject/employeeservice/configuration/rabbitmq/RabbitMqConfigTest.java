@@ -0,0 +1,216 @@
+package com.pmoproject.employeeservice.configuration.rabbitmq;
+
+import com.pmoproject.employeeservice.listener.EmployeeQueueListener;
+import com.pmoproject.employeeservice.metrics.EmployeeServiceMetrics;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeServiceRequest;
+import com.pmoproject.employeeservice.models.rabbitmq.RequestType;
+import org.aopalliance.aop.Advice;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.support.ListenerExecutionFailedException;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.boot.autoconfigure.amqp.RabbitProperties;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RabbitMqConfigTest {
+    private static final String READ_QUEUE_NAME = "employeeServiceReadQueue";
+    private static final String WRITE_QUEUE_NAME = "employeeServiceWriteQueue";
+
+    @Mock
+    EmployeeServiceMetrics employeeServiceMetrics;
+
+    @Mock
+    ConnectionFactory connectionFactory;
+
+    SimpleRabbitListenerContainerFactoryConfigurer configurer;
+    RabbitMqConfig rabbitMqConfig;
+
+    @BeforeEach
+    void setUp() {
+        rabbitMqConfig = new RabbitMqConfig(employeeServiceMetrics);
+        configurer = new SimpleRabbitListenerContainerFactoryConfigurer();
+        ReflectionTestUtils.invokeMethod(configurer, "setRabbitProperties", new RabbitProperties());
+        ReflectionTestUtils.setField(rabbitMqConfig, "employeeServiceQueueName", "employeeServiceQueue");
+        ReflectionTestUtils.setField(rabbitMqConfig, "employeeServiceReadQueueName", READ_QUEUE_NAME);
+        ReflectionTestUtils.setField(rabbitMqConfig, "employeeServiceWriteQueueName", WRITE_QUEUE_NAME);
+    }
+
+    private static Map<String, String> getContainerFactoriesByQueue() throws NoSuchMethodException {
+        RabbitListener[] listeners = EmployeeQueueListener.class.getMethod("listen", EmployeeServiceRequest.class,
+                RequestType.class, Message.class).getAnnotationsByType(RabbitListener.class);
+        return Arrays.stream(listeners).collect(Collectors.toMap(listener -> listener.queues()[0],
+                RabbitListener::containerFactory));
+    }
+
+    private List<String> getDestinations(String routingKey) {
+        return Stream.of(rabbitMqConfig.employeeServiceExchangeBinding(), rabbitMqConfig.employeeServiceReadExchangeBinding(),
+                        rabbitMqConfig.employeeServiceWriteExchangeBinding())
+                .filter(binding -> binding.getRoutingKey().equals(routingKey))
+                .map(Binding::getDestination).collect(Collectors.toList());
+    }
+
+    private static void assertDeadLettersTo(Queue queue, Binding deadLetterBinding, String deadLetterQueueName) {
+        assertEquals(RabbitMqConfig.DEAD_LETTER_EXCHANGE_NAME, queue.getArguments().get("x-dead-letter-exchange"));
+        assertEquals(RabbitMqConfig.DEAD_LETTER_EXCHANGE_NAME, deadLetterBinding.getExchange());
+        assertEquals(queue.getArguments().get("x-dead-letter-routing-key"), deadLetterBinding.getRoutingKey());
+        assertEquals(deadLetterQueueName, deadLetterBinding.getDestination());
+    }
+
+    /**
+     * Delivers a message to the retry advice of a container factory, the listener failing transiently every time, and
+     * checks that the listener is invoked a number of times before the message is rejected so that it is dead-lettered
+     */
+    private void assertAttemptedBeforeRejection(SimpleRabbitListenerContainerFactory factory, int attempts) throws Throwable {
+        Advice[] adviceChain = factory.getAdviceChain();
+        assertEquals(1, adviceChain.length);
+        ProxyMethodInvocation invocation = mock(ProxyMethodInvocation.class);
+        ListenerExecutionFailedException failure = new ListenerExecutionFailedException("Listener threw exception",
+                new QueryTimeoutException("Query timed out"));
+        when(invocation.getMethod()).thenReturn(Object.class.getMethod("toString"));
+        when(invocation.getArguments()).thenReturn(new Object[]{null, new Message(new byte[0], new MessageProperties())});
+        when(invocation.invocableClone()).thenReturn(invocation);
+        when(invocation.proceed()).thenThrow(failure);
+
+        Throwable rejection = assertThrows(Throwable.class, () -> ((MethodInterceptor) adviceChain[0]).invoke(invocation));
+        assertTrue(rejection.getCause() instanceof AmqpRejectAndDontRequeueException);
+        verify(invocation, times(attempts)).proceed();
+        verify(employeeServiceMetrics).recordDeadLetter(failure);
+        verify(employeeServiceMetrics, times(attempts - 1)).recordRetry();
+    }
+
+    @Nested
+    @DisplayName("Queue Routing Tests")
+    class QueueRoutingTests {
+
+        @ParameterizedTest
+        @EnumSource(RequestType.class)
+        @DisplayName("Each request type is published on a routing key bound to the write queue if it writes and the read queue otherwise")
+        void eachRequestTypeIsPublishedOnARoutingKeyBoundToTheWriteQueueIfItWritesAndTheReadQueueOtherwise(RequestType requestType) {
+            assertEquals(List.of(requestType.isWrite() ? WRITE_QUEUE_NAME : READ_QUEUE_NAME),
+                    getDestinations(RabbitMqConfig.getRoutingKey(requestType)));
+        }
+
+        @Test
+        @DisplayName("Every request type can still be published on the legacy routing key to employeeServiceQueue")
+        void everyRequestTypeCanStillBePublishedOnTheLegacyRoutingKeyToEmployeeServiceQueue() throws NoSuchMethodException {
+            Binding binding = rabbitMqConfig.employeeServiceExchangeBinding();
+
+            assertEquals(RabbitMqConfig.EMPLOYEE_SERVICE_ROUTING_KEY, binding.getRoutingKey());
+            assertEquals(RabbitMqConfig.EMPLOYEE_SERVICE_EXCHANGE_NAME, binding.getExchange());
+            assertEquals("employeeServiceQueue", binding.getDestination());
+            assertEquals("", getContainerFactoriesByQueue().get("#{@employeeServiceQueue}"));
+        }
+
+        @Test
+        @DisplayName("The read and write queues are consumed with their own container factories")
+        void theReadAndWriteQueuesAreConsumedWithTheirOwnContainerFactories() throws NoSuchMethodException {
+            Map<String, String> containerFactories = getContainerFactoriesByQueue();
+
+            assertEquals("readRabbitListenerContainerFactory", containerFactories.get("#{@employeeServiceReadQueue}"));
+            assertEquals("writeRabbitListenerContainerFactory", containerFactories.get("#{@employeeServiceWriteQueue}"));
+        }
+
+        @Test
+        @DisplayName("The read and write queues dead-letter to a dead letter queue of their own")
+        void theReadAndWriteQueuesDeadLetterToADeadLetterQueueOfTheirOwn() {
+            assertDeadLettersTo(rabbitMqConfig.employeeServiceReadQueue(),
+                    rabbitMqConfig.employeeServiceReadDeadLetterBinding(), "employeeServiceReadDeadLetterQueue");
+            assertDeadLettersTo(rabbitMqConfig.employeeServiceWriteQueue(),
+                    rabbitMqConfig.employeeServiceWriteDeadLetterBinding(), "employeeServiceWriteDeadLetterQueue");
+        }
+    }
+
+    @Nested
+    @DisplayName("Container Factory Tests")
+    class ContainerFactoryTests {
+
+        @Test
+        @DisplayName("The container factory of employeeServiceQueue keeps the listener defaults when adaptive concurrency is disabled")
+        void theContainerFactoryKeepsTheListenerDefaultsWhenAdaptiveConcurrencyIsDisabled() {
+            ReflectionTestUtils.setField(rabbitMqConfig, "retryMode", "backoff");
+            ReflectionTestUtils.setField(rabbitMqConfig, "adaptiveMinConsumers", 2);
+            ReflectionTestUtils.setField(rabbitMqConfig, "adaptiveMinPrefetch", 20);
+
+            SimpleRabbitListenerContainerFactory factory = rabbitMqConfig.rabbitListenerContainerFactory(
+                    connectionFactory, configurer);
+
+            assertNull(ReflectionTestUtils.getField(factory, "concurrentConsumers"));
+            assertNull(ReflectionTestUtils.getField(factory, "maxConcurrentConsumers"));
+            assertNull(ReflectionTestUtils.getField(factory, "prefetchCount"));
+        }
+
+        @Test
+        @DisplayName("The container factory of employeeServiceQueue starts at the adaptive minimums when adaptive concurrency is enabled")
+        void theContainerFactoryStartsAtTheAdaptiveMinimumsWhenAdaptiveConcurrencyIsEnabled() {
+            ReflectionTestUtils.setField(rabbitMqConfig, "retryMode", "backoff");
+            ReflectionTestUtils.setField(rabbitMqConfig, "adaptiveConcurrencyEnabled", true);
+            ReflectionTestUtils.setField(rabbitMqConfig, "adaptiveMinConsumers", 2);
+            ReflectionTestUtils.setField(rabbitMqConfig, "adaptiveMinPrefetch", 20);
+
+            SimpleRabbitListenerContainerFactory factory = rabbitMqConfig.rabbitListenerContainerFactory(
+                    connectionFactory, configurer);
+
+            assertEquals(2, ReflectionTestUtils.getField(factory, "concurrentConsumers"));
+            assertEquals(2, ReflectionTestUtils.getField(factory, "maxConcurrentConsumers"));
+            assertEquals(20, ReflectionTestUtils.getField(factory, "prefetchCount"));
+        }
+
+        @Test
+        @DisplayName("The read container factory takes its consumers, prefetch and retry attempts from the read queue properties")
+        void theReadContainerFactoryTakesItsSettingsFromTheReadQueueProperties() throws Throwable {
+            SimpleRabbitListenerContainerFactory factory = rabbitMqConfig.readRabbitListenerContainerFactory(
+                    connectionFactory, configurer, 4, 8, 50, 3, 1, 1);
+
+            assertEquals(4, ReflectionTestUtils.getField(factory, "concurrentConsumers"));
+            assertEquals(8, ReflectionTestUtils.getField(factory, "maxConcurrentConsumers"));
+            assertEquals(50, ReflectionTestUtils.getField(factory, "prefetchCount"));
+            assertAttemptedBeforeRejection(factory, 3);
+        }
+
+        @Test
+        @DisplayName("The write container factory takes its consumers, prefetch and retry attempts from the write queue properties")
+        void theWriteContainerFactoryTakesItsSettingsFromTheWriteQueueProperties() throws Throwable {
+            SimpleRabbitListenerContainerFactory factory = rabbitMqConfig.writeRabbitListenerContainerFactory(
+                    connectionFactory, configurer, 2, 1, 10, 2, 1, 1);
+
+            assertEquals(2, ReflectionTestUtils.getField(factory, "concurrentConsumers"));
+            assertEquals(2, ReflectionTestUtils.getField(factory, "maxConcurrentConsumers"));
+            assertEquals(10, ReflectionTestUtils.getField(factory, "prefetchCount"));
+            assertAttemptedBeforeRejection(factory, 2);
+        }
+    }
+}
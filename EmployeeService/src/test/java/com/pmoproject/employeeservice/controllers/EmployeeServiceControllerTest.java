@@ -1,7 +1,14 @@
 package com.pmoproject.employeeservice.controllers;
 
+import com.pmoproject.employeeservice.metrics.EmployeeServiceMetrics;
 import com.pmoproject.employeeservice.models.domain.Employee;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeBatchLookupResult;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeBulkCreateResult;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeSearchCriteria;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeSearchPage;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeExportChunk;
 import com.pmoproject.employeeservice.models.rabbitmq.EmployeeServiceResponse;
+import com.pmoproject.employeeservice.models.rabbitmq.RequestType;
 import com.pmoproject.employeeservice.services.EmployeeService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -11,10 +18,25 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import org.springframework.amqp.AmqpTimeoutException;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
 import static com.pmoproject.employeeservice.MockTestDataUtil.createMockEmployee;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -22,10 +44,14 @@ class EmployeeServiceControllerTest {
 
     public static final String CONTRACT_EMPLOYEE_NO_END_DATE_ERROR_MESSAGE = "A contracted employee must have an end-date";
     public static final String NO_EMPLOYEE_WITH_ID_FOUND_ERROR_MESSAGE = "No employee with id [1] found";
+    public static final String NO_EMPLOYEE_IDS_PROVIDED_ERROR_MESSAGE = "At least one employee id must be provided";
 
     @Mock
     EmployeeService employeeService;
 
+    @Mock
+    EmployeeServiceMetrics employeeServiceMetrics;
+
     @InjectMocks
     EmployeeServiceController employeeServiceController;
 
@@ -42,6 +68,7 @@ class EmployeeServiceControllerTest {
                     new EmployeeServiceResponse(false, CONTRACT_EMPLOYEE_NO_END_DATE_ERROR_MESSAGE, null);
 
             assertEquals(mockEmployeeServiceResponse, employeeServiceController.createEmployee(createMockEmployee()));
+            verify(employeeServiceMetrics).recordRequest(RequestType.CREATE_EMPLOYEE, false);
         }
 
         @Test
@@ -55,18 +82,72 @@ class EmployeeServiceControllerTest {
         }
     }
 
+    @Nested
+    @DisplayName("Employee Bulk Creation Tests")
+    class EmployeeBulkCreationTests {
+
+        @Test
+        @DisplayName("If the employee service throws an IllegalArgumentException then it will return a failed response with an appropriate message")
+        void ifTheEmployeeServiceThrowsAnIllegalArgumentExceptionThenItWillReturnAFailedResponse() {
+            when(employeeService.createEmployees(any())).thenThrow(new IllegalArgumentException("At least one employee must be provided"));
+
+            assertEquals(new EmployeeServiceResponse(false, "At least one employee must be provided", null),
+                    employeeServiceController.createEmployees(Collections.emptyList()));
+            verify(employeeServiceMetrics).recordRequest(RequestType.BULK_CREATE_EMPLOYEES, false);
+        }
+
+        @Test
+        @DisplayName("If the employees are processed then it will return a successful response with the outcome of each employee")
+        void ifTheEmployeesAreProcessedThenItWillReturnASuccessfulResponseWithTheOutcomeOfEachEmployee() {
+            EmployeeBulkCreateResult result = new EmployeeBulkCreateResult(List.of(
+                    new EmployeeBulkCreateResult.RowResult(0, 1, true, null),
+                    new EmployeeBulkCreateResult.RowResult(1, 1, false, "Employee id [1] appears more than once in the request")));
+            when(employeeService.createEmployees(any())).thenReturn(result);
+
+            assertEquals(new EmployeeServiceResponse(true, null, result),
+                    employeeServiceController.createEmployees(List.of(createMockEmployee(), createMockEmployee())));
+        }
+    }
+
+    @Nested
+    @DisplayName("Employee Search Tests")
+    class EmployeeSearchTests {
+
+        @Test
+        @DisplayName("If the employee service throws an IllegalArgumentException then it will return a failed response with an appropriate message")
+        void ifTheEmployeeServiceThrowsAnIllegalArgumentExceptionThenItWillReturnAFailedResponse() {
+            when(employeeService.searchEmployees(any())).thenThrow(new IllegalArgumentException("The page size must be between 1 and 1000"));
+
+            assertEquals(new EmployeeServiceResponse(false, "The page size must be between 1 and 1000", null),
+                    employeeServiceController.searchEmployees(new EmployeeSearchCriteria()));
+            verify(employeeServiceMetrics).recordRequest(RequestType.SEARCH_EMPLOYEES, false);
+        }
+
+        @Test
+        @DisplayName("If the search succeeds then it will return a successful response with the page of employees")
+        void ifTheSearchSucceedsThenItWillReturnASuccessfulResponseWithThePageOfEmployees() {
+            EmployeeSearchPage page = new EmployeeSearchPage(List.of(createMockEmployee()), null);
+            when(employeeService.searchEmployees(any())).thenReturn(page);
+
+            assertEquals(new EmployeeServiceResponse(true, null, page),
+                    employeeServiceController.searchEmployees(new EmployeeSearchCriteria()));
+            verify(employeeServiceMetrics).recordRequest(RequestType.SEARCH_EMPLOYEES, true);
+        }
+    }
+
     @Nested
     @DisplayName("Employee Read Tests")
     class EmployeeReadTests {
 
         @Test
-        @DisplayName("If the employee returned by the employee service is null then it will return a failed response with an appropriate message")
-        void ifEmployeeReturnedIsNullThenItWillReturnAFailedResponseWithAnAppropriateMessage() {
-            when(employeeService.getEmployeeById(anyInt())).thenReturn(null);
+        @DisplayName("If the employee service throws a NoSuchElementException then it will return a failed response with an appropriate message")
+        void ifTheEmployeeServiceThrowsANoSuchElementExceptionThenItWillReturnAFailedResponseWithAnAppropriateMessage() {
+            when(employeeService.getEmployeeById(anyInt())).thenThrow(new NoSuchElementException("No employee with id [1] was found"));
             EmployeeServiceResponse mockEmployeeServiceResponse =
                     new EmployeeServiceResponse(false, NO_EMPLOYEE_WITH_ID_FOUND_ERROR_MESSAGE, null);
 
             assertEquals(mockEmployeeServiceResponse, employeeServiceController.getEmployeeById(1));
+            verify(employeeServiceMetrics).recordRequest(RequestType.GET_EMPLOYEE_BY_ID, false);
         }
 
         @Test
@@ -77,6 +158,100 @@ class EmployeeServiceControllerTest {
                     new EmployeeServiceResponse(true, null, createMockEmployee());
 
             assertEquals(mockEmployeeServiceResponse, employeeServiceController.getEmployeeById(1));
+            verify(employeeServiceMetrics).recordRequest(RequestType.GET_EMPLOYEE_BY_ID, true);
+        }
+    }
+
+    @Nested
+    @DisplayName("Employee Batch Read Tests")
+    class EmployeeBatchReadTests {
+
+        @Test
+        @DisplayName("If no ids are provided then it will return a failed response with an appropriate message without a lookup")
+        void ifNoIdsAreProvidedThenItWillReturnAFailedResponseWithAnAppropriateMessage() {
+            EmployeeServiceResponse mockEmployeeServiceResponse =
+                    new EmployeeServiceResponse(false, NO_EMPLOYEE_IDS_PROVIDED_ERROR_MESSAGE, null);
+
+            assertEquals(mockEmployeeServiceResponse, employeeServiceController.getEmployeesByIds(Collections.emptyList()));
+            verify(employeeService, never()).getEmployeesByIds(anyCollection());
+        }
+
+        @Test
+        @DisplayName("If some employees are found then it will return a successful response with the employees found and the missing ids")
+        void ifSomeEmployeesAreFoundThenItWillReturnASuccessfulResponseWithTheEmployeesAndMissingIds() {
+            Employee mockEmployee = createMockEmployee();
+            mockEmployee.setId(1);
+            when(employeeService.getEmployeesByIds(anyCollection())).thenReturn(List.of(mockEmployee));
+            EmployeeServiceResponse mockEmployeeServiceResponse = new EmployeeServiceResponse(true, null,
+                    new EmployeeBatchLookupResult(List.of(mockEmployee), List.of(2, 3)));
+
+            assertEquals(mockEmployeeServiceResponse, employeeServiceController.getEmployeesByIds(Arrays.asList(1, 2, 3, 2)));
+        }
+    }
+
+    @Nested
+    @DisplayName("Employee Export Tests")
+    class EmployeeExportTests {
+
+        @Test
+        @DisplayName("Each chunk is sent as a numbered response and the end-of-stream response reports the total exported")
+        void eachChunkIsSentAsANumberedResponseAndTheEndOfStreamResponseReportsTheTotalExported() {
+            Employee mockEmployee = createMockEmployee();
+            doAnswer(invocation -> {
+                Consumer<List<Employee>> chunkConsumer = invocation.getArgument(1);
+                chunkConsumer.accept(List.of(mockEmployee, mockEmployee));
+                chunkConsumer.accept(List.of(mockEmployee));
+                return 3L;
+            }).when(employeeService).exportEmployees(eq(2), any());
+            List<EmployeeServiceResponse> chunks = new ArrayList<>();
+
+            EmployeeServiceResponse endOfStream = employeeServiceController.exportEmployees(2, chunks::add);
+
+            assertEquals(List.of(
+                    new EmployeeServiceResponse(true, null, new EmployeeExportChunk(0, false, List.of(mockEmployee, mockEmployee), 2)),
+                    new EmployeeServiceResponse(true, null, new EmployeeExportChunk(1, false, List.of(mockEmployee), 3))), chunks);
+            assertEquals(new EmployeeServiceResponse(true, null, new EmployeeExportChunk(2, true, List.of(), 3)), endOfStream);
+        }
+
+        @Test
+        @DisplayName("If the database fails part way through then the end-of-stream response reports a failure with the number exported")
+        void ifTheDatabaseFailsPartWayThroughThenTheEndOfStreamResponseReportsAFailure() {
+            doAnswer(invocation -> {
+                Consumer<List<Employee>> chunkConsumer = invocation.getArgument(1);
+                chunkConsumer.accept(List.of(createMockEmployee()));
+                throw new DataAccessResourceFailureException("Connection lost");
+            }).when(employeeService).exportEmployees(eq(1), any());
+
+            EmployeeServiceResponse endOfStream = employeeServiceController.exportEmployees(1, chunk -> { });
+
+            assertEquals(new EmployeeServiceResponse(false, "Export failed after [1] employees, it should be requested again",
+                    new EmployeeExportChunk(1, true, List.of(), 1)), endOfStream);
+            verify(employeeServiceMetrics).recordRequest(RequestType.EXPORT_EMPLOYEES, false);
+        }
+
+        @Test
+        @DisplayName("If a chunk cannot be published then the end-of-stream response reports a failure after the chunks that were")
+        void ifAChunkCannotBePublishedThenTheEndOfStreamResponseReportsAFailureAfterTheChunksThatWere() {
+            Employee mockEmployee = createMockEmployee();
+            doAnswer(invocation -> {
+                Consumer<List<Employee>> chunkConsumer = invocation.getArgument(1);
+                chunkConsumer.accept(List.of(mockEmployee));
+                chunkConsumer.accept(List.of(mockEmployee));
+                return 2L;
+            }).when(employeeService).exportEmployees(eq(1), any());
+            List<EmployeeServiceResponse> chunks = new ArrayList<>();
+
+            EmployeeServiceResponse endOfStream = employeeServiceController.exportEmployees(1, chunk -> {
+                if (!chunks.isEmpty()) {
+                    throw new AmqpTimeoutException("Timed out waiting for confirms");
+                }
+                chunks.add(chunk);
+            });
+
+            assertEquals(1, chunks.size());
+            assertEquals(new EmployeeServiceResponse(false, "Export failed after [1] employees, it should be requested again",
+                    new EmployeeExportChunk(1, true, List.of(), 1)), endOfStream);
+            verify(employeeServiceMetrics).recordRequest(RequestType.EXPORT_EMPLOYEES, false);
         }
     }
 
@@ -0,0 +1,203 @@
+package com.pmoproject.employeeservice.listener;
+
+import com.pmoproject.employeeservice.listener.AdaptiveConcurrencyController.Sample;
+import com.pmoproject.employeeservice.metrics.EmployeeServiceMetrics;
+import com.pmoproject.employeeservice.metrics.EmployeeServiceMetrics.Stage;
+import com.pmoproject.employeeservice.models.rabbitmq.RequestType;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+
+import java.net.ConnectException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AdaptiveConcurrencyControllerTest {
+
+    @Mock
+    RabbitListenerEndpointRegistry listenerEndpointRegistry;
+
+    @Mock
+    AmqpAdmin amqpAdmin;
+
+    @Mock
+    SimpleMessageListenerContainer container;
+
+    @Mock
+    SimpleMessageListenerContainer batchContainer;
+
+    SimpleMeterRegistry meterRegistry;
+    EmployeeServiceMetrics employeeServiceMetrics;
+    AdaptiveConcurrencyController controller;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        employeeServiceMetrics = new EmployeeServiceMetrics(meterRegistry);
+        controller = createController(true);
+    }
+
+    private void stubContainers() {
+        when(listenerEndpointRegistry.getListenerContainer("employeeServiceListener")).thenReturn(container);
+        when(listenerEndpointRegistry.getListenerContainer("employeeServiceBatchListener")).thenReturn(batchContainer);
+    }
+
+    private AdaptiveConcurrencyController createController(boolean enabled) {
+        return new AdaptiveConcurrencyController(listenerEndpointRegistry, amqpAdmin, meterRegistry, employeeServiceMetrics,
+                enabled, "employeeServiceQueue", 1, 4, 10, 30, 50, 5, 0.5);
+    }
+
+    private double adjustments(String direction) {
+        return meterRegistry.get("employeeservice.listener.adaptive.adjustments").tag("direction", direction).counter()
+                .count();
+    }
+
+    private void increaseTimes(int times) {
+        for (int i = 0; i < times; i++) {
+            controller.adjust(new Sample(10, 1, 100));
+        }
+    }
+
+    @Nested
+    @DisplayName("Adjustment Tests")
+    class AdjustmentTests {
+
+        @Test
+        @DisplayName("If messages are waiting and the database is keeping up then a consumer will be added and the prefetch raised")
+        void ifMessagesAreWaitingAndTheDatabaseIsKeepingUpThenAConsumerWillBeAddedAndThePrefetchRaised() {
+            stubContainers();
+            controller.adjust(new Sample(10, 1, 100));
+
+            assertEquals(2, controller.getConsumers());
+            assertEquals(20, controller.getPrefetch());
+            assertEquals(100, controller.getQueueDepth());
+            InOrder inOrder = inOrder(container);
+            inOrder.verify(container).setMaxConcurrentConsumers(2);
+            inOrder.verify(container).setConcurrentConsumers(2);
+            verify(container).setPrefetchCount(20);
+            verify(batchContainer).setConcurrentConsumers(2);
+            assertEquals(1, adjustments("increase"));
+        }
+
+        @Test
+        @DisplayName("If the route stage is slower than the target then the consumers and prefetch will be halved")
+        void ifTheRouteStageIsSlowerThanTheTargetThenTheConsumersAndPrefetchWillBeHalved() {
+            stubContainers();
+            increaseTimes(3);
+
+            controller.adjust(new Sample(80, 1, 100));
+
+            assertEquals(2, controller.getConsumers());
+            assertEquals(15, controller.getPrefetch());
+            verify(container).setPrefetchCount(15);
+            InOrder inOrder = inOrder(container);
+            inOrder.verify(container).setConcurrentConsumers(2);
+            inOrder.verify(container).setMaxConcurrentConsumers(2);
+            assertEquals(1, adjustments("decrease"));
+        }
+
+        @Test
+        @DisplayName("If connections are waited for longer than the target then the consumers and prefetch will be halved")
+        void ifConnectionsAreWaitedForLongerThanTheTargetThenTheConsumersAndPrefetchWillBeHalved() {
+            stubContainers();
+            increaseTimes(3);
+
+            controller.adjust(new Sample(10, 20, 0));
+
+            assertEquals(2, controller.getConsumers());
+            assertEquals(15, controller.getPrefetch());
+            assertEquals(1, adjustments("decrease"));
+        }
+
+        @Test
+        @DisplayName("If the consumers and prefetch are at their bounds then they will not be adjusted any further")
+        void ifTheConsumersAndPrefetchAreAtTheirBoundsThenTheyWillNotBeAdjustedAnyFurther() {
+            stubContainers();
+            controller.adjust(new Sample(80, 20, 100));
+            assertEquals(1, controller.getConsumers());
+            assertEquals(10, controller.getPrefetch());
+            assertEquals(0, adjustments("decrease"));
+
+            increaseTimes(5);
+            assertEquals(4, controller.getConsumers());
+            assertEquals(30, controller.getPrefetch());
+            assertEquals(3, adjustments("increase"));
+        }
+
+        @Test
+        @DisplayName("If no messages are waiting and the database is keeping up then nothing will be adjusted")
+        void ifNoMessagesAreWaitingAndTheDatabaseIsKeepingUpThenNothingWillBeAdjusted() {
+            controller.adjust(new Sample(10, 1, 0));
+
+            assertEquals(1, controller.getConsumers());
+            verify(container, never()).setConcurrentConsumers(anyInt());
+            verify(container, never()).setPrefetchCount(anyInt());
+            assertEquals(0, adjustments("increase"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Sample Tests")
+    class SampleTests {
+
+        @Test
+        @DisplayName("A sample is the mean route and connection wait times since the previous sample, and the queue depth")
+        void aSampleIsTheMeanRouteAndConnectionWaitTimesSinceThePreviousSampleAndTheQueueDepth() {
+            Timer acquireTimer = meterRegistry.timer(AdaptiveConcurrencyController.POOL_ACQUIRE_TIMER, "pool", "HikariPool-1");
+            when(amqpAdmin.getQueueInfo("employeeServiceQueue"))
+                    .thenReturn(new QueueInformation("employeeServiceQueue", 42, 1));
+            employeeServiceMetrics.recordStage(Stage.ROUTE, RequestType.GET_EMPLOYEE_BY_ID, TimeUnit.MILLISECONDS.toNanos(100));
+            acquireTimer.record(2, TimeUnit.MILLISECONDS);
+            controller.sample();
+
+            employeeServiceMetrics.recordStage(Stage.ROUTE, RequestType.GET_EMPLOYEE_BY_ID, TimeUnit.MILLISECONDS.toNanos(10));
+            employeeServiceMetrics.recordStage(Stage.ROUTE, RequestType.CREATE_EMPLOYEE, TimeUnit.MILLISECONDS.toNanos(30));
+            employeeServiceMetrics.recordBatchStage(Stage.ROUTE, TimeUnit.MILLISECONDS.toNanos(1000));
+            Sample sample = controller.sample();
+
+            assertEquals(20, sample.databaseLatencyMillis);
+            assertEquals(0, sample.poolWaitMillis);
+            assertEquals(42, sample.queueDepth);
+        }
+
+        @Test
+        @DisplayName("If the queue cannot be sampled then nothing will be adjusted")
+        void ifTheQueueCannotBeSampledThenNothingWillBeAdjusted() {
+            when(amqpAdmin.getQueueInfo("employeeServiceQueue"))
+                    .thenThrow(new AmqpConnectException(new ConnectException("Connection refused")));
+
+            controller.adjustScheduled();
+
+            assertEquals(1, controller.getConsumers());
+            verify(container, never()).setConcurrentConsumers(anyInt());
+        }
+
+        @Test
+        @DisplayName("If the controller is disabled then the queue will not be sampled")
+        void ifTheControllerIsDisabledThenTheQueueWillNotBeSampled() {
+            createController(false).adjustScheduled();
+
+            verify(amqpAdmin, never()).getQueueInfo("employeeServiceQueue");
+            verify(listenerEndpointRegistry, never()).getListenerContainer("employeeServiceListener");
+        }
+    }
+}
@@ -0,0 +1,590 @@
+package com.pmoproject.employeeservice.listener;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.pmoproject.employeeservice.controllers.EmployeeServiceController;
+import com.pmoproject.employeeservice.metrics.EmployeeServiceMetrics;
+import com.pmoproject.employeeservice.models.domain.EmployeeMessageOutboxItem;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeExportChunk;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeSearchCriteria;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeServiceRequest;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeServiceResponse;
+import com.pmoproject.employeeservice.models.rabbitmq.ReplyPayload;
+import com.pmoproject.employeeservice.models.rabbitmq.RequestType;
+import com.pmoproject.employeeservice.services.EmployeeMessageOutboxService;
+import com.pmoproject.employeeservice.services.OutboxConfirmProcessor;
+import com.pmoproject.employeeservice.util.JacksonUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.TransactionSystemException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static com.pmoproject.employeeservice.MockTestDataUtil.createMockEmployee;
+import static com.pmoproject.employeeservice.configuration.rabbitmq.RabbitMqConfig.DEAD_LETTER_EXCHANGE_NAME;
+import static com.pmoproject.employeeservice.configuration.rabbitmq.RabbitMqConfig.EMPLOYEE_SERVICE_DEAD_LETTER_ROUTING_KEY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the write path of the listener at each point a request can fail or the node can crash: while routing, while
+ * recording the outbox item, while committing and while publishing the reply. A failed stage stands in for a crash at
+ * that point, since in both cases the request is redelivered and nothing after the failed stage has happened
+ */
+@ExtendWith(MockitoExtension.class)
+class EmployeeQueueListenerTest {
+    private static final String CORRELATION_ID = "correlation-1";
+    private static final EmployeeServiceResponse CREATED_RESPONSE = new EmployeeServiceResponse(true, null, createMockEmployee());
+
+    @Mock
+    EmployeeMessageOutboxService employeeMessageOutboxService;
+
+    @Mock
+    RabbitTemplate rabbitTemplate;
+
+    @Mock
+    EmployeeServiceController employeeServiceController;
+
+    @Mock
+    OutboxConfirmProcessor outboxConfirmProcessor;
+
+    @Mock
+    EmployeeServiceMetrics employeeServiceMetrics;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @Mock
+    TransactionStatus transaction;
+
+    EmployeeQueueListener employeeQueueListener;
+
+    @BeforeEach
+    void setUp() {
+        employeeQueueListener = new EmployeeQueueListener(employeeMessageOutboxService, rabbitTemplate,
+                employeeServiceController, outboxConfirmProcessor, employeeServiceMetrics, new RequestAdmission(0, 0),
+                new ReplyEncoder(4096, "none"), transactionManager,
+                new ReplyPublisher(rabbitTemplate, employeeServiceMetrics, 0, 1000), 500);
+    }
+
+    private EmployeeServiceRequest createRequest(RequestType requestType) {
+        EmployeeServiceRequest request = new EmployeeServiceRequest();
+        request.setRequestBody(requestType == RequestType.CREATE_EMPLOYEE ? createMockEmployee() : 1);
+        return request;
+    }
+
+    private Message createRequestMessage(String correlationId, RequestType requestType) throws JsonProcessingException {
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setCorrelationId(correlationId);
+        messageProperties.setReplyTo("replyQueue");
+        messageProperties.setHeader("requestType", requestType.name());
+        return new Message(JacksonUtils.convertObjectToJsonBytes(createRequest(requestType)), messageProperties);
+    }
+
+    private void listen(Message message, RequestType requestType) throws JsonProcessingException {
+        employeeQueueListener.listen(createRequest(requestType), requestType, message);
+    }
+
+    private void givenANewWriteRequest(boolean outboxIsTransactional) {
+        when(employeeMessageOutboxService.findExistingMessage(eq(CORRELATION_ID), any(), anyBoolean())).thenReturn(Optional.empty());
+        when(transactionManager.getTransaction(any())).thenReturn(transaction);
+        when(employeeMessageOutboxService.isTransactional()).thenReturn(outboxIsTransactional);
+    }
+
+    private void givenABatchWhoseResponsesAreRecorded() {
+        when(employeeMessageOutboxService.findExistingMessages(anyMap(), anyCollection())).thenReturn(Map.of());
+        when(transactionManager.getTransaction(any())).thenReturn(transaction);
+        when(employeeMessageOutboxService.isTransactional()).thenReturn(true);
+        givenNewOutboxItemsAreCreated();
+    }
+
+    private void givenNewOutboxItemsAreCreated() {
+        when(employeeMessageOutboxService.createMessage(anyString(), anyString(), any())).thenAnswer(invocation ->
+                new EmployeeMessageOutboxItem(invocation.getArgument(0), "{}".getBytes(), "application/json", "UTF-8"));
+        when(employeeMessageOutboxService.getMessagePayload(any()))
+                .thenReturn(new ReplyPayload("{}".getBytes(), "application/json", "UTF-8"));
+    }
+
+    private void givenAnExportOfOneChunk() {
+        when(employeeServiceController.exportEmployees(eq(500), any())).thenAnswer(invocation -> {
+            Consumer<EmployeeServiceResponse> chunkSender = invocation.getArgument(1);
+            chunkSender.accept(new EmployeeServiceResponse(true, null,
+                    new EmployeeExportChunk(0, false, List.of(createMockEmployee()), 1)));
+            return new EmployeeServiceResponse(true, null, new EmployeeExportChunk(1, true, List.of(), 1));
+        });
+    }
+
+    private void verifyRepliesWereSent(int replies) {
+        verify(rabbitTemplate, times(replies)).send(eq(""), eq("replyQueue"), any(Message.class), any(CorrelationData.class));
+    }
+
+    private void verifyNoReplyWasSent() {
+        verify(rabbitTemplate, never()).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+    }
+
+    @Nested
+    @DisplayName("Single Commit Tests")
+    class SingleCommitTests {
+
+        @Test
+        @DisplayName("The employee and its outbox item are committed together before the reply is sent")
+        void theEmployeeAndItsOutboxItemAreCommittedTogetherBeforeTheReplyIsSent() throws JsonProcessingException {
+            givenANewWriteRequest(true);
+            when(employeeServiceController.createEmployee(any())).thenReturn(CREATED_RESPONSE);
+
+            listen(createRequestMessage(CORRELATION_ID, RequestType.CREATE_EMPLOYEE), RequestType.CREATE_EMPLOYEE);
+
+            InOrder inOrder = inOrder(transactionManager, employeeServiceController, employeeMessageOutboxService, rabbitTemplate);
+            inOrder.verify(transactionManager).getTransaction(any());
+            inOrder.verify(employeeServiceController).createEmployee(any());
+            inOrder.verify(employeeMessageOutboxService).saveMessage(eq(CORRELATION_ID), eq("replyQueue"), any(ReplyPayload.class));
+            inOrder.verify(transactionManager).commit(transaction);
+            inOrder.verify(rabbitTemplate).send(eq(""), eq("replyQueue"), any(Message.class), any(CorrelationData.class));
+            verify(transactionManager, times(1)).commit(any());
+            verify(transactionManager, never()).rollback(any());
+        }
+
+        @Test
+        @DisplayName("If the outbox store cannot join the transaction then the outbox item is saved after the commit")
+        void ifTheOutboxStoreCannotJoinTheTransactionThenTheOutboxItemIsSavedAfterTheCommit() throws JsonProcessingException {
+            givenANewWriteRequest(false);
+            when(employeeServiceController.createEmployee(any())).thenReturn(CREATED_RESPONSE);
+
+            listen(createRequestMessage(CORRELATION_ID, RequestType.CREATE_EMPLOYEE), RequestType.CREATE_EMPLOYEE);
+
+            InOrder inOrder = inOrder(transactionManager, employeeMessageOutboxService, rabbitTemplate);
+            inOrder.verify(transactionManager).commit(transaction);
+            inOrder.verify(employeeMessageOutboxService).saveMessage(eq(CORRELATION_ID), eq("replyQueue"), any(ReplyPayload.class));
+            inOrder.verify(rabbitTemplate).send(eq(""), eq("replyQueue"), any(Message.class), any(CorrelationData.class));
+        }
+
+        @Test
+        @DisplayName("A read request is routed and recorded without a transaction")
+        void aReadRequestIsRoutedAndRecordedWithoutATransaction() throws JsonProcessingException {
+            when(employeeMessageOutboxService.findExistingMessage(eq(CORRELATION_ID), any(), anyBoolean())).thenReturn(Optional.empty());
+            when(employeeServiceController.getEmployeeById(1)).thenReturn(CREATED_RESPONSE);
+
+            listen(createRequestMessage(CORRELATION_ID, RequestType.GET_EMPLOYEE_BY_ID), RequestType.GET_EMPLOYEE_BY_ID);
+
+            verify(transactionManager, never()).getTransaction(any());
+            verify(employeeMessageOutboxService, times(1)).saveMessage(eq(CORRELATION_ID), eq("replyQueue"), any(ReplyPayload.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("Crash Point Tests")
+    class CrashPointTests {
+
+        @Test
+        @DisplayName("If routing fails then the transaction is rolled back, and nothing is recorded or sent")
+        void ifRoutingFailsThenTheTransactionIsRolledBackAndNothingIsRecordedOrSent() throws JsonProcessingException {
+            givenANewWriteRequest(true);
+            when(employeeServiceController.createEmployee(any())).thenThrow(new DataAccessResourceFailureException("Lost connection"));
+
+            assertThrows(DataAccessResourceFailureException.class,
+                    () -> listen(createRequestMessage(CORRELATION_ID, RequestType.CREATE_EMPLOYEE), RequestType.CREATE_EMPLOYEE));
+
+            verify(transactionManager, times(1)).rollback(transaction);
+            verify(transactionManager, never()).commit(any());
+            verify(employeeMessageOutboxService, never()).saveMessage(anyString(), anyString(), any());
+            verifyNoReplyWasSent();
+        }
+
+        @Test
+        @DisplayName("If recording the outbox item fails then the employee is rolled back with it, and no reply is sent")
+        void ifRecordingTheOutboxItemFailsThenTheEmployeeIsRolledBackWithItAndNoReplyIsSent() throws JsonProcessingException {
+            givenANewWriteRequest(true);
+            when(employeeServiceController.createEmployee(any())).thenReturn(CREATED_RESPONSE);
+            doThrow(new DataAccessResourceFailureException("Lost connection"))
+                    .when(employeeMessageOutboxService).saveMessage(anyString(), anyString(), any());
+
+            assertThrows(DataAccessResourceFailureException.class,
+                    () -> listen(createRequestMessage(CORRELATION_ID, RequestType.CREATE_EMPLOYEE), RequestType.CREATE_EMPLOYEE));
+
+            verify(transactionManager, times(1)).rollback(transaction);
+            verify(transactionManager, never()).commit(any());
+            verifyNoReplyWasSent();
+        }
+
+        @Test
+        @DisplayName("If the commit fails then neither is written and no reply is sent")
+        void ifTheCommitFailsThenNeitherIsWrittenAndNoReplyIsSent() throws JsonProcessingException {
+            givenANewWriteRequest(true);
+            when(employeeServiceController.createEmployee(any())).thenReturn(CREATED_RESPONSE);
+            doThrow(new TransactionSystemException("Commit failed")).when(transactionManager).commit(transaction);
+            when(transaction.isCompleted()).thenReturn(true);
+
+            assertThrows(TransactionSystemException.class,
+                    () -> listen(createRequestMessage(CORRELATION_ID, RequestType.CREATE_EMPLOYEE), RequestType.CREATE_EMPLOYEE));
+
+            verify(transactionManager, never()).rollback(any());
+            verifyNoReplyWasSent();
+        }
+
+        @Test
+        @DisplayName("If publishing fails after the commit then the redelivered request is answered from the outbox without creating the employee again")
+        void ifPublishingFailsAfterTheCommitThenTheRedeliveredRequestIsAnsweredFromTheOutbox() throws JsonProcessingException {
+            givenANewWriteRequest(true);
+            when(employeeServiceController.createEmployee(any())).thenReturn(CREATED_RESPONSE);
+            doThrow(new AmqpConnectException(new RuntimeException("Broker unreachable"))).when(rabbitTemplate)
+                    .send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+
+            Message message = createRequestMessage(CORRELATION_ID, RequestType.CREATE_EMPLOYEE);
+            assertThrows(AmqpConnectException.class, () -> listen(message, RequestType.CREATE_EMPLOYEE));
+            verify(transactionManager, times(1)).commit(transaction);
+
+            EmployeeMessageOutboxItem outboxItem = new EmployeeMessageOutboxItem(CORRELATION_ID, "{}".getBytes(), "application/json", "UTF-8");
+            when(employeeMessageOutboxService.findExistingMessage(CORRELATION_ID, RequestType.CREATE_EMPLOYEE, true)).thenReturn(Optional.of(outboxItem));
+            when(employeeMessageOutboxService.getMessagePayload(outboxItem))
+                    .thenReturn(new ReplyPayload("{}".getBytes(), "application/json", "UTF-8"));
+            message.getMessageProperties().setRedelivered(true);
+            assertThrows(AmqpConnectException.class, () -> listen(message, RequestType.CREATE_EMPLOYEE));
+
+            verify(employeeServiceController, times(1)).createEmployee(any());
+            verify(transactionManager, times(1)).getTransaction(any());
+            verify(rabbitTemplate, times(2)).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+        }
+
+        @Test
+        @DisplayName("If the end-of-stream marker of an export cannot be published then the export is not streamed again")
+        void ifTheEndOfStreamMarkerOfAnExportCannotBePublishedThenTheExportIsNotStreamedAgain() throws JsonProcessingException {
+            givenAnExportOfOneChunk();
+            doNothing().doThrow(new AmqpConnectException(new RuntimeException("Broker unreachable"))).when(rabbitTemplate)
+                    .send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+
+            listen(createRequestMessage(CORRELATION_ID, RequestType.EXPORT_EMPLOYEES), RequestType.EXPORT_EMPLOYEES);
+
+            verify(employeeServiceController, times(1)).exportEmployees(eq(500), any());
+            verifyRepliesWereSent(2);
+        }
+    }
+
+    @Nested
+    @DisplayName("Concurrent Delivery Tests")
+    class ConcurrentDeliveryTests {
+
+        @Test
+        @DisplayName("If a concurrent delivery saved the outbox item first then this delivery is rolled back and answered with its response")
+        void ifAConcurrentDeliverySavedTheOutboxItemFirstThenThisDeliveryIsRolledBackAndAnsweredWithItsResponse()
+                throws JsonProcessingException {
+            givenANewWriteRequest(true);
+            when(employeeServiceController.createEmployee(any())).thenReturn(CREATED_RESPONSE);
+            doThrow(new DataIntegrityViolationException("Duplicate entry for key 'CorrelationId_UNIQUE'"))
+                    .when(employeeMessageOutboxService).saveMessage(anyString(), anyString(), any());
+            EmployeeMessageOutboxItem outboxItem = new EmployeeMessageOutboxItem(CORRELATION_ID, "{}".getBytes(), "application/json", "UTF-8");
+            when(employeeMessageOutboxService.findExistingMessage(CORRELATION_ID, RequestType.CREATE_EMPLOYEE, true))
+                    .thenReturn(Optional.of(outboxItem));
+            when(employeeMessageOutboxService.getMessagePayload(outboxItem))
+                    .thenReturn(new ReplyPayload("{}".getBytes(), "application/json", "UTF-8"));
+
+            listen(createRequestMessage(CORRELATION_ID, RequestType.CREATE_EMPLOYEE), RequestType.CREATE_EMPLOYEE);
+
+            verify(transactionManager, times(1)).rollback(transaction);
+            verify(transactionManager, never()).commit(any());
+            verify(rabbitTemplate, times(1)).send(eq(""), eq("replyQueue"), any(Message.class), any(CorrelationData.class));
+        }
+
+        @Test
+        @DisplayName("If the outbox item that took the correlation id cannot be found then the request fails transiently so it is retried")
+        void ifTheOutboxItemThatTookTheCorrelationIdCannotBeFoundThenTheRequestFailsTransiently() throws JsonProcessingException {
+            givenANewWriteRequest(true);
+            when(employeeServiceController.createEmployee(any())).thenReturn(CREATED_RESPONSE);
+            DataIntegrityViolationException violation = new DataIntegrityViolationException("Duplicate entry");
+            doThrow(violation).when(employeeMessageOutboxService).saveMessage(anyString(), anyString(), any());
+
+            ConcurrencyFailureException exception = assertThrows(ConcurrencyFailureException.class,
+                    () -> listen(createRequestMessage(CORRELATION_ID, RequestType.CREATE_EMPLOYEE), RequestType.CREATE_EMPLOYEE));
+
+            assertEquals(violation, exception.getCause());
+            verify(transactionManager, times(1)).rollback(transaction);
+            verifyNoReplyWasSent();
+        }
+
+        @Test
+        @DisplayName("If a concurrent delivery saved an outbox item of a batch first then the batch is rolled back and fails transiently")
+        void ifAConcurrentDeliverySavedAnOutboxItemOfABatchFirstThenTheBatchIsRolledBackAndFailsTransiently()
+                throws JsonProcessingException {
+            when(employeeMessageOutboxService.findExistingMessages(anyMap(), anyCollection())).thenReturn(Map.of());
+            when(transactionManager.getTransaction(any())).thenReturn(transaction);
+            when(employeeMessageOutboxService.isTransactional()).thenReturn(true);
+            when(employeeMessageOutboxService.createMessage(anyString(), anyString(), any())).thenAnswer(invocation ->
+                    new EmployeeMessageOutboxItem(invocation.getArgument(0), "{}".getBytes(), "application/json", "UTF-8"));
+            when(employeeServiceController.createEmployee(any())).thenReturn(CREATED_RESPONSE);
+            doThrow(new DataIntegrityViolationException("Duplicate entry"))
+                    .when(employeeMessageOutboxService).saveMessages(anyList());
+
+            assertThrows(ConcurrencyFailureException.class, () -> employeeQueueListener.listenBatch(
+                    List.of(createRequestMessage(CORRELATION_ID, RequestType.CREATE_EMPLOYEE))));
+
+            verify(transactionManager, times(1)).rollback(transaction);
+            verify(transactionManager, never()).commit(any());
+            verifyNoReplyWasSent();
+        }
+    }
+
+    @Nested
+    @DisplayName("Legacy Routing Tests")
+    class LegacyRoutingTests {
+
+        @ParameterizedTest
+        @EnumSource(RequestType.class)
+        @DisplayName("A request of any type consumed from employeeServiceQueue is routed to its controller method and answered")
+        void aRequestOfAnyTypeConsumedFromTheLegacyQueueIsRoutedToItsControllerMethodAndAnswered(RequestType requestType)
+                throws JsonProcessingException {
+            EmployeeServiceRequest request = new EmployeeServiceRequest();
+            if (requestType != RequestType.EXPORT_EMPLOYEES) {
+                when(employeeMessageOutboxService.findExistingMessage(eq(CORRELATION_ID), eq(requestType), anyBoolean()))
+                        .thenReturn(Optional.empty());
+            }
+            if (requestType.isWrite()) {
+                when(transactionManager.getTransaction(any())).thenReturn(transaction);
+                when(employeeMessageOutboxService.isTransactional()).thenReturn(true);
+            }
+            switch (requestType) {
+                case CREATE_EMPLOYEE:
+                    request.setRequestBody(createMockEmployee());
+                    when(employeeServiceController.createEmployee(any())).thenReturn(CREATED_RESPONSE);
+                    break;
+                case GET_EMPLOYEE_BY_ID:
+                    request.setRequestBody(1);
+                    when(employeeServiceController.getEmployeeById(1)).thenReturn(CREATED_RESPONSE);
+                    break;
+                case GET_EMPLOYEES_BY_IDS:
+                    request.setRequestBody(List.of(1));
+                    when(employeeServiceController.getEmployeesByIds(List.of(1))).thenReturn(CREATED_RESPONSE);
+                    break;
+                case BULK_CREATE_EMPLOYEES:
+                    request.setRequestBody(List.of(createMockEmployee()));
+                    when(employeeServiceController.createEmployees(anyList())).thenReturn(CREATED_RESPONSE);
+                    break;
+                case SEARCH_EMPLOYEES:
+                    request.setRequestBody(new EmployeeSearchCriteria());
+                    when(employeeServiceController.searchEmployees(any())).thenReturn(CREATED_RESPONSE);
+                    break;
+                case EXPORT_EMPLOYEES:
+                    givenAnExportOfOneChunk();
+                    break;
+            }
+
+            employeeQueueListener.listen(request, requestType, createRequestMessage(CORRELATION_ID, requestType));
+
+            verify(rabbitTemplate, atLeastOnce()).send(eq(""), eq("replyQueue"), any(Message.class), any(CorrelationData.class));
+            verify(transactionManager, times(requestType.isWrite() ? 1 : 0)).commit(transaction);
+        }
+    }
+
+    @Nested
+    @DisplayName("Batch Tests")
+    class BatchTests {
+
+        @Test
+        @DisplayName("The outbox is checked once for the whole batch and its outbox items are saved together before any reply is sent")
+        void theOutboxIsCheckedOnceForTheWholeBatchAndItsOutboxItemsAreSavedTogetherBeforeAnyReplyIsSent()
+                throws JsonProcessingException {
+            when(employeeMessageOutboxService.findExistingMessages(anyMap(), anyCollection())).thenReturn(Map.of());
+            givenNewOutboxItemsAreCreated();
+            when(employeeServiceController.getEmployeeById(1)).thenReturn(CREATED_RESPONSE);
+
+            employeeQueueListener.listenBatch(List.of(createRequestMessage("correlation-1", RequestType.GET_EMPLOYEE_BY_ID),
+                    createRequestMessage("correlation-2", RequestType.GET_EMPLOYEE_BY_ID)));
+
+            ArgumentCaptor<List<EmployeeMessageOutboxItem>> outgoingMessages = ArgumentCaptor.forClass(List.class);
+            InOrder inOrder = inOrder(employeeMessageOutboxService, rabbitTemplate);
+            inOrder.verify(employeeMessageOutboxService, times(1)).findExistingMessages(anyMap(), anyCollection());
+            inOrder.verify(employeeMessageOutboxService, times(1)).saveMessages(outgoingMessages.capture());
+            inOrder.verify(rabbitTemplate, times(2)).send(eq(""), eq("replyQueue"), any(Message.class), any(CorrelationData.class));
+            assertEquals(2, outgoingMessages.getValue().size());
+        }
+
+        @Test
+        @DisplayName("A request of the batch already in the outbox is answered from it without being routed again")
+        void aRequestOfTheBatchAlreadyInTheOutboxIsAnsweredFromItWithoutBeingRoutedAgain() throws JsonProcessingException {
+            EmployeeMessageOutboxItem outboxItem = new EmployeeMessageOutboxItem("correlation-1", "{}".getBytes(),
+                    "application/json", "UTF-8");
+            when(employeeMessageOutboxService.findExistingMessages(anyMap(), anyCollection()))
+                    .thenReturn(Map.of("correlation-1", outboxItem));
+            when(employeeMessageOutboxService.getMessagePayload(outboxItem))
+                    .thenReturn(new ReplyPayload("{}".getBytes(), "application/json", "UTF-8"));
+
+            employeeQueueListener.listenBatch(List.of(createRequestMessage("correlation-1", RequestType.GET_EMPLOYEE_BY_ID)));
+
+            verify(employeeServiceController, never()).getEmployeeById(anyInt());
+            verify(employeeMessageOutboxService).saveMessages(List.of());
+            verifyRepliesWereSent(1);
+        }
+
+        @Test
+        @DisplayName("Messages of the batch that cannot be answered are dead-lettered individually and the rest are answered")
+        void messagesOfTheBatchThatCannotBeAnsweredAreDeadLetteredIndividuallyAndTheRestAreAnswered()
+                throws JsonProcessingException {
+            when(employeeMessageOutboxService.findExistingMessages(anyMap(), anyCollection())).thenReturn(Map.of());
+            givenNewOutboxItemsAreCreated();
+            when(employeeServiceController.getEmployeeById(1)).thenReturn(CREATED_RESPONSE);
+            Message messageWithoutReplyTo = createRequestMessage("correlation-1", RequestType.GET_EMPLOYEE_BY_ID);
+            messageWithoutReplyTo.getMessageProperties().setReplyTo(null);
+            Message messageWithoutRequestType = createRequestMessage("correlation-2", RequestType.GET_EMPLOYEE_BY_ID);
+            messageWithoutRequestType.getMessageProperties().getHeaders().remove("requestType");
+
+            employeeQueueListener.listenBatch(List.of(messageWithoutReplyTo, messageWithoutRequestType,
+                    createRequestMessage("correlation-3", RequestType.GET_EMPLOYEE_BY_ID)));
+
+            verify(rabbitTemplate).send(eq(DEAD_LETTER_EXCHANGE_NAME), eq(EMPLOYEE_SERVICE_DEAD_LETTER_ROUTING_KEY),
+                    eq(messageWithoutReplyTo), any(CorrelationData.class));
+            verify(rabbitTemplate).send(eq(DEAD_LETTER_EXCHANGE_NAME), eq(EMPLOYEE_SERVICE_DEAD_LETTER_ROUTING_KEY),
+                    eq(messageWithoutRequestType), any(CorrelationData.class));
+            verifyRepliesWereSent(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Reply Window Tests")
+    class ReplyWindowTests {
+
+        @Test
+        @DisplayName("A busy response takes a slot in the reply publisher's window like any reply")
+        void aBusyResponseTakesASlotInTheReplyPublishersWindowLikeAnyReply() throws JsonProcessingException {
+            RequestAdmission requestAdmission = new RequestAdmission(0, 1);
+            ReplyPublisher replyPublisher = new ReplyPublisher(rabbitTemplate, employeeServiceMetrics, 0, 1000);
+            employeeQueueListener = new EmployeeQueueListener(employeeMessageOutboxService, rabbitTemplate,
+                    employeeServiceController, outboxConfirmProcessor, employeeServiceMetrics, requestAdmission,
+                    new ReplyEncoder(4096, "none"), transactionManager, replyPublisher, 500);
+            requestAdmission.tryAdmit();
+
+            listen(createRequestMessage(CORRELATION_ID, RequestType.GET_EMPLOYEE_BY_ID), RequestType.GET_EMPLOYEE_BY_ID);
+
+            verify(rabbitTemplate, times(1)).send(eq(""), eq("replyQueue"), any(Message.class), any(CorrelationData.class));
+            verify(employeeServiceMetrics, times(1)).recordBusy(RequestType.GET_EMPLOYEE_BY_ID);
+            assertEquals(1, replyPublisher.getInFlight());
+        }
+    }
+
+    @Nested
+    @DisplayName("Batch Crash Point Tests")
+    class BatchCrashPointTests {
+
+        @Test
+        @DisplayName("If the database fails while routing a batch then the whole batch is rolled back and no reply is sent")
+        void ifTheDatabaseFailsWhileRoutingABatchThenTheWholeBatchIsRolledBackAndNoReplyIsSent() throws JsonProcessingException {
+            when(employeeMessageOutboxService.findExistingMessages(anyMap(), anyCollection())).thenReturn(Map.of());
+            when(transactionManager.getTransaction(any())).thenReturn(transaction);
+            when(employeeMessageOutboxService.isTransactional()).thenReturn(true);
+            when(employeeServiceController.createEmployee(any())).thenReturn(CREATED_RESPONSE)
+                    .thenThrow(new DataAccessResourceFailureException("Lost connection"));
+
+            assertThrows(DataAccessResourceFailureException.class, () -> employeeQueueListener.listenBatch(List.of(
+                    createRequestMessage("correlation-1", RequestType.CREATE_EMPLOYEE),
+                    createRequestMessage("correlation-2", RequestType.CREATE_EMPLOYEE))));
+
+            verify(transactionManager, times(1)).rollback(transaction);
+            verify(transactionManager, never()).commit(any());
+            verify(employeeMessageOutboxService, never()).saveMessages(anyList());
+            verifyNoReplyWasSent();
+        }
+
+        @Test
+        @DisplayName("A batch of writes and their outbox items are committed together before any reply is sent")
+        void aBatchOfWritesAndTheirOutboxItemsAreCommittedTogetherBeforeAnyReplyIsSent() throws JsonProcessingException {
+            when(employeeMessageOutboxService.findExistingMessages(anyMap(), anyCollection())).thenReturn(Map.of());
+            when(transactionManager.getTransaction(any())).thenReturn(transaction);
+            when(employeeMessageOutboxService.isTransactional()).thenReturn(true);
+            when(employeeServiceController.createEmployee(any())).thenReturn(CREATED_RESPONSE);
+            when(employeeMessageOutboxService.createMessage(anyString(), anyString(), any())).thenAnswer(invocation ->
+                    new EmployeeMessageOutboxItem(invocation.getArgument(0), "{}".getBytes(), "application/json", "UTF-8"));
+            when(employeeMessageOutboxService.getMessagePayload(any()))
+                    .thenReturn(new ReplyPayload("{}".getBytes(), "application/json", "UTF-8"));
+
+            employeeQueueListener.listenBatch(List.of(createRequestMessage("correlation-1", RequestType.CREATE_EMPLOYEE),
+                    createRequestMessage("correlation-2", RequestType.CREATE_EMPLOYEE)));
+
+            InOrder inOrder = inOrder(transactionManager, employeeMessageOutboxService, rabbitTemplate);
+            inOrder.verify(transactionManager).getTransaction(any());
+            inOrder.verify(employeeMessageOutboxService).saveMessages(anyList());
+            inOrder.verify(transactionManager).commit(transaction);
+            inOrder.verify(rabbitTemplate, times(2)).send(eq(""), eq("replyQueue"), any(Message.class), any(CorrelationData.class));
+        }
+
+        @Test
+        @DisplayName("A mixed batch is committed and replied to before its exports are streamed, and its unanswerable messages are dead-lettered")
+        void aMixedBatchIsCommittedAndRepliedToBeforeItsExportsAreStreamedAndItsUnanswerableMessagesAreDeadLettered()
+                throws JsonProcessingException {
+            givenABatchWhoseResponsesAreRecorded();
+            givenAnExportOfOneChunk();
+            when(employeeServiceController.createEmployee(any())).thenReturn(CREATED_RESPONSE);
+            when(employeeServiceController.getEmployeeById(1)).thenReturn(CREATED_RESPONSE);
+            Message unanswerableMessage = createRequestMessage(null, RequestType.GET_EMPLOYEE_BY_ID);
+
+            employeeQueueListener.listenBatch(List.of(createRequestMessage("correlation-1", RequestType.EXPORT_EMPLOYEES),
+                    createRequestMessage("correlation-2", RequestType.CREATE_EMPLOYEE),
+                    unanswerableMessage,
+                    createRequestMessage("correlation-3", RequestType.GET_EMPLOYEE_BY_ID)));
+
+            InOrder inOrder = inOrder(transactionManager, employeeServiceController, rabbitTemplate);
+            inOrder.verify(transactionManager).commit(transaction);
+            inOrder.verify(rabbitTemplate, times(2)).send(eq(""), eq("replyQueue"), any(Message.class), any(CorrelationData.class));
+            inOrder.verify(employeeServiceController).exportEmployees(eq(500), any());
+            inOrder.verify(rabbitTemplate, times(2)).send(eq(""), eq("replyQueue"), any(Message.class), any(CorrelationData.class));
+            verify(rabbitTemplate, times(1)).send(eq(DEAD_LETTER_EXCHANGE_NAME), eq(EMPLOYEE_SERVICE_DEAD_LETTER_ROUTING_KEY),
+                    eq(unanswerableMessage), any(CorrelationData.class));
+        }
+
+        @Test
+        @DisplayName("If a batch holding an export fails and is retried then the export is only streamed by the retry that succeeds")
+        void ifABatchHoldingAnExportFailsAndIsRetriedThenTheExportIsOnlyStreamedByTheRetryThatSucceeds()
+                throws JsonProcessingException {
+            givenABatchWhoseResponsesAreRecorded();
+            givenAnExportOfOneChunk();
+            when(employeeServiceController.createEmployee(any()))
+                    .thenThrow(new DataAccessResourceFailureException("Lost connection"))
+                    .thenReturn(CREATED_RESPONSE);
+            List<Message> batch = List.of(createRequestMessage("correlation-1", RequestType.EXPORT_EMPLOYEES),
+                    createRequestMessage("correlation-2", RequestType.CREATE_EMPLOYEE));
+
+            assertThrows(DataAccessResourceFailureException.class, () -> employeeQueueListener.listenBatch(batch));
+            verify(transactionManager, times(1)).rollback(transaction);
+            verify(employeeServiceController, never()).exportEmployees(anyInt(), any());
+            verifyNoReplyWasSent();
+
+            employeeQueueListener.listenBatch(batch);
+            verify(transactionManager, times(1)).commit(transaction);
+            verify(employeeServiceController, times(1)).exportEmployees(eq(500), any());
+            verify(rabbitTemplate, times(3)).send(eq(""), eq("replyQueue"), any(Message.class), any(CorrelationData.class));
+        }
+    }
+}
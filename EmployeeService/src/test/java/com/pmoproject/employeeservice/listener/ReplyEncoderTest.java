@@ -0,0 +1,110 @@
+package com.pmoproject.employeeservice.listener;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.pmoproject.employeeservice.configuration.rabbitmq.Lz4CompressingPostProcessor;
+import com.pmoproject.employeeservice.configuration.rabbitmq.Lz4DecompressingPostProcessor;
+import com.pmoproject.employeeservice.models.domain.Employee;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeSearchPage;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeServiceResponse;
+import com.pmoproject.employeeservice.models.rabbitmq.ReplyPayload;
+import com.pmoproject.employeeservice.util.WireFormat;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.postprocessor.DelegatingDecompressingPostProcessor;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.pmoproject.employeeservice.MockTestDataUtil.createMockEmployee;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplyEncoderTest {
+
+    private EmployeeServiceResponse createSearchResponse(int employeeCount) {
+        List<Employee> employees = IntStream.rangeClosed(1, employeeCount).mapToObj(id -> {
+            Employee employee = createMockEmployee();
+            employee.setId(id);
+            return employee;
+        }).collect(Collectors.toList());
+        return new EmployeeServiceResponse(true, null, new EmployeeSearchPage(employees, null));
+    }
+
+    private byte[] decompress(ReplyPayload payload) {
+        DelegatingDecompressingPostProcessor decompressor = new DelegatingDecompressingPostProcessor();
+        decompressor.addDecompressor(Lz4CompressingPostProcessor.LZ4_ENCODING, new Lz4DecompressingPostProcessor());
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setContentEncoding(payload.getContentEncoding());
+        return decompressor.postProcessMessage(new Message(payload.getBody(), messageProperties)).getBody();
+    }
+
+    @Nested
+    @DisplayName("Threshold Tests")
+    class ThresholdTests {
+
+        @Test
+        @DisplayName("If a reply is smaller than the threshold then it will be sent uncompressed")
+        void ifAReplyIsSmallerThanTheThresholdThenItWillBeSentUncompressed() throws JsonProcessingException {
+            EmployeeServiceResponse response = new EmployeeServiceResponse(true, null, createMockEmployee());
+            ReplyPayload payload = new ReplyEncoder(4096, "lz4").encode(response, WireFormat.JSON);
+
+            assertArrayEquals(WireFormat.JSON.writeValueAsBytes(response), payload.getBody());
+            assertEquals(WireFormat.JSON.getContentType(), payload.getContentType());
+            assertEquals("UTF-8", payload.getContentEncoding());
+        }
+
+        @Test
+        @DisplayName("If compression is disabled then a reply will be sent uncompressed whatever its size")
+        void ifCompressionIsDisabledThenAReplyWillBeSentUncompressedWhateverItsSize() throws JsonProcessingException {
+            EmployeeServiceResponse response = createSearchResponse(100);
+            ReplyPayload payload = new ReplyEncoder(0, "none").encode(response, WireFormat.SMILE);
+
+            assertArrayEquals(WireFormat.SMILE.writeValueAsBytes(response), payload.getBody());
+            assertEquals(null, payload.getContentEncoding());
+        }
+    }
+
+    @Nested
+    @DisplayName("Compression Tests")
+    class CompressionTests {
+
+        @ParameterizedTest
+        @ValueSource(strings = {"lz4", "gzip"})
+        @DisplayName("If a reply reaches the threshold then it will be compressed, marked with its codec and decompress back unchanged")
+        void ifAReplyReachesTheThresholdThenItWillBeCompressedAndDecompressBackUnchanged(String codec) throws JsonProcessingException {
+            EmployeeServiceResponse response = createSearchResponse(100);
+            byte[] uncompressedBody = WireFormat.JSON.writeValueAsBytes(response);
+            ReplyPayload payload = new ReplyEncoder(4096, codec).encode(response, WireFormat.JSON);
+
+            assertTrue(payload.getBody().length < uncompressedBody.length);
+            assertEquals(codec + ", UTF-8", payload.getContentEncoding());
+            assertEquals(WireFormat.JSON.getContentType(), payload.getContentType());
+            assertArrayEquals(uncompressedBody, decompress(payload));
+        }
+
+        @Test
+        @DisplayName("If a binary format reply is compressed then its content encoding will only name the codec")
+        void ifABinaryFormatReplyIsCompressedThenItsContentEncodingWillOnlyNameTheCodec() throws JsonProcessingException {
+            EmployeeServiceResponse response = createSearchResponse(100);
+            ReplyPayload payload = new ReplyEncoder(1024, "lz4").encode(response, WireFormat.CBOR);
+
+            assertEquals("lz4", payload.getContentEncoding());
+            assertArrayEquals(WireFormat.CBOR.writeValueAsBytes(response), decompress(payload));
+        }
+
+        @Test
+        @DisplayName("If the compression codec is not supported then an exception with an appropriate message will be thrown")
+        void ifTheCompressionCodecIsNotSupportedThenAnExceptionWithAnAppropriateMessageWillBeThrown() {
+            Throwable exceptionThatWasThrown = assertThrows(IllegalArgumentException.class, () -> new ReplyEncoder(4096, "zstd"));
+            assertEquals("Unsupported compression codec [zstd]", exceptionThatWasThrown.getMessage());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.pmoproject.employeeservice.listener;
+
+import com.pmoproject.employeeservice.metrics.EmployeeServiceMetrics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.AmqpTimeoutException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ReplyPublisherTest {
+
+    @Mock
+    RabbitTemplate rabbitTemplate;
+
+    @Mock
+    EmployeeServiceMetrics employeeServiceMetrics;
+
+    private Message createReply() {
+        return new Message(new byte[0], new MessageProperties());
+    }
+
+    private void confirm(CorrelationData correlationData, boolean ack) {
+        correlationData.getFuture().set(new CorrelationData.Confirm(ack, ack ? null : "nacked"));
+    }
+
+    @Nested
+    @DisplayName("Window Tests")
+    class WindowTests {
+
+        @Test
+        @DisplayName("If a reply is confirmed then its slot in the window will be freed")
+        void ifAReplyIsConfirmedThenItsSlotInTheWindowWillBeFreed() {
+            ReplyPublisher replyPublisher = new ReplyPublisher(rabbitTemplate, employeeServiceMetrics, 2, 1000);
+            CorrelationData acked = new CorrelationData("acked");
+            CorrelationData nacked = new CorrelationData("nacked");
+
+            replyPublisher.publish("replyQueue", createReply(), acked);
+            replyPublisher.publish("replyQueue", createReply(), nacked);
+            assertEquals(2, replyPublisher.getInFlight());
+
+            confirm(acked, true);
+            confirm(nacked, false);
+            assertEquals(0, replyPublisher.getInFlight());
+            verify(employeeServiceMetrics, never()).recordPublishWindowWait(anyLong());
+        }
+
+        @Test
+        @DisplayName("If the window is full then a reply will wait for a confirm before being published")
+        void ifTheWindowIsFullThenAReplyWillWaitForAConfirmBeforeBeingPublished() throws Exception {
+            ReplyPublisher replyPublisher = new ReplyPublisher(rabbitTemplate, employeeServiceMetrics, 1, 10000);
+            CorrelationData first = new CorrelationData("first");
+            CorrelationData second = new CorrelationData("second");
+            replyPublisher.publish("replyQueue", createReply(), first);
+
+            CompletableFuture<Void> waitingPublish = CompletableFuture.runAsync(
+                    () -> replyPublisher.publish("replyQueue", createReply(), second));
+            TimeUnit.MILLISECONDS.sleep(100);
+            assertFalse(waitingPublish.isDone());
+            verify(rabbitTemplate, never()).send(anyString(), anyString(), any(Message.class), eq(second));
+
+            confirm(first, true);
+            waitingPublish.get(5, TimeUnit.SECONDS);
+            verify(rabbitTemplate, timeout(5000)).send(eq(""), eq("replyQueue"), any(Message.class), eq(second));
+            verify(employeeServiceMetrics).recordPublishWindowWait(anyLong());
+            assertEquals(1, replyPublisher.getInFlight());
+        }
+
+        @Test
+        @DisplayName("If the window stays full for the window timeout then the publish will fail so that the request is retried")
+        void ifTheWindowStaysFullForTheWindowTimeoutThenThePublishWillFailSoThatTheRequestIsRetried() {
+            ReplyPublisher replyPublisher = new ReplyPublisher(rabbitTemplate, employeeServiceMetrics, 1, 50);
+            replyPublisher.publish("replyQueue", createReply(), new CorrelationData("first"));
+
+            assertThrows(AmqpTimeoutException.class,
+                    () -> replyPublisher.publish("replyQueue", createReply(), new CorrelationData("second")));
+            verify(rabbitTemplate, times(1)).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+            verify(employeeServiceMetrics).recordPublishWindowWait(anyLong());
+            assertEquals(1, replyPublisher.getInFlight());
+        }
+
+        @Test
+        @DisplayName("If a publish fails then its slot in the window will be freed")
+        void ifAPublishFailsThenItsSlotInTheWindowWillBeFreed() {
+            ReplyPublisher replyPublisher = new ReplyPublisher(rabbitTemplate, employeeServiceMetrics, 1, 50);
+            CorrelationData correlationData = new CorrelationData("failed");
+            doThrow(new AmqpConnectException(new RuntimeException("Broker unreachable"))).when(rabbitTemplate)
+                    .send(eq(""), eq("replyQueue"), any(Message.class), eq(correlationData));
+
+            assertThrows(AmqpConnectException.class, () -> replyPublisher.publish("replyQueue", createReply(), correlationData));
+            confirm(correlationData, false);
+            assertEquals(0, replyPublisher.getInFlight());
+        }
+
+        @Test
+        @DisplayName("If the window has no limit then replies will never wait for a confirm")
+        void ifTheWindowHasNoLimitThenRepliesWillNeverWaitForAConfirm() {
+            ReplyPublisher replyPublisher = new ReplyPublisher(rabbitTemplate, employeeServiceMetrics, 0, 50);
+
+            for (int i = 0; i < 100; i++) {
+                replyPublisher.publish("replyQueue", createReply(), new CorrelationData(String.valueOf(i)));
+            }
+            assertEquals(100, replyPublisher.getInFlight());
+            verify(employeeServiceMetrics, never()).recordPublishWindowWait(anyLong());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.pmoproject.employeeservice.listener;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestAdmissionTest {
+
+    @Nested
+    @DisplayName("Deadline Tests")
+    class DeadlineTests {
+
+        RequestAdmission requestAdmission = new RequestAdmission(0, 0);
+
+        @Test
+        @DisplayName("A request whose deadline header has passed is expired")
+        void aRequestWhoseDeadlineHeaderHasPassedIsExpired() {
+            MessageProperties messageProperties = new MessageProperties();
+            messageProperties.setHeader(RequestAdmission.DEADLINE_HEADER, System.currentTimeMillis() - 1000);
+
+            assertTrue(requestAdmission.isExpired(messageProperties));
+        }
+
+        @Test
+        @DisplayName("A request whose deadline header has not passed is not expired, whatever its timestamp and expiration")
+        void aRequestWhoseDeadlineHeaderHasNotPassedIsNotExpired() {
+            MessageProperties messageProperties = new MessageProperties();
+            messageProperties.setHeader(RequestAdmission.DEADLINE_HEADER, String.valueOf(System.currentTimeMillis() + 60000));
+            messageProperties.setTimestamp(new Date(System.currentTimeMillis() - 60000));
+            messageProperties.setExpiration("1000");
+
+            assertFalse(requestAdmission.isExpired(messageProperties));
+        }
+
+        @Test
+        @DisplayName("Without a deadline header the deadline is the timestamp plus the expiration")
+        void withoutADeadlineHeaderTheDeadlineIsTheTimestampPlusTheExpiration() {
+            MessageProperties messageProperties = new MessageProperties();
+            messageProperties.setTimestamp(new Date(1_000_000));
+            messageProperties.setExpiration("5000");
+
+            assertEquals(1_005_000, requestAdmission.getDeadline(messageProperties));
+            assertTrue(requestAdmission.isExpired(messageProperties));
+        }
+
+        @Test
+        @DisplayName("Without a deadline header or an expiration the deadline is the timestamp plus the default maximum age")
+        void withoutADeadlineHeaderOrAnExpirationTheDeadlineIsTheTimestampPlusTheDefaultMaxAge() {
+            MessageProperties messageProperties = new MessageProperties();
+            messageProperties.setTimestamp(new Date(1_000_000));
+
+            assertEquals(1_030_000, new RequestAdmission(30000, 0).getDeadline(messageProperties));
+            assertEquals(0, requestAdmission.getDeadline(messageProperties));
+        }
+
+        @Test
+        @DisplayName("A request without a deadline header or a timestamp never expires")
+        void aRequestWithoutADeadlineHeaderOrATimestampNeverExpires() {
+            MessageProperties messageProperties = new MessageProperties();
+            messageProperties.setExpiration("1");
+
+            assertFalse(new RequestAdmission(1, 0).isExpired(messageProperties));
+        }
+
+        @Test
+        @DisplayName("A deadline header that is not a number is ignored")
+        void aDeadlineHeaderThatIsNotANumberIsIgnored() {
+            MessageProperties messageProperties = new MessageProperties();
+            messageProperties.setHeader(RequestAdmission.DEADLINE_HEADER, "tomorrow");
+
+            assertFalse(requestAdmission.isExpired(messageProperties));
+        }
+    }
+
+    @Nested
+    @DisplayName("Admission Limit Tests")
+    class AdmissionLimitTests {
+
+        @Test
+        @DisplayName("Requests beyond the admission limit are turned away until an admitted request is released")
+        void requestsBeyondTheAdmissionLimitAreTurnedAwayUntilAnAdmittedRequestIsReleased() {
+            RequestAdmission requestAdmission = new RequestAdmission(0, 2);
+
+            assertTrue(requestAdmission.tryAdmit());
+            assertTrue(requestAdmission.tryAdmit());
+            assertFalse(requestAdmission.tryAdmit());
+            requestAdmission.release();
+            assertTrue(requestAdmission.tryAdmit());
+        }
+
+        @Test
+        @DisplayName("Every request is admitted when there is no admission limit")
+        void everyRequestIsAdmittedWhenThereIsNoAdmissionLimit() {
+            RequestAdmission requestAdmission = new RequestAdmission(0, 0);
+
+            for (int i = 0; i < 1000; i++) {
+                assertTrue(requestAdmission.tryAdmit());
+            }
+        }
+    }
+}
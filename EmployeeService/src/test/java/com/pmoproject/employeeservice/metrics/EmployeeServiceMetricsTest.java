@@ -0,0 +1,118 @@
+package com.pmoproject.employeeservice.metrics;
+
+import com.pmoproject.employeeservice.metrics.EmployeeServiceMetrics.Stage;
+import com.pmoproject.employeeservice.models.rabbitmq.RequestType;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.rabbit.support.ListenerExecutionFailedException;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EmployeeServiceMetricsTest {
+
+    SimpleMeterRegistry meterRegistry;
+    EmployeeServiceMetrics employeeServiceMetrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        employeeServiceMetrics = new EmployeeServiceMetrics(meterRegistry);
+    }
+
+    @Nested
+    @DisplayName("Stage Timer Tests")
+    class StageTimerTests {
+
+        @Test
+        @DisplayName("A stage recorded for a request is timed under its stage and request type")
+        void aStageRecordedForARequestIsTimedUnderItsStageAndRequestType() {
+            employeeServiceMetrics.recordStage(Stage.OUTBOX_LOOKUP, RequestType.GET_EMPLOYEE_BY_ID, TimeUnit.MILLISECONDS.toNanos(5));
+
+            assertEquals(1, meterRegistry.get("employeeservice.listener.stage").tag("stage", "outbox_lookup")
+                    .tag("requestType", "GET_EMPLOYEE_BY_ID").timer().count());
+            assertEquals(5, meterRegistry.get("employeeservice.listener.stage").tag("stage", "outbox_lookup")
+                    .tag("requestType", "GET_EMPLOYEE_BY_ID").timer().totalTime(TimeUnit.MILLISECONDS));
+            assertEquals(0, meterRegistry.get("employeeservice.listener.stage").tag("stage", "outbox_lookup")
+                    .tag("requestType", "CREATE_EMPLOYEE").timer().count());
+        }
+
+        @Test
+        @DisplayName("A stage recorded for a request of unknown type or for a whole batch is timed under its own request type tag")
+        void aStageRecordedForARequestOfUnknownTypeOrForAWholeBatchIsTimedUnderItsOwnRequestTypeTag() {
+            employeeServiceMetrics.recordStage(Stage.DESERIALIZE, null, 1);
+            employeeServiceMetrics.recordBatchStage(Stage.OUTBOX_SAVE, 1);
+
+            assertEquals(1, meterRegistry.get("employeeservice.listener.stage").tag("stage", "deserialize")
+                    .tag("requestType", EmployeeServiceMetrics.UNKNOWN_REQUEST_TYPE).timer().count());
+            assertEquals(1, meterRegistry.get("employeeservice.listener.stage").tag("stage", "outbox_save")
+                    .tag("requestType", EmployeeServiceMetrics.BATCH_REQUEST_TYPE).timer().count());
+        }
+
+        @Test
+        @DisplayName("The timers of a stage include every single request timer but not the batch timer")
+        void theTimersOfAStageIncludeEverySingleRequestTimerButNotTheBatchTimer() {
+            employeeServiceMetrics.recordStage(Stage.ROUTE, RequestType.GET_EMPLOYEE_BY_ID, 1);
+            employeeServiceMetrics.recordStage(Stage.ROUTE, null, 1);
+            employeeServiceMetrics.recordBatchStage(Stage.ROUTE, 1);
+
+            assertEquals(RequestType.values().length + 1, employeeServiceMetrics.getStageTimers(Stage.ROUTE).size());
+            assertEquals(2, employeeServiceMetrics.getStageTimers(Stage.ROUTE).stream().mapToLong(Timer::count).sum());
+        }
+    }
+
+    @Nested
+    @DisplayName("Outbox Lookup Tests")
+    class OutboxLookupTests {
+
+        @Test
+        @DisplayName("The outbox hit ratio is the fraction of lookups that found a stored reply")
+        void theOutboxHitRatioIsTheFractionOfLookupsThatFoundAStoredReply() {
+            employeeServiceMetrics.recordOutboxLookup(true);
+            employeeServiceMetrics.recordOutboxLookup(false);
+            employeeServiceMetrics.recordOutboxLookup(false);
+            employeeServiceMetrics.recordOutboxLookup(false);
+
+            assertEquals(0.25, meterRegistry.get("employeeservice.outbox.hit.ratio").gauge().value());
+            assertEquals(3, meterRegistry.get("employeeservice.outbox.lookups").tag("result", "miss").counter().count());
+        }
+
+        @Test
+        @DisplayName("The outbox hit ratio is 0 before any lookup")
+        void theOutboxHitRatioIsZeroBeforeAnyLookup() {
+            assertEquals(0, meterRegistry.get("employeeservice.outbox.hit.ratio").gauge().value());
+        }
+    }
+
+    @Nested
+    @DisplayName("Confirm And Dead Letter Tests")
+    class ConfirmAndDeadLetterTests {
+
+        @Test
+        @DisplayName("Confirms are timed by whether they were acks or nacks")
+        void confirmsAreTimedByWhetherTheyWereAcksOrNacks() {
+            employeeServiceMetrics.recordConfirm(true, 1);
+            employeeServiceMetrics.recordConfirm(true, 1);
+            employeeServiceMetrics.recordConfirm(false, 1);
+
+            assertEquals(2, meterRegistry.get("employeeservice.publish.confirm").tag("result", "ack").timer().count());
+            assertEquals(1, meterRegistry.get("employeeservice.publish.confirm").tag("result", "nack").timer().count());
+        }
+
+        @Test
+        @DisplayName("Dead-lettered messages are counted by the exception the listener failed with rather than its wrapper")
+        void deadLetteredMessagesAreCountedByTheExceptionTheListenerFailedWith() {
+            employeeServiceMetrics.recordDeadLetter(new ListenerExecutionFailedException("Listener failed",
+                    new AmqpRejectAndDontRequeueException("No CorrelationId or ReplyTo header set in message")));
+
+            assertEquals(1, meterRegistry.get("employeeservice.listener.deadletters")
+                    .tag("exception", "AmqpRejectAndDontRequeueException").counter().count());
+        }
+    }
+}
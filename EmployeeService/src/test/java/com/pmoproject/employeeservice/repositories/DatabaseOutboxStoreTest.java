@@ -0,0 +1,127 @@
+package com.pmoproject.employeeservice.repositories;
+
+import com.pmoproject.employeeservice.listener.ReplyPublisher;
+import com.pmoproject.employeeservice.metrics.EmployeeServiceMetrics;
+import com.pmoproject.employeeservice.models.domain.EmployeeMessageOutboxItem;
+import com.pmoproject.employeeservice.models.domain.OutboxCorrelationId;
+import com.pmoproject.employeeservice.services.EmployeeMessageOutboxService;
+import com.pmoproject.employeeservice.services.OutboxIdempotencyGuard;
+import com.pmoproject.employeeservice.services.OutboxRelay;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.times;
+
+@DataJpaTest(properties = {"spring.jpa.hibernate.ddl-auto=create-drop"})
+class DatabaseOutboxStoreTest {
+
+    @Autowired
+    EmployeeMessageOutboxRepository employeeMessageOutboxRepository;
+
+    @Autowired
+    TestEntityManager testEntityManager;
+
+    DatabaseOutboxStore databaseOutboxStore;
+
+    List<EmployeeMessageOutboxItem> outboxItems;
+
+    @BeforeEach
+    void setUp() {
+        databaseOutboxStore = new DatabaseOutboxStore(employeeMessageOutboxRepository);
+        outboxItems = IntStream.rangeClosed(1, 3)
+                .mapToObj(i -> testEntityManager.persist(new EmployeeMessageOutboxItem("correlation-" + i, "replyQueue",
+                        LocalDateTime.now().minusHours(1), "{}".getBytes(StandardCharsets.UTF_8), "application/json", null)))
+                .collect(Collectors.toList());
+        testEntityManager.flush();
+    }
+
+    private OutboxRelay createOutboxRelay(RabbitTemplate rabbitTemplate) {
+        EmployeeMessageOutboxService employeeMessageOutboxService = new EmployeeMessageOutboxService(databaseOutboxStore,
+                mock(OutboxIdempotencyGuard.class));
+        ReplyPublisher replyPublisher = new ReplyPublisher(rabbitTemplate, mock(EmployeeServiceMetrics.class), 0, 1000);
+        return new OutboxRelay(employeeMessageOutboxService, replyPublisher, true, 60000, 2, 10, 0, 10);
+    }
+
+    private static List<String> getPublishedCorrelationIds(RabbitTemplate rabbitTemplate, int publishes) {
+        ArgumentCaptor<Message> message = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate, times(publishes)).send(eq(""), anyString(), message.capture(), any(CorrelationData.class));
+        return message.getAllValues().stream().map(published -> published.getMessageProperties().getCorrelationId())
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    @DisplayName("If two relays share the outbox then each unconfirmed reply will be re-published by only one of them")
+    void ifTwoRelaysShareTheOutboxThenEachUnconfirmedReplyWillBeRePublishedByOnlyOneOfThem() {
+        RabbitTemplate firstRabbitTemplate = mock(RabbitTemplate.class);
+        RabbitTemplate secondRabbitTemplate = mock(RabbitTemplate.class);
+
+        int firstRelayed = createOutboxRelay(firstRabbitTemplate).relayUnconfirmedReplies();
+        int secondRelayed = createOutboxRelay(secondRabbitTemplate).relayUnconfirmedReplies();
+
+        assertEquals(3, firstRelayed + secondRelayed);
+        List<String> published = getPublishedCorrelationIds(firstRabbitTemplate, firstRelayed);
+        published.addAll(getPublishedCorrelationIds(secondRabbitTemplate, secondRelayed));
+        assertEquals(List.of("correlation-1", "correlation-2", "correlation-3"), published.stream().sorted()
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("If two relays race to claim the same outbox items then each will be claimed by only one of them")
+    void ifTwoRelaysRaceToClaimTheSameOutboxItemsThenEachWillBeClaimedByOnlyOneOfThem() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime claimExpiredBefore = now.minusMinutes(1);
+
+        List<EmployeeMessageOutboxItem> firstClaimed = databaseOutboxStore.claimForRelay(outboxItems.subList(0, 2),
+                "first", now, claimExpiredBefore);
+        List<EmployeeMessageOutboxItem> secondClaimed = databaseOutboxStore.claimForRelay(outboxItems,
+                "second", now, claimExpiredBefore);
+
+        assertEquals(outboxItems.subList(0, 2), firstClaimed);
+        assertEquals(outboxItems.subList(2, 3), secondClaimed);
+    }
+
+    @Test
+    @DisplayName("If a claim has expired then the outbox items will be found and claimed again")
+    void ifAClaimHasExpiredThenTheOutboxItemsWillBeFoundAndClaimedAgain() {
+        LocalDateTime claimedAt = LocalDateTime.now().minusMinutes(5);
+        databaseOutboxStore.claimForRelay(outboxItems, "first", claimedAt, claimedAt.minusMinutes(1));
+        LocalDateTime now = LocalDateTime.now();
+
+        assertTrue(databaseOutboxStore.findRelayChunk(0, claimedAt.minusMinutes(1), 10).isEmpty());
+        assertEquals(3, databaseOutboxStore.findRelayChunk(0, now.minusMinutes(1), 10).size());
+        assertEquals(outboxItems, databaseOutboxStore.claimForRelay(outboxItems, "second", now, now.minusMinutes(1)));
+    }
+
+    @Test
+    @DisplayName("Correlation id chunks hold the outbox items after the id passed, in id order")
+    void correlationIdChunksHoldTheOutboxItemsAfterTheIdPassedInIdOrder() {
+        List<OutboxCorrelationId> firstChunk = databaseOutboxStore.findCorrelationIdChunk(0, 2);
+        List<OutboxCorrelationId> secondChunk = databaseOutboxStore.findCorrelationIdChunk(
+                firstChunk.get(firstChunk.size() - 1).getId(), 2);
+
+        assertEquals(List.of("correlation-1", "correlation-2"), firstChunk.stream()
+                .map(OutboxCorrelationId::getCorrelationId).collect(Collectors.toList()));
+        assertEquals(List.of(new OutboxCorrelationId(outboxItems.get(2).getId(), "correlation-3")), secondChunk);
+    }
+}
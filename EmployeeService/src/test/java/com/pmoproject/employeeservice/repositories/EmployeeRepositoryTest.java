@@ -0,0 +1,182 @@
+package com.pmoproject.employeeservice.repositories;
+
+import com.pmoproject.employeeservice.models.domain.Area;
+import com.pmoproject.employeeservice.models.domain.Employee;
+import com.pmoproject.employeeservice.models.domain.EmployeeSnapshot;
+import com.pmoproject.employeeservice.models.domain.Location;
+import com.pmoproject.employeeservice.models.domain.Role;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeSearchCriteria;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static com.pmoproject.employeeservice.MockTestDataUtil.createMockEmployee;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {"spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true", "employeeservice.repository.inclause.chunksize=2"})
+class EmployeeRepositoryTest {
+
+    @Autowired
+    EmployeeRepository employeeRepository;
+
+    @Autowired
+    TestEntityManager testEntityManager;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    Statistics statistics;
+
+    Employee employee;
+
+    @BeforeEach
+    void setUp() {
+        Area area = new Area();
+        area.setId(1);
+        area.setArea("exampleArea");
+        Role role = new Role();
+        role.setId(2);
+        role.setRole("exampleRole");
+        Location location = new Location();
+        location.setId(3);
+        location.setLocation("exampleLocation");
+        employee = createMockEmployee();
+        employee.setId(4);
+        employee.setArea(testEntityManager.persist(area));
+        employee.setRole(testEntityManager.persist(role));
+        employee.setLocation(testEntityManager.persist(location));
+        testEntityManager.persist(employee);
+        testEntityManager.flush();
+        testEntityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("If an employee snapshot is read by id then it will be read with a single statement without loading any entities")
+    void ifAnEmployeeSnapshotIsReadByIdThenItWillBeReadWithASingleStatementWithoutLoadingAnyEntities() {
+        Optional<EmployeeSnapshot> snapshot = employeeRepository.findSnapshotById(4);
+
+        assertEquals(Optional.of(EmployeeSnapshot.of(employee)), snapshot);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    @DisplayName("If an employee without an area, role or location is read by id then its snapshot will have none")
+    void ifAnEmployeeWithoutAnAreaRoleOrLocationIsReadByIdThenItsSnapshotWillHaveNone() {
+        Employee employeeWithoutReferences = createMockEmployee();
+        employeeWithoutReferences.setId(5);
+        testEntityManager.persistAndFlush(employeeWithoutReferences);
+        testEntityManager.clear();
+
+        assertEquals(Optional.of(EmployeeSnapshot.of(employeeWithoutReferences)), employeeRepository.findSnapshotById(5));
+    }
+
+    @Test
+    @DisplayName("New employees are inserted in a single JDBC batch, referencing their area, role and location by id only")
+    void newEmployeesAreInsertedInASingleJdbcBatch() {
+        List<Employee> newEmployees = new ArrayList<>();
+        for (int id = 10; id < 13; id++) {
+            Employee newEmployee = createMockEmployee();
+            newEmployee.setId(id);
+            Area area = new Area();
+            area.setId(1);
+            newEmployee.setArea(area);
+            newEmployees.add(newEmployee);
+        }
+
+        employeeRepository.insertAll(newEmployees);
+
+        assertEquals(3, statistics.getEntityInsertCount());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(List.of(4, 10, 11, 12), employeeRepository.findExistingIds(List.of(4, 10, 11, 12, 13)));
+        assertEquals("exampleArea", employeeRepository.findSnapshotById(11).orElseThrow().getArea());
+    }
+
+    @Test
+    @DisplayName("If many employees are looked up by id then the ids will be queried in chunks, with their references fetched in the same statements")
+    void ifManyEmployeesAreLookedUpByIdThenTheIdsWillBeQueriedInChunksWithTheirReferencesFetchedInTheSameStatements() {
+        for (int id = 5; id < 9; id++) {
+            Employee otherEmployee = createMockEmployee();
+            otherEmployee.setId(id);
+            testEntityManager.persist(otherEmployee);
+        }
+        testEntityManager.flush();
+        testEntityManager.clear();
+        statistics.clear();
+
+        List<Employee> employees = employeeRepository.findAllWithReferencesByIdIn(List.of(8, 4, 20, 6, 5, 7));
+
+        assertEquals(List.of(4, 5, 6, 7, 8), employees.stream().map(Employee::getId).collect(Collectors.toList()));
+        assertEquals("exampleArea", employees.get(0).getArea().getArea());
+        assertEquals(3, statistics.getPrepareStatementCount());
+        statistics.clear();
+        assertEquals(List.of(4, 5, 6, 7, 8), employeeRepository.findExistingIds(List.of(8, 4, 20, 6, 5, 7)));
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Employees matching every filter set are searched in id order, starting after the id given, with a single statement")
+    void employeesMatchingEveryFilterSetAreSearchedInIdOrderStartingAfterTheIdGiven() {
+        Location location = testEntityManager.find(Location.class, 3);
+        for (int id = 5; id < 10; id++) {
+            Employee otherEmployee = createMockEmployee();
+            otherEmployee.setId(id);
+            otherEmployee.setLocation(location);
+            otherEmployee.setContract(id % 2 == 0);
+            otherEmployee.setEndDate(LocalDateTime.of(2022, Month.JANUARY, id, 0, 0));
+            testEntityManager.persist(otherEmployee);
+        }
+        testEntityManager.flush();
+        testEntityManager.clear();
+        statistics.clear();
+
+        EmployeeSearchCriteria criteria = new EmployeeSearchCriteria();
+        criteria.setLocationId(3);
+        criteria.setContract(false);
+        criteria.setInPlace(true);
+        criteria.setAfterId(4);
+        List<EmployeeSnapshot> snapshots = employeeRepository.search(criteria, 2);
+
+        assertEquals(List.of(5, 7), snapshots.stream().map(EmployeeSnapshot::getId).collect(Collectors.toList()));
+        assertEquals("exampleLocation", snapshots.get(0).getLocation());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+
+        criteria.setAfterId(7);
+        criteria.setEndDateFrom(LocalDateTime.of(2022, Month.JANUARY, 9, 0, 0));
+        assertEquals(List.of(9), employeeRepository.search(criteria, 2).stream()
+                .map(EmployeeSnapshot::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("If no filters are set then every employee is searched")
+    void ifNoFiltersAreSetThenEveryEmployeeIsSearched() {
+        assertEquals(List.of(EmployeeSnapshot.of(employee)), employeeRepository.search(new EmployeeSearchCriteria(), 10));
+    }
+
+    @Test
+    @DisplayName("If no employee matches the id then an empty optional will be returned")
+    void ifNoEmployeeMatchesTheIdThenAnEmptyOptionalWillBeReturned() {
+        assertTrue(employeeRepository.findSnapshotById(99).isEmpty());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
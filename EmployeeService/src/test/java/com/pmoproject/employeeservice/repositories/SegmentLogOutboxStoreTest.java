@@ -0,0 +1,244 @@
+package com.pmoproject.employeeservice.repositories;
+
+import com.pmoproject.employeeservice.models.domain.EmployeeMessageOutboxItem;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentLogOutboxStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private SegmentLogOutboxStore openStore(int segmentSize, long ttl) throws IOException {
+        return new SegmentLogOutboxStore(directory, segmentSize, ttl, 0.5, false);
+    }
+
+    private EmployeeMessageOutboxItem createOutboxItem(String correlationId, LocalDateTime messageCreated) {
+        return new EmployeeMessageOutboxItem(correlationId, "replyQueue", messageCreated,
+                ("{\"correlationId\":\"" + correlationId + "\"}").getBytes(StandardCharsets.UTF_8), "application/json", "UTF-8");
+    }
+
+    private List<EmployeeMessageOutboxItem> createOutboxItems(int count) {
+        return IntStream.rangeClosed(1, count)
+                .mapToObj(index -> createOutboxItem("correlation-" + index, LocalDateTime.now()))
+                .collect(Collectors.toList());
+    }
+
+    private long countSegmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    @Nested
+    @DisplayName("Lookup Tests")
+    class LookupTests {
+
+        @Test
+        @DisplayName("If an outbox item is saved then it can be found by its correlation id with every field intact")
+        void ifAnOutboxItemIsSavedThenItCanBeFoundByItsCorrelationIdWithEveryFieldIntact() throws IOException {
+            SegmentLogOutboxStore outboxStore = openStore(4096, 0);
+            EmployeeMessageOutboxItem outboxItem = createOutboxItem("correlation-1", LocalDateTime.now());
+            outboxItem.setContentEncoding(null);
+            outboxStore.saveAll(List.of(outboxItem));
+
+            Optional<EmployeeMessageOutboxItem> foundItem = outboxStore.findByCorrelationId("correlation-1");
+            assertTrue(foundItem.isPresent());
+            assertEquals(1, foundItem.get().getId());
+            assertEquals(outboxItem.getReplyTo(), foundItem.get().getReplyTo());
+            assertEquals(outboxItem.getMessageCreated(), foundItem.get().getMessageCreated());
+            assertEquals(outboxItem.getContentType(), foundItem.get().getContentType());
+            assertEquals(null, foundItem.get().getContentEncoding());
+            assertArrayEquals(outboxItem.getPayload(), foundItem.get().getPayload());
+        }
+
+        @Test
+        @DisplayName("If correlation ids are passed then only those with an outbox item will be returned")
+        void ifCorrelationIdsArePassedThenOnlyThoseWithAnOutboxItemWillBeReturned() throws IOException {
+            SegmentLogOutboxStore outboxStore = openStore(4096, 0);
+            outboxStore.saveAll(createOutboxItems(2));
+
+            List<EmployeeMessageOutboxItem> foundItems =
+                    outboxStore.findAllByCorrelationIdIn(List.of("correlation-2", "correlation-3"));
+            assertEquals(1, foundItems.size());
+            assertEquals("correlation-2", foundItems.get(0).getCorrelationId());
+        }
+
+        @Test
+        @DisplayName("Relay chunks hold only outbox items created before the time passed and after the id passed, in id order")
+        void relayChunksHoldOnlyOutboxItemsCreatedBeforeTheTimePassedAndAfterTheIdPassed() throws IOException {
+            SegmentLogOutboxStore outboxStore = openStore(4096, 0);
+            LocalDateTime now = LocalDateTime.now();
+            outboxStore.saveAll(List.of(createOutboxItem("correlation-1", now.minusHours(1)),
+                    createOutboxItem("correlation-2", now.minusHours(1)), createOutboxItem("correlation-3", now),
+                    createOutboxItem("correlation-4", now.minusHours(1))));
+
+            List<EmployeeMessageOutboxItem> chunk = outboxStore.findRelayChunk(1, now.minusMinutes(1), 10);
+            assertEquals(List.of(2, 4), chunk.stream().map(EmployeeMessageOutboxItem::getId).collect(Collectors.toList()));
+        }
+    }
+
+    @Nested
+    @DisplayName("Restart Tests")
+    class RestartTests {
+
+        @Test
+        @DisplayName("If the store is reopened then saved outbox items are found and deleted ones are not")
+        void ifTheStoreIsReopenedThenSavedOutboxItemsAreFoundAndDeletedOnesAreNot() throws IOException {
+            SegmentLogOutboxStore outboxStore = openStore(4096, 0);
+            outboxStore.saveAll(createOutboxItems(3));
+            assertEquals(1, outboxStore.deleteAllByCorrelationIdIn(List.of("correlation-2", "correlation-4")));
+            outboxStore.close();
+
+            SegmentLogOutboxStore reopenedStore = openStore(4096, 0);
+            assertTrue(reopenedStore.findByCorrelationId("correlation-1").isPresent());
+            assertTrue(reopenedStore.findByCorrelationId("correlation-2").isEmpty());
+            assertTrue(reopenedStore.findByCorrelationId("correlation-3").isPresent());
+
+            reopenedStore.saveAll(List.of(createOutboxItem("correlation-4", LocalDateTime.now())));
+            assertEquals(4, reopenedStore.findByCorrelationId("correlation-4").orElseThrow().getId());
+        }
+
+        @Test
+        @DisplayName("If the last record was torn by a crash then the store reopens without it and appends over it")
+        void ifTheLastRecordWasTornByACrashThenTheStoreReopensWithoutItAndAppendsOverIt() throws IOException {
+            SegmentLogOutboxStore outboxStore = openStore(4096, 0);
+            outboxStore.saveAll(createOutboxItems(2));
+            outboxStore.close();
+            Path segmentFile;
+            try (Stream<Path> files = Files.list(directory)) {
+                segmentFile = files.findFirst().orElseThrow();
+            }
+            try (RandomAccessFile file = new RandomAccessFile(segmentFile.toFile(), "rw")) {
+                // Corrupts the last byte of the second record's payload, as if it had only been partly written
+                int firstRecordSize = file.readInt();
+                file.seek(8L + firstRecordSize);
+                int secondRecordSize = file.readInt();
+                file.seek(8L + firstRecordSize + 8L + secondRecordSize - 1);
+                file.writeByte(0);
+            }
+
+            SegmentLogOutboxStore reopenedStore = openStore(4096, 0);
+            assertTrue(reopenedStore.findByCorrelationId("correlation-1").isPresent());
+            assertTrue(reopenedStore.findByCorrelationId("correlation-2").isEmpty());
+
+            reopenedStore.saveAll(List.of(createOutboxItem("correlation-3", LocalDateTime.now())));
+            reopenedStore.close();
+            assertTrue(openStore(4096, 0).findByCorrelationId("correlation-3").isPresent());
+        }
+    }
+
+    @Nested
+    @DisplayName("Expiry And Compaction Tests")
+    class ExpiryAndCompactionTests {
+
+        @Test
+        @DisplayName("If an outbox item is older than the ttl then it is expired, and not found again after a restart")
+        void ifAnOutboxItemIsOlderThanTheTtlThenItIsExpiredAndNotFoundAgainAfterARestart() throws IOException {
+            SegmentLogOutboxStore outboxStore = openStore(4096, 60000);
+            outboxStore.saveAll(List.of(createOutboxItem("correlation-1", LocalDateTime.now().minusHours(1)),
+                    createOutboxItem("correlation-2", LocalDateTime.now())));
+
+            assertEquals(1, outboxStore.expireItems());
+            assertTrue(outboxStore.findByCorrelationId("correlation-1").isEmpty());
+            outboxStore.close();
+
+            SegmentLogOutboxStore reopenedStore = openStore(4096, 60000);
+            assertTrue(reopenedStore.findByCorrelationId("correlation-1").isEmpty());
+            assertTrue(reopenedStore.findByCorrelationId("correlation-2").isPresent());
+        }
+
+        @Test
+        @DisplayName("If the oldest segments are mostly dead then their live items are moved and their files deleted")
+        void ifTheOldestSegmentsAreMostlyDeadThenTheirLiveItemsAreMovedAndTheirFilesDeleted() throws IOException {
+            SegmentLogOutboxStore outboxStore = openStore(512, 0);
+            outboxStore.saveAll(createOutboxItems(20));
+            int segmentCount = outboxStore.getSegmentCount();
+            assertTrue(segmentCount > 2);
+            outboxStore.deleteAllByCorrelationIdIn(IntStream.rangeClosed(2, 19)
+                    .mapToObj(index -> "correlation-" + index).collect(Collectors.toList()));
+
+            assertTrue(outboxStore.compactSegments() > 0);
+            assertTrue(outboxStore.getSegmentCount() < segmentCount);
+            assertEquals(outboxStore.getSegmentCount(), countSegmentFiles());
+            assertEquals(1, outboxStore.findByCorrelationId("correlation-1").orElseThrow().getId());
+            outboxStore.close();
+
+            SegmentLogOutboxStore reopenedStore = openStore(512, 0);
+            assertEquals(List.of("correlation-1", "correlation-20"), reopenedStore.findRelayChunk(0, LocalDateTime.now(), 10)
+                    .stream().map(EmployeeMessageOutboxItem::getCorrelationId).collect(Collectors.toList()));
+        }
+
+        @Test
+        @DisplayName("If the oldest segment is mostly live then it is not compacted")
+        void ifTheOldestSegmentIsMostlyLiveThenItIsNotCompacted() throws IOException {
+            SegmentLogOutboxStore outboxStore = openStore(512, 0);
+            outboxStore.saveAll(createOutboxItems(20));
+            int segmentCount = outboxStore.getSegmentCount();
+
+            assertEquals(0, outboxStore.compactSegments());
+            assertEquals(segmentCount, outboxStore.getSegmentCount());
+        }
+
+        @Test
+        @DisplayName("If every item of the oldest segment is live then it is not compacted whatever the threshold below one")
+        void ifEveryItemOfTheOldestSegmentIsLiveThenItIsNotCompactedWhateverTheThresholdBelowOne() throws IOException {
+            SegmentLogOutboxStore outboxStore = new SegmentLogOutboxStore(directory, 512, 0, 0.99, false);
+            outboxStore.saveAll(createOutboxItems(20));
+            int segmentCount = outboxStore.getSegmentCount();
+            assertTrue(segmentCount > 1);
+
+            assertEquals(0, outboxStore.compactSegments());
+            assertEquals(segmentCount, outboxStore.getSegmentCount());
+        }
+    }
+
+    @Nested
+    @DisplayName("Encoding Tests")
+    class EncodingTests {
+
+        @Test
+        @DisplayName("If a string of an outbox item is too long for its length prefix then the batch is rejected and nothing is written")
+        void ifAStringOfAnOutboxItemIsTooLongForItsLengthPrefixThenTheBatchIsRejectedAndNothingIsWritten() throws IOException {
+            SegmentLogOutboxStore outboxStore = openStore(4096, 0);
+            EmployeeMessageOutboxItem outboxItem = createOutboxItem("correlation-2", LocalDateTime.now());
+            outboxItem.setReplyTo("q".repeat(Short.MAX_VALUE + 1));
+
+            assertThrows(IllegalArgumentException.class, () -> outboxStore.saveAll(
+                    List.of(createOutboxItem("correlation-1", LocalDateTime.now()), outboxItem)));
+            assertTrue(outboxStore.findByCorrelationId("correlation-1").isEmpty());
+            outboxStore.saveAll(createOutboxItems(1));
+            assertEquals(1, outboxStore.findByCorrelationId("correlation-1").orElseThrow().getId());
+        }
+
+        @Test
+        @DisplayName("If a string of an outbox item is as long as its length prefix allows then it is read back intact")
+        void ifAStringOfAnOutboxItemIsAsLongAsItsLengthPrefixAllowsThenItIsReadBackIntact() throws IOException {
+            SegmentLogOutboxStore outboxStore = openStore(4096, 0);
+            EmployeeMessageOutboxItem outboxItem = createOutboxItem("correlation-1", LocalDateTime.now());
+            outboxItem.setReplyTo("q".repeat(Short.MAX_VALUE));
+            outboxStore.saveAll(List.of(outboxItem));
+
+            assertEquals(outboxItem.getReplyTo(), outboxStore.findByCorrelationId("correlation-1").orElseThrow().getReplyTo());
+        }
+    }
+}
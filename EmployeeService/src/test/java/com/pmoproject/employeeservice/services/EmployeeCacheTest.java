@@ -0,0 +1,164 @@
+package com.pmoproject.employeeservice.services;
+
+import com.pmoproject.employeeservice.models.domain.Area;
+import com.pmoproject.employeeservice.models.domain.Employee;
+import com.pmoproject.employeeservice.models.domain.EmployeeSnapshot;
+import com.pmoproject.employeeservice.repositories.EmployeeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+
+import static com.pmoproject.employeeservice.MockTestDataUtil.createMockEmployee;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmployeeCacheTest {
+
+    @Mock
+    EmployeeRepository employeeRepository;
+
+    EmployeeCache employeeCache;
+
+    @BeforeEach
+    void setUp() {
+        employeeCache = new EmployeeCache(employeeRepository, true, 100, 60000, 60000);
+    }
+
+    private Employee createMockEmployeeWithArea() {
+        Employee employee = createMockEmployee();
+        employee.setId(1);
+        Area area = new Area();
+        area.setId(2);
+        area.setArea("exampleArea");
+        employee.setArea(area);
+        return employee;
+    }
+
+    @Test
+    @DisplayName("If an employee is read twice then the database will only be queried once")
+    void ifAnEmployeeIsReadTwiceThenTheDatabaseWillOnlyBeQueriedOnce() {
+        when(employeeRepository.findSnapshotById(1)).thenReturn(Optional.of(EmployeeSnapshot.of(createMockEmployeeWithArea())));
+
+        assertEquals(Optional.of(createMockEmployeeWithArea()), employeeCache.findById(1));
+        assertEquals(Optional.of(createMockEmployeeWithArea()), employeeCache.findById(1));
+        verify(employeeRepository, times(1)).findSnapshotById(1);
+        assertEquals(1, employeeCache.getStats().hitCount());
+        assertEquals(1, employeeCache.getStats().missCount());
+    }
+
+    @Test
+    @DisplayName("If a returned employee is changed then the cached employee will not be affected")
+    void ifAReturnedEmployeeIsChangedThenTheCachedEmployeeWillNotBeAffected() {
+        when(employeeRepository.findSnapshotById(1)).thenReturn(Optional.of(EmployeeSnapshot.of(createMockEmployeeWithArea())));
+
+        Employee employee = employeeCache.findById(1).orElseThrow();
+        employee.setName("changedName");
+        employee.getArea().setArea("changedArea");
+
+        assertEquals(createMockEmployeeWithArea(), employeeCache.findById(1).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("If an employee is invalidated then the next read will query the database again")
+    void ifAnEmployeeIsInvalidatedThenTheNextReadWillQueryTheDatabaseAgain() {
+        when(employeeRepository.findSnapshotById(1)).thenReturn(Optional.of(EmployeeSnapshot.of(createMockEmployeeWithArea())));
+
+        employeeCache.findById(1);
+        employeeCache.invalidate(1);
+        employeeCache.findById(1);
+        verify(employeeRepository, times(2)).findSnapshotById(1);
+    }
+
+    @Test
+    @DisplayName("If an employee is not found then its id will be remembered as missing rather than cached")
+    void ifAnEmployeeIsNotFoundThenItsIdWillBeRememberedAsMissingRatherThanCached() {
+        when(employeeRepository.findSnapshotById(1)).thenReturn(Optional.empty());
+
+        assertTrue(employeeCache.findById(1).isEmpty());
+        assertTrue(employeeCache.findById(1).isEmpty());
+        verify(employeeRepository, times(1)).findSnapshotById(1);
+        assertEquals(0, employeeCache.getSize());
+        assertEquals(1, employeeCache.getMissingStats().hitCount());
+    }
+
+    @Test
+    @DisplayName("If a missing employee is created then the next read will query the database again")
+    void ifAMissingEmployeeIsCreatedThenTheNextReadWillQueryTheDatabaseAgain() {
+        when(employeeRepository.findSnapshotById(1)).thenReturn(Optional.empty())
+                .thenReturn(Optional.of(EmployeeSnapshot.of(createMockEmployeeWithArea())));
+
+        assertTrue(employeeCache.findById(1).isEmpty());
+        employeeCache.invalidate(1);
+        assertEquals(Optional.of(createMockEmployeeWithArea()), employeeCache.findById(1));
+        verify(employeeRepository, times(2)).findSnapshotById(1);
+    }
+
+    @Test
+    @DisplayName("If a missing employee is created within a transaction then it will be forgotten again once the transaction completes")
+    void ifAMissingEmployeeIsCreatedWithinATransactionThenItWillBeForgottenAgainOnceTheTransactionCompletes() {
+        when(employeeRepository.findSnapshotById(1)).thenReturn(Optional.empty())
+                .thenReturn(Optional.of(EmployeeSnapshot.of(createMockEmployeeWithArea())));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            employeeCache.invalidate(1);
+            // A read racing the uncommitted write finds nothing, and remembers the id as missing
+            assertTrue(employeeCache.findById(1).isEmpty());
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(Optional.of(createMockEmployeeWithArea()), employeeCache.findById(1));
+    }
+
+    @Test
+    @DisplayName("If a missing employee is invalidated while it is being read then it will not be remembered as missing")
+    void ifAMissingEmployeeIsInvalidatedWhileItIsBeingReadThenItWillNotBeRememberedAsMissing() throws InterruptedException {
+        Thread[] invalidation = new Thread[1];
+        when(employeeRepository.findSnapshotById(1)).thenAnswer(invocation -> {
+            // The write's transaction completes while the read is loading, its invalidation waiting for the load
+            invalidation[0] = new Thread(() -> employeeCache.invalidate(1));
+            invalidation[0].start();
+            while (invalidation[0].getState() != Thread.State.BLOCKED && invalidation[0].isAlive()) {
+                Thread.onSpinWait();
+            }
+            return Optional.empty();
+        }).thenReturn(Optional.of(EmployeeSnapshot.of(createMockEmployeeWithArea())));
+
+        assertTrue(employeeCache.findById(1).isEmpty());
+        invalidation[0].join();
+        assertEquals(Optional.of(createMockEmployeeWithArea()), employeeCache.findById(1));
+        verify(employeeRepository, times(2)).findSnapshotById(1);
+    }
+
+    @Test
+    @DisplayName("If missing ids are not remembered then every read of a missing employee will query the database")
+    void ifMissingIdsAreNotRememberedThenEveryReadOfAMissingEmployeeWillQueryTheDatabase() {
+        employeeCache = new EmployeeCache(employeeRepository, true, 100, 60000, 0);
+        when(employeeRepository.findSnapshotById(1)).thenReturn(Optional.empty());
+
+        assertTrue(employeeCache.findById(1).isEmpty());
+        assertTrue(employeeCache.findById(1).isEmpty());
+        verify(employeeRepository, times(2)).findSnapshotById(1);
+    }
+
+    @Test
+    @DisplayName("If the cache is disabled then every read will query the database")
+    void ifTheCacheIsDisabledThenEveryReadWillQueryTheDatabase() {
+        employeeCache = new EmployeeCache(employeeRepository, false, 100, 60000, 60000);
+        when(employeeRepository.findSnapshotById(1)).thenReturn(Optional.of(EmployeeSnapshot.of(createMockEmployeeWithArea())));
+
+        employeeCache.findById(1);
+        employeeCache.findById(1);
+        verify(employeeRepository, times(2)).findSnapshotById(1);
+    }
+}
@@ -0,0 +1,109 @@
+package com.pmoproject.employeeservice.services;
+
+import com.pmoproject.employeeservice.models.domain.EmployeeMessageOutboxItem;
+import com.pmoproject.employeeservice.models.rabbitmq.RequestType;
+import com.pmoproject.employeeservice.repositories.OutboxStore;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmployeeMessageOutboxServiceTest {
+
+    @Mock
+    OutboxStore outboxStore;
+
+    @Mock
+    OutboxIdempotencyGuard outboxIdempotencyGuard;
+
+    @InjectMocks
+    EmployeeMessageOutboxService employeeMessageOutboxService;
+
+    @Nested
+    @DisplayName("Outbox Batch Lookup Tests")
+    class OutboxBatchLookupTests {
+
+        @Test
+        @DisplayName("If no correlation ids are passed then it will return an empty map without querying the database")
+        void ifNoCorrelationIdsArePassedThenItWillReturnAnEmptyMapWithoutQueryingTheDatabase() {
+            assertEquals(Collections.emptyMap(),
+                    employeeMessageOutboxService.findExistingMessages(Collections.emptyMap(), Collections.emptySet()));
+            verify(outboxStore, never()).findAllByCorrelationIdIn(anyCollection());
+        }
+
+        @Test
+        @DisplayName("If the idempotency guard says no correlation id needs a lookup then the database will not be queried")
+        void ifTheIdempotencyGuardSaysNoCorrelationIdNeedsALookupThenTheDatabaseWillNotBeQueried() {
+            when(outboxIdempotencyGuard.requiresLookup(anyString(), any(), anyBoolean())).thenReturn(false);
+
+            assertEquals(Collections.emptyMap(),
+                    employeeMessageOutboxService.findExistingMessages(Map.of("correlation-1", RequestType.GET_EMPLOYEE_BY_ID), Collections.emptySet()));
+            verify(outboxStore, never()).findAllByCorrelationIdIn(anyCollection());
+        }
+
+        @Test
+        @DisplayName("If only some correlation ids need a lookup then only those will be queried")
+        void ifOnlySomeCorrelationIdsNeedALookupThenOnlyThoseWillBeQueried() {
+            when(outboxIdempotencyGuard.requiresLookup("correlation-1", RequestType.GET_EMPLOYEE_BY_ID, false)).thenReturn(false);
+            when(outboxIdempotencyGuard.requiresLookup("correlation-2", RequestType.CREATE_EMPLOYEE, true)).thenReturn(true);
+
+            employeeMessageOutboxService.findExistingMessages(Map.of("correlation-1", RequestType.GET_EMPLOYEE_BY_ID,
+                    "correlation-2", RequestType.CREATE_EMPLOYEE), List.of("correlation-2"));
+            verify(outboxStore, times(1)).findAllByCorrelationIdIn(List.of("correlation-2"));
+            verify(outboxIdempotencyGuard, times(1)).recordLookupResult("correlation-2", RequestType.CREATE_EMPLOYEE, true, false);
+        }
+
+        @Test
+        @DisplayName("If correlation ids are passed then it will return the matching outbox items keyed by correlation id")
+        void ifCorrelationIdsArePassedThenItWillReturnTheMatchingOutboxItemsKeyedByCorrelationId() {
+            EmployeeMessageOutboxItem outboxItem = new EmployeeMessageOutboxItem("correlation-1", "{}".getBytes(StandardCharsets.UTF_8), MessageProperties.CONTENT_TYPE_JSON, null);
+            when(outboxIdempotencyGuard.requiresLookup(anyString(), any(), anyBoolean())).thenReturn(true);
+            when(outboxStore.findAllByCorrelationIdIn(anyCollection())).thenReturn(List.of(outboxItem));
+
+            assertEquals(Map.of("correlation-1", outboxItem),
+                    employeeMessageOutboxService.findExistingMessages(Map.of("correlation-1", RequestType.GET_EMPLOYEE_BY_ID,
+                            "correlation-2", RequestType.GET_EMPLOYEE_BY_ID), Collections.emptySet()));
+            verify(outboxStore, times(1)).findAllByCorrelationIdIn(anyCollection());
+        }
+    }
+
+    @Nested
+    @DisplayName("Outbox Batch Save Tests")
+    class OutboxBatchSaveTests {
+
+        @Test
+        @DisplayName("If there are no outbox items to save then nothing will be saved")
+        void ifThereAreNoOutboxItemsToSaveThenNothingWillBeSaved() {
+            employeeMessageOutboxService.saveMessages(Collections.emptyList());
+            verify(outboxStore, never()).saveAll(anyList());
+        }
+
+        @Test
+        @DisplayName("If there are outbox items to save then they will all be saved together")
+        void ifThereAreOutboxItemsToSaveThenTheyWillAllBeSavedTogether() {
+            List<EmployeeMessageOutboxItem> outboxItems = List.of(new EmployeeMessageOutboxItem("correlation-1", "{}".getBytes(StandardCharsets.UTF_8), MessageProperties.CONTENT_TYPE_JSON, null),
+                    new EmployeeMessageOutboxItem("correlation-2", "{}".getBytes(StandardCharsets.UTF_8), MessageProperties.CONTENT_TYPE_JSON, null));
+            employeeMessageOutboxService.saveMessages(outboxItems);
+            verify(outboxStore, times(1)).saveAll(outboxItems);
+            verify(outboxIdempotencyGuard, times(1)).recordWritten("correlation-1");
+            verify(outboxIdempotencyGuard, times(1)).recordWritten("correlation-2");
+        }
+    }
+}
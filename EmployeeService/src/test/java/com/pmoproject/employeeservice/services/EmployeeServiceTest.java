@@ -1,6 +1,11 @@
 package com.pmoproject.employeeservice.services;
 
 import com.pmoproject.employeeservice.models.domain.Employee;
+import com.pmoproject.employeeservice.models.domain.EmployeeSnapshot;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeBulkCreateResult;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeBulkCreateResult.RowResult;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeSearchCriteria;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeSearchPage;
 import com.pmoproject.employeeservice.repositories.EmployeeRepository;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -9,14 +14,32 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
 
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static com.pmoproject.employeeservice.MockTestDataUtil.createMockEmployee;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,6 +54,9 @@ class EmployeeServiceTest {
     @Mock
     EmployeeRepository employeeRepository;
 
+    @Mock
+    EmployeeCache employeeCache;
+
     @InjectMocks
     EmployeeService employeeService;
 
@@ -115,6 +141,23 @@ class EmployeeServiceTest {
             assertEquals(exampleContractEmployee,employeeService.createEmployee(exampleContractEmployee));
         }
 
+        @Test
+        @DisplayName("If an employee is saved then its cached entry will be invalidated")
+        void ifAnEmployeeIsSavedThenItsCachedEntryWillBeInvalidated() {
+            Employee exampleEmployee = createMockEmployee();
+            exampleEmployee.setId(5);
+            when(employeeRepository.save(any(Employee.class))).then(i -> i.getArgument(0, Employee.class));
+            employeeService.createEmployee(exampleEmployee);
+            verify(employeeCache, times(1)).invalidate(5);
+        }
+
+        @Test
+        @DisplayName("If an employee is invalid then no cached entry will be invalidated")
+        void ifAnEmployeeIsInvalidThenNoCachedEntryWillBeInvalidated() {
+            assertThrows(IllegalArgumentException.class, () -> employeeService.createEmployee(null));
+            verify(employeeCache, never()).invalidate(anyInt());
+        }
+
     }
 
     @Nested
@@ -123,17 +166,228 @@ class EmployeeServiceTest {
         @Test
         @DisplayName("If a matching id is passed then it will return the matching employee object")
         void ifEmployeeIsMatchedThenItWillReturnTheMatchingEmployeeObject() {
-            when(employeeRepository.findById(anyInt())).thenReturn(Optional.of(createMockEmployee()));
+            when(employeeCache.findSnapshotById(anyInt())).thenReturn(Optional.of(EmployeeSnapshot.of(createMockEmployee())));
             assertEquals(employeeService.getEmployeeById(1), createMockEmployee());
         }
 
         @Test
         @DisplayName("If no employee with a matching id is found it should throw an appropriate exception")
         void ifNoEmployeeWithAMatchingIdIsFoundItShouldThrowAnAppropriateException() {
-            when(employeeRepository.findById(anyInt())).thenReturn(Optional.empty());
+            when(employeeCache.findSnapshotById(anyInt())).thenReturn(Optional.empty());
             Throwable exceptionThatWasThrown = assertThrows(NoSuchElementException.class, () -> employeeService.getEmployeeById(1));
             assertEquals(NO_EMPLOYEE_WITH_ID_FOUND_ERROR_MESSAGE, exceptionThatWasThrown.getMessage());
         }
+
+        @Test
+        @DisplayName("If the same id is looked up concurrently then the lookups will share one lookup and each get their own employee")
+        void ifTheSameIdIsLookedUpConcurrentlyThenTheLookupsWillShareOneLookupAndEachGetTheirOwnEmployee() throws Exception {
+            CountDownLatch lookupStarted = new CountDownLatch(1);
+            CountDownLatch releaseLookup = new CountDownLatch(1);
+            when(employeeCache.findSnapshotById(1)).thenAnswer(invocation -> {
+                lookupStarted.countDown();
+                releaseLookup.await(5, TimeUnit.SECONDS);
+                return Optional.of(EmployeeSnapshot.of(createMockEmployee()));
+            });
+
+            CompletableFuture<Employee> first = CompletableFuture.supplyAsync(() -> employeeService.getEmployeeById(1));
+            lookupStarted.await(5, TimeUnit.SECONDS);
+            CompletableFuture<Employee> second = CompletableFuture.supplyAsync(() -> employeeService.getEmployeeById(1));
+            while (employeeService.getEmployeeLookups().getCoalesced() == 0) {
+                Thread.onSpinWait();
+            }
+            releaseLookup.countDown();
+
+            assertEquals(createMockEmployee(), first.get(5, TimeUnit.SECONDS));
+            assertEquals(createMockEmployee(), second.get(5, TimeUnit.SECONDS));
+            assertNotSame(first.get(), second.get());
+            verify(employeeCache, times(1)).findSnapshotById(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Employee Read by Ids Tests")
+    class EmployeeReadByIdsTests {
+        @Test
+        @DisplayName("If no ids are passed then it will return an empty list without querying the database")
+        void ifNoIdsArePassedThenItWillReturnAnEmptyListWithoutQueryingTheDatabase() {
+            assertEquals(Collections.emptyList(), employeeService.getEmployeesByIds(Collections.emptyList()));
+            verify(employeeRepository, never()).findAllWithReferencesByIdIn(anyCollection());
+        }
+
+        @Test
+        @DisplayName("If ids are passed then it will return the matching employees from a single lookup")
+        void ifIdsArePassedThenItWillReturnTheMatchingEmployeesFromASingleLookup() {
+            when(employeeRepository.findAllWithReferencesByIdIn(anyCollection())).thenReturn(List.of(createMockEmployee()));
+            assertEquals(List.of(createMockEmployee()), employeeService.getEmployeesByIds(List.of(1, 2)));
+            verify(employeeRepository, times(1)).findAllWithReferencesByIdIn(Set.of(1, 2));
+            verify(employeeRepository, never()).findById(anyInt());
+        }
+    }
+
+    @Nested
+    @DisplayName("Employee Bulk Creation Tests")
+    class EmployeeBulkCreationTests {
+        @Test
+        @DisplayName("If no employees are passed then an exception with an appropriate message will be thrown")
+        void ifNoEmployeesArePassedThenAnExceptionWithAnAppropriateMessageWillBeThrown() {
+            Throwable exceptionThatWasThrown = assertThrows(IllegalArgumentException.class,
+                    () -> employeeService.createEmployees(Collections.emptyList()));
+            assertEquals("At least one employee must be provided", exceptionThatWasThrown.getMessage());
+            verify(employeeRepository, never()).insertAll(any());
+        }
+
+        @Test
+        @DisplayName("Only valid employees with new ids are inserted, and every employee's outcome is reported in request order")
+        void onlyValidEmployeesWithNewIdsAreInsertedAndEveryEmployeesOutcomeIsReported() {
+            Employee newEmployee = createMockEmployee();
+            newEmployee.setId(1);
+            Employee archivedEmployee = createMockEmployee();
+            archivedEmployee.setId(2);
+            archivedEmployee.setArchived(true);
+            Employee existingEmployee = createMockEmployee();
+            existingEmployee.setId(3);
+            Employee duplicateOfNewEmployee = createMockEmployee();
+            duplicateOfNewEmployee.setId(1);
+            when(employeeRepository.findExistingIds(anyCollection())).thenReturn(List.of(3));
+
+            EmployeeBulkCreateResult result = employeeService.createEmployees(
+                    Arrays.asList(newEmployee, archivedEmployee, existingEmployee, duplicateOfNewEmployee, null));
+
+            assertEquals(List.of(
+                    new RowResult(0, 1, true, null),
+                    new RowResult(1, 2, false, ARCHIVED_EMPLOYEE_CREATION_ERROR_MESSAGE),
+                    new RowResult(2, 3, false, "An employee with id [3] already exists"),
+                    new RowResult(3, 1, false, "Employee id [1] appears more than once in the request"),
+                    new RowResult(4, null, false, NULL_EMPLOYEE_CREATION_ERROR_MESSAGE)), result.getRows());
+            assertEquals(1, result.getCreatedCount());
+            assertEquals(4, result.getFailedCount());
+            verify(employeeRepository).findExistingIds(Set.of(1, 3));
+            verify(employeeRepository).insertAll(List.of(newEmployee));
+            verify(employeeCache).invalidate(1);
+            verify(employeeRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("If an employee is created concurrently after the ids were checked then a transient exception will be thrown so that the request is retried")
+        void ifAnEmployeeIsCreatedConcurrentlyAfterTheIdsWereCheckedThenATransientExceptionWillBeThrown() {
+            Employee newEmployee = createMockEmployee();
+            newEmployee.setId(1);
+            when(employeeRepository.findExistingIds(anyCollection())).thenReturn(Collections.emptyList());
+            doThrow(new DataIntegrityViolationException("Duplicate entry '1' for key 'PRIMARY'"))
+                    .when(employeeRepository).insertAll(List.of(newEmployee));
+
+            assertThrows(ConcurrencyFailureException.class, () -> employeeService.createEmployees(List.of(newEmployee)));
+            verify(employeeCache, never()).invalidate(anyInt());
+        }
+    }
+
+    @Nested
+    @DisplayName("Employee Search Tests")
+    class EmployeeSearchTests {
+        @Test
+        @DisplayName("If the page size is out of range then an exception with an appropriate message will be thrown")
+        void ifThePageSizeIsOutOfRangeThenAnExceptionWithAnAppropriateMessageWillBeThrown() {
+            EmployeeSearchCriteria criteria = new EmployeeSearchCriteria();
+            criteria.setPageSize(EmployeeService.MAX_SEARCH_PAGE_SIZE + 1);
+
+            Throwable exceptionThatWasThrown = assertThrows(IllegalArgumentException.class,
+                    () -> employeeService.searchEmployees(criteria));
+            assertEquals("The page size must be between 1 and 1000", exceptionThatWasThrown.getMessage());
+            verify(employeeRepository, never()).search(any(), anyInt());
+        }
+
+        @Test
+        @DisplayName("If a date range starts after it ends then an exception with an appropriate message will be thrown")
+        void ifADateRangeStartsAfterItEndsThenAnExceptionWithAnAppropriateMessageWillBeThrown() {
+            EmployeeSearchCriteria criteria = new EmployeeSearchCriteria();
+            criteria.setStartDateFrom(LocalDateTime.of(2022, Month.JANUARY, 2, 0, 0));
+            criteria.setStartDateTo(LocalDateTime.of(2022, Month.JANUARY, 1, 0, 0));
+
+            Throwable exceptionThatWasThrown = assertThrows(IllegalArgumentException.class,
+                    () -> employeeService.searchEmployees(criteria));
+            assertEquals("The start date range must not start after it ends", exceptionThatWasThrown.getMessage());
+        }
+
+        @Test
+        @DisplayName("If more employees match than fit in the page then the page will give the id to continue after")
+        void ifMoreEmployeesMatchThanFitInThePageThenThePageWillGiveTheIdToContinueAfter() {
+            EmployeeSearchCriteria criteria = new EmployeeSearchCriteria();
+            criteria.setPageSize(2);
+            when(employeeRepository.search(criteria, 3)).thenReturn(Stream.of(1, 2, 3)
+                    .map(EmployeeServiceTest.this::createMockSnapshot).collect(Collectors.toList()));
+
+            EmployeeSearchPage page = employeeService.searchEmployees(criteria);
+
+            assertEquals(List.of(1, 2), page.getEmployees().stream().map(Employee::getId).collect(Collectors.toList()));
+            assertEquals(2, page.getNextAfterId());
+        }
+
+        @Test
+        @DisplayName("If every matching employee fits in the page then the page will be the last, using the default page size if none is given")
+        void ifEveryMatchingEmployeeFitsInThePageThenThePageWillBeTheLast() {
+            EmployeeSearchCriteria criteria = new EmployeeSearchCriteria();
+            when(employeeRepository.search(criteria, EmployeeService.DEFAULT_SEARCH_PAGE_SIZE + 1))
+                    .thenReturn(List.of(createMockSnapshot(1)));
+
+            EmployeeSearchPage page = employeeService.searchEmployees(criteria);
+
+            assertEquals(1, page.getEmployees().size());
+            assertNull(page.getNextAfterId());
+        }
+    }
+
+    EmployeeSnapshot createMockSnapshot(int id) {
+        Employee employee = createMockEmployee();
+        employee.setId(id);
+        return EmployeeSnapshot.of(employee);
+    }
+
+    @Nested
+    @DisplayName("Employee Export Tests")
+    class EmployeeExportTests {
+        @Test
+        @DisplayName("Every employee is handed over in order in chunks of at most the chunk size, each read after the last id of the one before")
+        void everyEmployeeIsHandedOverInOrderInChunksOfAtMostTheChunkSize() {
+            List<Integer> afterIds = new ArrayList<>();
+            when(employeeRepository.search(any(), eq(3))).thenAnswer(invocation -> {
+                Integer afterId = invocation.<EmployeeSearchCriteria>getArgument(0).getAfterId();
+                afterIds.add(afterId);
+                int from = afterId == null ? 1 : afterId + 1;
+                return IntStream.rangeClosed(from, Math.min(from + 2, 7)).mapToObj(EmployeeServiceTest.this::createMockSnapshot)
+                        .collect(Collectors.toList());
+            });
+            List<List<Integer>> chunks = new ArrayList<>();
+
+            long exported = employeeService.exportEmployees(3, chunk ->
+                    chunks.add(chunk.stream().map(Employee::getId).collect(Collectors.toList())));
+
+            assertEquals(7, exported);
+            assertEquals(List.of(List.of(1, 2, 3), List.of(4, 5, 6), List.of(7)), chunks);
+            assertEquals(Arrays.asList(null, 3, 6), afterIds);
+        }
+
+        @Test
+        @DisplayName("If the employees fill the last chunk exactly then one more chunk is read to find there are no more")
+        void ifTheEmployeesFillTheLastChunkExactlyThenOneMoreChunkIsRead() {
+            when(employeeRepository.search(any(), eq(2)))
+                    .thenReturn(List.of(createMockSnapshot(1), createMockSnapshot(2)))
+                    .thenReturn(List.of());
+            List<List<Employee>> chunks = new ArrayList<>();
+
+            assertEquals(2, employeeService.exportEmployees(2, chunks::add));
+            assertEquals(1, chunks.size());
+            verify(employeeRepository, times(2)).search(any(), eq(2));
+        }
+
+        @Test
+        @DisplayName("If there are no employees then no chunks are handed over")
+        void ifThereAreNoEmployeesThenNoChunksAreHandedOver() {
+            when(employeeRepository.search(any(), eq(3))).thenReturn(List.of());
+            List<List<Employee>> chunks = new ArrayList<>();
+
+            assertEquals(0, employeeService.exportEmployees(3, chunks::add));
+            assertEquals(Collections.emptyList(), chunks);
+        }
     }
 
 }
\ No newline at end of file
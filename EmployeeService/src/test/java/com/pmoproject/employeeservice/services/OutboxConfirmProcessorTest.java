@@ -0,0 +1,64 @@
+package com.pmoproject.employeeservice.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxConfirmProcessorTest {
+
+    @Mock
+    EmployeeMessageOutboxService employeeMessageOutboxService;
+
+    OutboxConfirmProcessor outboxConfirmProcessor;
+
+    @BeforeEach
+    void setUp() {
+        outboxConfirmProcessor = new OutboxConfirmProcessor(employeeMessageOutboxService, 3, 50, 100);
+        outboxConfirmProcessor.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxConfirmProcessor.stop();
+    }
+
+    @Test
+    @DisplayName("If a full batch of replies is acked then their outbox items will be removed with a single call")
+    void ifAFullBatchOfRepliesIsAckedThenTheirOutboxItemsWillBeRemovedWithASingleCall() {
+        outboxConfirmProcessor.acknowledged("correlation-1");
+        outboxConfirmProcessor.acknowledged("correlation-2");
+        outboxConfirmProcessor.acknowledged("correlation-3");
+
+        verify(employeeMessageOutboxService, timeout(1000).times(1))
+                .removeMessages(List.of("correlation-1", "correlation-2", "correlation-3"));
+    }
+
+    @Test
+    @DisplayName("If fewer replies than a batch are acked then their outbox items will be removed once the flush interval passes")
+    void ifFewerRepliesThanABatchAreAckedThenTheirOutboxItemsWillBeRemovedOnceTheFlushIntervalPasses() {
+        outboxConfirmProcessor.acknowledged("correlation-1");
+
+        verify(employeeMessageOutboxService, timeout(1000).times(1)).removeMessages(List.of("correlation-1"));
+    }
+
+    @Test
+    @DisplayName("If a reply is nacked then its outbox item will be kept")
+    void ifAReplyIsNackedThenItsOutboxItemWillBeKept() throws InterruptedException {
+        outboxConfirmProcessor.rejected("correlation-1", "reason");
+        Thread.sleep(200);
+
+        verify(employeeMessageOutboxService, never()).removeMessages(anyCollection());
+        assertEquals(1, outboxConfirmProcessor.getRejected());
+    }
+}
@@ -0,0 +1,132 @@
+package com.pmoproject.employeeservice.services;
+
+import com.pmoproject.employeeservice.models.domain.OutboxCorrelationId;
+import com.pmoproject.employeeservice.models.rabbitmq.RequestType;
+import com.pmoproject.employeeservice.repositories.OutboxStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxIdempotencyGuardTest {
+
+    @Mock
+    OutboxStore outboxStore;
+
+    OutboxIdempotencyGuard outboxIdempotencyGuard;
+
+    @BeforeEach
+    void setUp() {
+        outboxIdempotencyGuard = new OutboxIdempotencyGuard(outboxStore, true, 1000, 0.01, 2, 0);
+    }
+
+    @Nested
+    @DisplayName("Fallback Tests")
+    class FallbackTests {
+
+        @Test
+        @DisplayName("If the guard has not been seeded then every message will be looked up")
+        void ifTheGuardHasNotBeenSeededThenEveryMessageWillBeLookedUp() {
+            assertTrue(outboxIdempotencyGuard.requiresLookup(UUID.randomUUID().toString(), RequestType.GET_EMPLOYEE_BY_ID, false));
+            assertEquals(1, outboxIdempotencyGuard.getFallbackLookups());
+        }
+
+        @Test
+        @DisplayName("If a message was redelivered then it will be looked up even if this node never wrote it")
+        void ifAMessageWasRedeliveredThenItWillBeLookedUp() {
+            when(outboxStore.findCorrelationIdChunk(0, 2)).thenReturn(List.of());
+            outboxIdempotencyGuard.seedFromOutbox();
+
+            assertTrue(outboxIdempotencyGuard.requiresLookup(UUID.randomUUID().toString(), RequestType.GET_EMPLOYEE_BY_ID, true));
+        }
+
+        @Test
+        @DisplayName("If a correlation id was already in the outbox at start-up then it will be looked up, whichever chunk it was seeded from")
+        void ifACorrelationIdWasAlreadyInTheOutboxAtStartUpThenItWillBeLookedUp() {
+            when(outboxStore.findCorrelationIdChunk(0, 2)).thenReturn(List.of(new OutboxCorrelationId(1, "correlation-1"),
+                    new OutboxCorrelationId(4, "correlation-4")));
+            when(outboxStore.findCorrelationIdChunk(4, 2)).thenReturn(List.of(new OutboxCorrelationId(7, "correlation-7")));
+            outboxIdempotencyGuard.seedFromOutbox();
+
+            assertTrue(outboxIdempotencyGuard.requiresLookup("correlation-1", RequestType.GET_EMPLOYEE_BY_ID, false));
+            assertTrue(outboxIdempotencyGuard.requiresLookup("correlation-4", RequestType.GET_EMPLOYEE_BY_ID, false));
+            assertTrue(outboxIdempotencyGuard.requiresLookup("correlation-7", RequestType.GET_EMPLOYEE_BY_ID, false));
+            assertEquals(0, outboxIdempotencyGuard.getFallbackLookups());
+        }
+
+        @Test
+        @DisplayName("If a request writes employees or its type is unknown then it will be looked up even if this node never wrote it")
+        void ifARequestWritesEmployeesOrItsTypeIsUnknownThenItWillBeLookedUpEvenIfThisNodeNeverWroteIt() {
+            when(outboxStore.findCorrelationIdChunk(0, 2)).thenReturn(List.of());
+            outboxIdempotencyGuard.seedFromOutbox();
+
+            assertTrue(outboxIdempotencyGuard.requiresLookup(UUID.randomUUID().toString(), RequestType.CREATE_EMPLOYEE, false));
+            assertTrue(outboxIdempotencyGuard.requiresLookup(UUID.randomUUID().toString(), RequestType.BULK_CREATE_EMPLOYEES, false));
+            assertTrue(outboxIdempotencyGuard.requiresLookup(UUID.randomUUID().toString(), null, false));
+            assertEquals(3, outboxIdempotencyGuard.getFallbackLookups());
+        }
+
+        @Test
+        @DisplayName("If another node wrote the outbox item of a write request after start-up then this node will still look it up")
+        void ifAnotherNodeWroteTheOutboxItemOfAWriteRequestAfterStartUpThenThisNodeWillStillLookItUp() {
+            when(outboxStore.findCorrelationIdChunk(0, 2)).thenReturn(List.of());
+            OutboxIdempotencyGuard otherNodeGuard = new OutboxIdempotencyGuard(outboxStore, true, 1000, 0.01, 2, 0);
+            otherNodeGuard.seedFromOutbox();
+            outboxIdempotencyGuard.seedFromOutbox();
+
+            otherNodeGuard.recordWritten("correlation-1");
+
+            assertTrue(otherNodeGuard.requiresLookup("correlation-1", RequestType.CREATE_EMPLOYEE, false));
+            assertTrue(outboxIdempotencyGuard.requiresLookup("correlation-1", RequestType.CREATE_EMPLOYEE, false));
+            outboxIdempotencyGuard.recordLookupResult("correlation-1", RequestType.CREATE_EMPLOYEE, false, true);
+            assertEquals(0, outboxIdempotencyGuard.getFalsePositives());
+        }
+    }
+
+    @Nested
+    @DisplayName("Filter Tests")
+    class FilterTests {
+
+        @BeforeEach
+        void seed() {
+            when(outboxStore.findCorrelationIdChunk(0, 2)).thenReturn(List.of());
+            outboxIdempotencyGuard.seedFromOutbox();
+        }
+
+        @Test
+        @DisplayName("If a correlation id was written by this node then it will always be looked up")
+        void ifACorrelationIdWasWrittenByThisNodeThenItWillAlwaysBeLookedUp() {
+            for (int i = 0; i < 5000; i++) {
+                String correlationId = UUID.randomUUID().toString();
+                outboxIdempotencyGuard.recordWritten(correlationId);
+                assertTrue(outboxIdempotencyGuard.requiresLookup(correlationId, RequestType.GET_EMPLOYEE_BY_ID, false));
+            }
+        }
+
+        @Test
+        @DisplayName("If correlation ids were never written then almost all of their lookups will be skipped")
+        void ifCorrelationIdsWereNeverWrittenThenAlmostAllOfTheirLookupsWillBeSkipped() {
+            for (int i = 0; i < 1000; i++) {
+                outboxIdempotencyGuard.recordWritten(UUID.randomUUID().toString());
+            }
+            for (int i = 0; i < 1000; i++) {
+                String correlationId = UUID.randomUUID().toString();
+                if (outboxIdempotencyGuard.requiresLookup(correlationId, RequestType.GET_EMPLOYEE_BY_ID, false)) {
+                    outboxIdempotencyGuard.recordLookupResult(correlationId, RequestType.GET_EMPLOYEE_BY_ID, false, false);
+                }
+            }
+            assertTrue(outboxIdempotencyGuard.getSkipRate() > 0.95);
+            assertEquals(outboxIdempotencyGuard.getFilteredLookups(), outboxIdempotencyGuard.getFalsePositives());
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.pmoproject.employeeservice.services;
+
+import com.pmoproject.employeeservice.listener.ReplyPublisher;
+import com.pmoproject.employeeservice.metrics.EmployeeServiceMetrics;
+import com.pmoproject.employeeservice.models.domain.EmployeeMessageOutboxItem;
+import com.pmoproject.employeeservice.models.rabbitmq.ReplyPayload;
+import com.pmoproject.employeeservice.util.WireFormat;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    EmployeeMessageOutboxService employeeMessageOutboxService;
+
+    @Mock
+    RabbitTemplate rabbitTemplate;
+
+    @Mock
+    EmployeeServiceMetrics employeeServiceMetrics;
+
+    private OutboxRelay createOutboxRelay(int chunkSize, int maxInFlight) {
+        return createOutboxRelay(chunkSize, maxInFlight, new ReplyPublisher(rabbitTemplate, employeeServiceMetrics, 0, 1000));
+    }
+
+    private OutboxRelay createOutboxRelay(int chunkSize, int maxInFlight, ReplyPublisher replyPublisher) {
+        return new OutboxRelay(employeeMessageOutboxService, replyPublisher, true, 60000, chunkSize, maxInFlight, 0, 10);
+    }
+
+    private EmployeeMessageOutboxItem createOutboxItem(int id) {
+        EmployeeMessageOutboxItem outboxItem = new EmployeeMessageOutboxItem("correlation-" + id, "replyQueue",
+                LocalDateTime.now().minusHours(1), "{}".getBytes(StandardCharsets.UTF_8), WireFormat.SMILE.getContentType(), "lz4");
+        outboxItem.setId(id);
+        return outboxItem;
+    }
+
+    private void mockPayloads() {
+        when(employeeMessageOutboxService.getMessagePayload(any())).thenReturn(
+                new ReplyPayload("{}".getBytes(StandardCharsets.UTF_8), WireFormat.SMILE.getContentType(), "lz4"));
+        when(employeeMessageOutboxService.claimForRelay(anyList(), anyString(), any(), any()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    @DisplayName("If there are unconfirmed outbox items then they will be re-published to their reply-to queues with their correlation ids")
+    void ifThereAreUnconfirmedOutboxItemsThenTheyWillBeRePublishedToTheirReplyToQueuesWithTheirCorrelationIds() {
+        mockPayloads();
+        when(employeeMessageOutboxService.findRelayCandidates(eq(0), any(), eq(10))).thenReturn(List.of(createOutboxItem(1)));
+
+        assertEquals(1, createOutboxRelay(10, 10).relayUnconfirmedReplies());
+
+        ArgumentCaptor<Message> message = ArgumentCaptor.forClass(Message.class);
+        ArgumentCaptor<CorrelationData> correlationData = ArgumentCaptor.forClass(CorrelationData.class);
+        verify(rabbitTemplate, times(1)).send(eq(""), eq("replyQueue"), message.capture(), correlationData.capture());
+        assertEquals("correlation-1", message.getValue().getMessageProperties().getCorrelationId());
+        assertEquals("correlation-1", correlationData.getValue().getId());
+        assertEquals(WireFormat.SMILE.getContentType(), message.getValue().getMessageProperties().getContentType());
+        assertEquals("lz4", message.getValue().getMessageProperties().getContentEncoding());
+    }
+
+    @Test
+    @DisplayName("If a chunk is full then the next chunk will be read after the last id of the previous chunk")
+    void ifAChunkIsFullThenTheNextChunkWillBeReadAfterTheLastIdOfThePreviousChunk() {
+        mockPayloads();
+        when(employeeMessageOutboxService.findRelayCandidates(eq(0), any(), eq(2)))
+                .thenReturn(List.of(createOutboxItem(3), createOutboxItem(7)));
+        when(employeeMessageOutboxService.findRelayCandidates(eq(7), any(), eq(2))).thenReturn(List.of(createOutboxItem(9)));
+
+        assertEquals(3, createOutboxRelay(2, 10).relayUnconfirmedReplies());
+        verify(employeeMessageOutboxService, times(2)).findRelayCandidates(anyInt(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("If the maximum number of replies are awaiting a confirm then the run will end without publishing more")
+    void ifTheMaximumNumberOfRepliesAreAwaitingAConfirmThenTheRunWillEndWithoutPublishingMore() {
+        mockPayloads();
+        when(employeeMessageOutboxService.findRelayCandidates(eq(0), any(), eq(10)))
+                .thenReturn(List.of(createOutboxItem(1), createOutboxItem(2), createOutboxItem(3)));
+
+        assertEquals(2, createOutboxRelay(10, 2).relayUnconfirmedReplies());
+        verify(rabbitTemplate, times(2)).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+    }
+
+    @Test
+    @DisplayName("If re-published replies are confirmed then their slots will be freed for further replies")
+    void ifRePublishedRepliesAreConfirmedThenTheirSlotsWillBeFreedForFurtherReplies() {
+        mockPayloads();
+        when(employeeMessageOutboxService.findRelayCandidates(eq(0), any(), eq(10)))
+                .thenReturn(List.of(createOutboxItem(1), createOutboxItem(2), createOutboxItem(3)));
+        doAnswer(invocation -> {
+            invocation.getArgument(3, CorrelationData.class).getFuture().set(new CorrelationData.Confirm(true, null));
+            return null;
+        }).when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+
+        OutboxRelay outboxRelay = createOutboxRelay(10, 1);
+
+        assertEquals(3, outboxRelay.relayUnconfirmedReplies());
+        assertEquals(0, outboxRelay.getInFlight());
+    }
+
+    @Test
+    @DisplayName("If a reply is still awaiting a confirm from a previous run then it will not be re-published again")
+    void ifAReplyIsStillAwaitingAConfirmFromAPreviousRunThenItWillNotBeRePublishedAgain() {
+        mockPayloads();
+        when(employeeMessageOutboxService.findRelayCandidates(eq(0), any(), eq(10))).thenReturn(List.of(createOutboxItem(1)));
+
+        OutboxRelay outboxRelay = createOutboxRelay(10, 10);
+        outboxRelay.relayUnconfirmedReplies();
+
+        assertEquals(0, outboxRelay.relayUnconfirmedReplies());
+        verify(rabbitTemplate, times(1)).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+    }
+
+    @Test
+    @DisplayName("If publishing fails then the run will end and the reply's slot will be freed")
+    void ifPublishingFailsThenTheRunWillEndAndTheRepliesSlotWillBeFreed() {
+        mockPayloads();
+        when(employeeMessageOutboxService.findRelayCandidates(eq(0), any(), eq(10)))
+                .thenReturn(List.of(createOutboxItem(1), createOutboxItem(2)));
+        doThrow(new AmqpConnectException(new RuntimeException("connection refused")))
+                .when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+
+        OutboxRelay outboxRelay = createOutboxRelay(10, 10);
+
+        assertEquals(0, outboxRelay.relayUnconfirmedReplies());
+        assertEquals(0, outboxRelay.getInFlight());
+        verify(rabbitTemplate, times(1)).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+    }
+
+    @Test
+    @DisplayName("If the window shared with the listener is full then the run will end without publishing")
+    void ifTheWindowSharedWithTheListenerIsFullThenTheRunWillEndWithoutPublishing() {
+        mockPayloads();
+        when(employeeMessageOutboxService.findRelayCandidates(eq(0), any(), eq(10))).thenReturn(List.of(createOutboxItem(1)));
+        ReplyPublisher replyPublisher = new ReplyPublisher(rabbitTemplate, employeeServiceMetrics, 1, 50);
+        replyPublisher.publish("replyQueue", new Message(new byte[0]), new CorrelationData("listener-reply"));
+
+        OutboxRelay outboxRelay = createOutboxRelay(10, 10, replyPublisher);
+
+        assertEquals(0, outboxRelay.relayUnconfirmedReplies());
+        assertEquals(0, outboxRelay.getInFlight());
+        verify(rabbitTemplate, times(1)).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+    }
+
+    @Test
+    @DisplayName("If two relays find the same outbox items then each reply will only be re-published by the relay that claimed it")
+    void ifTwoRelaysFindTheSameOutboxItemsThenEachReplyWillOnlyBeRePublishedByTheRelayThatClaimedIt() {
+        Map<Integer, String> claims = new ConcurrentHashMap<>();
+        when(employeeMessageOutboxService.getMessagePayload(any())).thenReturn(
+                new ReplyPayload("{}".getBytes(StandardCharsets.UTF_8), WireFormat.SMILE.getContentType(), "lz4"));
+        when(employeeMessageOutboxService.claimForRelay(anyList(), anyString(), any(), any())).thenAnswer(invocation -> {
+            List<EmployeeMessageOutboxItem> outboxItems = invocation.getArgument(0);
+            return outboxItems.stream()
+                    .filter(outboxItem -> claims.putIfAbsent(outboxItem.getId(), invocation.getArgument(1)) == null)
+                    .collect(Collectors.toList());
+        });
+        when(employeeMessageOutboxService.findRelayCandidates(eq(0), any(), eq(10)))
+                .thenReturn(List.of(createOutboxItem(1), createOutboxItem(2)));
+
+        OutboxRelay firstOutboxRelay = createOutboxRelay(10, 10);
+        OutboxRelay secondOutboxRelay = createOutboxRelay(10, 10);
+
+        assertEquals(2, firstOutboxRelay.relayUnconfirmedReplies() + secondOutboxRelay.relayUnconfirmedReplies());
+        ArgumentCaptor<Message> message = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate, times(2)).send(anyString(), anyString(), message.capture(), any(CorrelationData.class));
+        assertEquals(List.of("correlation-1", "correlation-2"), message.getAllValues().stream()
+                .map(published -> published.getMessageProperties().getCorrelationId()).collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("If the relay is disabled then the outbox will not be scanned")
+    void ifTheRelayIsDisabledThenTheOutboxWillNotBeScanned() {
+        new OutboxRelay(employeeMessageOutboxService,
+                new ReplyPublisher(rabbitTemplate, employeeServiceMetrics, 0, 1000), false, 60000, 10, 10, 0, 10).relayScheduled();
+        verify(employeeMessageOutboxService, never()).findRelayCandidates(anyInt(), any(), anyInt());
+        verifyNoInteractions(rabbitTemplate);
+    }
+
+    @Test
+    @DisplayName("If there are no unconfirmed outbox items then nothing will be published")
+    void ifThereAreNoUnconfirmedOutboxItemsThenNothingWillBePublished() {
+        when(employeeMessageOutboxService.findRelayCandidates(eq(0), any(), eq(10))).thenReturn(Collections.emptyList());
+
+        assertEquals(0, createOutboxRelay(10, 10).relayUnconfirmedReplies());
+        verifyNoInteractions(rabbitTemplate);
+    }
+}
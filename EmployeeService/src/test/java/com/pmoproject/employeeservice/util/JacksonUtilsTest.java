@@ -0,0 +1,63 @@
+package com.pmoproject.employeeservice.util;
+
+import com.pmoproject.employeeservice.models.domain.Employee;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeServiceResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.Month;
+
+import static com.pmoproject.employeeservice.MockTestDataUtil.createMockEmployee;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class JacksonUtilsTest {
+
+    @Nested
+    @DisplayName("Reader and Writer Caching Tests")
+    class ReaderAndWriterCachingTests {
+
+        @Test
+        @DisplayName("If a reader is requested twice for the same type then the same instance will be returned")
+        void ifAReaderIsRequestedTwiceForTheSameTypeThenTheSameInstanceWillBeReturned() {
+            assertSame(JacksonUtils.readerFor(Employee.class), JacksonUtils.readerFor(Employee.class));
+        }
+
+        @Test
+        @DisplayName("If a writer is requested twice for the same type then the same instance will be returned")
+        void ifAWriterIsRequestedTwiceForTheSameTypeThenTheSameInstanceWillBeReturned() {
+            assertSame(JacksonUtils.writerFor(Employee.class), JacksonUtils.writerFor(Employee.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("Conversion Tests")
+    class ConversionTests {
+
+        @Test
+        @DisplayName("If an employee with an end-date is serialized to bytes then it can be deserialized back unchanged")
+        void ifAnEmployeeWithAnEndDateIsSerializedToBytesThenItCanBeDeserializedBackUnchanged() throws IOException {
+            Employee employee = createMockEmployee();
+            employee.setContract(true);
+            employee.setEndDate(LocalDateTime.of(2022, Month.APRIL, 8, 12, 30));
+
+            byte[] json = JacksonUtils.convertObjectToJsonBytes(employee);
+
+            assertEquals(employee, JacksonUtils.convertJsonToObject(json, Employee.class));
+        }
+
+        @Test
+        @DisplayName("If a response is serialized to bytes then it is encoded once as a JSON object rather than as a JSON string")
+        void ifAResponseIsSerializedToBytesThenItIsEncodedOnceAsAJsonObject() throws IOException {
+            EmployeeServiceResponse response = new EmployeeServiceResponse(false, "error", null);
+
+            byte[] json = JacksonUtils.convertObjectToJsonBytes(response);
+
+            assertEquals('{', json[0]);
+            assertEquals(response, JacksonUtils.convertJsonToObject(json, EmployeeServiceResponse.class));
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.pmoproject.employeeservice.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SingleFlightTest {
+
+    private final SingleFlight<Integer, String> singleFlight = new SingleFlight<>();
+
+    /**
+     * Starts a second caller for key 1 once the first caller's load has started, returning once it is waiting on that load
+     */
+    private CompletableFuture<String> startCoalescedCaller(AtomicInteger loads, CountDownLatch loadStarted)
+            throws InterruptedException {
+        loadStarted.await(5, TimeUnit.SECONDS);
+        CompletableFuture<String> secondCaller = CompletableFuture.supplyAsync(() -> singleFlight.execute(1, () -> {
+            loads.incrementAndGet();
+            return "second";
+        }));
+        while (singleFlight.getCoalesced() == 0) {
+            Thread.onSpinWait();
+        }
+        return secondCaller;
+    }
+
+    @Test
+    @DisplayName("If a key is loaded concurrently then every caller will be handed the result of a single load")
+    void ifAKeyIsLoadedConcurrentlyThenEveryCallerWillBeHandedTheResultOfASingleLoad() throws Exception {
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<String> firstCaller = CompletableFuture.supplyAsync(() -> singleFlight.execute(1, () -> {
+            loads.incrementAndGet();
+            loadStarted.countDown();
+            await(releaseLoad);
+            return "first";
+        }));
+        CompletableFuture<String> secondCaller = startCoalescedCaller(loads, loadStarted);
+
+        releaseLoad.countDown();
+        assertEquals("first", firstCaller.get(5, TimeUnit.SECONDS));
+        assertEquals("first", secondCaller.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+        assertEquals(1, singleFlight.getExecuted());
+        assertEquals(0.5, singleFlight.getCoalesceRate());
+    }
+
+    @Test
+    @DisplayName("If a load fails then its exception will be thrown to every caller waiting on it")
+    void ifALoadFailsThenItsExceptionWillBeThrownToEveryCallerWaitingOnIt() throws Exception {
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        QueryTimeoutException failure = new QueryTimeoutException("Query timed out");
+        CompletableFuture<String> firstCaller = CompletableFuture.supplyAsync(() -> singleFlight.execute(1, () -> {
+            loads.incrementAndGet();
+            loadStarted.countDown();
+            await(releaseLoad);
+            throw failure;
+        }));
+        CompletableFuture<String> secondCaller = startCoalescedCaller(loads, loadStarted);
+
+        releaseLoad.countDown();
+        assertSame(failure, assertThrows(ExecutionException.class, () -> firstCaller.get(5, TimeUnit.SECONDS)).getCause());
+        assertSame(failure, assertThrows(ExecutionException.class, () -> secondCaller.get(5, TimeUnit.SECONDS)).getCause());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    @DisplayName("If a load has finished then the next caller will run a new load rather than be handed its result")
+    void ifALoadHasFinishedThenTheNextCallerWillRunANewLoadRatherThanBeHandedItsResult() {
+        assertThrows(QueryTimeoutException.class, () -> singleFlight.execute(1, () -> {
+            throw new QueryTimeoutException("Query timed out");
+        }));
+
+        assertEquals("first", singleFlight.execute(1, () -> "first"));
+        assertEquals("second", singleFlight.execute(1, () -> "second"));
+        assertEquals(3, singleFlight.getExecuted());
+        assertEquals(0, singleFlight.getCoalesced());
+    }
+
+    @Test
+    @DisplayName("If different keys are loaded concurrently then each will run its own load")
+    void ifDifferentKeysAreLoadedConcurrentlyThenEachWillRunItsOwnLoad() throws Exception {
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        CompletableFuture<String> firstCaller = CompletableFuture.supplyAsync(() -> singleFlight.execute(1, () -> {
+            loadStarted.countDown();
+            await(releaseLoad);
+            return "first";
+        }));
+        loadStarted.await(5, TimeUnit.SECONDS);
+
+        assertEquals("second", singleFlight.execute(2, () -> "second"));
+        releaseLoad.countDown();
+        assertEquals("first", firstCaller.get(5, TimeUnit.SECONDS));
+        assertEquals(0, singleFlight.getCoalesced());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
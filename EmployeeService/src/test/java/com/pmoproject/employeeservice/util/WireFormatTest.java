@@ -0,0 +1,87 @@
+package com.pmoproject.employeeservice.util;
+
+import com.pmoproject.employeeservice.models.domain.Employee;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeServiceResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.Map;
+
+import static com.pmoproject.employeeservice.MockTestDataUtil.createMockEmployee;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WireFormatTest {
+
+    @Nested
+    @DisplayName("Content Type Tests")
+    class ContentTypeTests {
+
+        @Test
+        @DisplayName("If a message has no content type, or the AMQP default, then it will be treated as JSON")
+        void ifAMessageHasNoContentTypeOrTheAmqpDefaultThenItWillBeTreatedAsJson() {
+            assertEquals(WireFormat.JSON, WireFormat.fromContentType(null));
+            assertEquals(WireFormat.JSON, WireFormat.fromContentType("application/octet-stream"));
+        }
+
+        @Test
+        @DisplayName("If a content type has parameters or differs in case then it will still be recognised")
+        void ifAContentTypeHasParametersOrDiffersInCaseThenItWillStillBeRecognised() {
+            assertEquals(WireFormat.JSON, WireFormat.fromContentType("application/json; charset=UTF-8"));
+            assertEquals(WireFormat.CBOR, WireFormat.fromContentType("Application/CBOR"));
+            assertEquals(WireFormat.SMILE, WireFormat.fromContentType("application/x-jackson-smile"));
+        }
+
+        @Test
+        @DisplayName("If a content type is not supported then an exception with an appropriate message will be thrown")
+        void ifAContentTypeIsNotSupportedThenAnExceptionWithAnAppropriateMessageWillBeThrown() {
+            Throwable exceptionThatWasThrown = assertThrows(IllegalArgumentException.class,
+                    () -> WireFormat.fromContentType("text/xml"));
+            assertEquals("Unsupported content type [text/xml]", exceptionThatWasThrown.getMessage());
+        }
+    }
+
+    @Nested
+    @DisplayName("Conversion Tests")
+    class ConversionTests {
+
+        @ParameterizedTest
+        @EnumSource(WireFormat.class)
+        @DisplayName("An employee written in a format is read back unchanged, dates included")
+        void anEmployeeWrittenInAFormatIsReadBackUnchanged(WireFormat format) throws IOException {
+            Employee employee = createMockEmployee();
+            employee.setId(1);
+            employee.setContract(true);
+            employee.setEndDate(LocalDateTime.of(2022, Month.APRIL, 8, 12, 30));
+
+            assertEquals(employee, format.readValue(format.writeValueAsBytes(employee), Employee.class));
+        }
+
+        @ParameterizedTest
+        @EnumSource(WireFormat.class)
+        @DisplayName("A response body read back in a format has the same structure as when read back from JSON")
+        void aResponseBodyReadBackInAFormatHasTheSameStructureAsWhenReadBackFromJson(WireFormat format) throws IOException {
+            EmployeeServiceResponse response = new EmployeeServiceResponse(true, null, createMockEmployee());
+
+            assertEquals(WireFormat.JSON.readValue(WireFormat.JSON.writeValueAsBytes(response), Map.class),
+                    format.readValue(format.writeValueAsBytes(response), Map.class));
+        }
+
+        @Test
+        @DisplayName("The binary formats encode an employee response in fewer bytes than JSON")
+        void theBinaryFormatsEncodeAnEmployeeResponseInFewerBytesThanJson() throws IOException {
+            EmployeeServiceResponse response = new EmployeeServiceResponse(true, null, createMockEmployee());
+            int jsonSize = WireFormat.JSON.writeValueAsBytes(response).length;
+
+            assertTrue(WireFormat.CBOR.writeValueAsBytes(response).length < jsonSize);
+            assertTrue(WireFormat.SMILE.writeValueAsBytes(response).length < jsonSize);
+        }
+    }
+}
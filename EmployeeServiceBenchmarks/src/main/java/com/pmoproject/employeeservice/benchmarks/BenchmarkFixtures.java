@@ -0,0 +1,234 @@
+package com.pmoproject.employeeservice.benchmarks;
+
+import com.pmoproject.employeeservice.controllers.EmployeeServiceController;
+import com.pmoproject.employeeservice.listener.EmployeeQueueListener;
+import com.pmoproject.employeeservice.listener.ReplyEncoder;
+import com.pmoproject.employeeservice.listener.ReplyPublisher;
+import com.pmoproject.employeeservice.listener.RequestAdmission;
+import com.pmoproject.employeeservice.metrics.EmployeeServiceMetrics;
+import com.pmoproject.employeeservice.models.domain.Area;
+import com.pmoproject.employeeservice.models.domain.Employee;
+import com.pmoproject.employeeservice.models.domain.EmployeeSnapshot;
+import com.pmoproject.employeeservice.models.domain.Location;
+import com.pmoproject.employeeservice.models.domain.Role;
+import com.pmoproject.employeeservice.repositories.DatabaseOutboxStore;
+import com.pmoproject.employeeservice.repositories.EmployeeMessageOutboxRepository;
+import com.pmoproject.employeeservice.repositories.EmployeeRepository;
+import com.pmoproject.employeeservice.repositories.OutboxStore;
+import com.pmoproject.employeeservice.services.EmployeeCache;
+import com.pmoproject.employeeservice.services.EmployeeMessageOutboxService;
+import com.pmoproject.employeeservice.services.EmployeeService;
+import com.pmoproject.employeeservice.services.OutboxConfirmProcessor;
+import com.pmoproject.employeeservice.services.OutboxIdempotencyGuard;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the objects used by the benchmarks: example data, in-memory stubs of the repositories and a
+ * <code>RabbitTemplate</code> that publishes nothing, so the benchmarks measure the service's own code rather than MySQL
+ * or RabbitMQ
+ */
+public class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Creates an example employee with an area, role and location
+     *
+     * @param id id of the employee
+     * @return an example employee
+     */
+    public static Employee createEmployee(int id) {
+        Area area = new Area();
+        area.setId(1);
+        area.setArea("exampleArea");
+        Role role = new Role();
+        role.setId(2);
+        role.setRole("exampleRole");
+        Location location = new Location();
+        location.setId(3);
+        location.setLocation("exampleLocation");
+        Employee employee = new Employee();
+        employee.setId(id);
+        employee.setName("exampleName");
+        employee.setArea(area);
+        employee.setRole(role);
+        employee.setLocation(location);
+        employee.setInPlace(true);
+        employee.setContract(true);
+        employee.setStartDate(LocalDateTime.of(2021, Month.APRIL, 8, 12, 30));
+        employee.setEndDate(LocalDateTime.of(2022, Month.APRIL, 8, 12, 30));
+        return employee;
+    }
+
+    /**
+     * Creates an employee queue listener wired to in-memory stubs, holding example employees with the ids 1 to 10. Its
+     * metrics are recorded in a simple in-memory registry, as the service would record them in its Prometheus registry
+     *
+     * @param rabbitTemplate the template replies are sent through
+     * @return a listener ready to handle requests
+     */
+    public static EmployeeQueueListener createListener(RabbitTemplate rabbitTemplate) {
+        Map<Integer, Employee> employees = new ConcurrentHashMap<>();
+        for (int id = 1; id <= 10; id++) {
+            employees.put(id, createEmployee(id));
+        }
+        EmployeeRepository employeeRepository = createEmployeeRepository(employees);
+        OutboxStore outboxStore = new DatabaseOutboxStore(createOutboxRepository());
+        OutboxIdempotencyGuard outboxIdempotencyGuard = new OutboxIdempotencyGuard(outboxStore, true, 100000, 0.01, 1000, 0);
+        outboxIdempotencyGuard.seedFromOutbox();
+        EmployeeMessageOutboxService outboxService = new EmployeeMessageOutboxService(outboxStore, outboxIdempotencyGuard);
+        EmployeeService employeeService = new EmployeeService(employeeRepository,
+                new EmployeeCache(employeeRepository, true, 1000, 300000, 2000));
+        EmployeeServiceMetrics employeeServiceMetrics = new EmployeeServiceMetrics(new SimpleMeterRegistry());
+        return new EmployeeQueueListener(outboxService, rabbitTemplate,
+                new EmployeeServiceController(employeeService, employeeServiceMetrics),
+                new OutboxConfirmProcessor(outboxService, 100, 200, 100000), employeeServiceMetrics,
+                new RequestAdmission(0, 0), new ReplyEncoder(4096, "lz4"), new StubTransactionManager(),
+                new ReplyPublisher(rabbitTemplate, employeeServiceMetrics, 500, 30000), 500);
+    }
+
+    /**
+     * Creates an in-memory stub of the employee repository, supporting the methods used while handling requests
+     *
+     * @param employees the employees held by the stub, keyed by id
+     * @return a stub employee repository
+     */
+    public static EmployeeRepository createEmployeeRepository(Map<Integer, Employee> employees) {
+        return createStub(EmployeeRepository.class, (methodName, args) -> {
+            switch (methodName) {
+                case "findById":
+                    return Optional.ofNullable(employees.get((Integer) args[0]));
+                case "findSnapshotById":
+                    return Optional.ofNullable(employees.get((Integer) args[0])).map(EmployeeSnapshot::of);
+                case "findAllWithReferencesByIdIn":
+                    return ((Collection<?>) args[0]).stream().map(employees::get).filter(Objects::nonNull)
+                            .collect(Collectors.toList());
+                case "save":
+                    Employee employee = (Employee) args[0];
+                    employees.put(employee.getId(), employee);
+                    return employee;
+                default:
+                    throw new UnsupportedOperationException(methodName);
+            }
+        });
+    }
+
+    /**
+     * Creates an in-memory stub of the outbox repository that holds nothing, so every request is handled in full
+     *
+     * @return a stub outbox repository
+     */
+    public static EmployeeMessageOutboxRepository createOutboxRepository() {
+        return createStub(EmployeeMessageOutboxRepository.class, (methodName, args) -> {
+            switch (methodName) {
+                case "findEmployeeMessageOutboxItemByCorrelationId":
+                    return Optional.empty();
+                case "findAllByCorrelationIdIn":
+                case "findCorrelationIdChunk":
+                    return Collections.emptyList();
+                case "save":
+                case "saveAll":
+                    return args[0];
+                case "deleteAllByCorrelationIdIn":
+                    return 0;
+                default:
+                    throw new UnsupportedOperationException(methodName);
+            }
+        });
+    }
+
+    private static <T> T createStub(Class<T> repositoryType, StubMethod stubMethod) {
+        return repositoryType.cast(Proxy.newProxyInstance(repositoryType.getClassLoader(), new Class<?>[]{repositoryType},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return repositoryType.getSimpleName() + " stub";
+                        default:
+                            return stubMethod.invoke(method.getName(), args);
+                    }
+                }));
+    }
+
+    /**
+     * A method of a stub repository, dispatched on the method name
+     */
+    @FunctionalInterface
+    private interface StubMethod {
+        Object invoke(String methodName, Object[] args);
+    }
+
+    /**
+     * A <code>RabbitTemplate</code> that keeps the last reply it was asked to send instead of publishing it, acking it
+     * straight away so that it never holds a slot of the reply publisher's window
+     */
+    public static class StubRabbitTemplate extends RabbitTemplate {
+        private volatile Message lastMessage;
+
+        @Override
+        public void send(String exchange, String routingKey, Message message, CorrelationData correlationData) {
+            lastMessage = message;
+            if (correlationData != null) {
+                correlationData.getFuture().set(new CorrelationData.Confirm(true, null));
+            }
+        }
+
+        public Message getLastMessage() {
+            return lastMessage;
+        }
+    }
+
+    /**
+     * A transaction manager whose transactions do nothing, as the stub repositories have nothing to commit
+     */
+    public static class StubTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+
+    /**
+     * @return the request bodies of each request type, keyed by the request type's name
+     */
+    public static Map<String, Object> createRequestBodies() {
+        return Map.of("CREATE_EMPLOYEE", createEmployee(11),
+                "GET_EMPLOYEE_BY_ID", 1,
+                "GET_EMPLOYEES_BY_IDS", List.of(1, 2, 3, 99));
+    }
+}
@@ -0,0 +1,75 @@
+package com.pmoproject.employeeservice.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.pmoproject.employeeservice.models.domain.Employee;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeServiceRequest;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeServiceResponse;
+import com.pmoproject.employeeservice.util.JacksonUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the {@link JacksonUtils} conversions made for every message: the request body into an
+ * <code>Employee</code>, and the <code>Employee</code> and <code>EmployeeServiceResponse</code> to and from JSON
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JacksonUtilsBenchmark {
+    private Employee employee;
+    private byte[] employeeJson;
+    private EmployeeServiceResponse response;
+    private byte[] responseJson;
+    private Object employeeRequestBody;
+
+    @Setup
+    public void setUp() throws IOException {
+        employee = BenchmarkFixtures.createEmployee(1);
+        employeeJson = JacksonUtils.convertObjectToJsonBytes(employee);
+        response = new EmployeeServiceResponse(true, null, employee);
+        responseJson = JacksonUtils.convertObjectToJsonBytes(response);
+        EmployeeServiceRequest request = new EmployeeServiceRequest();
+        request.setRequestBody(employee);
+        employeeRequestBody = JacksonUtils.convertJsonToObject(JacksonUtils.convertObjectToJsonBytes(request),
+                EmployeeServiceRequest.class).getRequestBody();
+    }
+
+    @Benchmark
+    public byte[] serializeEmployee() throws JsonProcessingException {
+        return JacksonUtils.convertObjectToJsonBytes(employee);
+    }
+
+    @Benchmark
+    public Employee deserializeEmployee() throws IOException {
+        return JacksonUtils.convertJsonToObject(employeeJson, Employee.class);
+    }
+
+    @Benchmark
+    public Employee convertRequestBodyToEmployee() {
+        return JacksonUtils.convertJsonToObject(employeeRequestBody, Employee.class);
+    }
+
+    @Benchmark
+    public byte[] serializeResponse() throws JsonProcessingException {
+        return JacksonUtils.convertObjectToJsonBytes(response);
+    }
+
+    @Benchmark
+    public EmployeeServiceResponse deserializeResponse() throws IOException {
+        return JacksonUtils.convertJsonToObject(responseJson, EmployeeServiceResponse.class);
+    }
+}
@@ -0,0 +1,64 @@
+package com.pmoproject.employeeservice.benchmarks;
+
+import com.pmoproject.employeeservice.listener.EmployeeQueueListener;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeServiceRequest;
+import com.pmoproject.employeeservice.models.rabbitmq.RequestType;
+import com.pmoproject.employeeservice.util.JacksonUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the whole handling of a request message by {@link EmployeeQueueListener#listen}, from the conversion of
+ * the message body the container makes before calling it, through the outbox lookup, routing and outbox write, to the
+ * reply being sent. Every message has a new correlation id, as it would in production
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ListenBenchmark {
+    @Param({"CREATE_EMPLOYEE", "GET_EMPLOYEE_BY_ID", "GET_EMPLOYEES_BY_IDS"})
+    private RequestType requestType;
+
+    private BenchmarkFixtures.StubRabbitTemplate rabbitTemplate;
+    private EmployeeQueueListener employeeQueueListener;
+    private byte[] requestJson;
+    private long correlationIdSequence;
+
+    @Setup
+    public void setUp() throws IOException {
+        rabbitTemplate = new BenchmarkFixtures.StubRabbitTemplate();
+        employeeQueueListener = BenchmarkFixtures.createListener(rabbitTemplate);
+        EmployeeServiceRequest request = new EmployeeServiceRequest();
+        request.setRequestBody(BenchmarkFixtures.createRequestBodies().get(requestType.name()));
+        requestJson = JacksonUtils.convertObjectToJsonBytes(request);
+    }
+
+    @Benchmark
+    public Message listen() throws IOException {
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setCorrelationId("benchmark-" + correlationIdSequence++);
+        messageProperties.setReplyTo("benchmarkReplyQueue");
+        messageProperties.setHeader("requestType", requestType.name());
+        Message message = new Message(requestJson, messageProperties);
+        employeeQueueListener.listen(JacksonUtils.convertJsonToObject(message.getBody(), EmployeeServiceRequest.class),
+                requestType, message);
+        return rabbitTemplate.getLastMessage();
+    }
+}
@@ -0,0 +1,83 @@
+package com.pmoproject.employeeservice.benchmarks;
+
+import com.pmoproject.employeeservice.models.domain.EmployeeMessageOutboxItem;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeServiceResponse;
+import com.pmoproject.employeeservice.repositories.SegmentLogOutboxStore;
+import com.pmoproject.employeeservice.util.WireFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Benchmarks the outbox work done for each message when outbox items are kept in the {@link SegmentLogOutboxStore}: the
+ * idempotency lookup of a new correlation id, the write of its reply and, as its confirm would, the removal of the reply.
+ * With the database store each of these is a round trip to MySQL. Segments are compacted every iteration, as the
+ * scheduled compaction would, so the log does not grow without bound
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SegmentLogOutboxStoreBenchmark {
+    @Param({"false", "true"})
+    private boolean forceOnWrite;
+
+    private Path directory;
+    private SegmentLogOutboxStore outboxStore;
+    private byte[] payload;
+    private long correlationIdSequence;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("outbox-benchmark");
+        outboxStore = new SegmentLogOutboxStore(directory, 64 * 1024 * 1024, 0, 0.5, forceOnWrite);
+        payload = WireFormat.JSON.writeValueAsBytes(new EmployeeServiceResponse(true, null, BenchmarkFixtures.createEmployee(1)));
+    }
+
+    @TearDown(Level.Iteration)
+    public void compact() throws IOException {
+        outboxStore.compactSegments();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        outboxStore.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public int lookupSaveAndRemove() {
+        String correlationId = "benchmark-" + correlationIdSequence++;
+        if (outboxStore.findByCorrelationId(correlationId).isPresent()) {
+            throw new IllegalStateException(correlationId);
+        }
+        outboxStore.saveAll(List.of(new EmployeeMessageOutboxItem(correlationId, "benchmarkReplyQueue",
+                LocalDateTime.now(), payload, WireFormat.JSON.getContentType(), WireFormat.JSON.getContentEncoding())));
+        return outboxStore.deleteAllByCorrelationIdIn(List.of(correlationId));
+    }
+}
@@ -0,0 +1,72 @@
+package com.pmoproject.employeeservice.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.pmoproject.employeeservice.models.domain.Employee;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeSearchPage;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeServiceResponse;
+import com.pmoproject.employeeservice.util.WireFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Compares the {@link WireFormat}s on the replies the service sends: the cost of encoding an
+ * <code>EmployeeServiceResponse</code> and of decoding it as a caller would. The encoded size of each response is
+ * printed when the benchmark is set up, since JMH only reports times. Responses hold either a single
+ * <code>Employee</code> or a search page of 100
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WireFormatBenchmark {
+    @Param({"JSON", "CBOR", "SMILE"})
+    private WireFormat format;
+
+    @Param({"1", "100"})
+    private int employeeCount;
+
+    private EmployeeServiceResponse response;
+    private byte[] encodedResponse;
+
+    @Setup
+    public void setUp() throws IOException {
+        if (employeeCount == 1) {
+            response = new EmployeeServiceResponse(true, null, BenchmarkFixtures.createEmployee(1));
+        } else {
+            List<Employee> employees = IntStream.rangeClosed(1, employeeCount)
+                    .mapToObj(BenchmarkFixtures::createEmployee)
+                    .collect(Collectors.toList());
+            response = new EmployeeServiceResponse(true, null, new EmployeeSearchPage(employees, employeeCount));
+        }
+        encodedResponse = format.writeValueAsBytes(response);
+        System.out.printf("%n%s response with %d employee(s): %d bytes (JSON: %d bytes)%n", format, employeeCount,
+                encodedResponse.length, WireFormat.JSON.writeValueAsBytes(response).length);
+    }
+
+    @Benchmark
+    public byte[] encodeResponse() throws JsonProcessingException {
+        return format.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public EmployeeServiceResponse decodeResponse() throws IOException {
+        return format.readValue(encodedResponse, EmployeeServiceResponse.class);
+    }
+}
@@ -0,0 +1,53 @@
+package com.pmoproject.employeeservice.listener;
+
+import com.pmoproject.employeeservice.benchmarks.BenchmarkFixtures;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeServiceRequest;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeServiceResponse;
+import com.pmoproject.employeeservice.models.rabbitmq.RequestType;
+import com.pmoproject.employeeservice.util.JacksonUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link EmployeeQueueListener#routeRequest(Object, RequestType)} for each request type, with a request body
+ * as the container hands it to the listener. Lives in the listener's package, as the method is package-private
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RouteRequestBenchmark {
+    @Param({"CREATE_EMPLOYEE", "GET_EMPLOYEE_BY_ID", "GET_EMPLOYEES_BY_IDS"})
+    private RequestType requestType;
+
+    private EmployeeQueueListener employeeQueueListener;
+    private Object requestBody;
+
+    @Setup
+    public void setUp() throws IOException {
+        employeeQueueListener = BenchmarkFixtures.createListener(new BenchmarkFixtures.StubRabbitTemplate());
+        EmployeeServiceRequest request = new EmployeeServiceRequest();
+        request.setRequestBody(BenchmarkFixtures.createRequestBodies().get(requestType.name()));
+        requestBody = JacksonUtils.convertJsonToObject(JacksonUtils.convertObjectToJsonBytes(request),
+                EmployeeServiceRequest.class).getRequestBody();
+    }
+
+    @Benchmark
+    public EmployeeServiceResponse routeRequest() {
+        return employeeQueueListener.routeRequest(requestBody, requestType);
+    }
+}
@@ -0,0 +1,69 @@
+package com.pmoproject.employeeservice.loadtest;
+
+import org.apache.qpid.server.SystemLauncher;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An in-process AMQP 0-9-1 broker (Qpid Broker-J) with an in-memory virtual host, so that the employee service can be
+ * load tested without a RabbitMQ instance. Accepts the guest/guest credentials the service defaults to.
+ * <p>
+ * Qpid does not support RabbitMQ's dead-letter queue arguments, so it is told to ignore unknown queue arguments rather
+ * than refusing the service's queue declarations. Rejected requests are therefore dropped rather than dead-lettered
+ */
+public class EmbeddedBroker implements AutoCloseable {
+    private static final String INITIAL_CONFIGURATION = "qpid-initial-config.json";
+
+    private final SystemLauncher systemLauncher = new SystemLauncher();
+    private final int port;
+
+    private EmbeddedBroker(int port) {
+        this.port = port;
+    }
+
+    /**
+     * Starts a broker listening on a free local port
+     *
+     * @return the started broker
+     * @throws Exception if the broker fails to start
+     */
+    public static EmbeddedBroker start() throws Exception {
+        EmbeddedBroker broker = new EmbeddedBroker(findFreePort());
+        Path workDirectory = Files.createTempDirectory("qpid-work");
+        workDirectory.toFile().deleteOnExit();
+
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("type", "Memory");
+        attributes.put("initialConfigurationLocation",
+                EmbeddedBroker.class.getClassLoader().getResource(INITIAL_CONFIGURATION).toExternalForm());
+        attributes.put("startupLoggedToSystemOut", false);
+        attributes.put("context", Map.of("qpid.amqp_port", String.valueOf(broker.port),
+                "qpid.work_dir", workDirectory.toString(),
+                "queue.behaviourOnUnknownDeclareArgument", "IGNORE"));
+        broker.systemLauncher.startup(attributes);
+        return broker;
+    }
+
+    /**
+     * @return the port the broker accepts AMQP connections on
+     */
+    public int getPort() {
+        return port;
+    }
+
+    @Override
+    public void close() {
+        systemLauncher.shutdown();
+    }
+
+    private static int findFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
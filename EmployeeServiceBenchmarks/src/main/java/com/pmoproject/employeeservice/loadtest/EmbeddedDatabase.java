@@ -0,0 +1,110 @@
+package com.pmoproject.employeeservice.loadtest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.regex.Pattern;
+
+/**
+ * An in-memory H2 database in MySQL mode, created from the same <code>SQL/setup.sql</code> script as the real database,
+ * so that the employee service can be load tested without a MySQL instance.
+ * <p>
+ * The script is MySQL Workbench output, so the few statements and clauses H2 does not understand are removed before it
+ * is run: the session variable <code>SET</code>s, <code>VISIBLE</code> index markers, <code>ENGINE</code> clauses and
+ * the schema's character set
+ */
+public class EmbeddedDatabase implements AutoCloseable {
+    public static final String SCHEMA_NAME = "pmo_pipeline";
+
+    private static final Pattern SESSION_VARIABLE_SET = Pattern.compile("(?m)^SET (@|SQL_MODE|FOREIGN_KEY_CHECKS|UNIQUE_CHECKS).*$");
+    private static final Pattern VISIBLE = Pattern.compile("\\s+VISIBLE\\b");
+    private static final Pattern ENGINE = Pattern.compile("(?m)^ENGINE = \\w+;");
+    private static final Pattern CHARACTER_SET = Pattern.compile("\\s+DEFAULT CHARACTER SET \\w+");
+    private static final Pattern USE_SCHEMA = Pattern.compile("(?m)^USE `(\\w+)` ;");
+
+    private final String url;
+    private final Connection keepAliveConnection;
+
+    private EmbeddedDatabase(String url) throws SQLException {
+        this.url = url;
+        // An in-memory H2 database is dropped once its last connection is closed
+        this.keepAliveConnection = DriverManager.getConnection(url, "sa", "");
+    }
+
+    /**
+     * Creates the database from the setup script and seeds it with reference data and employees
+     *
+     * @param setupScript    path of <code>SQL/setup.sql</code>
+     * @param employeeCount  the number of employees to seed, with the ids 1 to <code>employeeCount</code>
+     * @return the created database
+     * @throws IOException  if the setup script cannot be read
+     * @throws SQLException if the setup script or the seed data fails
+     */
+    public static EmbeddedDatabase create(Path setupScript, int employeeCount) throws IOException, SQLException {
+        EmbeddedDatabase database = new EmbeddedDatabase("jdbc:h2:mem:" + SCHEMA_NAME
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE");
+        try (Statement statement = database.keepAliveConnection.createStatement()) {
+            for (String sql : adaptSetupScript(Files.readString(setupScript, StandardCharsets.UTF_8)).split(";")) {
+                if (!sql.isBlank()) {
+                    statement.execute(sql);
+                }
+            }
+        }
+        database.seed(employeeCount);
+        return database;
+    }
+
+    /**
+     * Removes the MySQL specific parts of the setup script that H2 does not understand
+     *
+     * @param setupScript the contents of the setup script
+     * @return a script H2 can run
+     */
+    static String adaptSetupScript(String setupScript) {
+        String script = setupScript.replaceAll("(?m)^--.*$", "");
+        script = SESSION_VARIABLE_SET.matcher(script).replaceAll("");
+        script = VISIBLE.matcher(script).replaceAll("");
+        script = ENGINE.matcher(script).replaceAll(";");
+        script = CHARACTER_SET.matcher(script).replaceAll("");
+        return USE_SCHEMA.matcher(script).replaceAll("SET SCHEMA `$1` ;");
+    }
+
+    private void seed(int employeeCount) throws SQLException {
+        try (Statement statement = keepAliveConnection.createStatement()) {
+            statement.execute("SET SCHEMA `" + SCHEMA_NAME + "`");
+            statement.execute("INSERT INTO `Area` (`AreaId`, `Area`) VALUES (1, 'Engineering')");
+            statement.execute("INSERT INTO `Role` (`RoleId`, `Role`) VALUES (1, 'Developer')");
+            statement.execute("INSERT INTO `Location` (`LocationId`, `Location`) VALUES (1, 'Manchester')");
+        }
+        try (PreparedStatement statement = keepAliveConnection.prepareStatement("INSERT INTO `Employee` (`EmployeeId`, " +
+                "`Name`, `AreaId`, `RoleId`, `LocationId`, `InPlace`, `Contract`, `StartDate`, `Archived`) " +
+                "VALUES (?, ?, 1, 1, 1, TRUE, FALSE, ?, FALSE)")) {
+            for (int id = 1; id <= employeeCount; id++) {
+                statement.setInt(1, id);
+                statement.setString(2, "Employee " + id);
+                statement.setObject(3, LocalDateTime.of(2021, 1, 1, 9, 0));
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * @return the JDBC url the service should connect to, with the setup script's schema as the default schema
+     */
+    public String getUrl() {
+        return url + ";SCHEMA=" + SCHEMA_NAME;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        keepAliveConnection.close();
+    }
+}
@@ -0,0 +1,59 @@
+package com.pmoproject.employeeservice.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records round-trip latencies and reports their percentiles. Every latency is kept, which is fine for the few hundred
+ * thousand round trips of a load test run
+ */
+public class LatencyRecorder {
+    private long[] latencies = new long[1024];
+    private int count;
+
+    /**
+     * Records a round trip
+     *
+     * @param latencyNanos the round-trip latency, in nanoseconds
+     */
+    public synchronized void record(long latencyNanos) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = latencyNanos;
+    }
+
+    /**
+     * @return the number of round trips recorded
+     */
+    public synchronized int getCount() {
+        return count;
+    }
+
+    /**
+     * Gets a percentile of the recorded latencies
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the latency (in milliseconds) that the given percentage of round trips took at most, or 0 if none were recorded
+     */
+    public synchronized double getPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100 * count) - 1;
+        return toMillis(sorted[Math.max(0, Math.min(count - 1, index))]);
+    }
+
+    /**
+     * @return the highest latency recorded, in milliseconds
+     */
+    public synchronized double getMax() {
+        return getPercentile(100);
+    }
+
+    private static double toMillis(long nanos) {
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
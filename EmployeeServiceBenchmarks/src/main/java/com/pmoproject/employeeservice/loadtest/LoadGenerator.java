@@ -0,0 +1,230 @@
+package com.pmoproject.employeeservice.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.pmoproject.employeeservice.configuration.rabbitmq.RabbitMqConfig;
+import com.pmoproject.employeeservice.listener.RequestAdmission;
+import com.pmoproject.employeeservice.models.domain.Employee;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeServiceRequest;
+import com.pmoproject.employeeservice.models.rabbitmq.EmployeeServiceResponse;
+import com.pmoproject.employeeservice.models.rabbitmq.RequestType;
+import com.pmoproject.employeeservice.util.JacksonUtils;
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.DirectMessageListenerContainer;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends a mix of CREATE_EMPLOYEE and GET_EMPLOYEE_BY_ID requests to the employee service, as a real caller would (with a
+ * correlation id, a reply-to queue and a deadline as far off as the reply timeout), and records the round-trip latency of
+ * each reply.
+ * <p>
+ * In fixed-rate mode requests are sent on a fixed schedule whatever the replies do, and each latency is measured from
+ * when the request was due to be sent, so that a stalled service is not hidden by the generator stalling with it. In
+ * closed-loop mode a fixed number of requests are outstanding at any time, each reply triggering the next request.
+ * <p>
+ * Requests go to the shared employee service queue, or to the read and write queues when split queues are chosen
+ */
+public class LoadGenerator implements AutoCloseable {
+    private final LoadTestSettings settings;
+    private final CachingConnectionFactory connectionFactory;
+    private final RabbitTemplate rabbitTemplate;
+    private final Queue replyQueue;
+    private final DirectMessageListenerContainer replyContainer;
+    private final Map<String, Long> outstandingRequests = new ConcurrentHashMap<>();
+    private final AtomicInteger nextEmployeeId;
+
+    private final LatencyRecorder latencyRecorder = new LatencyRecorder();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong completedWithinMeasurement = new AtomicLong();
+    private final AtomicLong failedResponses = new AtomicLong();
+    private volatile long measurementStart;
+    private volatile long measurementEnd;
+    private volatile boolean sending;
+
+    /**
+     * Used to instantiate an object of this class
+     *
+     * @param settings   the load to generate
+     * @param brokerPort the port of the broker the employee service consumes from
+     */
+    public LoadGenerator(LoadTestSettings settings, int brokerPort) {
+        this.settings = settings;
+        this.nextEmployeeId = new AtomicInteger(settings.getEmployeeCount());
+        this.connectionFactory = new CachingConnectionFactory("localhost", brokerPort);
+        connectionFactory.setUsername("guest");
+        connectionFactory.setPassword("guest");
+        this.rabbitTemplate = new RabbitTemplate(connectionFactory);
+        this.replyQueue = new AnonymousQueue();
+        new RabbitAdmin(connectionFactory).declareQueue(replyQueue);
+        this.replyContainer = new DirectMessageListenerContainer(connectionFactory);
+        replyContainer.setQueueNames(replyQueue.getName());
+        replyContainer.setConsumersPerQueue(2);
+        replyContainer.setMessageListener(this::onReply);
+    }
+
+    /**
+     * Runs a warm-up phase, whose round trips are discarded, then the measured phase, then waits for the replies to the
+     * requests sent during the measured phase
+     *
+     * @return the results of the measured phase
+     * @throws InterruptedException if interrupted while running
+     */
+    public LoadTestResult run() throws InterruptedException {
+        replyContainer.start();
+        measurementStart = System.nanoTime() + TimeUnit.SECONDS.toNanos(settings.getWarmupSeconds());
+        measurementEnd = measurementStart + TimeUnit.SECONDS.toNanos(settings.getDurationSeconds());
+        sending = true;
+        if (settings.getMode() == LoadTestSettings.Mode.FIXED_RATE) {
+            runFixedRate(measurementEnd);
+        } else {
+            runClosedLoop(measurementEnd);
+        }
+        sending = false;
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(settings.getReplyTimeoutSeconds());
+        while (!outstandingRequests.isEmpty() && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        long timedOut = outstandingRequests.values().stream().filter(this::isMeasured).count();
+        return new LoadTestResult(settings, latencyRecorder, sent.get(), completedWithinMeasurement.get(),
+                failedResponses.get(), timedOut);
+    }
+
+    /**
+     * @param startNanos the time a round trip is measured from
+     * @return whether the request was sent during the measured phase
+     */
+    private boolean isMeasured(long startNanos) {
+        return startNanos >= measurementStart && startNanos < measurementEnd;
+    }
+
+    /**
+     * Sends requests at the configured rate until the end of the run, each due time following the previous one
+     *
+     * @param end when to stop sending
+     */
+    private void runFixedRate(long end) {
+        long interval = TimeUnit.SECONDS.toNanos(1) / settings.getRate();
+        long due = System.nanoTime();
+        while (due < end) {
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            sendRequest(due);
+            due += interval;
+        }
+    }
+
+    /**
+     * Sends the configured number of concurrent requests, then waits for the end of the run while each reply sends the next
+     *
+     * @param end when to stop sending
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private void runClosedLoop(long end) throws InterruptedException {
+        for (int i = 0; i < settings.getConcurrency(); i++) {
+            sendRequest(System.nanoTime());
+        }
+        long remaining;
+        while ((remaining = end - System.nanoTime()) > 0) {
+            TimeUnit.NANOSECONDS.sleep(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(100)));
+        }
+    }
+
+    /**
+     * Sends a single request, choosing its type according to the configured mix
+     *
+     * @param startNanos the time the round trip is measured from
+     */
+    private void sendRequest(long startNanos) {
+        boolean create = ThreadLocalRandom.current().nextDouble() < settings.getCreateRatio();
+        RequestType requestType = create ? RequestType.CREATE_EMPLOYEE : RequestType.GET_EMPLOYEE_BY_ID;
+        EmployeeServiceRequest request = new EmployeeServiceRequest();
+        request.setRequestBody(create ? createEmployee(nextEmployeeId.incrementAndGet())
+                : ThreadLocalRandom.current().nextInt(1, settings.getEmployeeCount() + 1));
+        String correlationId = UUID.randomUUID().toString();
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        messageProperties.setCorrelationId(correlationId);
+        messageProperties.setReplyTo(replyQueue.getName());
+        messageProperties.setHeader("requestType", requestType.name());
+        messageProperties.setHeader(RequestAdmission.DEADLINE_HEADER,
+                System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(settings.getReplyTimeoutSeconds()));
+        try {
+            Message message = new Message(JacksonUtils.convertObjectToJsonBytes(request), messageProperties);
+            outstandingRequests.put(correlationId, startNanos);
+            rabbitTemplate.send(RabbitMqConfig.EMPLOYEE_SERVICE_EXCHANGE_NAME, routingKeyFor(requestType), message);
+            if (isMeasured(startNanos)) {
+                sent.incrementAndGet();
+            }
+        } catch (JsonProcessingException exception) {
+            throw new IllegalStateException("Failed to serialize request", exception);
+        }
+    }
+
+    /**
+     * Records the round trip of a reply and, in closed-loop mode, sends the next request
+     *
+     * @param reply the reply from the employee service
+     */
+    private void onReply(Message reply) {
+        long now = System.nanoTime();
+        Long startNanos = outstandingRequests.remove(reply.getMessageProperties().getCorrelationId());
+        if (startNanos == null) {
+            return;
+        }
+        if (now >= measurementStart && now < measurementEnd) {
+            completedWithinMeasurement.incrementAndGet();
+        }
+        if (isMeasured(startNanos)) {
+            latencyRecorder.record(now - startNanos);
+            try {
+                if (!JacksonUtils.convertJsonToObject(reply.getBody(), EmployeeServiceResponse.class).isSuccess()) {
+                    failedResponses.incrementAndGet();
+                }
+            } catch (IOException exception) {
+                failedResponses.incrementAndGet();
+            }
+        }
+        if (sending && settings.getMode() == LoadTestSettings.Mode.CLOSED_LOOP) {
+            sendRequest(System.nanoTime());
+        }
+    }
+
+    private String routingKeyFor(RequestType requestType) {
+        if (!settings.isSplitQueues()) {
+            return RabbitMqConfig.EMPLOYEE_SERVICE_ROUTING_KEY;
+        }
+        return RabbitMqConfig.getRoutingKey(requestType);
+    }
+
+    private static Employee createEmployee(int id) {
+        Employee employee = new Employee();
+        employee.setId(id);
+        employee.setName("Load Test Employee " + id);
+        employee.setInPlace(true);
+        employee.setStartDate(LocalDateTime.of(2021, 1, 1, 9, 0));
+        return employee;
+    }
+
+    @Override
+    public void close() {
+        replyContainer.stop();
+        connectionFactory.destroy();
+    }
+}
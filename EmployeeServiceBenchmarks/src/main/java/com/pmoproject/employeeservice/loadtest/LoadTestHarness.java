@@ -0,0 +1,46 @@
+package com.pmoproject.employeeservice.loadtest;
+
+import com.pmoproject.employeeservice.EmployeeServiceApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Runs the employee service in-process against an {@link EmbeddedBroker} and an {@link EmbeddedDatabase}, drives it with
+ * a {@link LoadGenerator} and prints the round-trip latency percentiles and sustained throughput of the whole
+ * <code>EmployeeQueueListener</code> pipeline. See the README of this module for the available arguments
+ */
+public class LoadTestHarness {
+
+    private LoadTestHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromArguments(args);
+        try (EmbeddedBroker broker = EmbeddedBroker.start();
+             EmbeddedDatabase database = EmbeddedDatabase.create(settings.getSetupScript(), settings.getEmployeeCount());
+             ConfigurableApplicationContext employeeService = startEmployeeService(broker, database);
+             LoadGenerator loadGenerator = new LoadGenerator(settings, broker.getPort())) {
+            LoadTestResult result = loadGenerator.run();
+            System.out.println(result.toReport());
+        }
+    }
+
+    /**
+     * Starts the employee service with its normal configuration, pointed at the embedded broker and database. The
+     * overrides are passed as command line arguments, as those take precedence over the service's application.properties
+     *
+     * @param broker   the broker the service consumes from
+     * @param database the database the service reads and writes
+     * @return the running service
+     */
+    private static ConfigurableApplicationContext startEmployeeService(EmbeddedBroker broker, EmbeddedDatabase database) {
+        return new SpringApplicationBuilder(EmployeeServiceApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=" + database.getUrl(),
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.rabbitmq.host=localhost",
+                "--spring.rabbitmq.port=" + broker.getPort());
+    }
+}
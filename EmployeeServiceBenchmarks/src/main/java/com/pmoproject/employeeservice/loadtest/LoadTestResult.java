@@ -0,0 +1,38 @@
+package com.pmoproject.employeeservice.loadtest;
+
+import lombok.Data;
+
+/**
+ * Class representing the results of the measured phase of a load test run
+ */
+@Data
+public class LoadTestResult {
+    private final LoadTestSettings settings;
+    private final LatencyRecorder latencyRecorder;
+    private final long sent;
+    private final long completedWithinMeasurement;
+    private final long failedResponses;
+    private final long timedOut;
+
+    /**
+     * @return the number of replies received per second during the measured phase
+     */
+    public double getThroughput() {
+        return (double) completedWithinMeasurement / settings.getDurationSeconds();
+    }
+
+    /**
+     * @return a human readable report of the run
+     */
+    public String toReport() {
+        return String.join(System.lineSeparator(),
+                "Load: " + settings.describeLoad(),
+                String.format("Measured for %ds after a %ds warm-up", settings.getDurationSeconds(), settings.getWarmupSeconds()),
+                String.format("Requests sent: %d, replies: %d, failed responses: %d, timed out: %d",
+                        sent, latencyRecorder.getCount(), failedResponses, timedOut),
+                String.format("Sustained throughput: %.1f replies/s", getThroughput()),
+                String.format("Round-trip latency (ms): p50 %.2f, p95 %.2f, p99 %.2f, max %.2f",
+                        latencyRecorder.getPercentile(50), latencyRecorder.getPercentile(95),
+                        latencyRecorder.getPercentile(99), latencyRecorder.getMax()));
+    }
+}
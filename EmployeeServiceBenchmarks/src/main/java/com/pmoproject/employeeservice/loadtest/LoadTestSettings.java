@@ -0,0 +1,110 @@
+package com.pmoproject.employeeservice.loadtest;
+
+import lombok.Data;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Class representing the settings of a load test run, read from <code>--name=value</code> command line arguments
+ */
+@Data
+public class LoadTestSettings {
+    /**
+     * How requests are generated
+     */
+    public enum Mode {
+        /**
+         * Requests are sent at a fixed rate whatever the replies do
+         */
+        FIXED_RATE,
+        /**
+         * A fixed number of requests are outstanding at once, each reply triggering the next request
+         */
+        CLOSED_LOOP
+    }
+
+    private Mode mode = Mode.FIXED_RATE;
+    private int rate = 200;
+    private int concurrency = 16;
+    private double createRatio = 0.1;
+    private int employeeCount = 1000;
+    private int warmupSeconds = 10;
+    private int durationSeconds = 30;
+    private int replyTimeoutSeconds = 10;
+    private boolean splitQueues;
+    private Path setupScript = Path.of("../SQL/setup.sql");
+
+    /**
+     * Reads the settings from command line arguments, using the defaults for any that are not given
+     *
+     * @param args arguments of the form <code>--name=value</code>, for example <code>--mode=closed_loop</code>
+     * @return the settings
+     * @throws IllegalArgumentException if an argument is not recognised or its value is invalid
+     */
+    public static LoadTestSettings fromArguments(String[] args) {
+        Map<String, String> arguments = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException(String.format("Argument [%s] is not of the form --name=value", arg));
+            }
+            arguments.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        LoadTestSettings settings = new LoadTestSettings();
+        arguments.forEach((name, value) -> {
+            switch (name) {
+                case "mode":
+                    settings.setMode(Mode.valueOf(value.toUpperCase()));
+                    break;
+                case "rate":
+                    settings.setRate(Integer.parseInt(value));
+                    break;
+                case "concurrency":
+                    settings.setConcurrency(Integer.parseInt(value));
+                    break;
+                case "createRatio":
+                    settings.setCreateRatio(Double.parseDouble(value));
+                    break;
+                case "employeeCount":
+                    settings.setEmployeeCount(Integer.parseInt(value));
+                    break;
+                case "warmupSeconds":
+                    settings.setWarmupSeconds(Integer.parseInt(value));
+                    break;
+                case "durationSeconds":
+                    settings.setDurationSeconds(Integer.parseInt(value));
+                    break;
+                case "replyTimeoutSeconds":
+                    settings.setReplyTimeoutSeconds(Integer.parseInt(value));
+                    break;
+                case "splitQueues":
+                    settings.setSplitQueues(Boolean.parseBoolean(value));
+                    break;
+                case "setupScript":
+                    settings.setSetupScript(Path.of(value));
+                    break;
+                default:
+                    throw new IllegalArgumentException(String.format("Unrecognized argument [%s]", name));
+            }
+        });
+        if (settings.getRate() <= 0 || settings.getConcurrency() <= 0 || settings.getEmployeeCount() <= 0) {
+            throw new IllegalArgumentException("The rate, concurrency and employee count must be positive");
+        }
+        if (settings.getCreateRatio() < 0 || settings.getCreateRatio() > 1) {
+            throw new IllegalArgumentException("The create ratio must be between 0 and 1");
+        }
+        return settings;
+    }
+
+    /**
+     * @return a description of the load generated, for the report
+     */
+    public String describeLoad() {
+        String load = mode == Mode.FIXED_RATE ? String.format("fixed rate of %d requests/s", rate)
+                : String.format("closed loop with %d concurrent requests", concurrency);
+        return String.format("%s, %.0f%% CREATE_EMPLOYEE / %.0f%% GET_EMPLOYEE_BY_ID over %d employees, sent to %s", load,
+                createRatio * 100, (1 - createRatio) * 100, employeeCount,
+                splitQueues ? "the read and write queues" : "the shared queue");
+    }
+}
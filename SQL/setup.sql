@@ -144,6 +144,8 @@ CREATE TABLE IF NOT EXISTS `pmo_pipeline`.`Employee` (
   INDEX `Area_AreaId_Employee_AreaId_idx` (`AreaId` ASC) VISIBLE,
   INDEX `Location_LocationId_Employee_LocationId_idx` (`LocationId` ASC) VISIBLE,
   INDEX `Role_RoleId_Employee_RoleId_idx` (`RoleId` ASC) VISIBLE,
+  INDEX `Employee_AreaId_RoleId_idx` (`AreaId` ASC, `RoleId` ASC) VISIBLE,
+  INDEX `Employee_LocationId_Contract_InPlace_idx` (`LocationId` ASC, `Contract` ASC, `InPlace` ASC) VISIBLE,
   CONSTRAINT `Area_AreaId_Employee_AreaId`
     FOREIGN KEY (`AreaId`)
     REFERENCES `pmo_pipeline`.`Area` (`AreaId`)
@@ -162,6 +164,26 @@ CREATE TABLE IF NOT EXISTS `pmo_pipeline`.`Employee` (
 ENGINE = InnoDB;
 
 
+-- -----------------------------------------------------
+-- Table `pmo_pipeline`.`EmployeeMessageOutboxItem`
+-- -----------------------------------------------------
+DROP TABLE IF EXISTS `pmo_pipeline`.`EmployeeMessageOutboxItem` ;
+
+CREATE TABLE IF NOT EXISTS `pmo_pipeline`.`EmployeeMessageOutboxItem` (
+  `EmployeeMessageOutboxItemId` INT NOT NULL AUTO_INCREMENT,
+  `CorrelationId` VARCHAR(255) NOT NULL,
+  `ReplyTo` VARCHAR(255) NULL,
+  `MessageCreated` DATETIME NULL,
+  `Payload` LONGBLOB NOT NULL,
+  `ContentType` VARCHAR(100) NOT NULL DEFAULT 'application/json',
+  `ContentEncoding` VARCHAR(45) NULL,
+  `RelayClaimedBy` VARCHAR(64) NULL,
+  `RelayClaimedAt` DATETIME NULL,
+  PRIMARY KEY (`EmployeeMessageOutboxItemId`),
+  UNIQUE INDEX `CorrelationId_UNIQUE` (`CorrelationId` ASC) VISIBLE)
+ENGINE = InnoDB;
+
+
 -- -----------------------------------------------------
 -- Table `pmo_pipeline`.`ProjectRole`
 -- -----------------------------------------------------